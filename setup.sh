@@ -340,6 +340,8 @@ echo "# use experimental version 2 ABI encoder? Needed for constructs like struc
 echo "export CODEGEN_USE_ABI_ENCODER_V2=no"                                                                    >>"$GENERATED_SETTINGS_FILE"
 echo "# generate function arguments of struct type? Requires CODEGEN_USE_ABI_ENCODER_V2=yes which may be undesirable due to performance" >>"$GENERATED_SETTINGS_FILE"
 echo "export CODEGEN_ALLOW_STRUCTS_IN_FUNCTION_ABI=no"                                                        >>"$GENERATED_SETTINGS_FILE"
+echo "# directory to cache parsed contracts in for repeated runs on the same contract (empty = no caching)"    >>"$GENERATED_SETTINGS_FILE"
+echo "export AST_CACHE_DIR=\"\""                                                                               >>"$GENERATED_SETTINGS_FILE"
 echo                                                                                                           >>"$GENERATED_SETTINGS_FILE"
 echo "export NODEDIR=\"${SELECTED_NODE_DIR}\""                                                                 >>"$GENERATED_SETTINGS_FILE"
 echo "export PATH=\"${PWD}/soltix/bin:${PWD}/test-env-truffle/bin:${PWD}/test-env-truffle/tools:${PWD}/test-env-truffle/tools/external-solc:${PWD}/tools:${PWD}/tools/coordinator/bin:$PATH\""         >>"$GENERATED_SETTINGS_FILE"
@@ -0,0 +1,12 @@
+#!/bin/sh
+
+# Measure Solidity code output time and allocation for a generated contract, see EmitterBenchmark.java.
+# Examples:
+#
+#    benchmark-emitter.sh --iterations=5
+#    benchmark-emitter.sh 100 200 32
+
+BIN_DIR=`dirname $0`
+TARGET_DIR=`dirname $0`/../target
+
+exec java -Xmn16m -cp "$TARGET_DIR"/soltix-1.0-SNAPSHOT.jar:"$BIN_DIR"/log4j-1.2.14.jar:"$BIN_DIR"/json-simple-1.1.jar:"$BIN_DIR"/bcprov-jdk15on-1.60.jar soltix.benchmark.EmitterBenchmark "$@"
@@ -0,0 +1,12 @@
+#!/bin/sh
+
+# Compare parse time and peak heap of the streaming and the document-based AST-JSON parser, see
+# ParserBenchmark.java. Examples:
+#
+#    benchmark-parser.sh --iterations=5 large-contract.ast-json
+#    benchmark-parser.sh --compact large-contract.ast-compact-json
+
+BIN_DIR=`dirname $0`
+TARGET_DIR=`dirname $0`/../target
+
+exec java -Xmn16m -cp "$TARGET_DIR"/soltix-1.0-SNAPSHOT.jar:"$BIN_DIR"/log4j-1.2.14.jar:"$BIN_DIR"/json-simple-1.1.jar:"$BIN_DIR"/bcprov-jdk15on-1.60.jar soltix.benchmark.ParserBenchmark "$@"
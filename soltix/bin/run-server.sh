@@ -0,0 +1,37 @@
+#!/bin/sh
+
+# Start a long-running soltix process that reads one job per line from stdin and writes one exit status line
+# per job to stdout, see SoltixServer.java for the request format. Example:
+#
+#    echo "--input=/tmp/contract.ast-json --solidityOutput=/tmp/out.sol" | run-server.sh
+
+SETTINGS=`dirname $0`/../../settings.cfg.sh
+if ! . "$SETTINGS"; then
+        echo Error: Cannot load settings file $SETTINGS - please run setup.sh >&2
+        exit 1
+fi
+
+BIN_DIR=`dirname $0`
+TARGET_DIR=`dirname $0`/../target
+
+LOG4J_CONFIG=`dirname $0`/../config/log4j.properties
+export LOG4J_CONFIG
+
+# Same settings as in run.sh, passed on to every job
+if test "$CODEGEN_AVOID_EXP_OPERATOR" = yes; then
+	EXTRAARGS="$EXTRAARGS --avoidExponentialOperator"
+fi
+if test "$CODEGEN_AVOID_SHIFT_OPERATORS" = yes; then
+	EXTRAARGS="$EXTRAARGS --avoidShiftOperators"
+fi
+if test "$CODEGEN_USE_ABI_ENCODER_V2" = yes; then
+	EXTRAARGS="$EXTRAARGS --useABIEncoderV2"
+fi
+if test "$CODEGEN_ALLOW_STRUCTS_IN_FUNCTION_ABI" = yes; then
+	EXTRAARGS="$EXTRAARGS --allowStructsInFunctionABI"
+fi
+if test -n "$AST_CACHE_DIR"; then
+	EXTRAARGS="$EXTRAARGS --astCache=$AST_CACHE_DIR"
+fi
+
+exec java -cp "$TARGET_DIR"/soltix-1.0-SNAPSHOT.jar:"$BIN_DIR"/log4j-1.2.14.jar:"$BIN_DIR"/json-simple-1.1.jar:"$BIN_DIR"/bcprov-jdk15on-1.60.jar soltix.Main --server $EXTRAARGS
@@ -29,6 +29,9 @@ fi
 if test "$CODEGEN_ALLOW_STRUCTS_IN_FUNCTION_ABI" = yes; then
 	EXTRAARGS="$EXTRAARGS --allowStructsInFunctionABI"
 fi
+if test -n "$AST_CACHE_DIR"; then
+	EXTRAARGS="$EXTRAARGS --astCache=$AST_CACHE_DIR"
+fi
 
 echo Extraargs $EXTRAARGS
 
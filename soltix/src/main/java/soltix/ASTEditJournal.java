@@ -0,0 +1,77 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix;
+
+import java.util.ArrayList;
+
+/**
+ * Journal of the AST edits performed by ASTEditor, which allows rolling back an AST to an earlier savepoint.
+ *
+ * Every editor operation records how to undo each of its changes to existing nodes. Rolling back undoes the edits
+ * since the savepoint in reverse order, so its cost is proportional to the number of edits rather than the AST size.
+ * The ID allocators of the current SoltixContext are restored as well, so that the edits following a rollback
+ * produce exactly the same nodes as they would for the unmodified AST.
+ *
+ * The journal is attached to an AST (see AST.setEditJournal()) and used by all editors that operate on it.
+ */
+public class ASTEditJournal {
+    // Undo information of one primitive edit
+    static abstract class Edit {
+        abstract void undo() throws Exception;
+    }
+
+    public static class Savepoint {
+        private final int editCount;
+        private final long[] idAllocation;
+
+        private Savepoint(int editCount, long[] idAllocation) {
+            this.editCount = editCount;
+            this.idAllocation = idAllocation;
+        }
+    }
+
+    private ArrayList<Edit> edits = new ArrayList<Edit>();
+
+    void record(Edit edit) {
+        edits.add(edit);
+    }
+
+    public int getEditCount() { return edits.size(); }
+
+    public Savepoint savepoint() {
+        return new Savepoint(edits.size(), SoltixContext.current().saveIDAllocation());
+    }
+
+    // Undo all edits after the savepoint. The savepoint remains valid, so it can be rolled back to repeatedly
+    public void rollback(Savepoint savepoint) throws Exception {
+        if (savepoint.editCount > edits.size()) {
+            throw new Exception("ASTEditJournal.rollback: Savepoint has already been rolled back");
+        }
+        for (int i = edits.size() - 1; i >= savepoint.editCount; --i) {
+            edits.remove(i).undo();
+        }
+        SoltixContext.current().restoreIDAllocation(savepoint.idAllocation);
+    }
+
+    // Keep all edits, e.g. once a tried change is accepted. Earlier savepoints become invalid
+    public void commit() {
+        edits.clear();
+    }
+}
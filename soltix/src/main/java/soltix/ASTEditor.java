@@ -24,6 +24,8 @@ import soltix.interpretation.TypeContainer;
 import soltix.interpretation.expressions.Expression;
 import soltix.profiling.*;
 import soltix.interpretation.variables.*;
+import soltix.output.EditScript;
+import soltix.output.SolidityCodeCache;
 import soltix.synthesis.ValueGenerator;
 import soltix.util.RandomNumbers;
 
@@ -33,6 +35,11 @@ import java.util.HashMap;
 /**
  * Low-level AST node creation/insertion/modification routines
  * TODO this class does too many different, too high-level things and doesn't really belong anywhere - split up?
+ *
+ * All modifications of existing nodes go through the primitive operations below, which record them in the edit
+ * journal of the AST, if any, so that they can be rolled back, and invalidate the cached output code of the
+ * functions and contracts containing them, if any (see SolidityCodeCache), as well as the node locations of the AST
+ * index (see ASTIndex).
  */
 public class ASTEditor {
     private AST ast;
@@ -43,8 +50,181 @@ public class ASTEditor {
 
     public AST getAST() { return ast; }
 
+    // Start journaling edits on the AST, if not done yet
+    public ASTEditJournal enableJournal() {
+        if (ast.getEditJournal() == null) {
+            ast.setEditJournal(new ASTEditJournal());
+        }
+        return ast.getEditJournal();
+    }
+
+    protected void record(ASTEditJournal.Edit edit) {
+        ASTEditJournal journal = ast.getEditJournal();
+        if (journal != null) {
+            journal.record(edit);
+        }
+    }
+
+    // Drop the cached output code containing a node that is about to be edited, and the node locations of the AST
+    // index, and record the node for edit scripts. The journal restores the code when the edit is rolled back
+    protected void invalidateCode(ASTNode node) {
+        ast.getIndex().structureChanged();
+        final EditScript.Recorder recorder = ast.getEditRecorder();
+        if (recorder != null && node != null) {
+            recorder.add(node);
+            record(new ASTEditJournal.Edit() {
+                void undo() {
+                    recorder.removeLast();
+                }
+            });
+        }
+        SolidityCodeCache cache = ast.getCodeCache();
+        if (cache != null && node != null) {
+            final SolidityCodeCache.Invalidation invalidation = cache.invalidate(node);
+            if (invalidation != null) {
+                record(new ASTEditJournal.Edit() {
+                    void undo() {
+                        invalidation.restore();
+                    }
+                });
+            }
+        }
+    }
+
+    // Drop the cached output code containing a node while undoing an edit, which is not journaled
+    private void invalidateUndoneCode(ASTNode node) {
+        ast.getIndex().structureChanged();
+        SolidityCodeCache cache = ast.getCodeCache();
+        if (cache != null && node != null) {
+            cache.invalidate(node);
+        }
+    }
+
+    public void addChildNode(final ASTNode parent, final ASTNode child) throws Exception {
+        final ASTNode oldParent = child.getParent();
+        final int index = parent.getChildCount();
+        invalidateCode(oldParent);
+        invalidateCode(parent);
+        parent.addChildNode(child);
+        record(new ASTEditJournal.Edit() {
+            void undo() {
+                invalidateUndoneCode(parent);
+                removeAddedChildNode(parent, index, child);
+                child.setParent(oldParent);
+                invalidateUndoneCode(oldParent);
+            }
+        });
+    }
+
+    public void insertChildNode(final ASTNode parent, final int index, final ASTNode child) {
+        final ASTNode oldParent = child.getParent();
+        invalidateCode(oldParent);
+        invalidateCode(parent);
+        parent.insertChildNode(index, child);
+        record(new ASTEditJournal.Edit() {
+            void undo() {
+                invalidateUndoneCode(parent);
+                removeAddedChildNode(parent, index, child);
+                child.setParent(oldParent);
+                invalidateUndoneCode(oldParent);
+            }
+        });
+    }
+
+    // Add a generated struct definition to a contract, and register it for type lookups by the contract and the AST
+    public void addStructDefinition(final ASTContractDefinition contract, final ASTStructDefinition definition) throws Exception {
+        final ASTStructDefinition previousDefinition = ast.getStructDefinition(definition.getName());
+        contract.addStructDefinition(definition);
+        addChildNode(contract, definition);
+        ast.addStructDefinition(definition);
+        record(new ASTEditJournal.Edit() {
+            void undo() {
+                ast.removeStructDefinition(definition);
+                if (previousDefinition != null) {
+                    ast.addStructDefinition(previousDefinition);
+                }
+                contract.removeStructDefinition(definition);
+            }
+        });
+    }
+
+    // A new parent node may have rearranged its children after the child was added to it, e.g. if statements in
+    // finalize(), so fall back to locating the child if it's not at its original position anymore
+    private static void removeAddedChildNode(ASTNode parent, int index, ASTNode child) {
+        if (index < parent.getChildCount() && parent.getChild(index) == child) {
+            parent.removeChildNode(index);
+        } else if (parent.getChildren() != null) {
+            int currentIndex = parent.getChildren().lastIndexOf(child);
+            if (currentIndex != -1) {
+                parent.removeChildNode(currentIndex);
+            }
+        }
+    }
+
+    public void setChildren(final ASTNode node, ArrayList<ASTNode> children) {
+        final ArrayList<ASTNode> oldChildren = node.getChildren();
+        invalidateCode(node);
+        node.setChildren(children);
+        record(new ASTEditJournal.Edit() {
+            void undo() {
+                invalidateUndoneCode(node);
+                node.setChildren(oldChildren);
+            }
+        });
+    }
+
+    public void setParent(final ASTNode node, final ASTNode parent) {
+        final ASTNode oldParent = node.getParent();
+        invalidateCode(oldParent);
+        invalidateCode(parent);
+        node.setParent(parent);
+        record(new ASTEditJournal.Edit() {
+            void undo() {
+                invalidateUndoneCode(parent);
+                node.setParent(oldParent);
+                invalidateUndoneCode(oldParent);
+            }
+        });
+    }
+
+    // Replace a statement in a block or control structure
+    public void replaceChildStatement(final ASTNode parent, final ASTNode oldNode, final ASTNode newNode) throws Exception {
+        final ASTNode oldNodeParent = oldNode.getParent();
+        final ASTNode newNodeParent = newNode.getParent();
+        invalidateCode(parent);
+        invalidateCode(oldNodeParent);
+        invalidateCode(newNodeParent);
+        replaceChildStatementUnrecorded(parent, oldNode, newNode);
+        record(new ASTEditJournal.Edit() {
+            void undo() throws Exception {
+                invalidateUndoneCode(parent);
+                replaceChildStatementUnrecorded(parent, newNode, oldNode);
+                oldNode.setParent(oldNodeParent);
+                newNode.setParent(newNodeParent);
+                invalidateUndoneCode(oldNodeParent);
+                invalidateUndoneCode(newNodeParent);
+            }
+        });
+    }
+
+    private void replaceChildStatementUnrecorded(ASTNode parent, ASTNode oldNode, ASTNode newNode) throws Exception {
+        if (parent instanceof IControlStructure) {
+            IControlStructure controlStructure = (IControlStructure)parent;
+            controlStructure.replaceChildStatement(oldNode, newNode);
+        } else if (parent instanceof ASTBlock) {
+            ASTBlock parentBlock = (ASTBlock)parent;
+            parentBlock.replaceChildNode(oldNode, newNode);
+        } else {
+            if (parent == null) {
+                throw new Exception("Cannot replace AST node [" + oldNode.toSolidityCode() + "] without parent node");
+            }
+            throw new Exception("Cannot replace AST node [" + oldNode.toSolidityCode() + "] in unexpected parent node ["
+                    + parent.toSolidityCode() + "] (" + parent.getClass().getName() + ")");
+        }
+    }
+
     public void insertGeneratedSupportCode() throws Exception {
-        // As per the Configuration.renameExceptionalEvents option, generate custom functions to which
+        // As per the Configuration.current().renameExceptionalEvents option, generate custom functions to which
         // revert()/assert()/require() calls may be rerouted
         //
         // Deactivate callid arguments for now, since they are currently not used and the additional argument
@@ -88,7 +268,7 @@ public class ASTEditor {
 
         // Predictable "now"/"block.timestamp" replacement (constant to allow insertion in "library" contracts -
         // otherwise there's a compiler error):
-        String nowCode = "uint constant _mynow = " + String.valueOf(Configuration.renameNowTimestamps) + ";";
+        String nowCode = "uint constant _mynow = " + String.valueOf(Configuration.current().renameNowTimestamps) + ";";
         ASTVerbatimText nowCodeNode = new ASTVerbatimText(0, nowCode);
         nowCodeNode.finalize();
 
@@ -124,7 +304,7 @@ public class ASTEditor {
         }
 
         /*
-        if (Configuration.injectNullContractChecks) {
+        if (Configuration.current().injectNullContractChecks) {
             // Add a backup contract instance to use in place of uninitialized/null contracts of the same type
             for (ASTContractDefinition contract : ast.getContracts()) {
                 String code = contract.getName() + " _internalFallbackContract" + contract.getName() + " = new "
@@ -152,37 +332,37 @@ public class ASTEditor {
         // TODO putting this into a base contract and inheriting from that would generate less code
         for (ASTContractDefinition contract : ast.getContracts()) {
             if (contract.getContainsRenamedRevertReferences()) {
-                contract.addChildNode(revertCodeNode);
+                addChildNode(contract, revertCodeNode);
             }
             if (contract.getContainsRenamedAssertReferences()) {
-                contract.addChildNode(assertCodeNode);
+                addChildNode(contract, assertCodeNode);
             }
             if (contract.getContainsRenamedRequireReferences()) {
-                contract.addChildNode(requireCodeNode);
+                addChildNode(contract, requireCodeNode);
             }
 
             if (contract.getContainsRenamedNowReferences()) {
-                contract.addChildNode(nowCodeNode);
+                addChildNode(contract, nowCodeNode);
             }
 
             if (contract.getContainsRenamedThrows()) {
-                contract.addChildNode(throwCodeNode);
+                addChildNode(contract, throwCodeNode);
             }
 
-            if (Configuration.checkRuntimeTautologyCorrectness && Configuration.insertLCMSupportCode) {
-                contract.addChildNode(tautologyErrorNode);
+            if (Configuration.current().checkRuntimeTautologyCorrectness && Configuration.current().insertLCMSupportCode) {
+                addChildNode(contract, tautologyErrorNode);
             }
 
             // TODO: Do what's described below by introducing a command line flag and using it only when processing
             // the original contract - otherwise there will be clashes since the variables are inserted multiple times
             // The mutations marker storage fields are now always inserted, so that original, instrumented and
             // mutated programs all have the same declared storage requirements.
-            if (/*Configuration.applyLiveEMIMutations*/ Configuration.insertLCMSupportCode // TODO rename this or split into multiple flags
+            if (/*Configuration.current().applyLiveEMIMutations*/ Configuration.current().insertLCMSupportCode // TODO rename this or split into multiple flags
                     && contract.getContractKind() == Definitions.ContractKind.CONTRACT_KIND_CONTRACT) {
-                contract.addChildNode(codeBlockMutationsMarkerNode);
-                contract.addChildNode(liveCodeMutationsBackupVariablesNode);
+                addChildNode(contract, codeBlockMutationsMarkerNode);
+                addChildNode(contract, liveCodeMutationsBackupVariablesNode);
 
-                if (Configuration.injectArraySubscriptChecks) {
+                if (Configuration.current().injectArraySubscriptChecks) {
                     HashMap<ASTStructDefinition, Boolean> processedStructs = new HashMap<ASTStructDefinition, Boolean>();
                     // Also add storage struct variables
                     for (ASTIndexAccess indexAccess : contract.getIndexAccessList()) {
@@ -194,7 +374,7 @@ public class ASTEditor {
                         processedStructs.put(structDefinition, true);
                         String code = structDefinition.getCanonicalName() + " _internalStructValue" + structDefinition.getName() + ";";
                         ASTNode node = new ASTVerbatimText(0, code);
-                        contract.addChildNode(node);
+                        addChildNode(contract, node);
                     }
                 }
 
@@ -204,7 +384,7 @@ public class ASTEditor {
                 // TODO like all other helper variables this is too ad-hoc
                 String annotateCode = "function " + ASTFunctionDefinition.SpecialFunction.SPECIAL_FUNCTION_ANNOTATE.getName() + "(string memory arg) public {}";
                 ASTNode annotateNode = new ASTVerbatimText(0, annotateCode);
-                contract.addChildNode(annotateNode);
+                addChildNode(contract, annotateNode);
             }
         }
     }
@@ -228,22 +408,11 @@ public class ASTEditor {
         ASTBlock block = new ASTBlock(0);
 
         // Locate statement to be embedded
-        if (parent instanceof IControlStructure) {
-            IControlStructure structure = (IControlStructure)parent;
-            structure.replaceChildStatement(statement, block);
-        } else if (parent instanceof ASTBlock) {
-            ASTBlock parentBlock = (ASTBlock)parent;
-            parentBlock.replaceChildNode(statement, block);
-        } else {
-            if (parent == null) {
-                System.out.println("Parent of " + statement.toSolidityCode() + " is null?");
-            }
-            throw new Exception("Cannot embed AST node [" + statement.toSolidityCode() + "] in unexpected parent node [" + parent.toSolidityCode() + "]");
-        }
-        statement.setParent(block);
+        replaceChildStatement(parent, statement, block);
+        setParent(statement, block);
 
         // Embed old statement in new block
-        block.addChildNode(statement);
+        addChildNode(block, statement);
         block.finalize();
 
         return block;
@@ -256,7 +425,7 @@ public class ASTEditor {
 
         whileStatement.setParent(parent);
         whileStatement.addChildNode(condition);
-        whileStatement.addChildNode(body);
+        addChildNode(whileStatement, body);
         whileStatement.finalize();
 
         replaceParentNode(parent, whileStatement, body);
@@ -280,7 +449,7 @@ public class ASTEditor {
         ASTIfStatement ifStatement = new ASTIfStatement(0);
 
         ifStatement.addChildNode(condition);
-        ifStatement.addChildNode(body);
+        addChildNode(ifStatement, body);
         ifStatement.finalize();
 
         newBlock.addChildNode(ifStatement);
@@ -289,16 +458,8 @@ public class ASTEditor {
     }
 
     public void replaceParentNode(ASTNode parent, ASTNode newParent, ASTNode embeddedStatement) throws Exception {
-        if (parent instanceof IControlStructure) {
-            IControlStructure controlStructure = (IControlStructure)parent;
-            controlStructure.replaceChildStatement(embeddedStatement, newParent);
-        } else if (parent instanceof ASTBlock) {
-            ASTBlock parentBlock = (ASTBlock)parent;
-            parentBlock.replaceChildNode(embeddedStatement, newParent);
-        } else {
-            throw new Exception("Cannot embed while statement in unexpected parent structure " + parent.getClass().getName());
-        }
-        embeddedStatement.setParent(newParent); // parent may be null before this
+        replaceChildStatement(parent, embeddedStatement, newParent);
+        setParent(embeddedStatement, newParent); // parent may be null before this
     }
 
 
@@ -314,10 +475,10 @@ public class ASTEditor {
                 ArrayList<ASTNode> newBlockChildren = new ArrayList<ASTNode>();
                 ASTVerbatimText replacement = new ASTVerbatimText(0, "_;");
                 newBlockChildren.add(replacement);
-                body.setChildren(newBlockChildren);
+                setChildren(body, newBlockChildren);
             } else {
                 // Function: we may have a return value
-                body.setChildren(null);
+                setChildren(body, null);
 
                 ASTParameterList returnList = function.getReturnList();
                 if (returnList != null) {
@@ -335,7 +496,7 @@ public class ASTEditor {
                     returnStatementString += ");";
                     ASTVerbatimText returnNode = new ASTVerbatimText(0, returnStatementString);
                     newBlockChildren.add(returnNode);
-                    body.setChildren(newBlockChildren);
+                    setChildren(body, newBlockChildren);
                 }
             }
         }
@@ -362,7 +523,7 @@ public class ASTEditor {
     public void appendProfilingEmitStatementToBlock(ASTBlock block, ArrayList<ProfilingEvent> instrumentationEvents) throws Exception {
         for (ProfilingEvent event : instrumentationEvents) {
             ASTEmitStatement emitStatement = generateInstrumentatonEmitStatement(event);
-            block.addChildNode(emitStatement);
+            addChildNode(block, emitStatement);
         }
     }
 
@@ -399,7 +560,7 @@ public class ASTEditor {
 
         for (ProfilingEvent event : instrumentationEvents) {
             ASTEmitStatement emitStatement = generateInstrumentatonEmitStatement(event);
-            parentBlock.insertChildNode(positionInBlock, emitStatement);
+            insertChildNode(parentBlock, positionInBlock, emitStatement);
             ++positionInBlock;
         }
     }
@@ -428,7 +589,7 @@ public class ASTEditor {
         definition.addChildNode(parameterList);
         definition.finalize();
 
-        profiledContract.addChildNode(definition);
+        addChildNode(profiledContract, definition);
     }
 
     private int loopLimitVariableCounter = 0;
@@ -440,13 +601,13 @@ public class ASTEditor {
             // Create loop counter (at this point currentContract != null can be assumed or we wouldn't be in a loop)
             String loopCounterName = "_internalLoopCounter" + String.valueOf(loopLimitVariableCounter++);
             ASTVerbatimText variableNode = new ASTVerbatimText(0, "int " + loopCounterName + ";");
-            currentContract.addChildNode(variableNode);
+            addChildNode(currentContract, variableNode);
 
             // Prepend a "loopCounter = 0;" assignment to the loop, embedding it in a block if necessary
             ASTBlock parentBlock = enforceParentBlock(node);
             int positionInBlock = parentBlock.getChildNodeIndex(node);
             ASTVerbatimText assignmentNode = new ASTVerbatimText(0, loopCounterName + " = 0;");
-            parentBlock.insertChildNode(positionInBlock, assignmentNode);
+            insertChildNode(parentBlock, positionInBlock, assignmentNode);
 
             // Add an "if (++loopCounter == <limit>) break;" as first loop body node, embedding the existing
             // body in a block if necessary
@@ -462,7 +623,7 @@ public class ASTEditor {
             }
             parentBlock = enforceParentBlock(bodyNode);
             positionInBlock = parentBlock.getChildNodeIndex(bodyNode);
-            parentBlock.insertChildNode(positionInBlock, earlyLoopBreakNode);
+            insertChildNode(parentBlock, positionInBlock, earlyLoopBreakNode);
 
         } else if (node instanceof ASTContractDefinition) {
             currentContract = (ASTContractDefinition)node;
@@ -29,33 +29,53 @@ import java.io.PrintWriter;
 
 /**
  * Configuration options for hardcoded as well as command-line-controllable settings.
+ *
+ * Every job has its own Configuration instance in its SoltixContext.
  */
-public class Configuration {
+public class Configuration implements Cloneable {
+    // Configuration of the job running on the current thread
+    static public Configuration current() {
+        return SoltixContext.current().getConfiguration();
+    }
+
     // Print structured AST-JSON output for debugging
-    static public boolean debugASTOutput = false;
+    public boolean debugASTOutput = false;
     // Don't build AST - only print AST-JSON input (avoids stopping on errors)
-    static public boolean skipASTProcessing = false;
-    static public String debugGraphOutputFile = null;
-    static public String solidityOutputFile = null;
-    static public String outputTopLevelContract = null;
-    static public boolean profiling = false;
-    static public boolean showCoverage = false;
-    static public String loadProfilingLog = null;
-    static public String[] reduceFunctions = null;
-    static public String generateTruffleConstructorInvocationContract = null;
-    static public String generateTruffleConstructorInvocationFile = null;
-    static public String generateTruffleTransactionContract = null;
-    static public String generateTruffleTransactionFile = null;
-    static public String generateTruffleTransactionFileJSON = null;
+    public boolean skipASTProcessing = false;
+    // Directory of cached parsed inputs, see ASTCache (null = no caching)
+    public String astCacheDirectory = null;
+    // Input is in "--ast-compact-json" or standard-JSON format rather than "--ast-json", see ParserASTCompactJSON
+    public boolean compactASTInput = false;
+    public String debugGraphOutputFile = null;
+    public String solidityOutputFile = null;
+    public String outputTopLevelContract = null;
+    public boolean profiling = false;
+    public boolean showCoverage = false;
+    public String loadProfilingLog = null;
+    public String[] reduceFunctions = null;
+    public String generateTruffleConstructorInvocationContract = null;
+    public String generateTruffleConstructorInvocationFile = null;
+    public String generateTruffleTransactionContract = null;
+    public String generateTruffleTransactionFile = null;
+    public String generateTruffleTransactionFileJSON = null;
     // Output all (reducible) functions in all contracts to a file, enabling the caller to request reductions
     // Format:
     //   - One line per contract
     //   - Line format: <contract-name> <func1-name> <func2-name> ...
     // Functions are ordered in descending size (metric: AST node count)
-    static public String generateContractFunctionsFile = null;
+    public String generateContractFunctionsFile = null;
+
+    public String generateFullContractFile = null;
+    public FunctionGenerator.FunctionType generateFullContractFunctionType = null;
+    // Mutated contracts written after full contract generation ('#' is replaced by the mutation number)
+    public String generateFullContractMutationsFile = "/tmp/mutated#.sol";
 
-    static public String generateFullContractFile = null;
-    static public FunctionGenerator.FunctionType generateFullContractFunctionType = null;
+    // Generate full contracts for a range of seeds, each into its own subdirectory of the output directory
+    public String generateFullContractRangeDirectory = null;
+    public int generateFullContractRangeFirstSeed = 0;
+    public int generateFullContractRangeCount = 0;
+    // Worker threads for seed range generation (0 = one per available processor)
+    public int generateFullContractRangeThreads = 0;
 
     // To avoid uncontrolled test case abortion for revert()/require()/assert() invocations in our
     // test framework, we replace these calls with our own versions as follows:
@@ -68,19 +88,40 @@ public class Configuration {
     // in these replacement functions instead of aborting the test case. This achieves better test case coverage, as it
     // will just continue as if the condition were fulfilled, but could potentially execute undefined constructs
     // TODO Do undefined constructs that must be avoided exist in EVM and what are they? Div-by-0? Integer overflow? ...
-    static public boolean renameExceptionalEvents = false;
-    static public int renameNowTimestamps = 0;
-    static public boolean renameThrowStatements = false;
+    public boolean renameExceptionalEvents = false;
+    public int renameNowTimestamps = 0;
+    public boolean renameThrowStatements = false;
 
-    static public boolean injectArraySubscriptChecks = false;
+    public boolean injectArraySubscriptChecks = false;
    // static public boolean injectNullContractChecks = false;
 
-    static public boolean applyLiveEMIMutations = false;
-    static public int mutatedOutputProgramsCount = 0;
-    static public boolean includeAllNodesForInstrumentation = false;
-
-    static public boolean checkRuntimeTautologyCorrectness = false;
-    static public boolean checkCompileTimeTautologyCorrectness = true;
+    public boolean applyLiveEMIMutations = false;
+    public int mutatedOutputProgramsCount = 0;
+    // Generate every mutated program independently from the same original program, in parallel (otherwise each
+    // mutation is applied on top of the previous mutated program)
+    public boolean parallelLiveEMIMutations = false;
+    // Worker threads for parallel mutations (0 = one per available processor)
+    public int liveEMIMutationThreads = 0;
+    // Write each mutated program as edit script against the original program instead of as complete program
+    public boolean mutationEditScripts = false;
+    public boolean includeAllNodesForInstrumentation = false;
+    // Keep at most this many distinct value sets per statement when reading a profiling log, retaining a sample
+    // that includes the extreme values of each variable beyond that (0 = keep all value sets). See ValueSetSummary
+    public int valueSetBudget = 0;
+    // Evaluate operators on several threads for environments with at least this many value sets (0 = never). See
+    // ParallelEvaluation
+    public int parallelEvaluationThreshold = 16384;
+
+    // Compare one event log against many with --testEventLogEquivalenceAll: baseline log, other logs (see
+    // EventLogComparator.expandLogPaths()), summary output file (null = stdout) and worker threads (0 = one per
+    // available processor)
+    public String eventLogEquivalenceBaseline = null;
+    public String eventLogEquivalenceLogs = null;
+    public String eventLogEquivalenceSummaryFile = null;
+    public int eventLogEquivalenceThreads = 0;
+
+    public boolean checkRuntimeTautologyCorrectness = false;
+    public boolean checkCompileTimeTautologyCorrectness = true;
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////////
     /////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -93,7 +134,7 @@ public class Configuration {
     //
     // It would be nice to wrap this up in a static class but it's not clear how
     //static public class GenerationProperties {
-        static public int randomNumbersSeed = 0x3f2a7b4e;
+        public int randomNumbersSeed = 0x3f2a7b4e;
 
         static public int randomPredicateDepth(RandomNumbers prng) {
             final int lowerDepthBound = 2;
@@ -101,10 +142,10 @@ public class Configuration {
             return (int) prng.generateLongInteger(lowerDepthBound, upperDepthBound);
         }
 
-        static public int contractGenerationFunctionCount = 10;
-        static public int contractGenerationVariableCount = 20;
-        static public int contractGenerationFunctionStatementsLowerBound = 1;
-        static public int contractGenerationFunctionStatementsUpperBound = 100;
+        public int contractGenerationFunctionCount = 10;
+        public int contractGenerationVariableCount = 20;
+        public int contractGenerationFunctionStatementsLowerBound = 1;
+        public int contractGenerationFunctionStatementsUpperBound = 100;
     //};
 
     /////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -112,11 +153,11 @@ public class Configuration {
 
     // Request insertion of helper storage variables for Live Code Mutation. This should already be done when
     // preparing the original contract, since we want to avoid false positives caused by storage reorganization
-    static public boolean insertLCMSupportCode = false;
+    public boolean insertLCMSupportCode = false;
 
 
     // Ignore "view" keyword (thrown away on code output as well). See also comments in ASTFunctionDefinition.toSolidityCode
-    static public boolean dropViewMutability = true;
+    public boolean dropViewMutability = true;
 
     // The truffle framework has a problem with unnamed event definition parameters, as in
     //    event foo(uint);
@@ -124,52 +165,61 @@ public class Configuration {
     //    event foo(uint param);
     // which causes tests to fail - see https://github.com/trufflesuite/truffle/issues/494.
     // With this option, we insert generated names for unnamed parameters
-    static public boolean nameUnnamedEventDefinitionParameters = true;
+    public boolean nameUnnamedEventDefinitionParameters = true;
 
-    static public boolean verboseDebugOutput = false;
+    public boolean verboseDebugOutput = false;
 
-    static public boolean avoidGeneratingSubexpressionSideEffects = false;
+    public boolean avoidGeneratingSubexpressionSideEffects = false;
 
     // To avoid generating more exponential operator cases unil the bugfixes on exponential operations are integrated:
     // Fixed in 0.4.25
     // ... disabled again due to ganache-cli showstopper runtime errors
-    static public boolean avoidExponentialOperator = false;
-    static public boolean avoidShiftOperators = false; //false;
+    public boolean avoidExponentialOperator = false;
+    public boolean avoidShiftOperators = false; //false;
     // For some generation purposes, short-circuiting operators are avoided to ensure side effect manifestation for
     // each subexpression
     // TODO Remove this or take care of the conditional operator as well. Currently an expression
-    static public boolean avoidLogicalAndConditionalOperators = false;
+    public boolean avoidLogicalAndConditionalOperators = false;
 
     // Enable higher-level tracking of variables: Rather than observe storage write operations, we have a final event
     // emission outro routine to transfer values of storage values to the event log.
     // This option should be used only once for the original contract, since instrumented and mutated contracts can
     // reuse the outro code and events
-    static public boolean eventsReplaceStorageLog = true;
+    public boolean eventsReplaceStorageLog = true;
 
     // File to write metadata to for further (generated) contract analysis
-    static public String metadataOutputLogFile = null;
-    static public PrintWriter metadataOutputLogWriter = null;
-    static public void writeMetadataLog(String key, String value) {  // TODO JSON? E.g. to support logs for mutated contracts as well?
+    public String metadataOutputLogFile = null;
+    public PrintWriter metadataOutputLogWriter = null;
+    public void writeMetadataLog(String key, String value) {  // TODO JSON? E.g. to support logs for mutated contracts as well?
         if (metadataOutputLogWriter != null) {
             metadataOutputLogWriter.println(key + "=" + value);
         }
     }
 
-    static public int languageVersionMajor = 0;
-    static public int languageVersionMinor = 5;
+    public int languageVersionMajor = 0;
+    public int languageVersionMinor = 5;
 
 
-    static public String interpretationTransactionsFile = null;
-    static public String interpretationOutputLogFile = null;
+    public String interpretationTransactionsFile = null;
+    public String interpretationOutputLogFile = null;
 
 
-    static public boolean injectLoopLimits = false;
-    static public boolean guaranteeSafeExecution = false;
+    public boolean injectLoopLimits = false;
+    public boolean guaranteeSafeExecution = false;
 
-    static public boolean ganacheOptimizationWorkarounds = false;
+    public boolean ganacheOptimizationWorkarounds = false;
 
     // TODO For now we don't use structs because this requires the currently disbaled super slow ABIEncoderV2. It should also be tested, however
-    static public boolean allowStructsInFunctionABI = false; // affects args + return value
+    public boolean allowStructsInFunctionABI = false; // affects args + return value
+
+    public boolean useABIEncoderV2 = false;
 
-    static public boolean useABIEncoderV2 = false;
+    // Shallow copy for a job that starts out with the same settings, e.g. a parallel worker
+    public Configuration copy() {
+        try {
+            return (Configuration)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
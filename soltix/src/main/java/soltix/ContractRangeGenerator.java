@@ -0,0 +1,143 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix;
+
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Generates full contracts for a range of PRNG seeds in one JVM, as requested by --generateFullContractRange.
+ *
+ * Every seed is an independent job with its own SoltixContext (and thus its own AST, PRNGs and ID counters) on a
+ * worker thread of a fork/join pool. The files of seed N are written to <outDir>/N/ using the names of
+ * generate-contract.sh, so each contract is byte-identical to a separate --generateFullContract run with
+ * --prng-seed=N and the same remaining arguments:
+ *
+ *    c0.sol                 Generated contract
+ *    c0-base.cons           Truffle constructor invocation
+ *    c0-base.tx             Truffle transactions
+ *    c0.tx-json             Transactions in JSON format
+ *    meta.kv                Metadata output
+ *    mutations/mutated#.sol Live-EMI mutations of the contract
+ */
+public class ContractRangeGenerator {
+    final static Logger logger = Logger.getLogger(ContractRangeGenerator.class);
+
+    // Name of the (single) contract produced by ContractGenerator
+    final static String GENERATED_CONTRACT_NAME = "c0";
+
+    private String[] arguments;
+    private Configuration rangeConfiguration;
+
+    public ContractRangeGenerator(String[] arguments, Configuration rangeConfiguration) {
+        this.arguments = arguments;
+        this.rangeConfiguration = rangeConfiguration;
+    }
+
+    public boolean run() {
+        int threads = rangeConfiguration.generateFullContractRangeThreads > 0
+                ? rangeConfiguration.generateFullContractRangeThreads
+                : Runtime.getRuntime().availableProcessors();
+        int firstSeed = rangeConfiguration.generateFullContractRangeFirstSeed;
+        int count = rangeConfiguration.generateFullContractRangeCount;
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ArrayList<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        try {
+            for (int i = 0; i < count; ++i) {
+                final int seed = firstSeed + i;
+                results.add(pool.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return generate(seed);
+                    }
+                }));
+            }
+
+            int failures = 0;
+            for (int i = 0; i < count; ++i) {
+                boolean success;
+                try {
+                    success = results.get(i).get();
+                } catch (Exception e) {
+                    logger.error("Exception while generating contract for seed " + (firstSeed + i) + ": " + e.toString());
+                    e.printStackTrace();
+                    success = false;
+                }
+                if (!success) {
+                    ++failures;
+                }
+            }
+            logger.info("Generated " + (count - failures) + " of " + count + " contracts in "
+                    + rangeConfiguration.generateFullContractRangeDirectory);
+            return failures == 0;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Generate the contract for one seed in a context of its own, on the calling worker thread
+    protected boolean generate(int seed) {
+        File directory = new File(rangeConfiguration.generateFullContractRangeDirectory, String.valueOf(seed));
+        File mutationsDirectory = new File(directory, "mutations");
+        if (!mutationsDirectory.isDirectory() && !mutationsDirectory.mkdirs()) {
+            logger.error("Cannot create output directory " + mutationsDirectory);
+            return false;
+        }
+
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        Configuration configuration = context.getConfiguration();
+        try {
+            // Apply the same settings as for the whole range, then turn this into a regular single contract job
+            if (Main.processArguments(arguments, configuration) != Main.CONTINUE_PROCESSING) {
+                return false;
+            }
+            configuration.generateFullContractRangeDirectory = null;
+            configuration.randomNumbersSeed = seed;
+            configuration.generateFullContractFile = new File(directory, "c0.sol").getPath();
+            configuration.generateFullContractMutationsFile = new File(mutationsDirectory, "mutated#.sol").getPath();
+            configuration.generateTruffleConstructorInvocationContract = GENERATED_CONTRACT_NAME;
+            configuration.generateTruffleConstructorInvocationFile = new File(directory, "c0-base.cons").getPath();
+            configuration.generateTruffleTransactionContract = GENERATED_CONTRACT_NAME;
+            configuration.generateTruffleTransactionFile = new File(directory, "c0-base.tx").getPath();
+            configuration.generateTruffleTransactionFileJSON = new File(directory, "c0.tx-json").getPath();
+            configuration.metadataOutputLogFile = new File(directory, "meta.kv").getPath();
+
+            Driver driver = new Driver(context);
+            return driver.run(new ByteArrayInputStream(new byte[0]), System.out);
+        } catch (Exception e) {
+            logger.error("Exception while generating contract for seed " + seed + ": " + e.toString());
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (configuration.metadataOutputLogWriter != null) {
+                configuration.metadataOutputLogWriter.close();
+            }
+            context.detach();
+        }
+    }
+}
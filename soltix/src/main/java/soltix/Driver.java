@@ -19,7 +19,6 @@
  */
 package soltix;
 
-import jdk.nashorn.internal.objects.annotations.Function;
 import soltix.ast.*;
 import soltix.mutation.LiveEMIMutator;
 import soltix.synthesis.TransactionGenerator;
@@ -32,6 +31,9 @@ import java.lang.management.MemoryUsage;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import soltix.input.*;
 import soltix.output.*;
@@ -46,12 +48,20 @@ import org.json.simple.parser.JSONParser;
 public class Driver {
     final static Logger logger = Logger.getLogger(Driver.class);
 
+    private SoltixContext context;
+    private Configuration configuration;
+
+    public Driver(SoltixContext context) {
+        this.context = context;
+        this.configuration = context.getConfiguration();
+    }
+
 
     public boolean run(InputStream input, OutputStream output) {
         AST ast = null;
         ASTEditor editor = null;
 
-        if (Configuration.metadataOutputLogFile != null) {
+        if (configuration.metadataOutputLogFile != null) {
             // Open metadata output file. Any component that needs to write something will
             // do so itself, since this is currently difficult to collect in one place
             if (!openMetadataOutputLogFile()) {
@@ -59,12 +69,16 @@ public class Driver {
             }
         }
 
-        if (Configuration.generateFullContractFile == null) {
+        if (configuration.generateFullContractFile == null) {
             // Read input file
-            Parser parser = new ParserASTJSON();
+            ParserASTJSON parser = configuration.compactASTInput? new ParserASTCompactJSON(): new ParserASTJSON();
 
             try {
-                ast = parser.parse(input);
+                if (configuration.astCacheDirectory != null && !configuration.skipASTProcessing) {
+                    ast = new ASTCache(configuration.astCacheDirectory, parser).parse(input);
+                } else {
+                    ast = parser.parse(input);
+                }
             } catch (Exception e) {
                 logger.error("Parser exception: " + e.toString());
                 e.printStackTrace();
@@ -79,14 +93,14 @@ public class Driver {
             ast.sortContractsBySize();
         }
 
-        if (Configuration.outputTopLevelContract != null) {
+        if (configuration.outputTopLevelContract != null) {
             if (!outputTopLevelContract(ast)) {
                 return false;
             }
         }
 
-        if (Configuration.injectLoopLimits) {
-            if (Configuration.generateFullContractFile == null) { // if generating, we do it later
+        if (configuration.injectLoopLimits) {
+            if (configuration.generateFullContractFile == null) { // if generating, we do it later
                 if (!injectLoopLimits(editor)) {
                     return false;
                 }
@@ -94,84 +108,37 @@ public class Driver {
         }
 
 
-        if (Configuration.interpretationTransactionsFile != null) {
-            if (!interpretProgram(ast, Configuration.interpretationTransactionsFile, Configuration.interpretationOutputLogFile)) {
+        if (configuration.interpretationTransactionsFile != null) {
+            if (!interpretProgram(ast, configuration.interpretationTransactionsFile, configuration.interpretationOutputLogFile)) {
                 return false;
             }
 
-            if (Configuration.solidityOutputFile != null) {
-                if (!writeSolidityOutput(ast, output, Configuration.solidityOutputFile)) {
+            if (configuration.solidityOutputFile != null) {
+                if (!writeSolidityOutput(ast, output, configuration.solidityOutputFile)) {
                     return false;
                 }
             }
             return true;
         }
 
-        if (Configuration.eventsReplaceStorageLog && Configuration.insertLCMSupportCode) {
-            if (!generateOutroFunctions(ast)) {
-                return false;
-            }
-        }
-        if (Configuration.generateTruffleConstructorInvocationContract != null
-                && Configuration.generateFullContractFile == null) { // done later for this setting
-            if (!generateTruffleConstructorInvocation(ast, ValueGenerator.IntegerGenerationPolicy.INTEGER_GENERATION_POLICY_EXCLUSIVELY_SMALL)) {
-                return false;
-            }
-        }
-        if (Configuration.generateTruffleTransactionContract != null
-                && Configuration.generateFullContractFile == null) { // done differently for this setting
-            if (!generateTruffleTransaction(ast, ValueGenerator.IntegerGenerationPolicy.INTEGER_GENERATION_POLICY_EXCLUSIVELY_SMALL)) {
-                return false;
-            }
-        }
-
-        if (Configuration.generateContractFunctionsFile != null) {
-            if (!generateContractFunctionsFile(ast)) {
-                return false;
-            }
-        }
-        if (Configuration.reduceFunctions != null) {
-            if (!reduceFunctions(ast, editor, new RandomNumbers(Configuration.randomNumbersSeed))) {
-                return false;
-            }
+        if (!prepareOriginal(ast, editor)) {
+            return false;
         }
 
-        // Compute profiling event information and, if we're generating an instrumented contract, also
-        // edit the AST to contain event definitions and emissions.
-        // If we're only reading a recorded profiling log, we still wish to compute the event information
-        // in order to interpret the log file - but the Profiler class won't edit the AST if the
-        // "profiling" config option isn't set
-        if (Configuration.profiling || Configuration.loadProfilingLog != null) {
-            // TODO It's unclear whether:
-            //    1. It makes sense to have one ProfilingLog for each contract, or one for all contracts.
-            //       This will also depend on whether a single log will contain results for multiple
-            //       transactions/contracts.
-            //    2. Re-computing the event info is really needed or may be superfluous due to self-contained
-            //       log information
-
-            // Generate profiling instrumentation separately for each contract, and for each function
-            if (!performProfilingInstrumentations(ast, editor)) {
+        if (configuration.applyLiveEMIMutations && configuration.parallelLiveEMIMutations) {
+            if (!applyParallelLiveCodeMutations(ast, output)) {
                 return false;
             }
-
-            // If available, load profiling log as well
-            if (Configuration.loadProfilingLog != null) {
-                if (!loadProfilingLog(ast)) {
+        } else if (configuration.applyLiveEMIMutations) {
+            // Mutations only touch few functions, so only re-render those for every mutated program
+            ast.setCodeCache(new SolidityCodeCache());
+            EditScript.Base originalCode = null;
+            if (configuration.mutationEditScripts) {
+                if ((originalCode = writeEditScriptBase(ast, true)) == null) {
                     return false;
                 }
             }
-        }
-
-        // Rename exceptional events if requested (after all other AST processing operations to
-        // avoid interferences)
-        /*if (Configuration.renameExceptionalEvents)*/ if (Configuration.generateFullContractFile == null) {
-            if (!renameExceptionalEvents(editor)) {
-                return false;
-            }
-        }
-
-        if (Configuration.applyLiveEMIMutations) {
-            for (int i = 0; i < Configuration.mutatedOutputProgramsCount; ++i) {
+            for (int i = 0; i < configuration.mutatedOutputProgramsCount; ++i) {
                 try {
                     if (!applyLiveCodeMutations(ast, editor)) {
                         return false;
@@ -182,44 +149,47 @@ public class Driver {
                     return false;
                 }
 
-                ++Configuration.randomNumbersSeed;
+                ++configuration.randomNumbersSeed;
                 // Write debug graph plot, if requested
-                if (Configuration.debugGraphOutputFile != null) {
-                    String outputFile = Configuration.debugGraphOutputFile.replace("#", String.valueOf(i));
+                if (configuration.debugGraphOutputFile != null) {
+                    String outputFile = configuration.debugGraphOutputFile.replace("#", String.valueOf(i));
                     writeDebugGraphOutput(ast, outputFile); // ignore return, keep going on error:
                 }
                 // Write Solidity output file
-                String solidityOutputFile = Configuration.solidityOutputFile != null
-                        ? Configuration.solidityOutputFile.replace("#", String.valueOf(i))
+                String solidityOutputFile = configuration.solidityOutputFile != null
+                        ? configuration.solidityOutputFile.replace("#", String.valueOf(i))
                         : null;
 
                 //  System.exit(1);
-                if (!writeSolidityOutput(ast, output, solidityOutputFile)) {
+                if (originalCode != null) {
+                    if (!writeEditScriptOutput(ast, originalCode, solidityOutputFile + ".edit")) {
+                        return false;
+                    }
+                } else if (!writeSolidityOutput(ast, output, solidityOutputFile)) {
                     return false;
                 }
             }
         } else {
             // A single non-mutated output file
             // TODO merge this with the above - generate one base contract and multiple mutations
-            String solidityOutputFile = Configuration.solidityOutputFile;
+            String solidityOutputFile = configuration.solidityOutputFile;
 
-            if (Configuration.generateFullContractFile != null) {
+            if (configuration.generateFullContractFile != null) {
                 // Generate contract and corresponding constructor invocation plus transactions
-                solidityOutputFile = Configuration.generateFullContractFile;
+                solidityOutputFile = configuration.generateFullContractFile;
 
-                RandomNumbers prng = new RandomNumbers(Configuration.randomNumbersSeed);
                 ast = new AST();
                 AST transactionsAST = new AST();
                 JSONObject transactionsJSONObject = new JSONObject();
 
                 // Combined contract and transactions generation
                 try {
-                    ContractGenerator contractGenerator = new ContractGenerator(ast, transactionsAST, transactionsJSONObject, prng);
+                    ContractGenerator contractGenerator = new ContractGenerator(ast, transactionsAST, transactionsJSONObject, context);
                     contractGenerator.run();
 
                     editor = new ASTEditor(ast);
 
-                    Configuration.insertLCMSupportCode = true;
+                    configuration.insertLCMSupportCode = true;
                     if (!generateOutroFunctions(ast)) {
                         return false;
                     }
@@ -228,7 +198,7 @@ public class Driver {
                     }
 
 
-                    if (Configuration.injectLoopLimits) {
+                    if (configuration.injectLoopLimits) {
                         // Inject loop limits for original contract, so that loops generated in the mutation stage
                         // below
                         editor = new ASTEditor(ast);
@@ -237,7 +207,8 @@ public class Driver {
                         }
                     }
 
-                    // Write Solidity output file
+                    // Write Solidity output file, keeping its code for the mutated programs below
+                    ast.setCodeCache(new SolidityCodeCache());
                     if (!writeSolidityOutput(ast, output, solidityOutputFile)) {
                         return false;
                     }
@@ -256,10 +227,11 @@ public class Driver {
                         if (!applyLiveCodeMutations(ast, editor)) {
                             return false;
                         }
-                        ++Configuration.randomNumbersSeed;
+                        ++configuration.randomNumbersSeed;
 
-                        System.out.println("writing to /tmp/mutated" + i + ".sol");
-                        if (!writeSolidityOutput(ast, output, "/tmp/mutated" + i + ".sol")) {
+                        String mutatedOutputFile = configuration.generateFullContractMutationsFile.replace("#", String.valueOf(i));
+                        System.out.println("writing to " + mutatedOutputFile);
+                        if (!writeSolidityOutput(ast, output, mutatedOutputFile)) {
                             return false;
                         }
                     }
@@ -272,11 +244,11 @@ public class Driver {
                         transactionGenerator.generateTruffleTransaction(ast, transactionsAST, transactionsJSONObject, contract, outroFunction, ValueGenerator.IntegerGenerationPolicy.INTEGER_GENERATION_POLICY_FAVOR_SMALL);
                     }
 
-                    FileOutputStream file = new FileOutputStream(Configuration.generateTruffleTransactionFile);
+                    FileOutputStream file = new FileOutputStream(configuration.generateTruffleTransactionFile);
                     Emitter.emitJavaScriptCode(file, transactionsAST); //.emitGraphPlot(file, ast);
                     file.close();
 
-                    writeJSONFile(Configuration.generateTruffleTransactionFileJSON, transactionsJSONObject);
+                    writeJSONFile(configuration.generateTruffleTransactionFileJSON, transactionsJSONObject);
 
                     return true; // TODO Unify the above operations properly with the output operations below as well
                 } catch (Exception e) {
@@ -291,8 +263,8 @@ public class Driver {
             //Emitter emitter = new Emitter();
 
             // Write debug graph plot, if requested
-            if (Configuration.debugGraphOutputFile != null) {
-                writeDebugGraphOutput(ast, Configuration.debugGraphOutputFile); // ignore return, keep going on error:
+            if (configuration.debugGraphOutputFile != null) {
+                writeDebugGraphOutput(ast, configuration.debugGraphOutputFile); // ignore return, keep going on error:
             }
             // Write Solidity output file
             if (!writeSolidityOutput(ast, output, solidityOutputFile)) {
@@ -304,10 +276,183 @@ public class Driver {
         return true;
     }
 
+    // Processing steps that turn the parsed program into the original program for Live-EMI mutations (or the final
+    // output program if there are no mutations)
+    protected boolean prepareOriginal(AST ast, ASTEditor editor) {
+        if (configuration.eventsReplaceStorageLog && configuration.insertLCMSupportCode) {
+            if (!generateOutroFunctions(ast)) {
+                return false;
+            }
+        }
+        if (configuration.generateTruffleConstructorInvocationContract != null
+                && configuration.generateFullContractFile == null) { // done later for this setting
+            if (!generateTruffleConstructorInvocation(ast, ValueGenerator.IntegerGenerationPolicy.INTEGER_GENERATION_POLICY_EXCLUSIVELY_SMALL)) {
+                return false;
+            }
+        }
+        if (configuration.generateTruffleTransactionContract != null
+                && configuration.generateFullContractFile == null) { // done differently for this setting
+            if (!generateTruffleTransaction(ast, ValueGenerator.IntegerGenerationPolicy.INTEGER_GENERATION_POLICY_EXCLUSIVELY_SMALL)) {
+                return false;
+            }
+        }
+
+        if (configuration.generateContractFunctionsFile != null) {
+            if (!generateContractFunctionsFile(ast)) {
+                return false;
+            }
+        }
+        if (configuration.reduceFunctions != null) {
+            if (!reduceFunctions(ast, editor, context.createRandomNumbers())) {
+                return false;
+            }
+        }
+
+        // Compute profiling event information and, if we're generating an instrumented contract, also
+        // edit the AST to contain event definitions and emissions.
+        // If we're only reading a recorded profiling log, we still wish to compute the event information
+        // in order to interpret the log file - but the Profiler class won't edit the AST if the
+        // "profiling" config option isn't set
+        if (configuration.profiling || configuration.loadProfilingLog != null) {
+            // TODO It's unclear whether:
+            //    1. It makes sense to have one ProfilingLog for each contract, or one for all contracts.
+            //       This will also depend on whether a single log will contain results for multiple
+            //       transactions/contracts.
+            //    2. Re-computing the event info is really needed or may be superfluous due to self-contained
+            //       log information
+
+            // Generate profiling instrumentation separately for each contract, and for each function
+            if (!performProfilingInstrumentations(ast, editor)) {
+                return false;
+            }
+
+            // If available, load profiling log as well
+            if (configuration.loadProfilingLog != null) {
+                if (!loadProfilingLog(ast)) {
+                    return false;
+                }
+            }
+        }
+
+        // Rename exceptional events if requested (after all other AST processing operations to
+        // avoid interferences)
+        /*if (configuration.renameExceptionalEvents)*/ if (configuration.generateFullContractFile == null) {
+            if (!renameExceptionalEvents(editor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Generate all mutated programs concurrently. Every worker applies the mutations to a private copy of the
+    // prepared original program, made by a Driver with its own context, and rolls the copy back after each mutation.
+    // Mutated program i uses the PRNG seed + i, so the first mutated program is identical to the sequential mode
+    protected boolean applyParallelLiveCodeMutations(final AST ast, final OutputStream output) {
+        int threads = configuration.liveEMIMutationThreads > 0
+                ? configuration.liveEMIMutationThreads
+                : Runtime.getRuntime().availableProcessors();
+        final int workers = Math.min(threads, configuration.mutatedOutputProgramsCount);
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        ArrayList<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+
+        // Construct all deferred function bodies first, so that the original is no longer modified and the workers
+        // can copy it concurrently
+        ast.materializeDeferredChildren();
+
+        try {
+            for (int i = 0; i < workers; ++i) {
+                final int firstMutationIndex = i;
+                final Driver mutationDriver = new Driver(new SoltixContext(configuration.copy()));
+                results.add(pool.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return mutationDriver.generateMutatedPrograms(ast, context, firstMutationIndex, workers, output);
+                    }
+                }));
+            }
+
+            boolean success = true;
+            for (int i = 0; i < results.size(); ++i) {
+                try {
+                    if (!results.get(i).get()) {
+                        success = false;
+                    }
+                } catch (Exception e) {
+                    logger.error("Exception during live code mutation worker " + i + ": " + e.toString());
+                    e.printStackTrace();
+                    success = false;
+                }
+            }
+            return success;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Copy the original program and write the mutated programs firstMutationIndex, firstMutationIndex + stride, ...
+    // of it. Runs on a worker thread
+    protected boolean generateMutatedPrograms(AST originalAST, SoltixContext originalContext,
+                                              int firstMutationIndex, int stride, OutputStream output) {
+        int mutationIndex = firstMutationIndex;
+        context.attach();
+        try {
+            // Generated nodes get the same IDs as in the sequential mode
+            context.continueIDAllocation(originalContext);
+            AST ast = originalAST.copy();
+            ASTEditor editor = new ASTEditor(ast);
+
+            ASTEditJournal journal = editor.enableJournal();
+            ASTEditJournal.Savepoint original = journal.savepoint();
+            ast.setCodeCache(new SolidityCodeCache());
+            int originalSeed = configuration.randomNumbersSeed;
+            EditScript.Base originalCode = null;
+            if (configuration.mutationEditScripts) {
+                // Every worker renders the same original program, but only one has to write it
+                originalCode = writeEditScriptBase(ast, firstMutationIndex == 0);
+                if (originalCode == null) {
+                    return false;
+                }
+            }
+
+            for (; mutationIndex < configuration.mutatedOutputProgramsCount; mutationIndex += stride) {
+                configuration.randomNumbersSeed = originalSeed + mutationIndex;
+                if (!applyLiveCodeMutations(ast, editor)) {
+                    return false;
+                }
+
+                // Write debug graph plot, if requested
+                if (configuration.debugGraphOutputFile != null) {
+                    String outputFile = configuration.debugGraphOutputFile.replace("#", String.valueOf(mutationIndex));
+                    writeDebugGraphOutput(ast, outputFile); // ignore return, keep going on error:
+                }
+                // Write Solidity output file
+                String solidityOutputFile = configuration.solidityOutputFile != null
+                        ? configuration.solidityOutputFile.replace("#", String.valueOf(mutationIndex))
+                        : null;
+                if (originalCode != null) {
+                    if (!writeEditScriptOutput(ast, originalCode, solidityOutputFile + ".edit")) {
+                        return false;
+                    }
+                } else if (!writeSolidityOutput(ast, output, solidityOutputFile)) {
+                    return false;
+                }
+
+                journal.rollback(original);
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("Exception during live code mutation " + mutationIndex + ": " + e.toString());
+            e.printStackTrace();
+            return false;
+        } finally {
+            context.detach();
+        }
+    }
+
     protected void writeJSONFile(String jsonFilePath, JSONObject transactionsJSONObject) throws Exception {
         FileWriter file = new FileWriter(jsonFilePath);
         file.write(transactionsJSONObject.toJSONString());
-        file.flush();
+        file.close();
     }
 
     protected boolean injectLoopLimits(ASTEditor editor) {
@@ -337,11 +482,11 @@ public class Driver {
 
     protected boolean openMetadataOutputLogFile() {
         try {
-            FileOutputStream file = new FileOutputStream(Configuration.metadataOutputLogFile);
+            FileOutputStream file = new FileOutputStream(configuration.metadataOutputLogFile);
             PrintWriter printWriter = new PrintWriter(file, true);
-            Configuration.metadataOutputLogWriter = printWriter;
+            configuration.metadataOutputLogWriter = printWriter;
         } catch (Exception e) {
-            logger.error("Cannot open metadata output file " + Configuration.metadataOutputLogFile + ": " + e.toString());
+            logger.error("Cannot open metadata output file " + configuration.metadataOutputLogFile + ": " + e.toString());
             e.printStackTrace();
             return false;
         }
@@ -355,7 +500,7 @@ public class Driver {
             //topLevelContract = TransactionGenerator.findTopLevelContract(ast, true, 0);
             ArrayList<ASTContractDefinition> transactableContracts = TransactionGenerator.getTransactableContracts(ast);
 
-            FileOutputStream file = new FileOutputStream(Configuration.outputTopLevelContract);
+            FileOutputStream file = new FileOutputStream(configuration.outputTopLevelContract);
             PrintWriter printWriter = new PrintWriter(file);
             if (transactableContracts == null) {
                 logger.error("Cannot find transactable contract");
@@ -376,7 +521,7 @@ public class Driver {
 
     protected boolean generateContractFunctionsFile(AST ast) {
         try {
-            FileOutputStream file = new FileOutputStream(Configuration.generateContractFunctionsFile);
+            FileOutputStream file = new FileOutputStream(configuration.generateContractFunctionsFile);
             PrintWriter writer = new PrintWriter(file);
             // Output every function with the format <contract-name>:<function-name>, ordered descending by size (in
             // AST nodes)
@@ -388,7 +533,7 @@ public class Driver {
             file.close();
         } catch (Exception e) {
             logger.error("Exception: Cannot generate contract functions file "
-                    + Configuration.generateContractFunctionsFile
+                    + configuration.generateContractFunctionsFile
                     + ": " + e.toString());
             e.printStackTrace();
             return false;
@@ -398,23 +543,23 @@ public class Driver {
 
     protected boolean generateTruffleConstructorInvocation(AST ast, ValueGenerator.IntegerGenerationPolicy integerGenerationPolicy) {
         AST constructorInvocationAST = new AST();
-        ASTContractDefinition contract = ast.getContract(Configuration.generateTruffleConstructorInvocationContract);
+        ASTContractDefinition contract = ast.getContract(configuration.generateTruffleConstructorInvocationContract);
 
         if (contract == null) {
             logger.error("generateTruffleConstructorInvocation: Cannot locate requested contract " +
-                Configuration.generateTruffleConstructorInvocationContract);
+                configuration.generateTruffleConstructorInvocationContract);
             return false;
         }
         try {
-            TransactionGenerator transactionGenerator = new TransactionGenerator(new RandomNumbers(Configuration.randomNumbersSeed));
+            TransactionGenerator transactionGenerator = new TransactionGenerator(context.createRandomNumbers());
             transactionGenerator.generateTruffleConstructorInvocation(ast, constructorInvocationAST, contract, integerGenerationPolicy);
             //Emitter emitter = new Emitter();
-            FileOutputStream file = new FileOutputStream(Configuration.generateTruffleConstructorInvocationFile);
+            FileOutputStream file = new FileOutputStream(configuration.generateTruffleConstructorInvocationFile);
             Emitter.emitJavaScriptCode(file, constructorInvocationAST); //.emitGraphPlot(file, ast);
             file.close();
         } catch (Exception e) {
             logger.error("Exception: Cannot generate truffle constructor invocation for "
-                    + Configuration.generateTruffleConstructorInvocationContract
+                    + configuration.generateTruffleConstructorInvocationContract
                     + ": " + e.toString());
             e.printStackTrace();
             return false;
@@ -441,7 +586,7 @@ public class Driver {
     protected boolean generateTruffleTransaction(AST ast, ValueGenerator.IntegerGenerationPolicy integerGenerationPolicy) {
         //AST transactionAST = new AST();
         //ASTEditor constructorInvocationEditor = new ASTEditor(transactionAST);
-        ASTContractDefinition contract = ast.getContract(Configuration.generateTruffleTransactionContract);
+        ASTContractDefinition contract = ast.getContract(configuration.generateTruffleTransactionContract);
 
         try {
             // Determine largest function to call
@@ -456,9 +601,9 @@ public class Driver {
             }
 
             //Emitter emitter = new Emitter();
-            FileOutputStream file = new FileOutputStream(Configuration.generateTruffleTransactionFile);
+            FileOutputStream file = new FileOutputStream(configuration.generateTruffleTransactionFile);
 
-            TransactionGenerator transactionGenerator = new TransactionGenerator(new RandomNumbers(Configuration.randomNumbersSeed));
+            TransactionGenerator transactionGenerator = new TransactionGenerator(context.createRandomNumbers());
 
             JSONObject transactionsJSONObject = new JSONObject();
             for (ASTFunctionDefinition functionToCall : callableFunctions) {
@@ -470,10 +615,10 @@ public class Driver {
             generateOutroCall(ast, contract, transactionGenerator, file, transactionsJSONObject, integerGenerationPolicy);
             file.close();
 
-            writeJSONFile(Configuration.generateTruffleTransactionFileJSON, transactionsJSONObject);
+            writeJSONFile(configuration.generateTruffleTransactionFileJSON, transactionsJSONObject);
         } catch (Exception e) {
             logger.error("Exception: Cannot generate truffle tx for "
-                    + Configuration.generateTruffleConstructorInvocationContract
+                    + configuration.generateTruffleConstructorInvocationContract
                     + ": " + e.toString());
             e.printStackTrace();
             return false;
@@ -482,7 +627,7 @@ public class Driver {
     }
 
     protected boolean reduceFunctions(AST ast, ASTEditor editor, RandomNumbers prng) {
-        for (String requestedRemoval : Configuration.reduceFunctions) {
+        for (String requestedRemoval : configuration.reduceFunctions) {
             // Assume format "<contract>:<function>"
             String[] s = requestedRemoval.split(":");
             ASTContractDefinition contract = ast.getContract(s[0]);
@@ -518,7 +663,9 @@ public class Driver {
         HashMap<ASTContractDefinition, ProfilingLogInstrumentation> profilingInstrumentations = null;
         profilingInstrumentations = new HashMap<ASTContractDefinition, ProfilingLogInstrumentation>();
 
-        RandomNumbers prng = new RandomNumbers(Configuration.randomNumbersSeed);
+        RandomNumbers prng = context.createRandomNumbers();
+        // Record the defined events to decode a profiling log with them
+        ast.setProfilingEventTable(new ProfilingEventTable());
 
         for (ASTContractDefinition contract : ast.getContracts()) {
             ProfilingInstrumenter profiler = new ProfilingInstrumenter(contract, editor, prng);
@@ -549,9 +696,9 @@ public class Driver {
         // See TODO above comments on log instantiation/separation (separate/do not separate by contracts? transactions?)
         ProfilingLogRecording log = new ProfilingLogRecording(ast);
         try {
-            log.loadEventLog(Configuration.loadProfilingLog);
+            log.loadEventLog(configuration.loadProfilingLog);
         } catch (Exception e) {
-            logger.error("Cannot load profiling log " + Configuration.loadProfilingLog + ": " + e.toString());
+            logger.error("Cannot load profiling log " + configuration.loadProfilingLog + ": " + e.toString());
             e.printStackTrace();
             return false;
         }
@@ -586,7 +733,7 @@ public class Driver {
 
 
     protected boolean applyLiveCodeMutations(AST ast, ASTEditor editor) throws Exception {
-        LiveEMIMutator mutator = new LiveEMIMutator(ast, editor);
+        LiveEMIMutator mutator = new LiveEMIMutator(ast, editor, context);
         try {
             mutator.run();
         } catch (Exception e) {
@@ -631,14 +778,14 @@ public class Driver {
 
         // Save size metric
         // TODO Make this useful in the presence of multiple output operations
-        Configuration.writeMetadataLog("totalCodeSize", String.valueOf(ast.getTotalFunctionBodyNodeCount()));
+        configuration.writeMetadataLog("totalCodeSize", String.valueOf(ast.getTotalFunctionBodyNodeCount()));
 
         FileOutputStream file = null;
         if (outputFilePath != null) {
             try {
                 file = new FileOutputStream(outputFilePath);
             } catch (Exception e) {
-                logger.error("Cannot open Solidity output file " + Configuration.solidityOutputFile + ": " + e.toString());
+                logger.error("Cannot open Solidity output file " + configuration.solidityOutputFile + ": " + e.toString());
                 return false;
             }
         }
@@ -664,6 +811,70 @@ public class Driver {
     }
 
 
+    // Write the original program that mutated programs are described against with --mutationEditScripts, if
+    // requested, and return it for computing the edit scripts (null on error). Subsequent edits of the AST are
+    // recorded for the scripts
+    protected EditScript.Base writeEditScriptBase(AST ast, boolean writeFile) {
+        String outputFilePath = configuration.solidityOutputFile.replace("#", "-base");
+        CodeOutputWriter originalCode;
+        EditScript.Base base;
+        try {
+            originalCode = Emitter.renderSolidityCode(ast);
+            base = new EditScript.Base(originalCode);
+        } catch (Exception e) {
+            logger.error("Solidity code output error: " + e.toString());
+            e.printStackTrace();
+            return null;
+        }
+        ast.setEditRecorder(new EditScript.Recorder());
+        if (!writeFile) {
+            return base;
+        }
+
+        PrintWriter writer = null;
+        try {
+            writer = new PrintWriter(new FileWriter(outputFilePath));
+            for (int i = 1; i <= originalCode.getMemoryLineCount(); ++i) {
+                writer.println(originalCode.getMemoryLine(i));
+            }
+        } catch (Exception e) {
+            logger.error("Cannot write Solidity output file " + outputFilePath + ": " + e.toString());
+            return null;
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+        return base;
+    }
+
+    protected boolean writeEditScriptOutput(AST ast, EditScript.Base originalCode, String outputFilePath) {
+        configuration.writeMetadataLog("totalCodeSize", String.valueOf(ast.getTotalFunctionBodyNodeCount()));
+
+        EditScript script;
+        try {
+            script = EditScript.compute(originalCode, ast, ast.getEditRecorder());
+        } catch (Exception e) {
+            logger.error("Edit script computation error: " + e.toString());
+            e.printStackTrace();
+            return false;
+        }
+
+        PrintWriter writer = null;
+        try {
+            writer = new PrintWriter(new FileWriter(outputFilePath));
+            script.write(writer);
+        } catch (Exception e) {
+            logger.error("Cannot write edit script file " + outputFilePath + ": " + e.toString());
+            return false;
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+        return true;
+    }
+
     protected boolean interpretProgram(AST ast, String transactionsJSONFile, String outputLogFile) {
         JSONParser parser = new JSONParser();
         JSONObject transactionsJSONObject;
@@ -688,7 +899,7 @@ public class Driver {
             return false;
         }
 
-        FullInterpreter fullInterpreter = new FullInterpreter(transactionsList);
+        FullInterpreter fullInterpreter = new FullInterpreter(transactionsList, context);
         ASTInterpreter interpreter = new ASTInterpreter(ast, fullInterpreter);
         try {
             interpreter.run();
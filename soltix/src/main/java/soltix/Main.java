@@ -19,6 +19,7 @@
  */
 package soltix;
 
+import soltix.output.EditScript;
 import soltix.profiling.EventLogComparator;
 import soltix.synthesis.FunctionGenerator;
 import soltix.util.Hash;
@@ -26,17 +27,29 @@ import org.apache.log4j.BasicConfigurator;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PropertyConfigurator;
 
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class Main {
     final static Logger logger = Logger.getLogger(Main.class);
 
-    protected static void usage() {
+    // Returned by processArguments() if the arguments were processed successfully and the driver should be run
+    final static int CONTINUE_PROCESSING = -1;
+
+    protected static int usage() {
         // TODO update this
-        logger.info("Usage: soltix [--debugASTOutput] [--skipASTProcessing] [--debugGraphPlot=output-dotfile] [--instrument] [--replay=event-log]");
-        System.exit(1);
+        logger.info("Usage: soltix [--server [job-args...]] [--generateFullContractRange=seed:count:dir[:type]] [--applyLiveEMIMutations=count [--parallelLiveEMIMutations[=threads]] [--mutationEditScripts] [--valueSetBudget=count] [--parallelEvaluationThreshold=count]] [--applyEditScript=base=script=output] [--testEventLogEquivalenceAll=baseline=logs[=summary] [--testEventLogEquivalenceThreads=threads]] [--debugASTOutput] [--skipASTProcessing] [--compactAST] [--astCache=directory] [--debugGraphPlot=output-dotfile] [--instrument] [--replay=event-log]");
+        return 1;
     }
-    public static void main(String [] args) {
+
+    protected static void configureLogging() {
         BasicConfigurator.configure();
 
         String logPath = System.getenv("LOG4J_CONFIG");
@@ -44,119 +57,277 @@ public class Main {
             logPath = "log4j.properties";
         }
         PropertyConfigurator.configure(logPath);
+    }
+
+    public static void main(String [] args) {
+        if (args.length >= 1 && args[0].equals("--server")) {
+            // Keep the original stdout as the server's response channel before anything - including the logger -
+            // can write to it, and send all regular console output of the jobs to stderr instead
+            PrintStream responseStream = System.out;
+            System.setOut(System.err);
+            configureLogging();
+
+            // Any further arguments are passed to every job
+            ArrayList<String> defaultArguments = new ArrayList<String>(Arrays.asList(args).subList(1, args.length));
+            SoltixServer server = new SoltixServer(responseStream, defaultArguments);
+            System.exit(server.run(System.in));
+        }
+
+        configureLogging();
+        System.exit(runJob(args, System.in, System.out));
+    }
+
+    // Run a single soltix job with the given program arguments in its own context, and return the process exit
+    // status for it
+    public static int runJob(String [] args, InputStream input, OutputStream output) {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            int status = processArguments(args, context.getConfiguration());
+            if (status != CONTINUE_PROCESSING) {
+                return status;
+            }
+
+            if (context.getConfiguration().generateFullContractRangeDirectory != null) {
+                // Every seed is generated as a job of its own
+                ContractRangeGenerator rangeGenerator = new ContractRangeGenerator(args, context.getConfiguration());
+                return rangeGenerator.run() ? 0 : 1;
+            }
+
+            // Start transformation work
+            Driver driver = new Driver(context);
 
+            boolean rc = driver.run(input, output);
+            logger.debug("Values: " + context.getValueContainer());
+            return rc? /* success */ 0: /* error */ 1;
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Process program arguments into the configuration. Returns CONTINUE_PROCESSING if the driver should be run,
+    // or the exit status if the arguments were invalid or fully handled here
+    protected static int processArguments(String [] args, Configuration configuration) {
         // Process program arguments
         for (int i = 0; i < args.length; ++i) {
             if (args[i].equals("--debugASTOutput")) {
-                Configuration.debugASTOutput = true;
+                configuration.debugASTOutput = true;
             } else if (args[i].equals("--skipASTProcessing")) {
-                Configuration.skipASTProcessing = true;
+                configuration.skipASTProcessing = true;
+            } else if (args[i].equals("--compactAST")) {
+                configuration.compactASTInput = true;
+            } else if (args[i].startsWith("--astCache=")) {
+                String [] s = args[i].split("=");
+                configuration.astCacheDirectory = s[1];
             } else if (args[i].startsWith("--debugGraphPlot=")) {
                 String [] s = args[i].split("=");
-                Configuration.debugGraphOutputFile = s[1];
+                configuration.debugGraphOutputFile = s[1];
             } else if (args[i].startsWith("--solidityOutput=")) {
                 String [] s = args[i].split("=");
-                Configuration.solidityOutputFile = s[1];
+                configuration.solidityOutputFile = s[1];
             } else if (args[i].startsWith("--outputTopLevelContract=")) {
                 String[] s = args[i].split("=");
-                Configuration.outputTopLevelContract = s[1];
+                configuration.outputTopLevelContract = s[1];
             } else if (args[i].equals("--instrument")) {
-                Configuration.profiling = true;
+                configuration.profiling = true;
             } else if (args[i].startsWith("--replay")) {
                 String [] s = args[i].split("=");
-                Configuration.loadProfilingLog = s[1];
-                Configuration.showCoverage = true;
+                configuration.loadProfilingLog = s[1];
+                configuration.showCoverage = true;
             } else if (args[i].startsWith("--generateTruffleConstructorInvocation")) {
                 String[] s = args[i].split("=");
-                Configuration.generateTruffleConstructorInvocationContract = s[1];
-                Configuration.generateTruffleConstructorInvocationFile = s[2];
+                configuration.generateTruffleConstructorInvocationContract = s[1];
+                configuration.generateTruffleConstructorInvocationFile = s[2];
             } else if (args[i].startsWith("--generateTruffleTransaction")) {
                 String[] s = args[i].split("=");
                 // For now: choose contract to generate tx for, invoke largest (in terms of
                 // statements) function automatically
                 if (s.length != 4) {
                     logger.error("--generateTruffleTransaction requires a .tx and a .tx-json output file argument");
-                    System.exit(1);
+                    return 1;
                 }
-                Configuration.generateTruffleTransactionContract = s[1];
-                Configuration.generateTruffleTransactionFile = s[2];
-                Configuration.generateTruffleTransactionFileJSON = s[3];
+                configuration.generateTruffleTransactionContract = s[1];
+                configuration.generateTruffleTransactionFile = s[2];
+                configuration.generateTruffleTransactionFileJSON = s[3];
             } else if (args[i].startsWith("--generateContractFunctionsFile")) {
                 String[] s = args[i].split("=");
-                Configuration.generateContractFunctionsFile = s[1];
+                configuration.generateContractFunctionsFile = s[1];
             } else if (args[i].startsWith("--reduceFunctions")) {
                 String[] s = args[i].split("=");
                 // Assumed format:
                 //    --reduceFunctions=<contract>:<function>,<contract>:<function>, ...
                 String[] s2 = s[1].split(",");
-                Configuration.reduceFunctions = s2;
+                configuration.reduceFunctions = s2;
+            } else if (args[i].startsWith("--generateFullContractRangeThreads=")) {
+                String[] s = args[i].split("=");
+                configuration.generateFullContractRangeThreads = Integer.parseInt(s[1]);
+            } else if (args[i].startsWith("--generateFullContractRange=")) {
+                // Assumed format:
+                //    --generateFullContractRange=<firstSeed>:<count>:<outDir>[:<functionType>]
+                String[] s = args[i].substring("--generateFullContractRange=".length()).split(":");
+
+                if (s.length < 3
+                        || (configuration.generateFullContractFunctionType =
+                                FunctionGenerator.FunctionType.fromName(s.length > 3 ? s[3] : "random")) == null) {
+                    logger.error("--generateFullContractRange requires ':'-separated arguments: first seed, seed count, "
+                            + "output directory and optionally function type");
+                    logger.error("--generateFullContractRange=seed:count:dir[:random|assignmentSequence|singleReturn]");
+                    return 1;
+                }
+                configuration.generateFullContractRangeFirstSeed = Integer.parseInt(s[0]);
+                configuration.generateFullContractRangeCount = Integer.parseInt(s[1]);
+                configuration.generateFullContractRangeDirectory = s[2];
             } else if (args[i].startsWith("--generateFullContract")) {
                 String[] s = args[i].split("=");
 
-                Configuration.generateFullContractFile = s[1];
+                configuration.generateFullContractFile = s[1];
 
                 if (s.length < 3
-                        || (Configuration.generateFullContractFunctionType = FunctionGenerator.FunctionType.fromName(s[2])) == null) {
+                        || (configuration.generateFullContractFunctionType = FunctionGenerator.FunctionType.fromName(s[2])) == null) {
                     logger.error("--generateFullContract requires two '='-separated arguments: output file and function type");
                     logger.error("--generateFullContract=file.sol=[random|assignmentSequence|singleReturn");
-                    System.exit(1);
+                    return 1;
                 }
             } else if (args[i].equals("--showCoverage")) {
-                Configuration.showCoverage = true;
+                configuration.showCoverage = true;
             } else if (args[i].equals("--renameExceptionalEvents")) {
-                Configuration.renameExceptionalEvents = true;
+                configuration.renameExceptionalEvents = true;
             } else if (args[i].startsWith("--renameNowTimestamps")) {
                 String[] s = args[i].split("=");
-                Configuration.renameNowTimestamps = Integer.parseInt(s[1]);
+                configuration.renameNowTimestamps = Integer.parseInt(s[1]);
             } else if (args[i].equals("--renameThrowStatements")) {
-                Configuration.renameThrowStatements = true;
-            } else if (args[i].startsWith("--testEventLogEquivalence")) {
+                configuration.renameThrowStatements = true;
+            } else if (args[i].startsWith("--testEventLogEquivalence=")) {
                 String[] s = args[i].split("=");
                 // Only compare two event logs and return 0 if equal, 1 if not equal or an error occurred
                 try {
-                    System.exit(EventLogComparator.equal(s[1], s[2], true /*TODO - pass this*/) ? 0 : 1);
+                    return EventLogComparator.equal(s[1], s[2], true /*TODO - pass this*/) ? 0 : 1;
                 } catch (Exception e) {
                     logger.error("Exception while trying to compare logs " + s[1] + " and " + s[2] + ": " + e.toString());
                     e.printStackTrace();
-                    System.exit(1);
+                    return 1;
+                }
+            } else if (args[i].startsWith("--testEventLogEquivalenceAll=")) {
+                // Assumed format:
+                //    --testEventLogEquivalenceAll=<baseline log>=<logs>[=<summary file>]
+                String[] s = args[i].split("=");
+                if (s.length < 3 || s.length > 4) {
+                    logger.error("--testEventLogEquivalenceAll requires '='-separated arguments: baseline log, other logs "
+                            + "(comma-separated paths or globs, or @list-file) and optionally summary output file");
+                    return 1;
+                }
+                configuration.eventLogEquivalenceBaseline = s[1];
+                configuration.eventLogEquivalenceLogs = s[2];
+                configuration.eventLogEquivalenceSummaryFile = s.length > 3 ? s[3] : null;
+            } else if (args[i].startsWith("--testEventLogEquivalenceThreads=")) {
+                String[] s = args[i].split("=");
+                configuration.eventLogEquivalenceThreads = Integer.parseInt(s[1]);
+            } else if (args[i].startsWith("--applyEditScript")) {
+                String[] s = args[i].split("=");
+                // Only materialize the program described by an edit script (--mutationEditScripts) and its base
+                // program, and return 0 on success
+                if (s.length != 4) {
+                    logger.error("--applyEditScript requires base program, edit script and output file as arguments");
+                    return 1;
+                }
+                BufferedReader base = null;
+                BufferedReader script = null;
+                PrintWriter output = null;
+                try {
+                    base = new BufferedReader(new FileReader(s[1]));
+                    script = new BufferedReader(new FileReader(s[2]));
+                    output = new PrintWriter(new FileWriter(s[3]));
+                    EditScript.apply(base, script, output);
+                    return 0;
+                } catch (Exception e) {
+                    logger.error("Exception while trying to apply edit script " + s[2] + " to " + s[1] + ": " + e.toString());
+                    e.printStackTrace();
+                    return 1;
+                } finally {
+                    try {
+                        if (base != null) {
+                            base.close();
+                        }
+                        if (script != null) {
+                            script.close();
+                        }
+                    } catch (Exception e) {
+                        logger.error("Cannot close edit script input: " + e.toString());
+                    }
+                    if (output != null) {
+                        output.close();
+                    }
                 }
             } else if (args[i].startsWith("--applyLiveEMIMutations")) {
                 // Argument: Count of mutated programs to generate
                 String[] s = args[i].split("=");
                 if (s.length == 1) {
                     logger.error("--applyLiveEMIMutations requires the number of mutated programs to generate as argument");
-                    System.exit(1);
+                    return 1;
+                }
+                configuration.applyLiveEMIMutations = true;
+                configuration.mutatedOutputProgramsCount = Integer.parseInt(s[1]);
+                if (configuration.mutatedOutputProgramsCount < 1) {
+                    logger.error("Invalid output program count " + configuration.mutatedOutputProgramsCount + " for --applyLiveEMIMutations");
+                    return 1;
+                }
+            } else if (args[i].startsWith("--parallelLiveEMIMutations")) {
+                // Optional argument: Count of worker threads
+                String[] s = args[i].split("=");
+                configuration.parallelLiveEMIMutations = true;
+                if (s.length > 1) {
+                    configuration.liveEMIMutationThreads = Integer.parseInt(s[1]);
+                }
+            } else if (args[i].startsWith("--valueSetBudget")) {
+                // Argument: Count of distinct value sets to keep per statement
+                String[] s = args[i].split("=");
+                if (s.length == 1) {
+                    logger.error("--valueSetBudget requires the number of value sets to keep as argument");
+                    return 1;
+                }
+                configuration.valueSetBudget = Integer.parseInt(s[1]);
+                if (configuration.valueSetBudget < 0) {
+                    logger.error("Invalid value set count " + configuration.valueSetBudget + " for --valueSetBudget");
+                    return 1;
+                }
+            } else if (args[i].startsWith("--parallelEvaluationThreshold")) {
+                // Argument: Count of value sets from which operators are evaluated on several threads
+                String[] s = args[i].split("=");
+                if (s.length == 1) {
+                    logger.error("--parallelEvaluationThreshold requires a value set count as argument");
+                    return 1;
                 }
-                Configuration.applyLiveEMIMutations = true;
-                Configuration.mutatedOutputProgramsCount = Integer.parseInt(s[1]);
-                if (Configuration.mutatedOutputProgramsCount < 1) {
-                    logger.error("Invalid output program count " + Configuration.mutatedOutputProgramsCount + " for --applyLiveEMIMutations");
-                    System.exit(1);
+                configuration.parallelEvaluationThreshold = Integer.parseInt(s[1]);
+                if (configuration.parallelEvaluationThreshold < 0) {
+                    logger.error("Invalid value set count " + configuration.parallelEvaluationThreshold + " for --parallelEvaluationThreshold");
+                    return 1;
                 }
+            } else if (args[i].equals("--mutationEditScripts")) {
+                configuration.mutationEditScripts = true;
             } else if (args[i].equals("--insertLCMSupportCode")) {
-                Configuration.insertLCMSupportCode = true;
+                configuration.insertLCMSupportCode = true;
             } else if (args[i].equals("--injectArraySubscriptChecks")) {
-                Configuration.injectArraySubscriptChecks = true;
+                configuration.injectArraySubscriptChecks = true;
             } else if (args[i].startsWith("--prng-seed")) {
                 String[] s = args[i].split("=");
-                Configuration.randomNumbersSeed = Integer.parseInt(s[1]);
+                configuration.randomNumbersSeed = Integer.parseInt(s[1]);
             } else if (args[i].startsWith("--contractGenerationFunctionCount")) {
                 String[] s = args[i].split("=");
-                Configuration.contractGenerationFunctionCount = Integer.parseInt(s[1]);
+                configuration.contractGenerationFunctionCount = Integer.parseInt(s[1]);
             } else if (args[i].startsWith("--contractGenerationVariableCount")) {
                 String[] s = args[i].split("=");
-                Configuration.contractGenerationVariableCount = Integer.parseInt(s[1]);
+                configuration.contractGenerationVariableCount = Integer.parseInt(s[1]);
             } else if (args[i].startsWith("--contractGenerationFunctionStatementsLowerBound")) {
                 String[] s = args[i].split("=");
-                Configuration.contractGenerationFunctionStatementsLowerBound = Integer.parseInt(s[1]);
+                configuration.contractGenerationFunctionStatementsLowerBound = Integer.parseInt(s[1]);
             } else if (args[i].startsWith("--contractGenerationFunctionStatementsUpperBound")) {
                 String[] s = args[i].split("=");
-                Configuration.contractGenerationFunctionStatementsUpperBound = Integer.parseInt(s[1]);
+                configuration.contractGenerationFunctionStatementsUpperBound = Integer.parseInt(s[1]);
             } else if (args[i].equals("--eventsReplaceStorageLog")) {
-                Configuration.eventsReplaceStorageLog = true;
+                configuration.eventsReplaceStorageLog = true;
             } else if (args[i].startsWith("--metadataOutput")) {
                 String[] s = args[i].split("=");
-                Configuration.metadataOutputLogFile = s[1];
+                configuration.metadataOutputLogFile = s[1];
             } else if (args[i].startsWith("--interpret")) {
                 // Needs "="-separated arguments:
                 //     - transactions file in JSON format
@@ -164,73 +335,122 @@ public class Main {
                 String[] s = args[i].split("=");
                 if (s.length != 3) {
                     logger.error("--interpret needs two '='-separated arguments: input .tx-json file and output log path");
-                    System.exit(1);
+                    return 1;
                 }
-                Configuration.interpretationTransactionsFile = s[1];
-                Configuration.interpretationOutputLogFile = s[2];
+                configuration.interpretationTransactionsFile = s[1];
+                configuration.interpretationOutputLogFile = s[2];
             } else if (args[i].equals("--inject-loop-limits")) {
-                Configuration.injectLoopLimits = true;
+                configuration.injectLoopLimits = true;
             } else if (args[i].equals("--guaranteeSafeExecution")) {
-                Configuration.guaranteeSafeExecution = true;
+                configuration.guaranteeSafeExecution = true;
             } else if (args[i].equals("--ganacheOptimizationWorkarounds")) {
-                Configuration.ganacheOptimizationWorkarounds = true;
+                configuration.ganacheOptimizationWorkarounds = true;
             } else if (args[i].equals("--avoidExponentialOperator")) {
-                Configuration.avoidExponentialOperator = true;
+                configuration.avoidExponentialOperator = true;
             } else if (args[i].equals("--avoidShiftOperators")) {
-                Configuration.avoidShiftOperators = true;
+                configuration.avoidShiftOperators = true;
             } else if (args[i].equals("--useABIEncoderV2")) {
-                Configuration.useABIEncoderV2 = true;
+                configuration.useABIEncoderV2 = true;
             } else if (args[i].equals("--allowStructsInFunctionABI")) {
-                Configuration.allowStructsInFunctionABI = true;
+                configuration.allowStructsInFunctionABI = true;
             } else {
                 logger.info("Unknown argument " + i + ": '" + args[i] + "'");
-                usage();
+                return usage();
             }
         }
 
-        if (Configuration.applyLiveEMIMutations) {
-            if (Configuration.loadProfilingLog == null) {
+        if (configuration.eventLogEquivalenceBaseline != null) {
+            // Only compare the event logs and return 0 if all are equal to the baseline, 1 otherwise
+            return testEventLogEquivalenceAll(configuration) ? 0 : 1;
+        }
+        if (configuration.applyLiveEMIMutations) {
+            if (configuration.loadProfilingLog == null) {
                 logger.error("Live code mutations require loading an event log");
-                usage();
+                return usage();
             }
-            if (Configuration.solidityOutputFile == null) {
-                if (Configuration.mutatedOutputProgramsCount > 1) {
+            if (configuration.solidityOutputFile == null) {
+                if (configuration.mutatedOutputProgramsCount > 1) {
                     logger.error("Multiple mutated programs requested - this requires file output with --solidityOutput");
-                    System.exit(1);
+                    return 1;
                 }
             } else {
                 int hashCharCount = 0;
-                for (int i = 0; i < Configuration.solidityOutputFile.length(); ++i) {
-                    if (Configuration.solidityOutputFile.charAt(i) == '#') {
+                for (int i = 0; i < configuration.solidityOutputFile.length(); ++i) {
+                    if (configuration.solidityOutputFile.charAt(i) == '#') {
                         ++hashCharCount;
                     }
                 }
 
                 if (hashCharCount != 1) {
                     logger.error("The output file name should contain exactly '#' character to insert the output program counter at");
-                    System.exit(1);
+                    return 1;
                 }
             }
         }
-        if (Configuration.generateFullContractFile != null) {
-            if (Configuration.generateTruffleConstructorInvocationFile == null
-                || Configuration.generateTruffleTransactionFile == null) {
+        if (configuration.mutationEditScripts
+            && (!configuration.applyLiveEMIMutations || configuration.solidityOutputFile == null)) {
+            logger.error("--mutationEditScripts requires --applyLiveEMIMutations and --solidityOutput");
+            return 1;
+        }
+        if (configuration.parallelLiveEMIMutations && !configuration.applyLiveEMIMutations) {
+            logger.error("--parallelLiveEMIMutations requires --applyLiveEMIMutations");
+            return 1;
+        }
+        if (configuration.generateFullContractRangeDirectory != null) {
+            if (configuration.generateFullContractFile != null) {
+                logger.error("--generateFullContractRange cannot be combined with --generateFullContract");
+                return 1;
+            }
+            if (configuration.generateFullContractRangeCount < 1) {
+                logger.error("Invalid seed count " + configuration.generateFullContractRangeCount + " for --generateFullContractRange");
+                return 1;
+            }
+            if (configuration.contractGenerationFunctionStatementsUpperBound
+                    < configuration.contractGenerationFunctionStatementsLowerBound) {
+                logger.error("Setting for --contractGenerationFunctionStatementsUpperBound is smaller than "
+                        + " --contractGenerationFunctionStatementsLowerBound");
+                return 1;
+            }
+        }
+        if (configuration.generateFullContractFile != null) {
+            if (configuration.generateTruffleConstructorInvocationFile == null
+                || configuration.generateTruffleTransactionFile == null) {
                 logger.error("--generateFullContractFile currently additionally requires --generateTruffleConstructorInvocation and "
                         + "--generateTruffleTransaction to generate all files in one go");
-                System.exit(1);
+                return 1;
             }
-            if (Configuration.contractGenerationFunctionStatementsUpperBound
-                    < Configuration.contractGenerationFunctionStatementsLowerBound) {
+            if (configuration.contractGenerationFunctionStatementsUpperBound
+                    < configuration.contractGenerationFunctionStatementsLowerBound) {
                 logger.error("Setting for --contractGenerationFunctionStatementsUpperBound is smaller than "
                         + " --contractGenerationFunctionStatementsLowerBound");
-                System.exit(1);
+                return 1;
             }
         }
 
-        // Start transformation work
-        Driver driver = new Driver();
+        return CONTINUE_PROCESSING;
+    }
 
-        boolean rc = driver.run(System.in, System.out);
-        System.exit(rc? /* success */ 0: /* error */ 1);
+    protected static boolean testEventLogEquivalenceAll(Configuration configuration) {
+        PrintWriter summary = null;
+        try {
+            ArrayList<String> logPaths = EventLogComparator.expandLogPaths(configuration.eventLogEquivalenceLogs);
+            summary = configuration.eventLogEquivalenceSummaryFile != null
+                    ? new PrintWriter(new FileWriter(configuration.eventLogEquivalenceSummaryFile))
+                    : new PrintWriter(System.out);
+            return EventLogComparator.compareAll(configuration.eventLogEquivalenceBaseline, logPaths,
+                    true /*TODO - pass this*/, configuration.eventLogEquivalenceThreads, summary);
+        } catch (Exception e) {
+            logger.error("Exception while trying to compare logs " + configuration.eventLogEquivalenceLogs + " against "
+                    + configuration.eventLogEquivalenceBaseline + ": " + e.toString());
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (summary != null) {
+                summary.flush();
+                if (configuration.eventLogEquivalenceSummaryFile != null) {
+                    summary.close();
+                }
+            }
+        }
     }
 }
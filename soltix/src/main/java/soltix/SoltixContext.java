@@ -0,0 +1,157 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix;
+
+import soltix.ast.ASTStructDefinition;
+import soltix.interpretation.TypeContainer;
+import soltix.interpretation.values.ValueContainer;
+import soltix.util.RandomNumbers;
+
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+
+/**
+ * State of one soltix job: its configuration, the type and value caches, ID allocators and PRNG seeding.
+ *
+ * Previously all of this was process-wide static state, which made it unsafe to run more than one job per JVM.
+ * Top-level components (Driver, generators, mutator, interpreter) receive the context explicitly. Code without access
+ * to it, e.g. value arithmetic or AST node construction, uses the context attached to the current thread via
+ * current(). A thread without an attached context uses a shared default context, which is sufficient for
+ * single-job processes and unit tests.
+ */
+public class SoltixContext {
+    static private final SoltixContext defaultContext = new SoltixContext();
+    static private final ThreadLocal<SoltixContext> threadContext = new ThreadLocal<SoltixContext>();
+
+    private Configuration configuration;
+    private TypeContainer typeContainer = new TypeContainer();
+    private ValueContainer valueContainer = new ValueContainer();
+
+    // Canonical struct references are shared across all contracts since they can be referenced from anywhere
+    private HashMap<String, ASTStructDefinition> structDefinitionsByCanonicalName = new HashMap<String, ASTStructDefinition>();
+
+    // ID allocators for AST nodes, expressions and generated return functions
+    private long currentNodeCounter = 1;
+    private int expressionIDCounter = 0;
+    private int returnFunctionCounter = 0;
+    // Node IDs reserved for nodes that are constructed later, which are allocated from while such nodes are
+    // constructed (see useReservedNodeIDs())
+    private long reservedNodeCounter = 0;
+    private long reservedNodeLimit = 0;
+
+    // Context that was attached to the thread before this one, to be restored by detach()
+    private SoltixContext previousContext = null;
+
+    public SoltixContext() {
+        this(new Configuration());
+    }
+
+    public SoltixContext(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    static public SoltixContext current() {
+        SoltixContext context = threadContext.get();
+        return context != null ? context : defaultContext;
+    }
+
+    // Make this the current context of the calling thread until detach() is called
+    public void attach() {
+        previousContext = threadContext.get();
+        threadContext.set(this);
+    }
+
+    public void detach() {
+        threadContext.set(previousContext);
+        previousContext = null;
+    }
+
+    // Run the task with this as the current context of the calling thread, e.g. on a pool thread that works on
+    // behalf of the job. Unlike attach()/detach(), this may be used by several threads at once
+    public <T> T callAttached(Callable<T> task) throws Exception {
+        SoltixContext previous = threadContext.get();
+        threadContext.set(this);
+        try {
+            return task.call();
+        } finally {
+            threadContext.set(previous);
+        }
+    }
+
+    public Configuration getConfiguration() { return configuration; }
+    public TypeContainer getTypeContainer() { return typeContainer; }
+    public ValueContainer getValueContainer() { return valueContainer; }
+    public HashMap<String, ASTStructDefinition> getStructDefinitionsByCanonicalName() { return structDefinitionsByCanonicalName; }
+
+    // Components that need random numbers each start their own sequence from the configured seed
+    public RandomNumbers createRandomNumbers() {
+        return new RandomNumbers(configuration.randomNumbersSeed);
+    }
+
+    public long allocateNodeID() {
+        if (reservedNodeCounter < reservedNodeLimit) {
+            return reservedNodeCounter++;
+        }
+        return currentNodeCounter++;
+    }
+    // Reserve node IDs for nodes that will only be constructed later (e.g. lazily parsed function bodies), so that
+    // all IDs are the same regardless of when this happens
+    public long reserveNodeIDs(int count) {
+        long first = currentNodeCounter;
+        currentNodeCounter += count;
+        return first;
+    }
+    // Allocate node IDs from a reserved range until endReservedNodeIDs() is called with the returned state. If the
+    // range is exhausted, IDs are allocated as usual
+    public long[] useReservedNodeIDs(long first, int count) {
+        long[] previous = new long[] { reservedNodeCounter, reservedNodeLimit };
+        reservedNodeCounter = first;
+        reservedNodeLimit = first + count;
+        return previous;
+    }
+    public void endReservedNodeIDs(long[] previous) {
+        reservedNodeCounter = previous[0];
+        reservedNodeLimit = previous[1];
+    }
+    // Snapshot of the ID allocators, to be restored along with a rolled back AST (see ASTEditJournal)
+    public long[] saveIDAllocation() {
+        return new long[] { currentNodeCounter, expressionIDCounter, returnFunctionCounter };
+    }
+    public void restoreIDAllocation(long[] state) {
+        currentNodeCounter = state[0];
+        expressionIDCounter = (int)state[1];
+        returnFunctionCounter = (int)state[2];
+    }
+    // Continue allocating IDs after those already allocated by another context, e.g. for a copy of its AST
+    public void continueIDAllocation(SoltixContext other) {
+        currentNodeCounter = Math.max(currentNodeCounter, other.currentNodeCounter);
+        expressionIDCounter = Math.max(expressionIDCounter, other.expressionIDCounter);
+        returnFunctionCounter = Math.max(returnFunctionCounter, other.returnFunctionCounter);
+    }
+    public int allocateExpressionID() { return ++expressionIDCounter; }
+
+    public int allocateReturnFunctionID() { return returnFunctionCounter++; }
+    // Avoid name clashes of subsequently generated return functions with an existing return function
+    public void reserveReturnFunctionID(int id) {
+        if (id >= returnFunctionCounter) {
+            returnFunctionCounter = id + 1;
+        }
+    }
+}
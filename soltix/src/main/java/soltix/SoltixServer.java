@@ -0,0 +1,120 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.util.ArrayList;
+
+/**
+ * Long-running soltix process that executes a sequence of jobs in one warm JVM, which avoids paying JVM startup
+ * and class loading costs for every short soltix invocation of a test case.
+ *
+ * Each line read from the request stream describes one job as whitespace-separated program arguments - the same
+ * arguments as for a regular soltix invocation - plus the following job-specific options:
+ *
+ *    --input=file     Read the solc AST-JSON input from this file (otherwise the job receives empty input)
+ *    --output=file    Write console output, e.g. Solidity code if no --solidityOutput is given, to this file
+ *                     (otherwise it goes to stderr along with all other console output)
+ *
+ * For every job, a line containing its exit status is written to the response stream. Empty lines are ignored,
+ * and the server terminates at the end of the request stream or on a "quit" line.
+ */
+public class SoltixServer {
+    final static Logger logger = Logger.getLogger(SoltixServer.class);
+
+    private PrintStream responseStream;
+    // Arguments appended to the arguments of every job, e.g. code generation settings shared by all jobs
+    private ArrayList<String> defaultArguments;
+
+    public SoltixServer(PrintStream responseStream, ArrayList<String> defaultArguments) {
+        this.responseStream = responseStream;
+        this.defaultArguments = defaultArguments;
+    }
+
+    public int run(InputStream requestStream) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(requestStream));
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.equals("")) {
+                    continue;
+                } else if (line.equals("quit")) {
+                    break;
+                }
+
+                int status = runJob(line.split("\\s+"));
+                responseStream.println(status);
+                responseStream.flush();
+            }
+        } catch (IOException e) {
+            logger.error("Cannot read server request: " + e.toString());
+            return 1;
+        }
+        return 0;
+    }
+
+    protected int runJob(String[] requestArguments) {
+        ArrayList<String> jobArguments = new ArrayList<String>();
+        String inputFile = null;
+        String outputFile = null;
+
+        for (String argument : requestArguments) {
+            if (argument.startsWith("--input=")) {
+                inputFile = argument.substring("--input=".length());
+            } else if (argument.startsWith("--output=")) {
+                outputFile = argument.substring("--output=".length());
+            } else {
+                jobArguments.add(argument);
+            }
+        }
+        jobArguments.addAll(defaultArguments);
+
+        InputStream input = null;
+        OutputStream output = null;
+        try {
+            input = inputFile != null ? new FileInputStream(inputFile) : new ByteArrayInputStream(new byte[0]);
+            output = outputFile != null ? new FileOutputStream(outputFile) : System.out;
+
+            // Every job runs in a fresh SoltixContext, so it produces exactly the same output as a separate soltix
+            // process would
+            return Main.runJob(jobArguments.toArray(new String[0]), input, output);
+        } catch (Exception e) {
+            logger.error("Exception while running job " + jobArguments + ": " + e.toString());
+            e.printStackTrace();
+            return 1;
+        } finally {
+            try {
+                if (input != null) {
+                    input.close();
+                }
+                if (outputFile != null && output != null) {
+                    output.close();
+                }
+                System.out.flush();
+            } catch (IOException e) {
+                logger.error("Cannot close job input/output file: " + e.toString());
+            }
+        }
+    }
+}
@@ -19,7 +19,11 @@
  */
 package soltix.ast;
 
+import soltix.ASTEditJournal;
 import soltix.Configuration;
+import soltix.output.EditScript;
+import soltix.output.SolidityCodeCache;
+import soltix.profiling.ProfilingEventTable;
 import soltix.synthesis.TransactionGenerator;
 
 import java.util.ArrayList;
@@ -55,12 +59,43 @@ public class AST {
     private ArrayList<FunctionScope> functions = new ArrayList<FunctionScope>();
     private HashMap<Long, ASTVariableDeclaration> allVariablesById = new HashMap<Long, ASTVariableDeclaration>();
     private boolean functionsSortedBySize = false;
+    // Journal of editor operations on this AST, if edits should be undoable
+    private ASTEditJournal editJournal = null;
+    // Cached output code of functions and contracts, if this AST is emitted repeatedly with few changes
+    private SolidityCodeCache codeCache = null;
+    // Lookup structures for contracts, functions and node locations
+    private ASTIndex index = new ASTIndex();
+    // Nodes edited since the base program of edit scripts was rendered, if edit scripts are written
+    private EditScript.Recorder editRecorder = null;
+    // Profiling events defined by the instrumentation of this AST, for decoding event logs
+    private ProfilingEventTable profilingEventTable = null;
 
     // All nodes stored in this AST, indexed by their ID
     private HashMap<Long, ASTNode> nodesById = new HashMap<Long, ASTNode>();
 
+    // Nodes whose children are only constructed when first accessed (see addDeferredChildren())
+    private ArrayList<ASTNode> nodesWithDeferredChildren = new ArrayList<ASTNode>();
+    // Construction state saved while deferred children are constructed, and whether nodes count towards the size
+    // of the current function
+    private ArrayList<Object[]> savedConstructionStates = new ArrayList<Object[]>();
+    private boolean countFunctionNodes = true;
+
+    public ASTEditJournal getEditJournal() { return editJournal; }
+    public void setEditJournal(ASTEditJournal editJournal) { this.editJournal = editJournal; }
+    public SolidityCodeCache getCodeCache() { return codeCache; }
+    public void setCodeCache(SolidityCodeCache codeCache) { this.codeCache = codeCache; }
+    public EditScript.Recorder getEditRecorder() { return editRecorder; }
+    public void setEditRecorder(EditScript.Recorder editRecorder) { this.editRecorder = editRecorder; }
+    public ProfilingEventTable getProfilingEventTable() { return profilingEventTable; }
+    public void setProfilingEventTable(ProfilingEventTable profilingEventTable) { this.profilingEventTable = profilingEventTable; }
+
+    public ASTIndex getIndex() { return index; }
+
     public ArrayList<ASTContractDefinition> getContracts() { return contracts; }
     public ASTContractDefinition getContract(String name) {
+        if (!index.getHaveDuplicateContractNames()) {
+            return index.getContract(name);
+        }
         if (contracts != null) {
             for (ASTContractDefinition contract : contracts) {
                 if (contract.getName().equals(name)) {
@@ -80,6 +115,9 @@ public class AST {
     public void setCurrentNode(ASTNode currentNode) { this.currentNode = currentNode; }
 
     public ASTNode getNodeById(long id) throws Exception {
+        if (!nodesById.containsKey(id) && !nodesWithDeferredChildren.isEmpty()) {
+            materializeDeferredChildren();
+        }
         if (!nodesById.containsKey(id)) {
             throw new Exception("AST request for unknown node ID " + id);
         }
@@ -89,24 +127,109 @@ public class AST {
     public ArrayList<FunctionScope> getFunctions() { return functions; }
 
     public ASTFunctionDefinition getFunctionByStatementId(long statementId) throws Exception {
-        ASTNode node = getNodeById(statementId);
-        while (node.getParent() != null) {
-            node = node.getParent();
-            if (node instanceof ASTFunctionDefinition) {
-                return (ASTFunctionDefinition)node;
-            }
+        ASTFunctionDefinition function = index.getEnclosingFunction(getNodeById(statementId));
+        if (function != null) {
+            return function;
         }
         throw new Exception("Cannot locate containing function for statement " + statementId);
     }
 
     public ASTVariableDeclaration getVariableById(long id) {
+        if (!allVariablesById.containsKey(id) && !nodesWithDeferredChildren.isEmpty()) {
+            materializeDeferredChildren();
+        }
         return allVariablesById.get(id);
     }
 
+    // Register children of a node that are only constructed when they are first accessed, e.g. function bodies
+    // read lazily by ParserASTCompactJSON. The given number of nodes is counted towards the size of the current
+    // function right away, so that sorting functions by size does not construct them
+    public void addDeferredChildren(ASTNode node, ASTNode.DeferredChildren children, int nodeCount) {
+        node.setDeferredChildren(children);
+        nodesWithDeferredChildren.add(node);
+        if (currentFunction != null) {
+            currentFunction.countNodes(nodeCount);
+            index.countFunctionBodyNodes(nodeCount);
+        }
+    }
+
+    // Construct all deferred children, e.g. if a node ID lookup fails
+    public void materializeDeferredChildren() {
+        for (int i = 0; i < nodesWithDeferredChildren.size(); ++i) {
+            nodesWithDeferredChildren.get(i).materializeChildren();
+        }
+        nodesWithDeferredChildren.clear();
+    }
+
+    // Continue construction below a node with deferred children, in the contract and function containing it, until
+    // the matching endDeferredChildren() call. This may happen while another node is under construction
+    public void beginDeferredChildren(ASTNode node) {
+        savedConstructionStates.add(new Object[] { currentNode, currentDepth, currentContract, currentFunction, countFunctionNodes });
+        currentNode = node;
+        currentDepth = node.getDepth() + 1;
+        currentContract = null;
+        currentFunction = null;
+        for (ASTNode parent = node; parent != null; parent = parent.getParent()) {
+            if (currentFunction == null && parent instanceof FunctionScope) {
+                currentFunction = (FunctionScope)parent;
+            } else if (parent instanceof ASTContractDefinition) {
+                currentContract = (ASTContractDefinition)parent;
+                break;
+            }
+        }
+        countFunctionNodes = false;
+    }
+
+    public void endDeferredChildren() {
+        Object[] state = savedConstructionStates.remove(savedConstructionStates.size() - 1);
+        currentNode = (ASTNode)state[0];
+        currentDepth = (Integer)state[1];
+        currentContract = (ASTContractDefinition)state[2];
+        currentFunction = (FunctionScope)state[3];
+        countFunctionNodes = (Boolean)state[4];
+    }
+
+    // Deep copy of this AST, e.g. to let several threads mutate private copies of one prepared program (see
+    // ASTCopier). Deferred children are constructed first, so several copies may be made concurrently once
+    // materializeDeferredChildren() has been called. The copy has no edit journal, code cache, edit recorder or
+    // profiling event table
+    public AST copy() throws Exception {
+        materializeDeferredChildren();
+
+        AST result = new AST();
+        ASTCopier copier = new ASTCopier(this, result);
+        if (root != null) {
+            copier.copyTree(root);
+        }
+        result.root = copier.map(root);
+        result.currentNode = copier.map(currentNode);
+        result.currentDepth = currentDepth;
+        result.currentNodeID = currentNodeID;
+        result.currentContract = copier.map(currentContract);
+        result.currentFunction = copier.map(currentFunction);
+        result.contracts = copier.mapList(contracts);
+        result.enumDefinitions = copier.mapValues(enumDefinitions);
+        result.structDefinitions = copier.mapValues(structDefinitions);
+        result.topLevelVariables = copier.mapList(topLevelVariables);
+        result.functions = copier.mapList(functions);
+        result.allVariablesById = copier.mapValues(allVariablesById);
+        result.functionsSortedBySize = functionsSortedBySize;
+        result.index = index.copy(copier);
+        result.nodesById = copier.mapValues(nodesById);
+        result.countFunctionNodes = countFunctionNodes;
+        copier.copyReferences();
+        return result;
+    }
+
     // Can be used to add a struct definition while generating contracts - bypassing child node + finalize() structures
     public void addStructDefinition(ASTStructDefinition definition) {
         structDefinitions.put(definition.getName(), definition);
     }
+    public void removeStructDefinition(ASTStructDefinition definition) {
+        if (structDefinitions.get(definition.getName()) == definition) {
+            structDefinitions.remove(definition.getName());
+        }
+    }
 
     // Add new inner node that will be followed by one or more further child nodes,
     // e.g. a while loop that will later receive a body
@@ -132,6 +255,7 @@ public class AST {
         if (node instanceof ASTContractDefinition) {
             currentContract = (ASTContractDefinition)node;
             contracts.add(currentContract);
+            index.addContract(currentContract);
         } else if (node instanceof ASTVariableDeclaration) {
             ASTVariableDeclaration declaration = (ASTVariableDeclaration)node;
             // ASTVariableDeclaration and ASTVariableDeclarationStatement are both relevant in principle,
@@ -171,8 +295,9 @@ public class AST {
         if (node instanceof ASTFunctionDefinition || node instanceof ASTModifierDefinition) {
             currentFunction = (FunctionScope)node;
             functions.add(currentFunction);
-        } else if (currentFunction != null) {
+        } else if (currentFunction != null && countFunctionNodes) {
             currentFunction.countNode(node);
+            index.countFunctionBodyNodes(1);
         }
     }
 
@@ -186,12 +311,12 @@ public class AST {
         }
         currentNode = currentNode.getParent();
         --currentDepth;
-        assert currentDepth >= 0;
+        assert currentDepth >= -1; // -1 after completing the root
     }
 
     public void sortFunctionsBySize() {
         Collections.sort(functions, Collections.reverseOrder());
-        if (Configuration.verboseDebugOutput) {
+        if (Configuration.current().verboseDebugOutput) {
             System.out.println(" === functions by size ===");
             for (FunctionScope function : functions) {
                 System.out.println(function.getName() + ": " + function.getBodyNodeCount());
@@ -200,17 +325,11 @@ public class AST {
         functionsSortedBySize = true;
     }
 
-    public int getTotalFunctionBodyNodeCount() {
-        int total = 0;
-        for (FunctionScope function : functions) {
-            total += function.getBodyNodeCount();
-        }
-        return total;
-    }
+    public int getTotalFunctionBodyNodeCount() { return index.getTotalFunctionBodyNodeCount(); }
 
     public void sortContractsBySize() {
         Collections.sort(contracts, Collections.reverseOrder());
-        if (Configuration.verboseDebugOutput) {
+        if (Configuration.current().verboseDebugOutput) {
             System.out.println(" === contracts by size ===");
             for (ASTContractDefinition contract : contracts) {
                 System.out.println(contract.getName() + ": " + contract.getFunctionBodyNodeCount());
@@ -28,15 +28,20 @@ public class ASTArrayTypeName extends ASTNode {
     }
 
     public ASTNode getBaseType() { return baseType; }
+    // Size expression of fixed-size arrays, or null
+    public ASTNode getSize() { return size; }
 
     @Override
-    public String toSolidityCode() throws Exception {
-        String code = baseType.toSolidityCode() + "[";
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        renderOperand(code, baseType);
+        code.append('[');
         if (size != null) { // otherwise: undefined size
-            code += size.toSolidityCode();
+            renderOperand(code, size);
         }
-        code += "]";
-        return code;
+        code.append(']');
+        return true;
     }
 
     @Override
@@ -44,6 +49,13 @@ public class ASTArrayTypeName extends ASTNode {
         return null;
     }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        baseType = copier.map(baseType);
+        size = copier.map(size);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 1 && getChildCount() != 2) {
@@ -39,6 +39,7 @@ public class ASTAssignment extends ASTNode {
 
     public ASTNode getLHS() { return lhs; }
     public ASTNode getRHS() { return rhs; }
+    public Operator getOperator() { return operator; }
     public boolean getOutputIsBlock() { return outputIsBlock; }
 
     // TODO The distiction between ordinary and compound assignments is probably ignored
@@ -89,13 +90,18 @@ public class ASTAssignment extends ASTNode {
     }
 
     @Override
-    public String toSolidityCode() throws Exception {
-        String assignmentCode = lhs.toSolidityCode() + " " + operator.toString() + " " + rhs.toSolidityCode();
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        int start = code.length();
+        renderOperand(code, lhs);
+        code.append(' ').append(operator.toString()).append(' ');
+        renderOperand(code, rhs);
 
-        if (Configuration.eventsReplaceStorageLog && Configuration.insertLCMSupportCode) {
+        if (Configuration.current().eventsReplaceStorageLog && Configuration.current().insertLCMSupportCode) {
             // Catch and instrument mapping assignments:     m[idx] = value;
             if (lhs instanceof ASTIndexAccess
-                && Configuration.useABIEncoderV2) { // TODO Only disable it if we're assigning a struct (which requires encoder V2)
+                && Configuration.current().useABIEncoderV2) { // TODO Only disable it if we're assigning a struct (which requires encoder V2)
                 ASTIndexAccess indexAccess = (ASTIndexAccess)lhs;
                 ASTNode accessedItem = indexAccess.getAccessedItem();
 
@@ -128,7 +134,9 @@ public class ASTAssignment extends ASTNode {
                         String name;
                         name = createMappingEventName(indexAccess.getAccessedItem(), declaration.getName());
                         String emitCode = "emit finalResult_Mapping_" + name + "(" + indexExpressionListString /*indexAccess.getIndex().toSolidityCode()*/ + ", " + rhs.toSolidityCode() + ");";
-                        assignmentCode = "{ " + emitCode + " " + assignmentCode + "; }";
+                        String assignmentCode = code.substring(start);
+                        code.setLength(start);
+                        code.append("{ ").append(emitCode).append(' ').append(assignmentCode).append("; }");
 
 
                         // This is currently unused and wrong (__annotate() sometimes gets embedded in otherwise empty
@@ -142,12 +150,19 @@ public class ASTAssignment extends ASTNode {
             }
         }
 
-        return assignmentCode;
+        return true;
     }
     
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        lhs = copier.map(lhs);
+        rhs = copier.map(rhs);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 2) {
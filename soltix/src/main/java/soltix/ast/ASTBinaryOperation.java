@@ -33,6 +33,10 @@ public class ASTBinaryOperation extends ASTNode {
         }
     }
 
+    public Operator getOperator() { return operator; }
+    public ASTNode getLeftOperand() { return leftOperand; }
+    public ASTNode getRightOperand() { return rightOperand; }
+
     public enum Operator {
         // Arithmetic
         OP_PLUS("+", false),
@@ -84,6 +88,13 @@ public class ASTBinaryOperation extends ASTNode {
         }
     }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        leftOperand = copier.map(leftOperand);
+        rightOperand = copier.map(rightOperand);
+    }
+
     @Override
     public void finalize() throws Exception {
         // This node should have two children that constitute the left and right hand side arguments
@@ -99,7 +110,14 @@ public class ASTBinaryOperation extends ASTNode {
 
 
     @Override
-    public String toSolidityCode() throws Exception { return leftOperand.toSolidityCode() + " " + operator.toString() + " " + rightOperand.toSolidityCode(); }
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        renderOperand(code, leftOperand);
+        code.append(' ').append(operator.toString()).append(' ');
+        renderOperand(code, rightOperand);
+        return true;
+    }
     @Override
     public String toSolidityCodePostfix() { return null; }
 }
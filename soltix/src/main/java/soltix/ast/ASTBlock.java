@@ -28,9 +28,16 @@ public class ASTBlock extends ASTNode {
     public String toSolidityCodePostfix() { return "}"; }
 
     public int getChildNodeIndex(ASTNode node) throws Exception {
-        for (int i = 0; i < getChildCount(); ++i) {
-            if (getChild(i) == node) {
-                return i;
+        if (ast != null) {
+            int index = ast.getIndex().getChildIndex(this, node);
+            if (index != -1) {
+                return index;
+            }
+        } else {
+            for (int i = 0; i < getChildCount(); ++i) {
+                if (getChild(i) == node) {
+                    return i;
+                }
             }
         }
         throw new Exception("Could not locate node " + node.getID() + " in block " + getID());
@@ -26,13 +26,32 @@ public class ASTConditional extends ASTNode {
 
     public ASTConditional(long id) throws Exception { super(id); }
 
+    public ASTNode getCondition() { return condition; }
+    public ASTNode getTrueExpression() { return lhs; }
+    public ASTNode getFalseExpression() { return rhs; }
+
+    @Override
+    public String toSolidityCode() throws Exception { return renderToString(); }
     @Override
-    public String toSolidityCode() throws Exception {
-        return /*"("+*/ condition.toSolidityCode() + "? " + lhs.toSolidityCode() + ": " + rhs.toSolidityCode() ; //+ ")";
+    public boolean render(StringBuilder code) throws Exception {
+        renderOperand(code, condition);
+        code.append("? ");
+        renderOperand(code, lhs);
+        code.append(": ");
+        renderOperand(code, rhs);
+        return true;
     }
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        condition = copier.map(condition);
+        lhs = copier.map(lhs);
+        rhs = copier.map(rhs);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 3) {
@@ -19,6 +19,7 @@
  */
 package soltix.ast;
 
+import soltix.SoltixContext;
 import soltix.interpretation.TypeContainer;
 
 import java.util.ArrayList;
@@ -39,8 +40,6 @@ public class ASTContractDefinition extends ASTNode implements Comparable {
     private ArrayList<ASTNode> variables = new ArrayList<ASTNode>();
 
     private HashMap<String, ASTStructDefinition> structDefinitionsByName = new HashMap<String, ASTStructDefinition>();
-    // Canonical struct references are shared across all contracts since they can be referenced from anywhere
-    static private HashMap<String, ASTStructDefinition> structDefinitionsByCanoncialName = new HashMap<String, ASTStructDefinition>();
 
     private HashMap<String, ASTEnumDefinition> enumDefinitionsByName = new HashMap<String, ASTEnumDefinition>();
     private HashMap<String, ASTEnumDefinition> enumDefinitionsByCanonicalName = new HashMap<String, ASTEnumDefinition>();
@@ -143,7 +142,7 @@ public class ASTContractDefinition extends ASTNode implements Comparable {
         ASTStructDefinition result = structDefinitionsByName.get(name);
 
         if (result == null) {
-            result = structDefinitionsByCanoncialName.get(name);
+            result = SoltixContext.current().getStructDefinitionsByCanonicalName().get(name);
         }
 
         if (result == null && inherits != null) {
@@ -219,13 +218,46 @@ public class ASTContractDefinition extends ASTNode implements Comparable {
     public void addStructDefinition(ASTStructDefinition definition) {
         if (!structDefinitionsByName.containsKey(definition.getName())) {
             structDefinitionsByName.put(definition.getName(), definition);
-            structDefinitionsByCanoncialName.put(definition.getCanonicalName(), definition);
+            SoltixContext.current().getStructDefinitionsByCanonicalName().put(definition.getCanonicalName(), definition);
+        }
+    }
+
+    // Undo addStructDefinition(), if it added the definition
+    public void removeStructDefinition(ASTStructDefinition definition) {
+        if (structDefinitionsByName.get(definition.getName()) == definition) {
+            structDefinitionsByName.remove(definition.getName());
+            HashMap<String, ASTStructDefinition> definitionsByCanonicalName = SoltixContext.current().getStructDefinitionsByCanonicalName();
+            if (definitionsByCanonicalName.get(definition.getCanonicalName()) == definition) {
+                definitionsByCanonicalName.remove(definition.getCanonicalName());
+            }
         }
     }
 
     @Override
     public String toSolidityCodePostfix() { return "}"; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        inherits = copier.mapList(inherits);
+        constructor = copier.map(constructor);
+        functions = copier.mapList(functions);
+        functionsByName = copier.mapValues(functionsByName);
+        modifiersByName = copier.mapValues(modifiersByName);
+        modifierDefinitions = copier.mapValues(modifierDefinitions);
+        variables = copier.mapList(variables);
+        structDefinitionsByName = copier.mapValues(structDefinitionsByName);
+        // Canonical struct references are kept by the context, which is that of the copy
+        for (ASTStructDefinition definition : structDefinitionsByName.values()) {
+            SoltixContext.current().getStructDefinitionsByCanonicalName().put(definition.getCanonicalName(), definition);
+        }
+        enumDefinitionsByName = copier.mapValues(enumDefinitionsByName);
+        enumDefinitionsByCanonicalName = copier.mapValues(enumDefinitionsByCanonicalName);
+        inheritedBy = copier.mapList(inheritedBy);
+        indexAccessList = copier.mapList(indexAccessList);
+        outroFunction = copier.map(outroFunction);
+    }
+
     @Override
     public void finalize() throws Exception {
         for (int i = 0; i < getChildCount(); ++i) {
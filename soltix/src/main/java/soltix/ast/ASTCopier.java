@@ -0,0 +1,152 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.ast;
+
+import soltix.interpretation.variables.Variable;
+import soltix.interpretation.variables.VariableEnvironment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Deep copy of an AST, see AST.copy().
+ *
+ * All nodes of the tree are copied, and so are nodes that were removed from the tree but are still referenced
+ * (e.g. by the function list of the AST). The variable environments and variables attached to the nodes are
+ * copied with them, so the copy can be edited and interpreted independently of the original. Other objects that
+ * nodes refer to - types of TypeContainer, values and expressions - are not modified once they are constructed
+ * and are shared with the original.
+ */
+public class ASTCopier {
+    private AST source;
+    private AST target;
+    private IdentityHashMap<ASTNode, ASTNode> nodes = new IdentityHashMap<ASTNode, ASTNode>();
+    private IdentityHashMap<Variable, Variable> variables = new IdentityHashMap<Variable, Variable>();
+    private IdentityHashMap<VariableEnvironment, VariableEnvironment> environments = new IdentityHashMap<VariableEnvironment, VariableEnvironment>();
+    // Copied nodes whose references have not been updated yet
+    private ArrayDeque<ASTNode> pendingNodes = new ArrayDeque<ASTNode>();
+
+    ASTCopier(AST source, AST target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    public AST getAST() { return target; }
+
+    // Copy a node and its descendants. Their references are updated by copyReferences()
+    void copyTree(ASTNode root) throws Exception {
+        ArrayDeque<ASTNode> stack = new ArrayDeque<ASTNode>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            ASTNode node = stack.pop();
+            if (nodes.containsKey(node)) {
+                continue; // Shared child node
+            }
+            ASTNode copy = node.copyNode();
+            nodes.put(node, copy);
+            pendingNodes.add(copy);
+            ArrayList<ASTNode> children = node.getConstructedChildren();
+            if (children != null) {
+                for (int i = children.size() - 1; i >= 0; --i) {
+                    stack.push(children.get(i));
+                }
+            }
+        }
+    }
+
+    // Update the references of all copied nodes, including nodes that are only copied when they are referenced
+    void copyReferences() throws Exception {
+        while (!pendingNodes.isEmpty()) {
+            pendingNodes.poll().copyReferences(this);
+        }
+    }
+
+    // Copy of a node of the original AST, or the node itself if it doesn't belong to the AST
+    public <T extends ASTNode> T map(T node) throws Exception {
+        if (node == null) {
+            return null;
+        }
+        ASTNode copy = nodes.get(node);
+        if (copy == null) {
+            if (node.ast != source) {
+                return node;
+            }
+            // Detached from the tree, but still referenced
+            copyTree(node);
+            copy = nodes.get(node);
+        }
+        @SuppressWarnings("unchecked")
+        T result = (T)copy;
+        return result;
+    }
+
+    public <T extends ASTNode> ArrayList<T> mapList(ArrayList<T> list) throws Exception {
+        if (list == null) {
+            return null;
+        }
+        ArrayList<T> result = new ArrayList<T>(list.size());
+        for (T node : list) {
+            result.add(map(node));
+        }
+        return result;
+    }
+
+    // Copy of a map of nodes. It is cloned so that it is iterated in the same order as the original
+    public <K, T extends ASTNode> HashMap<K, T> mapValues(HashMap<K, T> map) throws Exception {
+        if (map == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        HashMap<K, T> result = (HashMap<K, T>)map.clone();
+        for (Map.Entry<K, T> entry : result.entrySet()) {
+            entry.setValue(map(entry.getValue()));
+        }
+        return result;
+    }
+
+    public Variable mapVariable(Variable variable) throws Exception {
+        if (variable == null) {
+            return null;
+        }
+        Variable result = variables.get(variable);
+        if (result == null) {
+            result = new Variable(map(variable.getDeclaration()));
+            result.setShadowNode(map(variable.getShadowNode()));
+            variables.put(variable, result);
+        }
+        return result;
+    }
+
+    public VariableEnvironment mapEnvironment(VariableEnvironment environment) throws Exception {
+        if (environment == null) {
+            return null;
+        }
+        VariableEnvironment result = environments.get(environment);
+        if (result == null) {
+            result = environment.copy(this);
+            environments.put(environment, result);
+        }
+        return result;
+    }
+}
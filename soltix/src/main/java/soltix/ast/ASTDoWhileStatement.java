@@ -26,6 +26,7 @@ public class ASTDoWhileStatement extends ASTNode implements IControlStructure {
     public ASTDoWhileStatement(long id) throws Exception { super(id); }
 
     public ASTNode getBody() { return body; }
+    public ASTNode getCondition() { return condition; }
 
     @Override
     public String toSolidityCode() {
@@ -34,6 +35,13 @@ public class ASTDoWhileStatement extends ASTNode implements IControlStructure {
     @Override
     public String toSolidityCodePostfix() throws Exception { return "while (" + condition.toSolidityCode() + ");"; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        condition = copier.map(condition);
+        body = copier.map(body);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 2) {
@@ -28,10 +28,24 @@ public class ASTEmitStatement extends ASTNode {
     public ASTFunctionCall getFunctionCall() { return functionCall; }
 
     @Override
-    public String toSolidityCode() throws Exception { return "emit " + argument.toSolidityCode() + ";"; }
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        code.append("emit ");
+        renderOperand(code, argument);
+        code.append(';');
+        return true;
+    }
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        argument = copier.map(argument);
+        functionCall = copier.map(functionCall);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 1) {
@@ -44,6 +44,12 @@ public class ASTEnumDefinition extends UserDefinedType {
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        values = copier.mapList(values);
+    }
+
     @Override
     public void finalize() throws Exception {
         for (int i = 0; i < getChildCount(); ++i) {
@@ -32,6 +32,8 @@ public class ASTEventDefinition extends ASTNode {
         this.isAnonymous = isAnonymous;
     }
 
+    public ASTParameterList getParameterList() { return parameterList; }
+
     @Override
     public String toSolidityCode() throws Exception {
         String code = "event " + name + "(" + parameterList.toSolidityCode() + ")";
@@ -44,6 +46,12 @@ public class ASTEventDefinition extends ASTNode {
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        parameterList = copier.map(parameterList);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 1) {
@@ -54,7 +62,7 @@ public class ASTEventDefinition extends ASTNode {
         }
         parameterList = (ASTParameterList)getChild(0);
 
-        if (Configuration.nameUnnamedEventDefinitionParameters) {
+        if (Configuration.current().nameUnnamedEventDefinitionParameters) {
             int renamedCounter = 0;
             for (ASTNode parameter : parameterList.getChildren()) {
                 ASTVariableDeclaration declaration = (ASTVariableDeclaration)parameter;
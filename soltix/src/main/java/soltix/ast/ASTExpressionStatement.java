@@ -27,10 +27,18 @@ public class ASTExpressionStatement extends ASTNode {
     @Override
     public String toSolidityCode() throws Exception { return body.toSolidityCode(); }
     @Override
+    public boolean render(StringBuilder code) throws Exception { return body.render(code); }
+    @Override
     public String toSolidityCodePostfix() { return null; }
 
     public ASTNode getBody() { return body; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        body = copier.map(body);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() == 0) {
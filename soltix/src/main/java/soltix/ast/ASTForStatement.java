@@ -38,29 +38,44 @@ public class ASTForStatement extends ASTNode implements IControlStructure {
     private ASTNode body = null;
 
     public ASTNode getInitPart() { return initPart; }
+    public ASTNode getCondPart() { return condPart; }
+    public ASTNode getLoopPart() { return loopPart; }
     public ASTNode getBody() { return body; }
 
     @Override
-    public String toSolidityCode() throws Exception {
-        String code = "for (";
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        code.append("for (");
         if (initPart != null) {
-            code += initPart.toSolidityCode();
+            renderOperand(code, initPart);
         }
-        code += ";";
+        code.append(';');
         if (condPart != null) {
-            code += " " + condPart.toSolidityCode();
+            code.append(' ');
+            renderOperand(code, condPart);
         }
-        code += ";";
+        code.append(';');
         if (loopPart != null) {
-            code += " " + loopPart.toSolidityCode();
+            code.append(' ');
+            renderOperand(code, loopPart);
         }
-        code += ")";
-        return code;
+        code.append(')');
+        return true;
     }
     @Override
     public String toSolidityCodePostfix() { return null; }
 
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        initPart = copier.map(initPart);
+        condPart = copier.map(condPart);
+        loopPart = copier.map(loopPart);
+        body = copier.map(body);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() < 1 || getChildCount() > 4) {
@@ -51,6 +51,8 @@ public class ASTFunctionCall extends ASTNode {
 
     public ASTNode getCalled() { return called; }
     public ArrayList<ASTNode> getArguments() { return arguments; }
+    // Names of the arguments for calls such as "S({a: 1, b: 2})", or null
+    public ArrayList<String> getArgumentNames() { return argumentNames; }
 
     // Convert the ASTNode representation of an expression to an Expression object
     public ArrayList<Expression> getExpressionArguments(VariableEnvironment environment) throws Exception {
@@ -65,10 +67,13 @@ public class ASTFunctionCall extends ASTNode {
     }
 
     @Override
-    public String toSolidityCode() throws Exception {
-        String code = called.toSolidityCode() + "(";
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        renderOperand(code, called);
+        code.append('(');
         if (/*isStructConstructorCall &&*/ argumentNames != null) {
-            code += "{";
+            code.append('{');
 
             /*
             System.out.println("args count " + arguments.size() + " names count " + argumentNames.size());
@@ -81,18 +86,18 @@ public class ASTFunctionCall extends ASTNode {
         }
         for (int i = 0; i < arguments.size(); ++i) {
             if (i > 0) {
-                code += ", ";
+                code.append(", ");
             }
             if (argumentNames != null) { //isStructConstructorCall) {
-                code += argumentNames.get(i) + ": ";
+                code.append(argumentNames.get(i)).append(": ");
             }
-            code += arguments.get(i).toSolidityCode();
+            renderOperand(code, arguments.get(i));
         }
         if (argumentNames != null) { //isStructConstructorCall) {
-            code += "}";
+            code.append('}');
         }
-        code += ")";
-        return code;
+        code.append(')');
+        return true;
     }
     @Override
     public String toSolidityCodePostfix() { return null; }
@@ -128,7 +133,7 @@ public class ASTFunctionCall extends ASTNode {
         arguments = getChildren();
         setChildren(null);
 
-        if (Configuration.renameExceptionalEvents && called instanceof ASTIdentifier) {
+        if (Configuration.current().renameExceptionalEvents && called instanceof ASTIdentifier) {
             if (called.getName().equals("revert")) {
                 called.setName("_myrevert");
                 isRenamedRevert = true;
@@ -157,4 +162,16 @@ public class ASTFunctionCall extends ASTNode {
             }*/
         }
     }
+
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        called = copier.map(called);
+        arguments = copier.mapList(arguments);
+        if (argumentNames != null) {
+            argumentNames = new ArrayList<String>(argumentNames);
+        }
+        expressionArguments = null;
+        contract = copier.map(contract);
+    }
 }
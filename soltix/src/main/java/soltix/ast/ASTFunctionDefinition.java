@@ -20,6 +20,7 @@
 package soltix.ast;
 
 import soltix.Configuration;
+import soltix.SoltixContext;
 import soltix.synthesis.FunctionGenerator;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -65,9 +66,7 @@ public class ASTFunctionDefinition extends FunctionScope {
         if (name.startsWith(FunctionGenerator.returnFunctionNamePrefix)) {
             // Avoid name clashes with subsequently generated return functions
             int returnFunctionID = Integer.parseInt(name.substring(FunctionGenerator.returnFunctionNamePrefix.length()));
-            if (returnFunctionID >= FunctionGenerator.returnFunctionCounter) {
-                FunctionGenerator.returnFunctionCounter = returnFunctionID+1;
-            }
+            SoltixContext.current().reserveReturnFunctionID(returnFunctionID);
         }
         // TODO Mutability enum
         this.stateMutability = stateMutability;
@@ -107,12 +106,12 @@ public class ASTFunctionDefinition extends FunctionScope {
         if (stateMutability == null) {
             ;
         } else if (stateMutability.equals("pure")) {
-            if (Configuration.profiling) {
+            if (Configuration.current().profiling) {
                 // We ignore "pure" function declarations during profiling (thereby defaulting to the "nonpayable"
                 // default mutability), because events we need for profiling may not be emitted from pure
                 // functions
                 ;
-            } else if (Configuration.renameExceptionalEvents /*getContract().getContainsRenamedAssertReferences()
+            } else if (Configuration.current().renameExceptionalEvents /*getContract().getContainsRenamedAssertReferences()
                     || getContract().getContainsRenamedRequireReferences()
                     || getContract().getContainsRenamedRevertReferences()*/) {
                 // The parent contract contains renamed exceptional statements. To avoid mutability
@@ -147,7 +146,7 @@ public class ASTFunctionDefinition extends FunctionScope {
             //     uint x; function f() public view { x = 123; }
             // are accepted by solc, and generate an executable SSTORE instruction for x.
             // TODO Check whether the optimizer relies on any view/constant properties at all
-            if (Configuration.dropViewMutability) {
+            if (Configuration.current().dropViewMutability) {
                 ;
             } else {
                 code += " view";
@@ -212,4 +211,10 @@ public class ASTFunctionDefinition extends FunctionScope {
             body = (ASTBlock)getChild(0);
         }
     }
+
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        modifierInvocations = copier.mapList(modifierInvocations);
+    }
 }
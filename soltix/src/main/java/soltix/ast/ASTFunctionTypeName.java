@@ -40,6 +40,13 @@ public class ASTFunctionTypeName extends ASTNode {
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        parameterList = copier.map(parameterList);
+        returnList = copier.map(returnList);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() < 2) {
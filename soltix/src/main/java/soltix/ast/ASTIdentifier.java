@@ -49,9 +49,15 @@ public class ASTIdentifier extends ASTNode {
     public String toSolidityCodePostfix() { return null; }
 
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        contract = copier.map(contract);
+    }
+
     @Override
     public void finalize() throws Exception {
-        if (Configuration.renameNowTimestamps != 0 && name.equals("now")) {
+        if (Configuration.current().renameNowTimestamps != 0 && name.equals("now")) {
             setName("_mynow");
             //contract.setContainsRenamedNowReferences(true);
             isRenamedNow = true;
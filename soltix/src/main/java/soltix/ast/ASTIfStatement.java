@@ -27,7 +27,16 @@ public class ASTIfStatement extends ASTNode implements IControlStructure {
     public ASTIfStatement(long id) throws Exception { super(id); }
 
     @Override
-    public String toSolidityCode() throws Exception { return "if (" + condition.toSolidityCodeNonNull() + ")"; }
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        code.append("if (");
+        if (!condition.render(code)) {
+            code.append(condition.getClass().getName());
+        }
+        code.append(')');
+        return true;
+    }
     @Override
     public String toSolidityCodePostfix() { return null; }
 
@@ -72,4 +81,12 @@ public class ASTIfStatement extends ASTNode implements IControlStructure {
             setChild(1, newNode);
         }
     }
+
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        condition = copier.map(condition);
+        ifBranch = copier.map(ifBranch);
+        elseBranch = copier.map(elseBranch);
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Index of an AST for lookups that would otherwise scan lists or walk the tree on every call: contracts by name,
+ * the function enclosing a node, the index of a node in its parent, and the total function size.
+ *
+ * The contracts and function sizes are recorded by AST while the program is parsed. The enclosing functions are
+ * memoized as they are looked up, and dropped once ASTEditor reports an edit that may move nodes (see
+ * structureChanged()). Child indices are validated on every lookup, so they remain correct after any edit.
+ */
+public class ASTIndex {
+    private HashMap<String, ASTContractDefinition> contractsByName = new HashMap<String, ASTContractDefinition>();
+    private boolean haveDuplicateContractNames = false;
+    private HashMap<ASTNode, ASTFunctionDefinition> enclosingFunctions = new HashMap<ASTNode, ASTFunctionDefinition>();
+    private boolean enclosingFunctionsValid = true;
+    private HashMap<ASTNode, Integer> childIndices = new HashMap<ASTNode, Integer>();
+    private int totalFunctionBodyNodeCount = 0;
+
+    // Copy for a copied AST. Memoized node locations are not copied
+    ASTIndex copy(ASTCopier copier) throws Exception {
+        ASTIndex result = new ASTIndex();
+        result.contractsByName = copier.mapValues(contractsByName);
+        result.haveDuplicateContractNames = haveDuplicateContractNames;
+        result.totalFunctionBodyNodeCount = totalFunctionBodyNodeCount;
+        return result;
+    }
+
+    void addContract(ASTContractDefinition contract) {
+        if (contractsByName.containsKey(contract.getName())) {
+            // getContract() returns the first one in the (possibly re-sorted) list of contracts
+            haveDuplicateContractNames = true;
+        } else {
+            contractsByName.put(contract.getName(), contract);
+        }
+    }
+
+    // Look up a contract by name, unless there are several contracts of one name
+    ASTContractDefinition getContract(String name) { return contractsByName.get(name); }
+    boolean getHaveDuplicateContractNames() { return haveDuplicateContractNames; }
+
+    void countFunctionBodyNodes(int count) { totalFunctionBodyNodeCount += count; }
+    public int getTotalFunctionBodyNodeCount() { return totalFunctionBodyNodeCount; }
+
+    // Invalidate the node locations, e.g. after nodes were added, removed or moved to another parent
+    public void structureChanged() { enclosingFunctionsValid = false; }
+
+    // Closest function definition above the node, or null if there is none
+    public ASTFunctionDefinition getEnclosingFunction(ASTNode node) {
+        if (!enclosingFunctionsValid) {
+            enclosingFunctions.clear();
+            enclosingFunctionsValid = true;
+        }
+        ASTFunctionDefinition result = enclosingFunctions.get(node);
+        if (result != null) {
+            return result;
+        }
+
+        // Walk up to the function or to a node whose function is known, and record the function for all nodes
+        // on the way
+        ArrayList<ASTNode> path = new ArrayList<ASTNode>();
+        for (ASTNode current = node; current.getParent() != null; current = current.getParent()) {
+            path.add(current);
+            if (current.getParent() instanceof ASTFunctionDefinition) {
+                result = (ASTFunctionDefinition)current.getParent();
+                break;
+            }
+            if ((result = enclosingFunctions.get(current.getParent())) != null) {
+                break;
+            }
+        }
+        if (result != null) {
+            for (ASTNode pathNode : path) {
+                enclosingFunctions.put(pathNode, result);
+            }
+        }
+        return result;
+    }
+
+    // Index of the node among the children of the parent, or -1 if it's not a child of the parent
+    public int getChildIndex(ASTNode parent, ASTNode node) {
+        Integer index = childIndices.get(node);
+        if (index != null && index < parent.getChildCount() && parent.getChild(index) == node) {
+            return index;
+        }
+        int result = -1;
+        for (int i = 0; i < parent.getChildCount(); ++i) {
+            ASTNode child = parent.getChild(i);
+            childIndices.put(child, i);
+            if (child == node && result == -1) {
+                result = i;
+            }
+        }
+        return result;
+    }
+}
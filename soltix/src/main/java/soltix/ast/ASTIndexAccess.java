@@ -20,11 +20,11 @@
 package soltix.ast;
 
 import soltix.Configuration;
+import soltix.SoltixContext;
 import soltix.interpretation.Type;
 import soltix.interpretation.TypeContainer;
 import soltix.synthesis.ExpressionGenerator;
 import soltix.synthesis.ValueGenerator;
-import soltix.util.RandomNumbers;
 
 public class ASTIndexAccess extends ASTNode {
     private ASTNode accessedItem = null;
@@ -43,7 +43,12 @@ public class ASTIndexAccess extends ASTNode {
 
     protected String baseSolidityCode() throws Exception {
         // Basic subscript access to the item
-        return accessedItem.toSolidityCode() + "[" + index.toSolidityCode() + "]";
+        StringBuilder code = new StringBuilder();
+        renderOperand(code, accessedItem);
+        code.append('[');
+        renderOperand(code, index);
+        code.append(']');
+        return code.toString();
     }
 
     @Override
@@ -54,9 +59,9 @@ public class ASTIndexAccess extends ASTNode {
 
         String result;
 
-        if (Configuration.injectArraySubscriptChecks) {
+        if (Configuration.current().injectArraySubscriptChecks) {
             if (valueGenerator == null) {
-                valueGenerator = new ValueGenerator(new RandomNumbers(Configuration.randomNumbersSeed));
+                valueGenerator = new ValueGenerator(SoltixContext.current().createRandomNumbers());
             }
             // Don't allow array subscripts that access non-existent array elements.
             long referencedDeclarationId = accessedItem.getReferencedDeclarationId();
@@ -155,6 +160,15 @@ public class ASTIndexAccess extends ASTNode {
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        accessedItem = copier.map(accessedItem);
+        index = copier.map(index);
+        structAccess = copier.map(structAccess);
+        valueGenerator = null;
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 2) {
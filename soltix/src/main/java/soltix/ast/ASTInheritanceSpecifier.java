@@ -38,25 +38,35 @@ public class ASTInheritanceSpecifier extends ASTNode {
     public void setContract(ASTContractDefinition contract) { this.contract = contract; }
 
     @Override
-    public String toSolidityCode() throws Exception {
-        String code = typeName.toSolidityCode();
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        renderOperand(code, typeName);
         if (arguments != null || hasArgumentList) {
-            code += "(";
+            code.append('(');
             if (arguments != null) {
                 for (int i = 0; i < arguments.size(); ++i) {
                     if (i > 0) {
-                        code += ", ";
+                        code.append(", ");
                     }
-                    code += arguments.get(i).toSolidityCode();
+                    renderOperand(code, arguments.get(i));
                 }
             }
-            code += ")";
+            code.append(')');
         }
-        return code;
+        return true;
     }
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        typeName = copier.map(typeName);
+        arguments = copier.mapList(arguments);
+        contract = copier.map(contract);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() < 1) {
@@ -29,10 +29,26 @@ public class ASTMapping extends ASTNode {
     public ASTNode getDestinationType() { return destType; }
 
     @Override
-    public String toSolidityCode() throws Exception { return "mapping(" + sourceType.toSolidityCode() + " => " + destType.toSolidityCode() + ")"; }
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        code.append("mapping(");
+        renderOperand(code, sourceType);
+        code.append(" => ");
+        renderOperand(code, destType);
+        code.append(')');
+        return true;
+    }
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        sourceType = copier.map(sourceType);
+        destType = copier.map(destType);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 2) {
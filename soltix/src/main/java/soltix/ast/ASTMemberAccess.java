@@ -38,16 +38,27 @@ public class ASTMemberAccess extends ASTNode {
     public ASTNode getAppliedTo() { return appliedTo; }
 
     @Override
-    public String toSolidityCode() throws Exception {
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
         if (isRenamedTimestamp) {
-            return "_mynow";
+            code.append("_mynow");
         } else {
-            return appliedTo.toSolidityCode() + "." + name;
+            renderOperand(code, appliedTo);
+            code.append('.').append(name);
         }
+        return true;
     }
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        appliedTo = copier.map(appliedTo);
+        contract = copier.map(contract);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 1) {
@@ -56,7 +67,7 @@ public class ASTMemberAccess extends ASTNode {
         appliedTo = getChild(0);
         removeChildNode(0);
 
-        if (Configuration.renameNowTimestamps != 0
+        if (Configuration.current().renameNowTimestamps != 0
                 && getName().equals("timestamp")
                 && appliedTo instanceof ASTIdentifier
                 && appliedTo.getName().equals("block")) {
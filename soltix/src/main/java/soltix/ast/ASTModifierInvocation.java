@@ -36,31 +36,41 @@ public class ASTModifierInvocation extends ASTNode {
 
     public ASTModifierDefinition getDefinition() { return definition; }
     public void setDefinition(ASTModifierDefinition definition) { this.definition = definition; }
+    public ArrayList<ASTNode> getArguments() { return arguments; }
 
     @Override
-    public String toSolidityCode() throws Exception {
-        String code = name;
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        code.append(name);
         if (arguments != null) {
-            code += "(";
+            code.append('(');
             for (int i = 0; i < arguments.size(); ++i) {
                 if (i > 0) {
-                    code += ", ";
+                    code.append(", ");
                 }
-                code += arguments.get(i).toSolidityCode();
+                renderOperand(code, arguments.get(i));
             }
-            code += ")";
+            code.append(')');
         } else if (argumentsSet) {
             // The "arguments" attribute is an array containing only null - indicating that this
             // modifier is invoked using an empty argument list rather than without any argument list.
             // This must be honored to preserve AST-JSON form
-            code += "()";
+            code.append("()");
         }
-        return code;
+        return true;
     }
 
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        arguments = copier.mapList(arguments);
+        definition = copier.map(definition);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() < 1) {
@@ -25,10 +25,22 @@ public class ASTNewExpression extends ASTNode {
     public ASTNewExpression(long id) throws Exception { super(id); }
 
     @Override
-    public String toSolidityCode() throws Exception { return "new " + typeName.toSolidityCode(); }
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        code.append("new ");
+        renderOperand(code, typeName);
+        return true;
+    }
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        typeName = copier.map(typeName);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 1) {
@@ -19,20 +19,21 @@
  */
 package soltix.ast;
 
+import soltix.SoltixContext;
 import soltix.profiling.ProfilingEvent;
 import soltix.interpretation.variables.VariableEnvironment;
 
 import java.util.ArrayList;
 
-abstract public class ASTNode {
+abstract public class ASTNode implements Cloneable {
     protected AST ast = null;
     protected ASTNode parent;
     private ArrayList<ASTNode> children;
+    private DeferredChildren deferredChildren = null;
     private int depth;
     private long id;
     private long internalID;
     protected String name;
-    static private long currentNodeCounter = 1;
     // Coverage info (if profiling log loaded)
     private boolean covered = false;
     private int coveredCount = 0; // TODO clean up redundancy
@@ -64,7 +65,7 @@ abstract public class ASTNode {
         setParent(null);
         children = new ArrayList<ASTNode>();
 
-        internalID = currentNodeCounter++;
+        internalID = SoltixContext.current().allocateNodeID();
 
         final int maximumNodeCount = 1000000;
         if (id == 0) {
@@ -119,25 +120,31 @@ abstract public class ASTNode {
 
     public void addChildNode(ASTNode node) throws Exception {
         if (node == null) throw new Exception("Attempt to add null child node");
+        materializeChildren();
         node.setParent(this);
         children.add(node);
     }
     public void addSharedChildNode(ASTNode node) throws Exception { // don't disrupt existing parent relationship
         if (node == null) throw new Exception("Attempt to add null child node");
+        materializeChildren();
         children.add(node);
     }
     public boolean containsChildNode(ASTNode node) {
+        materializeChildren();
         return children.contains(node);
     }
     public void insertChildNode(int index, ASTNode node) {
+        materializeChildren();
         node.setParent(this);
         children.add(index, node);
     }
     public void removeChildNode(int index) {
+        materializeChildren();
         children.remove(index);
     }
 
     public int getChildCount() {
+        materializeChildren();
         // "children" can become null if a finalize() method processes the children and
         // removes them to avoid having them processed later
         if (children == null) {
@@ -151,11 +158,67 @@ abstract public class ASTNode {
     }
 
     public ASTNode getChild(int index) {
+        materializeChildren();
         return children.get(index);
     }
-    public ArrayList<ASTNode> getChildren() { return children; }
-    public void setChildren(ArrayList<ASTNode> value) { children = value; }
-    public void setChild(int index, ASTNode node) { children.set(index, node); }
+    public ArrayList<ASTNode> getChildren() {
+        materializeChildren();
+        return children;
+    }
+    public void setChildren(ArrayList<ASTNode> value) {
+        deferredChildren = null;
+        children = value;
+    }
+    public void setChild(int index, ASTNode node) {
+        materializeChildren();
+        children.set(index, node);
+    }
+
+    // Source of child nodes that are only constructed when they are first accessed, e.g. the statements of a
+    // function body that the parser skipped
+    public interface DeferredChildren {
+        // Construct the child nodes and add them to the node
+        void materialize(ASTNode node) throws Exception;
+    }
+
+    public void setDeferredChildren(DeferredChildren deferredChildren) { this.deferredChildren = deferredChildren; }
+    public boolean hasDeferredChildren() { return deferredChildren != null; }
+
+    public void materializeChildren() {
+        if (deferredChildren != null) {
+            DeferredChildren source = deferredChildren;
+            // Reset first - materialization adds the children through the accessors above
+            deferredChildren = null;
+            try {
+                source.materialize(this);
+            } catch (Exception e) {
+                throw new RuntimeException("Cannot materialize child nodes of node " + id + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // Children constructed so far, without constructing deferred children
+    ArrayList<ASTNode> getConstructedChildren() { return children; }
+
+    // Copy of this node for AST.copy(), which still refers to the nodes of the original AST until its
+    // copyReferences() is called
+    ASTNode copyNode() throws Exception {
+        if (deferredChildren != null) {
+            throw new Exception("Attempt to copy node " + id + " with deferred children");
+        }
+        return (ASTNode)clone();
+    }
+
+    // Replace references to nodes of the original AST by references to their copies. Nodes that hold further
+    // references extend this
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        if (ast != null) {
+            ast = copier.getAST();
+        }
+        parent = copier.map(parent);
+        children = copier.mapList(children);
+        variableEnvironment = copier.mapEnvironment(variableEnvironment);
+    }
 
     public void setDepth(int depth) { this.depth = depth; }
     public int getDepth() { return depth; }
@@ -194,6 +257,31 @@ abstract public class ASTNode {
         return code != null? code: getClass().getName();
     }
 
+    // Append the first part of the Solidity code of this node to the given buffer, or return false without
+    // appending anything if there is none. Nodes whose code contains that of their operands override this to
+    // render the operands into the same buffer rather than concatenating intermediate strings, and implement
+    // toSolidityCode() with renderToString()
+    public boolean render(StringBuilder code) throws Exception {
+        String text = toSolidityCode();
+        if (text == null) {
+            return false;
+        }
+        code.append(text);
+        return true;
+    }
+
+    protected String renderToString() throws Exception {
+        StringBuilder code = new StringBuilder();
+        return render(code)? code.toString(): null;
+    }
+
+    // Render an operand as string concatenation of its toSolidityCode() would
+    static protected void renderOperand(StringBuilder code, ASTNode operand) throws Exception {
+        if (!operand.render(code)) {
+            code.append("null");
+        }
+    }
+
     // Get second part of Solidity code representing this node, if any (null otherwise),
     // e.g. the closing brace for a block node
     abstract public String toSolidityCodePostfix() throws Exception;
@@ -49,4 +49,10 @@ public class ASTParameterList extends ASTNode {
     }
     @Override
     public String toSolidityCodePostfix() { return null; }
+
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        arrayList = copier.mapList(arrayList);
+    }
 }
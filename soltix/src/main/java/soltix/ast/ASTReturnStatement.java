@@ -24,19 +24,30 @@ public class ASTReturnStatement extends ASTNode {
 
     public ASTReturnStatement(long id) throws Exception { super(id); }
 
+    public ASTNode getArgument() { return argument; }
+
+    @Override
+    public String toSolidityCode() throws Exception { return renderToString(); }
     @Override
-    public String toSolidityCode() throws Exception {
-        String code = "return";
+    public boolean render(StringBuilder code) throws Exception {
+        code.append("return");
         if (argument != null) {
-            code += " " + argument.toSolidityCode();
+            code.append(' ');
+            renderOperand(code, argument);
         }
-        code += ";";
-        return code;
+        code.append(';');
+        return true;
     }
 
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        argument = copier.map(argument);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() > 1) {
@@ -81,6 +81,12 @@ public class ASTStructDefinition extends UserDefinedType {
         return "}";
     }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        membersList = copier.mapList(membersList);
+    }
+
     @Override
     public void finalize() throws Exception {
         //membersMap = new HashMap<String, ASTNode>();
@@ -43,13 +43,19 @@ public class ASTThrow extends ASTNode {
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        contract = copier.map(contract);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() > 0) {
             throw new Exception("Unexpected break statement child count " + getChildCount());
         }
 
-        if (Configuration.renameThrowStatements) {
+        if (Configuration.current().renameThrowStatements) {
             isRenamedThrow = true;
             contract.setContainsRenamedThrows(true);
         }
@@ -34,6 +34,11 @@ public class ASTTupleExpression extends ASTNode {
         this.tupleTypeField = tupleTypeField;
     }
 
+    public ArrayList<ASTNode> getTupleItems() { return tupleItems; }
+    // One entry per tuple position, false for omitted components as in "(a, , c)"
+    public ArrayList<Boolean> getTupleComponents() { return tupleComponents; }
+    public boolean isInlineArray() { return isInlineArray; }
+
     private ArrayList<Boolean> getTupleFieldInfo(String typeName) throws Exception {
         int parensNesting = 0;
         int count = 1; // assume 1 by default, each comma adds another. are empty tuples possible?
@@ -89,28 +94,39 @@ public class ASTTupleExpression extends ASTNode {
     private int count = 0;
 
     @Override
-    public String toSolidityCode() throws Exception {
-        String code = isInlineArray? "[": "(";
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        code.append(isInlineArray? '[': '(');
 
        // System.out.println("items " + tupleItems.size() + " components " + tupleComponents.size() + " for " + this + " type "
        //     + (tupleTypeField != null? tupleTypeField: "unknown"));
         for (int i = 0, tupleIdx = 0; i < tupleComponents.size(); ++i) {
             //System.out.println("components " + i + " = " + tupleComponents.get(i));
             if (i > 0) {
-                code += ", ";
+                code.append(", ");
             }
             if (tupleComponents.get(i)) {
-                code += tupleItems.get(tupleIdx++).toSolidityCode();
+                renderOperand(code, tupleItems.get(tupleIdx++));
             }
         }
-        code += isInlineArray? "]": ")";
+        code.append(isInlineArray? ']': ')');
         //System.out.println("code = " + code);
-        return code;
+        return true;
     }
 
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        tupleItems = copier.mapList(tupleItems);
+        if (tupleComponents != null) {
+            tupleComponents = new ArrayList<Boolean>(tupleComponents);
+        }
+    }
+
     @Override
     public void finalize() throws Exception {
         tupleItems = getChildren();
@@ -33,6 +33,7 @@ public class ASTUnaryOperation extends ASTNode {
     }
 
     public Operator getOperator() { return operator; }
+    public ASTNode getOperand() { return operand; }
 
     public enum Operator {
         OP_LNEG("!", true),
@@ -73,21 +74,28 @@ public class ASTUnaryOperation extends ASTNode {
     }
 
     @Override
-    public String toSolidityCode() throws Exception {
-        String code = "";
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
         if (isPrefix) {
-            code = operator.toString() + " "; // whitespace needed at least for "delete"
+            code.append(operator.toString()).append(' '); // whitespace needed at least for "delete"
         }
-        code += operand.toSolidityCode();
+        renderOperand(code, operand);
         if (!isPrefix) {
-            code += operator.toString();
+            code.append(operator.toString());
         }
-        return code;
+        return true;
     }
 
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        operand = copier.map(operand);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 1) {
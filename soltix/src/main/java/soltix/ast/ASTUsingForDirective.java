@@ -43,6 +43,13 @@ public class ASTUsingForDirective extends ASTNode {
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        used = copier.map(used);
+        user = copier.map(user);
+    }
+
     @Override
     public void finalize() throws Exception {
         if ((!emptyTypeName && getChildCount() != 2)
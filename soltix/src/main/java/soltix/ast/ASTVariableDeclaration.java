@@ -55,6 +55,8 @@ public class ASTVariableDeclaration extends ASTNode {
     }
 
     public ASTNode getTypeName() { return typeName; }
+    // Initializer of contract-level declarations (see finalize())
+    public ASTNode getInitializer() { return initializer; }
     public Definitions.StorageLocation getStorageLocation() { return storageLocation; }
     public void setStorageLocation(Definitions.StorageLocation storageLocation) { this.storageLocation = storageLocation; }
 
@@ -101,27 +103,34 @@ public class ASTVariableDeclaration extends ASTNode {
     }
 
     @Override
-    public String toSolidityCode() throws Exception {
-        String code = typeName != null? typeName.toSolidityCode(): "var";
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        if (typeName != null) {
+            renderOperand(code, typeName);
+        } else {
+            code.append("var");
+        }
         if (storageLocation != Definitions.StorageLocation.STORAGE_LOCATION_DEFAULT) {
-            code += " " + storageLocation;
+            code.append(' ').append(storageLocation);
         }
         if (isIndexed) { // Without indexed event arguments, stack nesting errors arise in some contracts
-            code += " indexed";
+            code.append(" indexed");
         }
         if (isConstant) {
-            code += " constant";
+            code.append(" constant");
         }
         // For now suppress internal visibility too. It would kind of be nicer to be explicit about it
         // but solc will fail to accept "internal" function parameter specifiers
         if (visibility != Definitions.Visibility.VISIBILITY_INTERNAL) {
-            code += " " + visibility;
+            code.append(' ').append(visibility);
         }
-        code += " " + name;
+        code.append(' ').append(name);
         if (initializer != null) {
-            code += " = " + initializer.toSolidityCode();
+            code.append(" = ");
+            renderOperand(code, initializer);
         }
-        return code;
+        return true;
     }
 
     public boolean isInternalVariable() { return isInternalVariable; }
@@ -129,6 +138,14 @@ public class ASTVariableDeclaration extends ASTNode {
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        typeName = copier.map(typeName);
+        initializer = copier.map(initializer);
+        variable = copier.mapVariable(variable);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (/*getChildCount() < 1 ||*/ getChildCount() > 2) {
@@ -32,42 +32,56 @@ public class ASTVariableDeclarationStatement extends ASTNode {
     }
 
     @Override
-    public String toSolidityCode() throws Exception {
-        String code;
-
-
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
         if (assignmentIds.size() == 1) {
             // Single item
-            code = declarations.get(0).toSolidityCode();
+            renderOperand(code, declarations.get(0));
         } else {
             // Tuple
-            code = "var (";
+            code.append("var (");
             for (int i = 0, decidx = 0; i < assignmentIds.size(); ++i) {
                 if (i > 0) {
-                    code += ", ";
+                    code.append(", ");
                 }
                 if (assignmentIds.get(i) < 0) {
                     ;
                 } else {
-                    code += declarations.get(decidx++).getName();
+                    code.append(declarations.get(decidx++).getName());
                 }
             }
-            code += ")";
+            code.append(')');
         }
         if (initializer != null) {
-            code += " = " + initializer.toSolidityCode();
+            code.append(" = ");
+            renderOperand(code, initializer);
         }
-        return code;
+        return true;
     }
 
     @Override
     public String getName() { return declarations.get(0).getName(); }
     public ASTVariableDeclaration getDeclaration() {
         return (ASTVariableDeclaration)declarations.get(0); }
+    public ArrayList<ASTNode> getDeclarations() { return declarations; }
+    public ASTNode getInitializer() { return initializer; }
+    // Tuple declaration positions, negative for omitted components as in "var (a, , c) = ..."
+    public ArrayList<Integer> getAssignmentIds() { return assignmentIds; }
 
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        declarations = copier.mapList(declarations);
+        initializer = copier.map(initializer);
+        if (assignmentIds != null) {
+            assignmentIds = new ArrayList<Integer>(assignmentIds);
+        }
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() < 1) {
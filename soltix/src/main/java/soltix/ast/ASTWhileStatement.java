@@ -26,14 +26,27 @@ public class ASTWhileStatement extends ASTNode implements IControlStructure {
     public ASTWhileStatement(long id) throws Exception { super(id); }
 
     public ASTNode getBody() { return body; }
+    public ASTNode getCondition() { return condition; }
 
     @Override
-    public String toSolidityCode() throws Exception {
-        return "while (" + condition.toSolidityCode() + ")";
+    public String toSolidityCode() throws Exception { return renderToString(); }
+    @Override
+    public boolean render(StringBuilder code) throws Exception {
+        code.append("while (");
+        renderOperand(code, condition);
+        code.append(')');
+        return true;
     }
     @Override
     public String toSolidityCodePostfix() { return null; }
 
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        condition = copier.map(condition);
+        body = copier.map(body);
+    }
+
     @Override
     public void finalize() throws Exception {
         if (getChildCount() != 2) {
@@ -39,6 +39,13 @@ abstract public class FunctionScope extends ASTNode implements Comparable {
     public void setBody(ASTBlock body) { this.body = body; }
     public ASTBlock getBody() { return body; }
 
+    // Local variables are registered as the body is constructed, which may have been deferred by the parser
+    private void materializeBody() {
+        if (body != null) {
+            body.materializeChildren();
+        }
+    }
+
     public void addVariable(ASTVariableDeclaration variable) {
         if (variableDeclarations == null) {
             variableDeclarations = new HashMap<String, ASTVariableDeclaration>();
@@ -46,13 +53,18 @@ abstract public class FunctionScope extends ASTNode implements Comparable {
         variableDeclarations.put(variable.getName(), variable);
     }
 
-    public int getLocalDeclarationsCount() { return variableDeclarations == null? 0: variableDeclarations.size(); }
+    public int getLocalDeclarationsCount() {
+        materializeBody();
+        return variableDeclarations == null? 0: variableDeclarations.size();
+    }
 
     public boolean containsVariable(String name) {
+        materializeBody();
         return variableDeclarations != null && variableDeclarations.containsKey(name);
     }
 
     public ASTNode currentFunctionVariableLookup(String name) {
+        materializeBody();
         if (variableDeclarations == null) {
             return null;
         }
@@ -62,6 +74,9 @@ abstract public class FunctionScope extends ASTNode implements Comparable {
     public void countNode(ASTNode node) {
         ++bodyNodeCount; /* count all for now */
     }
+    public void countNodes(int count) {
+        bodyNodeCount += count;
+    }
     public int getBodyNodeCount() { return bodyNodeCount; }
     public int compareTo(Object other) {
         FunctionScope otherFunction = (FunctionScope) other;
@@ -74,5 +89,12 @@ abstract public class FunctionScope extends ASTNode implements Comparable {
         }
     }
 
-
+    @Override
+    protected void copyReferences(ASTCopier copier) throws Exception {
+        super.copyReferences(copier);
+        parameters = copier.map(parameters);
+        returnList = copier.map(returnList);
+        variableDeclarations = copier.mapValues(variableDeclarations);
+        body = copier.map(body);
+    }
 }
@@ -0,0 +1,193 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.benchmark;
+
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import soltix.ASTEditJournal;
+import soltix.ASTEditor;
+import soltix.SoltixContext;
+import soltix.ast.*;
+import soltix.output.CodeOutputWriter;
+import soltix.output.EditScript;
+import soltix.output.Emitter;
+import soltix.output.SolidityCodeCache;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Benchmark of Solidity code output for large generated programs. Builds a contract with the given number of
+ * functions and statements per function, each statement assigning a nested sum of the given depth, e.g.
+ * "x = x + 1 + 1 + 1" for depth 3, and reports the best time to write its code to a discarding stream and to
+ * render it into memory (as for edit scripts), along with the bytes allocated per run. Also reports the time to
+ * write the program again after editing one function, with the code of all others cached as for mutated programs
+ * (see SolidityCodeCache), and to compute its edit script from the recorded edits and by comparing the code of the
+ * whole program (see EditScript). Usage:
+ *
+ *      java -cp ... soltix.benchmark.EmitterBenchmark [--iterations=n] [functions [statements [depth]]]
+ *
+ * The defaults of 500 functions with 200 statements of depth 8 yield a program of about 100k lines.
+ */
+public class EmitterBenchmark {
+    final static Logger logger = Logger.getLogger(EmitterBenchmark.class);
+
+    static private void addLeaf(AST ast, ASTNode node) throws Exception {
+        ast.addInnerNode(node);
+        ast.completeInnerNode();
+    }
+
+    static private void addExpression(AST ast, int depth) throws Exception {
+        if (depth == 0) {
+            addLeaf(ast, new ASTIdentifier(0, "x", 1));
+            return;
+        }
+        ast.addInnerNode(new ASTBinaryOperation(0, "+"));
+        addExpression(ast, depth - 1);
+        addLeaf(ast, new ASTLiteral(0, "int_const 1", "1", ASTLiteral.LiteralType.LITERAL_TYPE_INTEGER_DECIMAL, null));
+        ast.completeInnerNode();
+    }
+
+    // Bytes allocated by the current thread so far, as reported by HotSpot
+    static private long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static public AST buildProgram(int functions, int statements, int depth) throws Exception {
+        AST ast = new AST();
+        ast.addInnerNode(new ASTSourceUnit(0));
+        addLeaf(ast, new ASTPragmaDirective(0, "solidity", "^0.5.0"));
+        ast.addInnerNode(new ASTContractDefinition(0, "C", "contract"));
+        ast.addInnerNode(new ASTVariableDeclaration(1, "x", "uint256", "default", "internal", false, false));
+        addLeaf(ast, new ASTElementaryTypeName(0, "uint256"));
+        ast.completeInnerNode();
+
+        for (int i = 0; i < functions; ++i) {
+            ast.addInnerNode(new ASTFunctionDefinition(0, "f" + i, "public", "nonpayable", false, false));
+            addLeaf(ast, new ASTParameterList(0));
+            addLeaf(ast, new ASTParameterList(0));
+            ast.addInnerNode(new ASTBlock(0));
+            for (int j = 0; j < statements; ++j) {
+                ast.addInnerNode(new ASTExpressionStatement(0));
+                ast.addInnerNode(new ASTAssignment(0, "="));
+                addLeaf(ast, new ASTIdentifier(0, "x", 1));
+                addExpression(ast, depth);
+                ast.completeInnerNode();
+                ast.completeInnerNode();
+            }
+            ast.completeInnerNode();
+            ast.completeInnerNode();
+        }
+        ast.completeInnerNode();
+        ast.completeInnerNode();
+        return ast;
+    }
+
+    public static void main(String[] args) throws Exception {
+        BasicConfigurator.configure();
+        Logger.getRootLogger().setLevel(Level.INFO);
+
+        int iterations = 5;
+        int firstArgument = 0;
+        if (args.length > 0 && args[0].startsWith("--iterations=")) {
+            iterations = Integer.parseInt(args[0].split("=")[1]);
+            firstArgument = 1;
+        }
+        int functions = args.length > firstArgument ? Integer.parseInt(args[firstArgument]) : 500;
+        int statements = args.length > firstArgument + 1 ? Integer.parseInt(args[firstArgument + 1]) : 200;
+        int depth = args.length > firstArgument + 2 ? Integer.parseInt(args[firstArgument + 2]) : 8;
+
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        AST ast = buildProgram(functions, statements, depth);
+
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write(int b) { }
+            @Override
+            public void write(byte[] b, int offset, int length) { }
+        };
+        long bestStreamTime = Long.MAX_VALUE;
+        long bestMemoryTime = Long.MAX_VALUE;
+        long streamAllocation = 0;
+        long memoryAllocation = 0;
+        int lines = 0;
+        for (int i = 0; i < iterations; ++i) {
+            long allocated = getAllocatedBytes();
+            long start = System.nanoTime();
+            Emitter.emitSolidityCode(discard, ast);
+            bestStreamTime = Math.min(bestStreamTime, System.nanoTime() - start);
+            streamAllocation = getAllocatedBytes() - allocated;
+
+            allocated = getAllocatedBytes();
+            start = System.nanoTime();
+            CodeOutputWriter code = Emitter.renderSolidityCode(ast);
+            bestMemoryTime = Math.min(bestMemoryTime, System.nanoTime() - start);
+            memoryAllocation = getAllocatedBytes() - allocated;
+            lines = code.getMemoryLineCount();
+        }
+        logger.info(lines + " lines (" + functions + " functions, " + statements + " statements of depth " + depth
+                + "): stream output " + (bestStreamTime / 1000000) + " ms, " + (streamAllocation >> 20)
+                + " MB allocated; memory output " + (bestMemoryTime / 1000000) + " ms, " + (memoryAllocation >> 20)
+                + " MB allocated");
+
+        ASTEditor editor = new ASTEditor(ast);
+        ASTEditJournal journal = editor.enableJournal();
+        ASTEditJournal.Savepoint original = journal.savepoint();
+        ast.setCodeCache(new SolidityCodeCache());
+        Emitter.emitSolidityCode(discard, ast);
+        EditScript.Base base = new EditScript.Base(Emitter.renderSolidityCode(ast));
+        ast.setEditRecorder(new EditScript.Recorder());
+        bestStreamTime = Long.MAX_VALUE;
+        bestMemoryTime = Long.MAX_VALUE;
+        long bestRecordedScriptTime = Long.MAX_VALUE;
+        long bestComparedScriptTime = Long.MAX_VALUE;
+        for (int i = 0; i < iterations; ++i) {
+            editor.embedInBlock(ast.getFunctions().get(i % functions).getBody().getChild(0));
+            long allocated = getAllocatedBytes();
+            long start = System.nanoTime();
+            Emitter.emitSolidityCode(discard, ast);
+            bestStreamTime = Math.min(bestStreamTime, System.nanoTime() - start);
+            streamAllocation = getAllocatedBytes() - allocated;
+
+            allocated = getAllocatedBytes();
+            start = System.nanoTime();
+            Emitter.renderSolidityCode(ast);
+            bestMemoryTime = Math.min(bestMemoryTime, System.nanoTime() - start);
+            memoryAllocation = getAllocatedBytes() - allocated;
+
+            start = System.nanoTime();
+            EditScript.compute(base, ast, ast.getEditRecorder());
+            bestRecordedScriptTime = Math.min(bestRecordedScriptTime, System.nanoTime() - start);
+            start = System.nanoTime();
+            EditScript.compute(base, Emitter.renderSolidityCode(ast));
+            bestComparedScriptTime = Math.min(bestComparedScriptTime, System.nanoTime() - start);
+            journal.rollback(original);
+        }
+        logger.info("After editing one function: stream output " + (bestStreamTime / 1000000) + " ms, "
+                + (streamAllocation >> 20) + " MB allocated; memory output " + (bestMemoryTime / 1000000) + " ms, "
+                + (memoryAllocation >> 20) + " MB allocated");
+        logger.info("Edit script: from recorded edits " + (bestRecordedScriptTime / 1000) + " us, by comparing the "
+                + "whole program " + (bestComparedScriptTime / 1000) + " us");
+        context.detach();
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.benchmark;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.json.simple.JSONObject;
+import soltix.SoltixContext;
+import soltix.ast.AST;
+import soltix.input.ASTCache;
+import soltix.input.ParserASTCompactJSON;
+import soltix.input.ParserASTJSON;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark comparing the streaming AST-JSON parser and loading the AST from the AST cache with building the AST
+ * from a previously read json-simple document. With --compact, the files are in compact AST-JSON format instead,
+ * and the compact parser is measured with function bodies left unread and with all of them materialized. Usage:
+ *
+ *      java -cp ... soltix.benchmark.ParserBenchmark [--iterations=n] [--compact] file.ast-json...
+ *
+ * For every file and parser, reports the best parse time and the peak live heap, i.e. the largest heap occupancy
+ * after any garbage collection during parsing, relative to the heap before parsing. Peak heap is sampled at
+ * collections, so running with a small young generation (e.g. -Xmn16m) gives more accurate results.
+ */
+public class ParserBenchmark {
+    final static Logger logger = Logger.getLogger(ParserBenchmark.class);
+
+    // Largest heap occupancy after garbage collection since the last reset
+    static private final AtomicLong peakHeapAfterGC = new AtomicLong();
+    static private final HashSet<String> heapPoolNames = new HashSet<String>();
+
+    static private void installGCListener() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPoolNames.add(pool.getName());
+            }
+        }
+        NotificationListener listener = new NotificationListener() {
+            @Override
+            public void handleNotification(Notification notification, Object handback) {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info
+                        = GarbageCollectionNotificationInfo.from((CompositeData)notification.getUserData());
+                long used = 0;
+                for (Map.Entry<String, MemoryUsage> entry : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+                    if (heapPoolNames.contains(entry.getKey())) {
+                        used += entry.getValue().getUsed();
+                    }
+                }
+                long peak;
+                while (used > (peak = peakHeapAfterGC.get()) && !peakHeapAfterGC.compareAndSet(peak, used)) {
+                }
+            }
+        };
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter)collector).addNotificationListener(listener, null, null);
+        }
+    }
+
+    // Collect garbage and return the heap occupancy. GC notifications are delivered asynchronously, so give them
+    // time to arrive
+    static private long collectGarbage() throws Exception {
+        System.gc();
+        Thread.sleep(200);
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    static private abstract class Run {
+        final String name;
+        long bestTime = Long.MAX_VALUE;
+        long peakHeap = 0;
+        int nodeCount;
+
+        Run(String name) {
+            this.name = name;
+        }
+
+        // Parse the file, keeping everything alive that a caller would hold until the AST is complete
+        abstract Object[] parse(InputStream input) throws Exception;
+
+        void measure(String file) throws Exception {
+            long heapBefore = collectGarbage();
+            peakHeapAfterGC.set(0);
+
+            InputStream input = new BufferedInputStream(new FileInputStream(file));
+            long start = System.nanoTime();
+            Object[] result = parse(input);
+            long time = System.nanoTime() - start;
+            input.close();
+
+            collectGarbage(); // With the result still alive
+            bestTime = Math.min(bestTime, time);
+            peakHeap = Math.max(peakHeap, peakHeapAfterGC.get() - heapBefore);
+            nodeCount = ((AST)result[0]).getTotalFunctionBodyNodeCount();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        BasicConfigurator.configure();
+        Logger.getRootLogger().setLevel(Level.INFO);
+
+        int iterations = 3;
+        boolean compact = false;
+        int firstFile = 0;
+        for (; firstFile < args.length && args[firstFile].startsWith("--"); ++firstFile) {
+            if (args[firstFile].startsWith("--iterations=")) {
+                iterations = Integer.parseInt(args[firstFile].split("=")[1]);
+            } else if (args[firstFile].equals("--compact")) {
+                compact = true;
+            } else {
+                break;
+            }
+        }
+        if (firstFile == args.length) {
+            logger.info("Usage: ParserBenchmark [--iterations=n] [--compact] file.ast-json...");
+            System.exit(1);
+        }
+
+        installGCListener();
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        File cacheDirectory = Files.createTempDirectory("soltix-ast-cache").toFile();
+        final ASTCache cache = new ASTCache(cacheDirectory.getPath());
+
+        for (int i = firstFile; i < args.length; ++i) {
+            Run[] runs = compact? new Run[] {
+                new Run("compact") {
+                    @Override
+                    Object[] parse(InputStream input) throws Exception {
+                        return new Object[] { new ParserASTCompactJSON().parse(input) };
+                    }
+                },
+                new Run("compact, materialized") {
+                    @Override
+                    Object[] parse(InputStream input) throws Exception {
+                        AST ast = new ParserASTCompactJSON().parse(input);
+                        ast.materializeDeferredChildren();
+                        return new Object[] { ast };
+                    }
+                }
+            }: new Run[] {
+                new Run("document") {
+                    @Override
+                    Object[] parse(InputStream input) throws Exception {
+                        ParserASTJSON parser = new ParserASTJSON();
+                        JSONObject document = parser.readDocument(input);
+                        return new Object[] { parser.parse(document), document };
+                    }
+                },
+                new Run("streaming") {
+                    @Override
+                    Object[] parse(InputStream input) throws Exception {
+                        return new Object[] { new ParserASTJSON().parse(input) };
+                    }
+                },
+                new Run("cached") {
+                    @Override
+                    Object[] parse(InputStream input) throws Exception {
+                        return new Object[] { cache.parse(input) };
+                    }
+                }
+            };
+
+            if (!compact) {
+                // Populate the cache for the "cached" parser
+                InputStream input = new BufferedInputStream(new FileInputStream(args[i]));
+                cache.parse(input);
+                input.close();
+            }
+
+            for (int iteration = 0; iteration < iterations; ++iteration) {
+                for (Run run : runs) {
+                    run.measure(args[i]);
+                }
+            }
+            for (Run run : runs) {
+                logger.info(args[i] + ": " + run.name + " parser: " + (run.bestTime / 1000000) + " ms, peak heap "
+                        + (run.peakHeap / 1000000) + " MB (" + run.nodeCount + " function body nodes)");
+            }
+        }
+        context.detach();
+
+        for (File file : cacheDirectory.listFiles()) {
+            file.delete();
+        }
+        cacheDirectory.delete();
+    }
+}
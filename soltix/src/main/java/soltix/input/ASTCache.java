@@ -0,0 +1,377 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.input;
+
+import org.apache.log4j.Logger;
+import org.bouncycastle.jcajce.provider.digest.Keccak;
+import org.bouncycastle.util.encoders.Hex;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import soltix.ast.AST;
+import soltix.ast.ASTNode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of parsed AST-JSON inputs in a local directory, keyed by the keccak256 hash of the input, to avoid parsing
+ * the same contract again in repeated runs (instrumentation, mutation, reduction loops, ...).
+ *
+ * The cache does not store AST node objects - they reference types and values of the SoltixContext that built them.
+ * Instead it stores the items that the parser processed, in a compact binary encoding with a string table, and
+ * loading a cached AST replays them through the same ParserASTJSON item handlers. This yields the same nodes, IDs
+ * and resolved references as parsing, without the cost of tokenizing the (much larger) JSON text. Format:
+ *
+ *      magic, version
+ *      item := ITEM name id src attributes [NO_CHILDREN] item... END
+ *      EOF
+ *
+ * Strings are encoded as index into the table of previously seen strings, or as new string that is appended to
+ * the table. Cache files are written to a temporary file and renamed, so concurrent runs can share a directory.
+ */
+public class ASTCache {
+    final static Logger logger = Logger.getLogger(ASTCache.class);
+
+    static final int MAGIC = 0x53584143; // "SXAC"
+    static final int VERSION = 1;
+
+    // Item tags
+    static final byte ITEM = 1;
+    static final byte END = 2;
+    static final byte EOF = 3;
+    static final byte NO_CHILDREN = 4; // Item had no children entry, only relevant for debug output
+
+    // Value tags
+    static final byte NULL = 0;
+    static final byte TRUE = 1;
+    static final byte FALSE = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+    static final byte STRING = 5;
+    static final byte ARRAY = 6;
+    static final byte OBJECT = 7;
+
+    // String encodings besides table indices (offset by FIRST_STRING_INDEX)
+    static final int NULL_STRING = 0;
+    static final int NEW_STRING = 1;
+    static final int FIRST_STRING_INDEX = 2;
+
+    private final File directory;
+    private final ParserASTJSON parser;
+
+    public ASTCache(String directory, ParserASTJSON parser) {
+        this.directory = new File(directory);
+        this.parser = parser;
+    }
+
+    public ASTCache(String directory) {
+        this(directory, new ParserASTJSON());
+    }
+
+    // Parse the input, or load the AST from the cache if the same input has been parsed before. The input is
+    // spooled to a temporary file while its hash is computed, rather than kept in memory
+    public AST parse(InputStream input) throws Exception {
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new Exception("Cannot create AST cache directory " + directory);
+        }
+        File inputFile = File.createTempFile("input", ".tmp", directory);
+        File temporaryFile = null;
+        Recorder recorder = null;
+
+        try {
+            Keccak.DigestKeccak keccak = new Keccak.Digest256();
+            OutputStream spool = new FileOutputStream(inputFile);
+            try {
+                byte[] buffer = new byte[65536];
+                int count;
+                while ((count = input.read(buffer)) > 0) {
+                    keccak.update(buffer, 0, count);
+                    spool.write(buffer, 0, count);
+                }
+            } finally {
+                spool.close();
+            }
+
+            File cacheFile = new File(directory, Hex.toHexString(keccak.digest()) + ".ast");
+            if (cacheFile.exists()) {
+                logger.debug("Loading AST from cache file " + cacheFile);
+                return load(parser, cacheFile);
+            }
+
+            temporaryFile = File.createTempFile("parse", ".tmp", directory);
+            recorder = new Recorder(temporaryFile);
+            parser.setRecorder(recorder);
+            InputStream spooledInput = new BufferedInputStream(new FileInputStream(inputFile), 65536);
+            AST ast;
+            try {
+                ast = parser.parse(spooledInput);
+            } finally {
+                spooledInput.close();
+            }
+            recorder.close();
+            recorder = null;
+            Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return ast;
+        } finally {
+            parser.setRecorder(null);
+            if (recorder != null) {
+                recorder.close();
+            }
+            if (temporaryFile != null) {
+                temporaryFile.delete(); // No-op after the move
+            }
+            inputFile.delete();
+        }
+    }
+
+    /**
+     * Encoder of the items processed by ParserASTJSON
+     */
+    static class Recorder {
+        private final DataOutputStream output;
+        private final HashMap<String, Integer> strings = new HashMap<String, Integer>();
+
+        Recorder(File file) throws Exception {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+        }
+
+        void beginItem(String name, long id, JSONObject attributes, String src) throws Exception {
+            output.writeByte(ITEM);
+            writeString(name);
+            writeUnsigned(zigZag(id));
+            writeString(src);
+            writeValue(attributes);
+        }
+
+        void noChildren() throws Exception {
+            output.writeByte(NO_CHILDREN);
+        }
+
+        void endItem() throws Exception {
+            output.writeByte(END);
+        }
+
+        void close() throws Exception {
+            output.writeByte(EOF);
+            output.close();
+        }
+
+        protected void writeUnsigned(long value) throws Exception {
+            while ((value & ~0x7fL) != 0) {
+                output.writeByte((int)(value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            output.writeByte((int)value);
+        }
+
+        protected long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        protected void writeString(String s) throws Exception {
+            if (s == null) {
+                writeUnsigned(NULL_STRING);
+                return;
+            }
+            Integer index = strings.get(s);
+            if (index != null) {
+                writeUnsigned(FIRST_STRING_INDEX + index);
+            } else {
+                strings.put(s, strings.size());
+                byte[] bytes = s.getBytes("UTF-8");
+                writeUnsigned(NEW_STRING);
+                writeUnsigned(bytes.length);
+                output.write(bytes);
+            }
+        }
+
+        protected void writeValue(Object value) throws Exception {
+            if (value == null) {
+                output.writeByte(NULL);
+            } else if (value instanceof Boolean) {
+                output.writeByte((Boolean)value ? TRUE : FALSE);
+            } else if (value instanceof Long) {
+                output.writeByte(LONG);
+                writeUnsigned(zigZag((Long)value));
+            } else if (value instanceof Double) {
+                output.writeByte(DOUBLE);
+                output.writeDouble((Double)value);
+            } else if (value instanceof String) {
+                output.writeByte(STRING);
+                writeString((String)value);
+            } else if (value instanceof JSONArray) {
+                JSONArray array = (JSONArray)value;
+                output.writeByte(ARRAY);
+                writeUnsigned(array.size());
+                for (Object element : array) {
+                    writeValue(element);
+                }
+            } else if (value instanceof JSONObject) {
+                JSONObject object = (JSONObject)value;
+                output.writeByte(OBJECT);
+                writeUnsigned(object.size());
+                for (Object entry : object.entrySet()) {
+                    writeString((String)((Map.Entry)entry).getKey());
+                    writeValue(((Map.Entry)entry).getValue());
+                }
+            } else {
+                throw new Exception("Unexpected value type " + value.getClass().getName() + " in AST cache");
+            }
+        }
+    }
+
+    /**
+     * Decoder replaying the items of a memory-mapped cache file
+     */
+    static class Replayer {
+        private final ByteBuffer input;
+        private final ArrayList<String> strings = new ArrayList<String>();
+
+        Replayer(ByteBuffer input) {
+            this.input = input;
+        }
+
+        void replay(ParserASTJSON parser, AST ast) throws Exception {
+            if (input.getInt() != MAGIC || input.getInt() != VERSION) {
+                throw new Exception("Invalid AST cache file header");
+            }
+            replayItem(parser, ast, 0);
+            if (input.get() != EOF) {
+                throw new Exception("Invalid AST cache file trailer");
+            }
+        }
+
+        // Like ParserASTJSON.descendJSONObject()
+        protected void replayItem(ParserASTJSON parser, AST ast, int depth) throws Exception {
+            if (input.get() != ITEM) {
+                throw new Exception("Invalid AST cache item");
+            }
+            String name = readString();
+            long id = unZigZag(readUnsigned());
+            String src = readString();
+            JSONObject attributes = (JSONObject)readValue();
+
+            ASTNode firstCurrentNode = ast.getCurrentNode();
+            parser.processItem(ast, name, id, attributes, src, depth);
+            ASTNode secondCurrentNode = ast.getCurrentNode();
+
+            if (input.get(input.position()) == NO_CHILDREN) {
+                input.get();
+                parser.debugPrint(depth, "no children");
+            }
+            while (input.get(input.position()) != END) {
+                replayItem(parser, ast, depth + 1);
+            }
+            input.get();
+
+            parser.completeItem(ast, firstCurrentNode, secondCurrentNode);
+        }
+
+        protected long readUnsigned() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = input.get();
+                value |= (long)(b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        protected long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        protected String readString() throws Exception {
+            int code = (int)readUnsigned();
+            if (code == NULL_STRING) {
+                return null;
+            } else if (code == NEW_STRING) {
+                byte[] bytes = new byte[(int)readUnsigned()];
+                input.get(bytes);
+                String s = new String(bytes, "UTF-8");
+                strings.add(s);
+                return s;
+            } else {
+                return strings.get(code - FIRST_STRING_INDEX);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        protected Object readValue() throws Exception {
+            byte tag = input.get();
+            switch (tag) {
+            case NULL: return null;
+            case TRUE: return Boolean.TRUE;
+            case FALSE: return Boolean.FALSE;
+            case LONG: return unZigZag(readUnsigned());
+            case DOUBLE: return input.getDouble();
+            case STRING: return readString();
+            case ARRAY:
+                int size = (int)readUnsigned();
+                JSONArray array = new JSONArray();
+                for (int i = 0; i < size; ++i) {
+                    array.add(readValue());
+                }
+                return array;
+            case OBJECT:
+                int entries = (int)readUnsigned();
+                JSONObject object = new JSONObject();
+                for (int i = 0; i < entries; ++i) {
+                    String key = readString();
+                    object.put(key, readValue());
+                }
+                return object;
+            default:
+                throw new Exception("Invalid value tag " + tag + " in AST cache");
+            }
+        }
+    }
+
+    protected AST load(ParserASTJSON parser, File cacheFile) throws Exception {
+        RandomAccessFile file = new RandomAccessFile(cacheFile, "r");
+        try {
+            ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            AST ast = new AST();
+            new Replayer(buffer).replay(parser, ast);
+            return ast;
+        } finally {
+            file.close();
+        }
+    }
+}
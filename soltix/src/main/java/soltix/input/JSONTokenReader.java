@@ -0,0 +1,343 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.input;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.io.Reader;
+
+/**
+ * Pull tokenizer for JSON documents. Values are returned as the same types the json-simple parser produces
+ * (String, Long, Double, Boolean, null, JSONObject, JSONArray), so that they can be passed to code written for
+ * json-simple documents, but only values requested with readValue() are materialized.
+ *
+ * A sequence of documents, such as an event log with one document per line, can be read by calling nextDocument()
+ * before each of them.
+ */
+public class JSONTokenReader {
+    public enum Token {
+        BEGIN_OBJECT,
+        END_OBJECT,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        NAME,           // Object entry name, see getName()
+        VALUE,          // Primitive value, see getValue()
+        END_DOCUMENT
+    }
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int bufferPosition = 0;
+    private int bufferLength = 0;
+    private long position = 0; // For error messages
+    private int line = 1;
+
+    // Nesting of objects and arrays, to handle separators - true for objects
+    private boolean[] nesting = new boolean[64];
+    private int depth = 0;
+    // Whether the next token in the current object or array is its first item, or follows a name
+    private boolean firstItem = true;
+    private boolean afterName = false;
+
+    private Token peekedToken = null;
+    private String name;
+    private Object value;
+
+    public JSONTokenReader(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[65536];
+    }
+
+    // Read the given range of a document that is already in memory. Positions are offsets into the array
+    public JSONTokenReader(char[] text, int start, int end) {
+        this.reader = null;
+        this.buffer = text;
+        this.bufferPosition = start;
+        this.bufferLength = end;
+        this.position = start;
+    }
+
+    public String getName() { return name; }
+    public Object getValue() { return value; }
+    // Number of characters consumed, i.e. the position following the last token returned by next()
+    public long getPosition() { return position; }
+    // Line of the last token returned by next() (1-based)
+    public int getLine() { return line; }
+
+    protected Exception error(String message) {
+        return new Exception("JSON syntax error at character " + position + ": " + message);
+    }
+
+    // Return the next character without consuming it, or -1 at the end of the input
+    protected int peekChar() throws Exception {
+        if (bufferPosition == bufferLength) {
+            if (reader == null) {
+                return -1;
+            }
+            bufferLength = reader.read(buffer, 0, buffer.length);
+            bufferPosition = 0;
+            if (bufferLength <= 0) {
+                bufferLength = 0;
+                return -1;
+            }
+        }
+        return buffer[bufferPosition];
+    }
+
+    protected int read() throws Exception {
+        int c = peekChar();
+        if (c != -1) {
+            ++bufferPosition;
+            ++position;
+        }
+        return c;
+    }
+
+    protected int readNonWhitespace() throws Exception {
+        int c;
+        do {
+            c = read();
+            if (c == '\n') {
+                ++line;
+            }
+        } while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+        return c;
+    }
+
+    // Start reading the next document of a sequence once the previous one, if any, has been read completely.
+    // Returns false at the end of the input
+    public boolean nextDocument() throws Exception {
+        if (depth != 0 || afterName || (peekedToken != null && peekedToken != Token.END_DOCUMENT)) {
+            throw error("nextDocument() called within document");
+        }
+        int c;
+        while ((c = peekChar()) == ' ' || c == '\t' || c == '\n' || c == '\r') {
+            if (read() == '\n') {
+                ++line;
+            }
+        }
+        peekedToken = null;
+        firstItem = true;
+        return c != -1;
+    }
+
+    protected void push(boolean isObject) {
+        if (depth == nesting.length) {
+            boolean[] newNesting = new boolean[depth * 2];
+            System.arraycopy(nesting, 0, newNesting, 0, depth);
+            nesting = newNesting;
+        }
+        nesting[depth++] = isObject;
+        firstItem = true;
+    }
+
+    public Token peek() throws Exception {
+        if (peekedToken == null) {
+            peekedToken = readToken();
+        }
+        return peekedToken;
+    }
+
+    public Token next() throws Exception {
+        Token token = peek();
+        peekedToken = null;
+        return token;
+    }
+
+    protected Token readToken() throws Exception {
+        int c = readNonWhitespace();
+        boolean inObject = depth > 0 && nesting[depth - 1];
+
+        if (c == '}' || c == ']') {
+            if (depth == 0 || inObject != (c == '}') || afterName) {
+                throw error("unexpected '" + (char)c + "'");
+            }
+            --depth;
+            firstItem = false;
+            return c == '}' ? Token.END_OBJECT : Token.END_ARRAY;
+        }
+
+        if (afterName) {
+            if (c != ':') {
+                throw error("expected ':' after object entry name");
+            }
+            c = readNonWhitespace();
+            afterName = false;
+        } else {
+            if (depth == 0 && !firstItem) {
+                if (c != -1) {
+                    throw error("unexpected data after end of document");
+                }
+                return Token.END_DOCUMENT;
+            }
+            if (!firstItem) {
+                if (c != ',') {
+                    throw error("expected ','");
+                }
+                c = readNonWhitespace();
+            }
+            firstItem = false;
+            if (inObject) {
+                if (c != '"') {
+                    throw error("expected object entry name");
+                }
+                name = readString();
+                afterName = true;
+                return Token.NAME;
+            }
+        }
+
+        switch (c) {
+        case '{':
+            push(true);
+            return Token.BEGIN_OBJECT;
+        case '[':
+            push(false);
+            return Token.BEGIN_ARRAY;
+        case '"':
+            value = readString();
+            return Token.VALUE;
+        case -1:
+            throw error("unexpected end of document");
+        default:
+            value = readLiteral(c);
+            return Token.VALUE;
+        }
+    }
+
+    protected String readString() throws Exception {
+        StringBuilder result = new StringBuilder();
+        int c;
+        while ((c = read()) != '"') {
+            if (c == -1) {
+                throw error("unterminated string");
+            } else if (c == '\\') {
+                c = read();
+                switch (c) {
+                case '"': case '\\': case '/': result.append((char)c); break;
+                case 'b': result.append('\b'); break;
+                case 'f': result.append('\f'); break;
+                case 'n': result.append('\n'); break;
+                case 'r': result.append('\r'); break;
+                case 't': result.append('\t'); break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; ++i) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit == -1) {
+                            throw error("invalid unicode escape sequence");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    result.append((char)code);
+                    break;
+                default:
+                    throw error("invalid escape sequence");
+                }
+            } else {
+                result.append((char)c);
+            }
+        }
+        return result.toString();
+    }
+
+    // Numbers and true/false/null
+    protected Object readLiteral(int c) throws Exception {
+        StringBuilder literal = new StringBuilder();
+        literal.append((char)c);
+        for (;;) {
+            int next = peekChar();
+            if (next == -1 || !(Character.isLetterOrDigit(next) || next == '-' || next == '+' || next == '.')) {
+                break;
+            }
+            literal.append((char)read());
+        }
+
+        String s = literal.toString();
+        if (s.equals("true")) {
+            return Boolean.TRUE;
+        } else if (s.equals("false")) {
+            return Boolean.FALSE;
+        } else if (s.equals("null")) {
+            return null;
+        }
+        try {
+            // As in json-simple: integers are Long values, all other numbers Double values
+            if (s.indexOf('.') == -1 && s.indexOf('e') == -1 && s.indexOf('E') == -1) {
+                return Long.valueOf(s);
+            } else {
+                return Double.valueOf(s);
+            }
+        } catch (NumberFormatException e) {
+            throw error("invalid literal '" + s + "'");
+        }
+    }
+
+    // Read the complete value starting at the next token
+    @SuppressWarnings("unchecked")
+    public Object readValue() throws Exception {
+        Token token = next();
+        switch (token) {
+        case VALUE:
+            return value;
+        case BEGIN_OBJECT:
+            JSONObject object = new JSONObject();
+            while (next() == Token.NAME) {
+                String entryName = name;
+                object.put(entryName, readValue());
+            }
+            return object;
+        case BEGIN_ARRAY:
+            JSONArray array = new JSONArray();
+            while (peek() != Token.END_ARRAY) {
+                array.add(readValue());
+            }
+            next();
+            return array;
+        default:
+            throw error("expected value, got " + token);
+        }
+    }
+
+    // Skip the complete value starting at the next token
+    public void skipValue() throws Exception {
+        skipValue(null);
+    }
+
+    // Skip the complete value starting at the next token, and return the number of object entries in it with the
+    // given name (if not null)
+    public int skipValue(String countedName) throws Exception {
+        int count = 0;
+        int startDepth = depth;
+        Token token = next();
+        if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+            while (depth > startDepth) {
+                if (next() == Token.NAME && countedName != null && countedName.equals(name)) {
+                    ++count;
+                }
+            }
+        } else if (token != Token.VALUE) {
+            throw error("expected value, got " + token);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.input;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import soltix.Configuration;
+import soltix.SoltixContext;
+import soltix.ast.AST;
+import soltix.ast.ASTNode;
+
+/**
+ * Parser of Solidity code supplied in "--ast-compact-json" solc JSON output format, or as standard-JSON output with
+ * a single source. Each node is translated into the corresponding "--ast-json" item, which is then processed by the
+ * ParserASTJSON item handlers, so both formats yield the same AST.
+ *
+ * The statements of function and modifier bodies are only read when the body is first accessed (see
+ * ASTNode.DeferredChildren): while reading the document, they are skipped and only their location in the input
+ * and node count are recorded. Node IDs for the body are reserved at that point, so the AST does not depend on
+ * when, or whether, a body is constructed.
+ */
+public class ParserASTCompactJSON extends ParserASTJSON {
+    // Entries holding child nodes, in the order of the children of the corresponding "--ast-json" item. Each entry
+    // holds a node, an array of nodes (null entries are skipped), or null
+    static private final HashMap<String, String[]> childEntries = new HashMap<String, String[]>();
+
+    static private void addChildEntries(String nodeType, String... entries) {
+        childEntries.put(nodeType, entries);
+    }
+
+    static {
+        addChildEntries("SourceUnit", "nodes");
+        addChildEntries("ContractDefinition", "baseContracts", "nodes");
+        addChildEntries("InheritanceSpecifier", "baseName", "arguments");
+        addChildEntries("UsingForDirective", "libraryName", "typeName");
+        addChildEntries("StructDefinition", "members");
+        addChildEntries("EnumDefinition", "members");
+        addChildEntries("EventDefinition", "parameters");
+        addChildEntries("ModifierDefinition", "parameters", "body");
+        addChildEntries("FunctionDefinition", "parameters", "returnParameters", "modifiers", "body");
+        addChildEntries("ParameterList", "parameters");
+        addChildEntries("VariableDeclaration", "typeName", "value");
+        addChildEntries("Mapping", "keyType", "valueType");
+        addChildEntries("ArrayTypeName", "baseType", "length");
+        addChildEntries("FunctionTypeName", "parameterTypes", "returnParameterTypes");
+        addChildEntries("ModifierInvocation", "modifierName", "arguments");
+        addChildEntries("Block", "statements");
+        addChildEntries("IfStatement", "condition", "trueBody", "falseBody");
+        addChildEntries("WhileStatement", "condition", "body");
+        addChildEntries("DoWhileStatement", "condition", "body");
+        addChildEntries("ForStatement", "initializationExpression", "condition", "loopExpression", "body");
+        addChildEntries("Return", "expression");
+        addChildEntries("EmitStatement", "eventCall");
+        addChildEntries("VariableDeclarationStatement", "declarations", "initialValue");
+        addChildEntries("ExpressionStatement", "expression");
+        addChildEntries("Assignment", "leftHandSide", "rightHandSide");
+        addChildEntries("BinaryOperation", "leftExpression", "rightExpression");
+        addChildEntries("UnaryOperation", "subExpression");
+        addChildEntries("Conditional", "condition", "trueExpression", "falseExpression");
+        addChildEntries("TupleExpression", "components");
+        addChildEntries("FunctionCall", "expression", "arguments");
+        addChildEntries("NewExpression", "typeName");
+        addChildEntries("MemberAccess", "expression");
+        addChildEntries("IndexAccess", "baseExpression", "indexExpression");
+    }
+
+    // The statements of a function or modifier body that were skipped while reading the document. The
+    // document text is shared, so a document can be parsed any number of times, also concurrently
+    protected static class DeferredStatements {
+        final char[] text;
+        final int start;
+        final int end;
+        final int nodeCount;
+
+        DeferredStatements(char[] text, int start, int end, int nodeCount) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.nodeCount = nodeCount;
+        }
+
+        JSONArray read() throws Exception {
+            int position = start;
+            while (position < end && text[position] != '[') {
+                ++position; // Skip separator following the entry name
+            }
+            return (JSONArray)new JSONTokenReader(text, position, end).readValue();
+        }
+    }
+
+    // Constructs the statements of a body block of an AST when it is first accessed
+    protected class DeferredBody implements ASTNode.DeferredChildren {
+        private final AST ast;
+        private final DeferredStatements statements;
+        private final long firstNodeID;
+        private final int depth;
+
+        DeferredBody(AST ast, DeferredStatements statements, int depth) {
+            this.ast = ast;
+            this.statements = statements;
+            this.firstNodeID = SoltixContext.current().reserveNodeIDs(statements.nodeCount);
+            this.depth = depth;
+        }
+
+        public void materialize(ASTNode node) throws Exception {
+            JSONArray items = statements.read();
+            long[] previousNodeIDs = SoltixContext.current().useReservedNodeIDs(firstNodeID, statements.nodeCount);
+            ast.beginDeferredChildren(node);
+            try {
+                for (Object item : items) {
+                    descendCompactNode(ast, (JSONObject)item, depth);
+                }
+                if (ast.getCurrentNode() != node) {
+                    throw new Exception("Unbalanced construction of deferred statements");
+                }
+            } finally {
+                ast.endDeferredChildren();
+                SoltixContext.current().endReservedNodeIDs(previousNodeIDs);
+            }
+        }
+    }
+
+    protected String getTypeString(JSONObject node) {
+        JSONObject typeDescriptions = (JSONObject)node.get("typeDescriptions");
+        return typeDescriptions != null? (String)typeDescriptions.get("typeString"): null;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void copyEntry(JSONObject node, String entry, JSONObject attributes, String attribute) {
+        if (node.containsKey(entry)) {
+            attributes.put(attribute, node.get(entry));
+        }
+    }
+
+    // Build the attributes of the "--ast-json" item corresponding to a node
+    @SuppressWarnings("unchecked")
+    protected JSONObject getAttributes(String nodeType, JSONObject node) throws Exception {
+        JSONObject attributes = new JSONObject();
+        if (node.get("name") instanceof String) {
+            attributes.put("name", node.get("name"));
+        }
+        String type = getTypeString(node);
+        if (type != null) {
+            attributes.put("type", type);
+        }
+        copyEntry(node, "referencedDeclaration", attributes, "referencedDeclaration");
+
+        if (nodeType.equals("SourceUnit")) {
+            copyEntry(node, "absolutePath", attributes, "absolutePath");
+        } else if (nodeType.equals("PragmaDirective")) {
+            copyEntry(node, "literals", attributes, "literals");
+        } else if (nodeType.equals("ContractDefinition")) {
+            copyEntry(node, "contractKind", attributes, "contractKind");
+        } else if (nodeType.equals("FunctionDefinition")) {
+            copyEntry(node, "visibility", attributes, "visibility");
+            copyEntry(node, "stateMutability", attributes, "stateMutability");
+            // 0.4.x has isConstructor and isDeclaredConst, later versions have kind and stateMutability only
+            Object isConstructor = node.get("isConstructor");
+            if (isConstructor == null) {
+                isConstructor = Boolean.valueOf("constructor".equals(node.get("kind")));
+            }
+            attributes.put("isConstructor", isConstructor);
+            copyEntry(node, "isDeclaredConst", attributes, "constant");
+        } else if (nodeType.equals("VariableDeclaration")) {
+            Object isConstant = node.get("constant");
+            attributes.put("constant", isConstant != null? isConstant: Boolean.FALSE);
+            copyEntry(node, "storageLocation", attributes, "storageLocation");
+            copyEntry(node, "visibility", attributes, "visibility");
+            copyEntry(node, "indexed", attributes, "indexed");
+        } else if (nodeType.equals("EventDefinition")) {
+            copyEntry(node, "anonymous", attributes, "anonymous");
+        } else if (nodeType.equals("StructDefinition") || nodeType.equals("EnumDefinition")) {
+            copyEntry(node, "canonicalName", attributes, "canonicalName");
+        } else if (nodeType.equals("FunctionTypeName")) {
+            copyEntry(node, "visibility", attributes, "visibility");
+        } else if (nodeType.equals("UsingForDirective")) {
+            if (node.get("typeName") == null) {
+                // Wildcard "using L for *"
+                attributes.put("typeName", null);
+            }
+        } else if (nodeType.equals("ModifierInvocation") || nodeType.equals("InheritanceSpecifier")) {
+            if (node.get("arguments") != null) {
+                // Only the presence of arguments is relevant - they are child nodes
+                attributes.put("arguments", new JSONArray());
+            }
+        } else if (nodeType.equals("ForStatement")) {
+            // The "--ast-json" attributes name the missing parts
+            for (String part : new String[] { "initializationExpression", "condition", "loopExpression" }) {
+                if (node.get(part) == null) {
+                    attributes.put(part, null);
+                }
+            }
+        } else if (nodeType.equals("VariableDeclarationStatement")) {
+            copyEntry(node, "assignments", attributes, "assignments");
+        } else if (nodeType.equals("Assignment") || nodeType.equals("BinaryOperation")) {
+            copyEntry(node, "operator", attributes, "operator");
+        } else if (nodeType.equals("UnaryOperation")) {
+            copyEntry(node, "operator", attributes, "operator");
+            copyEntry(node, "prefix", attributes, "prefix");
+        } else if (nodeType.equals("Identifier")) {
+            copyEntry(node, "name", attributes, "value");
+        } else if (nodeType.equals("MemberAccess")) {
+            copyEntry(node, "memberName", attributes, "member_name");
+        } else if (nodeType.equals("Literal")) {
+            copyEntry(node, "value", attributes, "value");
+            copyEntry(node, "hexValue", attributes, "hexvalue");
+            copyEntry(node, "kind", attributes, "token");
+            copyEntry(node, "subdenomination", attributes, "subdenomination");
+        } else if (nodeType.equals("ElementaryTypeNameExpression")) {
+            // A type name string up to 0.5.x, an ElementaryTypeName node later
+            Object typeName = node.get("typeName");
+            if (typeName instanceof JSONObject) {
+                typeName = ((JSONObject)typeName).get("name");
+            }
+            attributes.put("value", typeName);
+        } else if (nodeType.equals("FunctionCall")) {
+            // 0.4.x has isStructConstructorCall and isTypeConversion, later versions have kind
+            Object kind = node.get("kind");
+            Object isStructConstructorCall = node.get("isStructConstructorCall");
+            if (isStructConstructorCall == null) {
+                isStructConstructorCall = Boolean.valueOf("structConstructorCall".equals(kind));
+            }
+            Object isTypeConversion = node.get("isTypeConversion");
+            if (isTypeConversion == null) {
+                isTypeConversion = Boolean.valueOf("typeConversion".equals(kind));
+            }
+            attributes.put("isStructConstructorCall", isStructConstructorCall);
+            attributes.put("type_conversion", isTypeConversion);
+            copyEntry(node, "names", attributes, "names");
+        } else if (nodeType.equals("TupleExpression")) {
+            copyEntry(node, "isInlineArray", attributes, "isInlineArray");
+            JSONArray components = (JSONArray)node.get("components");
+            if (components != null && components.contains(null)) {
+                // Tuples with empty components carry all components as attributes, see processTupleExpression()
+                JSONArray items = new JSONArray();
+                for (Object component : components) {
+                    items.add(component == null? null: toItem((JSONObject)component));
+                }
+                attributes.put("components", items);
+            }
+        } else if (nodeType.equals("InlineAssembly")) {
+            copyEntry(node, "operations", attributes, "operations");
+        }
+        return attributes;
+    }
+
+    // Get the child nodes of a node, or the deferred statements of a body
+    protected ArrayList<Object> getChildren(String nodeType, JSONObject node, JSONObject attributes) {
+        ArrayList<Object> children = new ArrayList<Object>();
+        String[] entries = childEntries.get(nodeType);
+        if (entries == null || attributes.get("components") != null) {
+            return children;
+        }
+        for (String entry : entries) {
+            Object value = node.get(entry);
+            if (value instanceof JSONArray) {
+                for (Object element : (JSONArray)value) {
+                    if (element != null) {
+                        children.add(element);
+                    }
+                }
+            } else if (value != null) {
+                children.add(value);
+            }
+        }
+        return children;
+    }
+
+    protected String getNodeType(JSONObject node) throws Exception {
+        String nodeType = (String)node.get("nodeType");
+        if (nodeType == null) {
+            throw new Exception("Compact AST-JSON node without nodeType");
+        }
+        return nodeType;
+    }
+
+    // Translate a node and its children into an "--ast-json" item
+    @SuppressWarnings("unchecked")
+    protected JSONObject toItem(JSONObject node) throws Exception {
+        String nodeType = getNodeType(node);
+        JSONObject attributes = getAttributes(nodeType, node);
+        JSONObject item = new JSONObject();
+        item.put("name", nodeType);
+        item.put("id", node.get("id"));
+        item.put("src", node.get("src"));
+        item.put("attributes", attributes);
+        JSONArray children = new JSONArray();
+        for (Object child : getChildren(nodeType, node, attributes)) {
+            children.add(toItem((JSONObject)child));
+        }
+        item.put("children", children);
+        return item;
+    }
+
+    protected void descendCompactNode(AST ast, JSONObject node, int depth) throws Exception {
+        String nodeType = getNodeType(node);
+        JSONObject attributes = getAttributes(nodeType, node);
+        ASTNode firstCurrentNode = ast != null? ast.getCurrentNode(): null;
+        processItem(ast, nodeType, (Long)node.get("id"), attributes, (String)node.get("src"), depth);
+        ASTNode secondCurrentNode = ast != null? ast.getCurrentNode(): null;
+
+        ArrayList<Object> children = getChildren(nodeType, node, attributes);
+        if (children.size() == 1 && children.get(0) instanceof DeferredStatements) {
+            DeferredStatements statements = (DeferredStatements)children.get(0);
+            if (ast != null) {
+                ast.addDeferredChildren(secondCurrentNode, new DeferredBody(ast, statements, depth + 1), statements.nodeCount);
+            } else {
+                // Only printing
+                for (Object statement : statements.read()) {
+                    descendCompactNode(null, (JSONObject)statement, depth + 1);
+                }
+            }
+        } else if (children.isEmpty()) {
+            noChildren(depth);
+        } else {
+            for (Object child : children) {
+                descendCompactNode(ast, (JSONObject)child, depth + 1);
+            }
+        }
+
+        completeItem(ast, firstCurrentNode, secondCurrentNode);
+    }
+
+    // Read a value of the document. If deferStatements is set, the statements of blocks, i.e. of function and
+    // modifier bodies (all other blocks are nested in these), are skipped
+    @SuppressWarnings("unchecked")
+    protected Object readValue(JSONTokenReader reader, char[] text, boolean deferStatements, boolean isRoot) throws Exception {
+        switch (reader.peek()) {
+        case BEGIN_OBJECT:
+            reader.next();
+            JSONObject object = new JSONObject();
+            while (reader.next() == JSONTokenReader.Token.NAME) {
+                String name = reader.getName();
+                if (deferStatements && name.equals("statements")) {
+                    int start = (int)reader.getPosition();
+                    int nodeCount = reader.skipValue("nodeType");
+                    object.put(name, new DeferredStatements(text, start, (int)reader.getPosition(), nodeCount));
+                } else if (isRoot && name.equals("contracts")) {
+                    // Standard-JSON compiler output, which can be large
+                    reader.skipValue();
+                } else {
+                    object.put(name, readValue(reader, text, deferStatements, false));
+                }
+            }
+            return object;
+        case BEGIN_ARRAY:
+            reader.next();
+            JSONArray array = new JSONArray();
+            while (reader.peek() != JSONTokenReader.Token.END_ARRAY) {
+                array.add(readValue(reader, text, deferStatements, false));
+            }
+            reader.next();
+            return array;
+        default:
+            return reader.readValue();
+        }
+    }
+
+    protected CharBuffer readText(InputStream input) throws Exception {
+        Reader reader = new InputStreamReader(input, "UTF-8");
+        char[] text = new char[65536];
+        int length = 0;
+        int count;
+        while ((count = reader.read(text, length, text.length - length)) > 0) {
+            length += count;
+            if (length == text.length) {
+                text = Arrays.copyOf(text, text.length * 2);
+            }
+        }
+        return CharBuffer.wrap(text, 0, length);
+    }
+
+    // Read the document without building an AST from it yet. The returned SourceUnit node is shared by all ASTs
+    // built from it, with the bodies being read separately for each AST
+    @Override
+    public JSONObject readDocument(InputStream input) throws Exception {
+        CharBuffer text = readText(input);
+        JSONTokenReader reader = new JSONTokenReader(text.array(), 0, text.limit());
+        // Bodies cannot be deferred while the AST cache records the processed items, since it relies on their order
+        Object document = readValue(reader, text.array(), !isRecording(), true);
+        if (reader.next() != JSONTokenReader.Token.END_DOCUMENT) {
+            throw new Exception("Unexpected data after compact AST-JSON document");
+        }
+        if (!(document instanceof JSONObject)) {
+            throw new Exception("Compact AST-JSON document is not an object");
+        }
+
+        JSONObject root = (JSONObject)document;
+        if (root.containsKey("nodeType")) {
+            return root;
+        }
+        JSONObject sources = (JSONObject)root.get("sources");
+        if (sources == null) {
+            throw new Exception("Compact AST-JSON document is neither a SourceUnit node nor standard-JSON output");
+        }
+        if (sources.size() != 1) {
+            throw new Exception("Standard-JSON output with " + sources.size() + " sources is not supported");
+        }
+        JSONObject ast = (JSONObject)((JSONObject)sources.values().iterator().next()).get("ast");
+        if (ast == null) {
+            throw new Exception("Standard-JSON output without AST - \"ast\" must be requested in outputSelection");
+        }
+        return ast;
+    }
+
+    @Override
+    public AST parse(InputStream input) throws Exception {
+        return parse(readDocument(input));
+    }
+
+    @Override
+    public AST parse(JSONObject document) throws Exception {
+        AST ast = new AST();
+
+        // For debugging with skipASTProcessing: only print, don't interpret
+        descendCompactNode(Configuration.current().skipASTProcessing? null: ast, document, 0);
+        return ast;
+    }
+}
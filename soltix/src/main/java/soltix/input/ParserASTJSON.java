@@ -38,7 +38,7 @@ import soltix.ast.*;
  */
 public class ParserASTJSON extends Parser {
     protected void debugPrint(int depth, String s) {
-        if (!Configuration.debugASTOutput) return;
+        if (!Configuration.current().debugASTOutput) return;
 
         for (int i = 0; i < depth; ++i) {
             System.out.print("\t");
@@ -55,8 +55,8 @@ public class ParserASTJSON extends Parser {
             throw new Exception("Unexpected SourceUnit item");
         }
         String codeFile = (String)attributes.get("absolutePath");
-        if (Configuration.debugASTOutput && codeFile != null) {
-            if (Configuration.debugASTOutput) {
+        if (Configuration.current().debugASTOutput && codeFile != null) {
+            if (Configuration.current().debugASTOutput) {
                 // Read source file into byte array to extract code referenced by JSON nodes
                 Path path = Paths.get(codeFile);
                 codeArray = Files.readAllBytes(path);
@@ -94,7 +94,7 @@ public class ParserASTJSON extends Parser {
         ast.addInnerNode(new ASTFunctionDefinition(id, attrName, visibility, stateMutability, isConstructor, isConstant));
     }
 
-    protected void processParameterList(long id, AST ast, JSONObject object) throws Exception {
+    protected void processParameterList(long id, AST ast, JSONObject attributes) throws Exception {
         if (ast.getCurrentNode() == null) {
             throw new Exception("Unexpected ParameterList item - root is null");
         } else if (!(ast.getCurrentNode() instanceof ASTFunctionDefinition)
@@ -106,7 +106,7 @@ public class ParserASTJSON extends Parser {
         ast.addInnerNode(new ASTParameterList(id));
     }
 
-    protected void processBlock(long id, AST ast, JSONObject object) throws Exception {
+    protected void processBlock(long id, AST ast, JSONObject attributes) throws Exception {
         if (ast.getCurrentNode() == null) {
             throw new Exception("Unexpected block item - no root");
         } else if (!(ast.getCurrentNode() instanceof ASTFunctionDefinition)
@@ -133,7 +133,7 @@ public class ParserASTJSON extends Parser {
         ast.addInnerNode(block);
     }
 
-    protected void processIfStatement(long id, AST ast, JSONObject object) throws Exception {
+    protected void processIfStatement(long id, AST ast, JSONObject attributes) throws Exception {
         if (ast.getCurrentNode() == null) {
             throw new Exception("Unexpected if statement item - no root");
         } else if (!(ast.getCurrentNode() instanceof ASTBlock)
@@ -146,7 +146,7 @@ public class ParserASTJSON extends Parser {
         ast.addInnerNode(new ASTIfStatement(id));
     }
 
-    protected void processWhileStatement(long id, AST ast, JSONObject object) throws Exception {
+    protected void processWhileStatement(long id, AST ast, JSONObject attributes) throws Exception {
         if (ast.getCurrentNode() == null) {
             throw new Exception("Unexpected while statement item - no root");
         } else if (!(ast.getCurrentNode() instanceof ASTBlock)
@@ -205,7 +205,7 @@ public class ParserASTJSON extends Parser {
         ast.addInnerNode(new ASTEventDefinition(id, name, isAnonymous));
     }
 
-    protected void processModifierDefinition(long id, AST ast, JSONObject object, String name) throws Exception {
+    protected void processModifierDefinition(long id, AST ast, JSONObject attributes, String name) throws Exception {
         if (ast.getCurrentNode() == null || !(ast.getCurrentNode() instanceof ASTContractDefinition)) {
             throw new Exception("Unexpected ModifierDefinition item for parent item " + ast.getCurrentNode().getClass().getName() + ", name = " + ast.getCurrentNode().getNonNullName());
         }
@@ -546,23 +546,33 @@ public class ParserASTJSON extends Parser {
 
     private byte [] codeArray = null;
 
+    // Records the processed items for the AST cache, if set
+    private ASTCache.Recorder recorder = null;
+
+    void setRecorder(ASTCache.Recorder recorder) {
+        this.recorder = recorder;
+    }
+    protected boolean isRecording() { return recorder != null; }
+
     protected void processJSONObject(AST ast, JSONObject jsonObject, int depth) throws Exception {
-        JSONObject attributes = (JSONObject)jsonObject.get("attributes");
+        processItem(ast, (String)jsonObject.get("name"), (Long)jsonObject.get("id"),
+                (JSONObject)jsonObject.get("attributes"), (String)jsonObject.get("src"), depth);
+    }
+
+    protected void processItem(AST ast, String itemName, long id, JSONObject attributes, String src, int depth) throws Exception {
+        if (recorder != null) {
+            recorder.beginItem(itemName, id, attributes, src);
+        }
 
         // Identify current item - name stored as part of the attributes
-        String itemName = null;
         String attrName = null;
         int codeStart = 0;
-        long id;
         String code = null;
 
-        itemName = (String)jsonObject.get("name");
-        id = (Long)jsonObject.get("id");
         if (attributes != null) {
             attrName = (String)attributes.get("name");
             // Extract corresponding source code for debugging
-            if (Configuration.debugASTOutput) {
-                String src = (String)jsonObject.get("src");
+            if (Configuration.current().debugASTOutput) {
                 if (codeArray != null && src != null) {
                     String[] parts = src.split(":");
                     codeStart = Integer.parseInt(parts[0]);
@@ -592,15 +602,15 @@ public class ParserASTJSON extends Parser {
         } else if (nameEquals(itemName, "FunctionDefinition")) {
             processFunctionDefinition(id, ast, attrName, attributes);
         } else if (nameEquals(itemName, "ParameterList")) {
-            processParameterList(id, ast, jsonObject);
+            processParameterList(id, ast, attributes);
         } else if (nameEquals(itemName, "Block")) {
-            processBlock(id, ast, jsonObject);
+            processBlock(id, ast, attributes);
         } else if (nameEquals(itemName, "IfStatement")) {              // Start of control-structure-related items
-            processIfStatement(id, ast, jsonObject);
+            processIfStatement(id, ast, attributes);
         } else if (nameEquals(itemName, "ForStatement")) {
             processForStatement(id, ast, attributes);
         } else if (nameEquals(itemName, "WhileStatement")) {
-            processWhileStatement(id, ast, jsonObject);
+            processWhileStatement(id, ast, attributes);
         } else if (nameEquals(itemName, "DoWhileStatement")) {
             processDoWhileStatement(id, ast);
         } else if (nameEquals(itemName, "Return")) {
@@ -668,7 +678,7 @@ public class ParserASTJSON extends Parser {
         } else if (nameEquals(itemName, "UserDefinedTypeName")) {
             processUserDefinedTypeName(id, ast, attrName);
         } else if (nameEquals(itemName, "ModifierDefinition")) {
-            processModifierDefinition(id, ast, jsonObject, attrName);
+            processModifierDefinition(id, ast, attributes, attrName);
         } else if (nameEquals(itemName, "FunctionTypeName")) {
             processFunctionTypeName(id, ast, attributes);
         } else {
@@ -694,7 +704,7 @@ public class ParserASTJSON extends Parser {
         // Process child nodes
         JSONArray children = (JSONArray)jsonObject.get("children");
         if (children == null) {
-            debugPrint(depth, "no children");
+            noChildren(depth);
         } else {
             for (int i = 0; i < children.size(); ++i) {
                 JSONObject childObject = (JSONObject)children.get(i);
@@ -702,6 +712,20 @@ public class ParserASTJSON extends Parser {
             }
         }
 
+        completeItem(ast, firstCurrentNode, secondCurrentNode);
+    }
+
+    protected void noChildren(int depth) throws Exception {
+        debugPrint(depth, "no children");
+        if (recorder != null) {
+            recorder.noChildren();
+        }
+    }
+
+    protected void completeItem(AST ast, ASTNode firstCurrentNode, ASTNode secondCurrentNode) throws Exception {
+        if (recorder != null) {
+            recorder.endItem();
+        }
         if (ast != null) {
             // If child nodes processing properly cleaned up after itself, all children have
             // been completed
@@ -715,17 +739,130 @@ public class ParserASTJSON extends Parser {
         }
     }
 
+    // An item read by the streaming parser whose processing has to be deferred until its parent and the item itself
+    // have been read completely. This is the case for all items of solc's output, where the children of an item
+    // precede its name and ID, since the entries are sorted by key. Only the parts of the JSON object required for
+    // processing are kept
+    protected static class DeferredItem {
+        String name;
+        Long id;
+        JSONObject attributes;
+        boolean hasAttributes = false;
+        String src;
+        ArrayList<DeferredItem> children = null;
+    }
+
+    // Read the item starting at the next token of the reader. The item and its children are processed as they are
+    // read if the parent item has already been processed, and the item's name, ID and attributes precede its
+    // children, otherwise as soon as the item is complete. Items of unprocessed parents are returned to the caller
+    // for deferred processing
+    protected DeferredItem readItem(JSONTokenReader reader, AST ast, boolean parentProcessed, int depth) throws Exception {
+        if (reader.next() != JSONTokenReader.Token.BEGIN_OBJECT) {
+            throw new Exception("AST-JSON item is not an object");
+        }
+
+        DeferredItem item = new DeferredItem();
+        boolean processed = false;
+        ASTNode firstCurrentNode = null;
+        ASTNode secondCurrentNode = null;
+
+        while (reader.next() == JSONTokenReader.Token.NAME) {
+            String key = reader.getName();
+            if (key.equals("name")) {
+                item.name = (String)reader.readValue();
+            } else if (key.equals("id")) {
+                item.id = (Long)reader.readValue();
+            } else if (key.equals("attributes")) {
+                item.attributes = (JSONObject)reader.readValue();
+                item.hasAttributes = true;
+            } else if (key.equals("src")) {
+                item.src = (String)reader.readValue();
+            } else if (key.equals("children")) {
+                if (parentProcessed && item.name != null && item.id != null && item.hasAttributes) {
+                    // Stream children
+                    firstCurrentNode = ast != null ? ast.getCurrentNode() : null;
+                    processItem(ast, item.name, item.id, item.attributes, item.src, depth);
+                    secondCurrentNode = ast != null ? ast.getCurrentNode() : null;
+                    processed = true;
+                    readChildren(reader, ast, true, depth + 1, null);
+                } else {
+                    item.children = new ArrayList<DeferredItem>();
+                    readChildren(reader, ast, false, depth + 1, item.children);
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        if (item.id == null) {
+            throw new Exception("AST-JSON item " + (item.name == null ? "" : item.name + " ") + "without ID");
+        }
+
+        if (processed) {
+            completeItem(ast, firstCurrentNode, secondCurrentNode);
+        } else if (parentProcessed) {
+            descendDeferredItem(ast, item, depth);
+        }
+        return item;
+    }
+
+    protected void readChildren(JSONTokenReader reader, AST ast, boolean parentProcessed, int depth,
+                                ArrayList<DeferredItem> deferredChildren) throws Exception {
+        if (reader.next() != JSONTokenReader.Token.BEGIN_ARRAY) {
+            throw new Exception("AST-JSON children entry is not an array");
+        }
+        while (reader.peek() != JSONTokenReader.Token.END_ARRAY) {
+            DeferredItem child = readItem(reader, ast, parentProcessed, depth);
+            if (deferredChildren != null) {
+                deferredChildren.add(child);
+            }
+        }
+        reader.next();
+    }
+
+    // Process a deferred item like descendJSONObject(), releasing the deferred children as they are processed
+    protected void descendDeferredItem(AST ast, DeferredItem item, int depth) throws Exception {
+        ASTNode firstCurrentNode = ast != null? ast.getCurrentNode(): null;
+        processItem(ast, item.name, item.id, item.attributes, item.src, depth);
+        ASTNode secondCurrentNode = ast != null? ast.getCurrentNode(): null;
 
+        if (item.children == null) {
+            noChildren(depth);
+        } else {
+            for (int i = 0; i < item.children.size(); ++i) {
+                DeferredItem child = item.children.get(i);
+                item.children.set(i, null);
+                descendDeferredItem(ast, child, depth+1);
+            }
+        }
 
+        completeItem(ast, firstCurrentNode, secondCurrentNode);
+    }
 
+    // Build an AST while reading the AST-JSON document, without materializing the document
     public AST parse(InputStream input) throws Exception {
+        AST ast = new AST();
+        JSONTokenReader reader = new JSONTokenReader(new InputStreamReader(input, "UTF-8"));
+
+        // For debugging with skipASTProcessing: only print, don't interpret
+        readItem(reader, Configuration.current().skipASTProcessing ? null : ast, true, 0);
+        if (reader.next() != JSONTokenReader.Token.END_DOCUMENT) {
+            throw new Exception("Unexpected data after AST-JSON document");
+        }
+        return ast;
+    }
+
+    // Read the AST-JSON document without building an AST from it yet
+    public JSONObject readDocument(InputStream input) throws Exception {
         JSONParser jsonParser = new JSONParser();
-        JSONObject jsonObject = (JSONObject)jsonParser.parse(
-                new InputStreamReader(input, "UTF-8"));
+        return (JSONObject)jsonParser.parse(new InputStreamReader(input, "UTF-8"));
+    }
 
+    // Build an AST from a previously read AST-JSON document. The document is not modified, so multiple ASTs can be
+    // built from it, also concurrently
+    public AST parse(JSONObject jsonObject) throws Exception {
         AST ast = new AST();
 
-        if (!Configuration.skipASTProcessing) {
+        if (!Configuration.current().skipASTProcessing) {
             // Process JSON object to build AST
             JSONObjectToAST(ast, jsonObject, 0);
         } else {
@@ -337,7 +337,7 @@ public class ASTInterpreter {
                 ASTFunctionDefinition nextFunction = ast.getFunctionByStatementId(nextStatement.getID());
 
 
-                if (Configuration.verboseDebugOutput) {
+                if (Configuration.current().verboseDebugOutput) {
                     logger.info("### coverage " + currentNode.getID() + " at line " + currentNode.getOutputCodeLineNumber() +
                             " -> " + nextStatement.getID() + " " + nextFunction.getName() + " at " + nextStatement.getOutputCodeLineNumber());
                 }
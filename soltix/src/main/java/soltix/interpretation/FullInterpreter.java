@@ -21,45 +21,113 @@
 package soltix.interpretation;
 
 import soltix.Configuration;
+import soltix.SoltixContext;
 import soltix.ast.*;
-import soltix.interpretation.expressions.Expression;
 import soltix.interpretation.expressions.ExpressionEvaluationErrorHandler;
+import soltix.interpretation.expressions.ExpressionEvaluationException;
 import soltix.interpretation.expressions.ExpressionEvaluator;
-import soltix.interpretation.values.IntegerValue;
-import soltix.interpretation.values.Value;
-import soltix.interpretation.variables.Variable;
-import soltix.interpretation.variables.VariableEnvironment;
-import soltix.interpretation.variables.VariableValues;
+import soltix.interpretation.values.*;
+import soltix.util.Hash;
 import soltix.util.JSONValueConverter;
-import soltix.util.RandomNumbers;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.FileWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Stack;
 
+import static soltix.ast.ASTBinaryOperation.Operator.*;
+
 // Full interpretation of transactions applied to contract functions.
 //
 // Unlike other IInterpreterCallback implementations, we are passed control on a per-transaction rather than
 // per-node basis (therer are some ugly distinct interfaces, but ASTInterpreter is still involved for now, since it does
 // some generally useful things like modifier invocation to implementation resolutions)
+//
+// Statements and expressions are interpreted directly on the AST, so this serves as a local oracle for the events
+// that a contract emits: each event is written as one JSON line {"event": name, "args": {parameter: value, ...}} in
+// the format of the truffle event logs (see CanonicalEventReader), and generated contracts can be screened without
+// deploying them. As on the chain, a transaction that reverts - by require()/assert()/revert()/throw, an operation
+// without a defined result such as a division by zero, an index out of bounds or by exceeding MAX_TRANSACTION_STEPS -
+// leaves neither storage changes nor events. Events of the constructor are not logged, as in the truffle logs.
+//
+// External calls, contract creation, inline assembly, msg/block/tx properties and the ABI functions are not
+// supported and abort the interpretation with an exception.
 public class FullInterpreter implements IInterpreterCallback {
+    // Statements a transaction may execute before it is considered to have run out of gas
+    static public final long MAX_TRANSACTION_STEPS = 10000000;
+    // Nesting of function calls at which a transaction is considered to have exhausted the stack
+    static public final int MAX_CALL_DEPTH = 1024;
+    // Size of the largest constant, as in solc
+    static public final int MAX_CONSTANT_BITS = 4096;
+
     private AST ast;
     private ASTInterpreter astInterpreter;
     private ArrayList<Transaction> transactions;
     private ExpressionEvaluator expressionEvaluator;
+    private Configuration configuration;
+
+    // Event log output. This is the configured interpretation output log file unless a writer is supplied
+    private Writer output = null;
+    private boolean ownsOutput = false;
+
+    // Interpreted contract and its base contracts (most derived first), with their storage and event definitions
+    private ASTContractDefinition contract;
+    private ArrayList<ASTContractDefinition> contracts;
+    private HashMap<String, ASTVariableDeclaration> storageDeclarations;
+    private HashMap<String, Value> storage;
+    private HashMap<String, ASTEventDefinition> events;
 
-    public FullInterpreter(ArrayList<Transaction> transactions) {
+    private Stack<SolidityStackFrame> callStack = new Stack<SolidityStackFrame>();
+    // Events of the current transaction, which are only written once it has completed
+    private ArrayList<String> emittedEvents;
+    private long steps;
+    private long maxTransactionSteps = MAX_TRANSACTION_STEPS;
+
+    // Dynamically-sized "bytes" type, which TypeContainer does not provide
+    private ASTElementaryTypeName dynamicBytesType = null;
+
+    // Outcome of executing a statement
+    protected enum Completion {
+        COMPLETION_NORMAL,
+        COMPLETION_BREAK,
+        COMPLETION_CONTINUE,
+        COMPLETION_RETURN
+    }
+
+    // Raised to abort the current transaction
+    protected static class TransactionRevertedException extends Exception {
+        public TransactionRevertedException(String reason) {
+            super(reason);
+        }
+    }
+
+    public FullInterpreter(ArrayList<Transaction> transactions, SoltixContext context) {
         this.transactions = transactions;
+        this.configuration = context.getConfiguration();
         // TODO Supply proper error handler policy to ensure stability for preceding iterations
-        expressionEvaluator = new ExpressionEvaluator(new ExpressionEvaluationErrorHandler(new RandomNumbers(Configuration.randomNumbersSeed)));
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionEvaluationErrorHandler(context.createRandomNumbers()));
+    }
+
+    // Constructor to write the event log to the given writer instead of the configured log file
+    public FullInterpreter(ArrayList<Transaction> transactions, SoltixContext context, Writer output) {
+        this(transactions, context);
+        this.output = output;
+    }
+
+    // Lower the number of statements a transaction may execute, which is MAX_TRANSACTION_STEPS by default
+    public void setMaxTransactionSteps(long maxTransactionSteps) {
+        this.maxTransactionSteps = maxTransactionSteps;
     }
 
     public void initialize(ASTInterpreter astInterpreter) {
         this.astInterpreter = astInterpreter;
         ast = astInterpreter.getAST();
-        emittedEventsJSONObjectList = new ArrayList<JSONObject>();
     }
 
     public ASTInterpreter.NavigationPolicy getNavigationPolicy() {
@@ -70,19 +138,15 @@ public class FullInterpreter implements IInterpreterCallback {
         throw new Exception("Invalid call to FullInterpreter.nextTargetStatement");
     }
 
-    private ArrayList<JSONObject> emittedEventsJSONObjectList;
-
-    //public void start(ASTContractDefinition contract, ASTFunctionDefinition function, JSONObject transaction);
     public void finish() throws Exception {
-        // Write event results
-        FileWriter file = new FileWriter(Configuration.interpretationOutputLogFile);
-
-        // TODO this currently produces a single huge line, which should be pretty-printed (maybe just use a nodejs
-        // script to clean up the produced file)
-        for (JSONObject object : emittedEventsJSONObjectList) {
-            file.write(object.toJSONString());
+        if (output == null) {
+            return;
+        }
+        if (ownsOutput) {
+            output.close();
+        } else {
+            output.flush();
         }
-        file.flush();
     }
 
     public void visitNodeBeforeProcessing(ASTNode node) throws Exception {
@@ -93,126 +157,1626 @@ public class FullInterpreter implements IInterpreterCallback {
     }
 
     public void run() throws Exception {
-        initializeGlobalEnvironment(transactions.get(0).getContract()); // TODO multiple contracts?
-        for (Transaction transaction : transactions) {
-            Value result = interpretTransaction(transaction);
-            // TODO use result
+        if (output == null) {
+            output = new BufferedWriter(new FileWriter(configuration.interpretationOutputLogFile));
+            ownsOutput = true;
+        }
+        if (!transactions.isEmpty()) {
+            deployContract(transactions.get(0).getContract()); // TODO multiple contracts?
+            for (Transaction transaction : transactions) {
+                interpretTransaction(transaction);
+            }
         }
+        output.flush();
     }
 
-
-    private Stack<SolidityStackFrame> callStack = new Stack<SolidityStackFrame>();
     protected SolidityStackFrame currentStackFrame() { return callStack.peek(); }
 
-    public Value interpretTransaction(Transaction transaction) throws Exception {
-        initializeLocalEnvironment();
+    // Initialize storage and run the constructors, base contracts first
+    protected void deployContract(ASTContractDefinition contract) throws Exception {
+        this.contract = contract;
+        contracts = new ArrayList<ASTContractDefinition>();
+        collectContracts(contract, contracts);
+
+        storageDeclarations = new HashMap<String, ASTVariableDeclaration>();
+        storage = new HashMap<String, Value>();
+        events = new HashMap<String, ASTEventDefinition>();
+        emittedEvents = new ArrayList<String>();
+        steps = 0;
+
+        try {
+            for (int i = contracts.size() - 1; i >= 0; --i) {
+                ASTContractDefinition currentContract = contracts.get(i);
+                for (int j = 0; j < currentContract.getChildCount(); ++j) {
+                    if (currentContract.getChild(j) instanceof ASTEventDefinition) {
+                        events.put(currentContract.getChild(j).getName(), (ASTEventDefinition)currentContract.getChild(j));
+                    }
+                }
+
+                // Initializers are evaluated without local variables
+                callStack.push(new SolidityStackFrame(currentContract, null, new ArrayList<Value>()));
+                for (ASTNode variable : currentContract.getVariables()) {
+                    ASTVariableDeclaration declaration;
+                    ASTNode initializer;
+                    if (variable instanceof ASTVariableDeclarationStatement) {
+                        declaration = ((ASTVariableDeclarationStatement)variable).getDeclaration();
+                        initializer = ((ASTVariableDeclarationStatement)variable).getInitializer();
+                    } else {
+                        declaration = (ASTVariableDeclaration)variable;
+                        initializer = declaration.getInitializer();
+                    }
+                    Value value = initializer != null
+                            ? copyValue(evaluate(initializer, declaration.getTypeName()))
+                            : defaultValue(declaration.getTypeName());
+                    storageDeclarations.put(declaration.getName(), declaration);
+                    storage.put(declaration.getName(), value);
+                }
+                callStack.pop();
+
+                ASTFunctionDefinition constructor = currentContract.getConstructor();
+                if (constructor != null) {
+                    if (constructor.getParameterCount() > 0) {
+                        throw new Exception("FullInterpreter: Unsupported constructor arguments for contract "
+                                + currentContract.getName());
+                    }
+                    callFunction(constructor, new ArrayList<Value>());
+                }
+            }
+        } catch (TransactionRevertedException e) {
+            throw new Exception("FullInterpreter: Deployment of contract " + contract.getName() + " reverted: " + e.getMessage());
+        } finally {
+            callStack.clear();
+        }
+    }
+
+    // Collect a contract and its base contracts, most derived first. This approximates the C3 linearization for the
+    // lookup of overridden functions and modifiers
+    protected void collectContracts(ASTContractDefinition contract, ArrayList<ASTContractDefinition> result) throws Exception {
+        if (result.contains(contract)) {
+            return;
+        }
+        result.add(contract);
+        ArrayList<ASTInheritanceSpecifier> inherits = contract.getInherits();
+        if (inherits != null) {
+            for (int i = inherits.size() - 1; i >= 0; --i) {
+                ASTContractDefinition baseContract = inherits.get(i).getContract();
+                if (baseContract == null) {
+                    baseContract = ast.getContract(inherits.get(i).getType().getName());
+                }
+                if (baseContract == null) {
+                    throw new Exception("FullInterpreter: Cannot resolve base contract of " + contract.getName());
+                }
+                collectContracts(baseContract, result);
+            }
+        }
+    }
+
+    public void interpretTransaction(Transaction transaction) throws Exception {
+        HashMap<String, Value> storageSnapshot = new HashMap<String, Value>();
+        for (String name : storage.keySet()) {
+            storageSnapshot.put(name, copyValue(storage.get(name)));
+        }
+        emittedEvents = new ArrayList<String>();
+        steps = 0;
+
+        ArrayList<Value> arguments = new ArrayList<Value>();
+        for (Value argument : transaction.getArguments()) {
+            arguments.add(copyValue(argument));
+        }
+
+        try {
+            callFunction(transaction.getFunction(), arguments);
+            for (String event : emittedEvents) {
+                output.write(event);
+                output.write('\n');
+            }
+        } catch (TransactionRevertedException e) {
+            // Discard all storage changes and events
+            storage = storageSnapshot;
+        } finally {
+            callStack.clear();
+        }
+    }
+
+    protected ArrayList<Value> callFunction(ASTFunctionDefinition function, ArrayList<Value> arguments) throws Exception {
+        if (callStack.size() >= MAX_CALL_DEPTH) {
+            throw new TransactionRevertedException("Call depth exceeded in " + function.getName());
+        }
+        if (function.getBody() == null) {
+            throw new Exception("FullInterpreter: Function " + function.getName() + " has no implementation");
+        }
+        function.setCovered(true);
 
-        // Set up initial stack frame
-        SolidityStackFrame stackFrame = new SolidityStackFrame(transaction.getContract(),
-                                                                transaction.getFunction(),
-                                                                transaction.getArguments());
-        callStack.push(stackFrame);
+        SolidityStackFrame frame = new SolidityStackFrame(function.getContract(), function, arguments);
+        ArrayList<ASTVariableDeclaration> parameters = getParameters(function);
+        if (parameters.size() != arguments.size()) {
+            throw new Exception("FullInterpreter: Argument count mismatch in call to " + function.getName());
+        }
+        for (int i = 0; i < parameters.size(); ++i) {
+            frame.declareVariable(parameters.get(i), arguments.get(i));
+        }
+        ArrayList<ASTVariableDeclaration> returnParameters = getReturnParameters(function);
+        for (ASTVariableDeclaration returnParameter : returnParameters) {
+            frame.declareVariable(returnParameter, defaultValue(returnParameter.getTypeName()));
+        }
 
-        ASTNode startNode = transaction.getFunction();
-        ast.setCurrentNode(startNode);
+        executeModifiers(function, frame, 0);
 
-        Value result = doInterpret();
+        // Values of a return statement take precedence over the return variables
+        ArrayList<Value> result = frame.getReturnValues();
+        if (result == null) {
+            result = new ArrayList<Value>();
+            for (ASTVariableDeclaration returnParameter : returnParameters) {
+                if (returnParameter.getName().isEmpty()) {
+                    result.add(defaultValue(returnParameter.getTypeName()));
+                } else {
+                    result.add(frame.getValue(returnParameter.getName()));
+                }
+            }
+        }
         return result;
     }
 
+    // Execute the modifiers of a function from the given position on, with the function body at the innermost
+    // position. Modifier placeholders continue with the next position
+    protected void executeModifiers(ASTFunctionDefinition function, SolidityStackFrame functionFrame, int index) throws Exception {
+        ArrayList<ASTModifierInvocation> invocations = function.getModifiers();
+        ASTModifierInvocation invocation = null;
+        ASTModifierDefinition modifier = null;
 
+        // Skip base constructor invocations, which share the modifier syntax
+        while (invocations != null && index < invocations.size()) {
+            invocation = invocations.get(index);
+            modifier = findModifier(invocation);
+            if (modifier != null) {
+                break;
+            }
+            ++index;
+        }
 
+        if (modifier == null) {
+            callStack.push(functionFrame);
+            try {
+                execute(function.getBody());
+            } finally {
+                callStack.pop();
+            }
+            return;
+        }
 
-    private VariableEnvironment globalEnvironment;
+        // Modifier arguments may refer to the function parameters
+        ArrayList<ASTVariableDeclaration> parameters = getParameters(modifier);
+        ArrayList<Value> arguments;
+        callStack.push(functionFrame);
+        try {
+            arguments = evaluateArguments(invocation.getArguments(), null, parameters);
+        } finally {
+            callStack.pop();
+        }
 
-    protected void initializeGlobalEnvironment(ASTContractDefinition currentContract) throws Exception {
-        // Prepare variable environment, which will hold a single, continuously updated value set while synthesizing
-        // expressions
-        globalEnvironment = new VariableEnvironment(ast,true);
+        SolidityStackFrame modifierFrame = new SolidityStackFrame(function.getContract(), modifier, arguments);
+        for (int i = 0; i < parameters.size(); ++i) {
+            modifierFrame.declareVariable(parameters.get(i), arguments.get(i));
+        }
+        modifierFrame.setPlaceholderContinuation(functionFrame, index + 1);
+        modifier.setCovered(true);
 
-        // Generate storage variables
-        for (ASTNode tmp : currentContract.getVariables()) {
-            ASTVariableDeclaration variableDeclaration = (ASTVariableDeclaration)tmp;
+        callStack.push(modifierFrame);
+        try {
+            execute(modifier.getBody());
+        } finally {
+            callStack.pop();
+        }
+    }
 
-            Variable variable  = new Variable(variableDeclaration);
-            VariableValues variableValues = new VariableValues(variable, 0);
+    // Resolve modifiers by name, so that overriding modifiers of derived contracts take precedence
+    protected ASTModifierDefinition findModifier(ASTModifierInvocation invocation) {
+        for (ASTContractDefinition currentContract : contracts) {
+            ASTModifierDefinition modifier = currentContract.getModifier(invocation.getName());
+            if (modifier != null) {
+                return modifier;
+            }
+        }
+        return invocation.getDefinition();
+    }
 
-            // Start out with initializer value
-            variableValues.addValue(variableDeclaration.getInitializerValue());
-            globalEnvironment.addVariableValues(variable, variableValues);
+    protected ASTFunctionDefinition findFunction(String name, int argumentCount) {
+        for (ASTContractDefinition currentContract : contracts) {
+            for (ASTFunctionDefinition function : currentContract.getFunctions()) {
+                if (!function.isConstructor()
+                        && name.equals(function.getName())
+                        && function.getParameterCount() == argumentCount
+                        && function.getBody() != null) {
+                    return function;
+                }
+            }
         }
+        return null;
+    }
+
+    protected ArrayList<ASTVariableDeclaration> getParameters(FunctionScope function) {
+        return function.getParameterList() == null
+                ? new ArrayList<ASTVariableDeclaration>()
+                : function.getParameterList().toArrayList();
     }
 
-    protected void initializeLocalEnvironment() {
+    protected ArrayList<ASTVariableDeclaration> getReturnParameters(FunctionScope function) {
+        return function.getReturnList() == null
+                ? new ArrayList<ASTVariableDeclaration>()
+                : function.getReturnList().toArrayList();
     }
 
 
+    // Statements
 
-    protected Value doInterpret() throws Exception {
-        ASTNode currentNode = ast.getCurrentNode();
-        Scope currentScope = currentStackFrame().getScope();
+    protected Completion execute(ASTNode statement) throws Exception {
+        if (++steps > maxTransactionSteps) {
+            throw new TransactionRevertedException("Step limit exceeded");
+        }
+        statement.setCovered(true);
 
-        currentNode.setCovered(true);
-        currentScope.enterNode(currentNode);
+        if (statement instanceof ASTBlock) {
+            SolidityStackFrame frame = currentStackFrame();
+            frame.enterBlock();
+            try {
+                for (int i = 0; i < statement.getChildCount(); ++i) {
+                    Completion completion = execute(statement.getChild(i));
+                    if (completion != Completion.COMPLETION_NORMAL) {
+                        return completion;
+                    }
+                }
+            } finally {
+                frame.leaveBlock();
+            }
+        } else if (statement instanceof ASTExpressionStatement) {
+            ASTNode body = ((ASTExpressionStatement)statement).getBody();
+            if (body != null) {
+                evaluate(body);
+            }
+        } else if (statement instanceof ASTVariableDeclarationStatement) {
+            executeVariableDeclarationStatement((ASTVariableDeclarationStatement)statement);
+        } else if (statement instanceof ASTVariableDeclaration) {
+            declareLocalVariable((ASTVariableDeclaration)statement, null);
+        } else if (statement instanceof ASTIfStatement) {
+            ASTIfStatement ifStatement = (ASTIfStatement)statement;
+            if (evaluateCondition(ifStatement.getCondition())) {
+                return execute(ifStatement.getIfBranch());
+            } else if (ifStatement.getElseBranch() != null) {
+                return execute(ifStatement.getElseBranch());
+            }
+        } else if (statement instanceof ASTWhileStatement) {
+            ASTWhileStatement whileStatement = (ASTWhileStatement)statement;
+            while (evaluateCondition(whileStatement.getCondition())) {
+                Completion completion = execute(whileStatement.getBody());
+                if (completion == Completion.COMPLETION_BREAK) {
+                    break;
+                } else if (completion == Completion.COMPLETION_RETURN) {
+                    return completion;
+                }
+            }
+        } else if (statement instanceof ASTDoWhileStatement) {
+            ASTDoWhileStatement doWhileStatement = (ASTDoWhileStatement)statement;
+            do {
+                Completion completion = execute(doWhileStatement.getBody());
+                if (completion == Completion.COMPLETION_BREAK) {
+                    break;
+                } else if (completion == Completion.COMPLETION_RETURN) {
+                    return completion;
+                }
+            } while (evaluateCondition(doWhileStatement.getCondition()));
+        } else if (statement instanceof ASTForStatement) {
+            return executeForStatement((ASTForStatement)statement);
+        } else if (statement instanceof ASTBreakStatement) {
+            return Completion.COMPLETION_BREAK;
+        } else if (statement instanceof ASTContinueStatement) {
+            return Completion.COMPLETION_CONTINUE;
+        } else if (statement instanceof ASTReturnStatement) {
+            executeReturnStatement((ASTReturnStatement)statement);
+            return Completion.COMPLETION_RETURN;
+        } else if (statement instanceof ASTEmitStatement) {
+            emitEvent(((ASTEmitStatement)statement).getFunctionCall());
+        } else if (statement instanceof ASTPlaceholderStatement) {
+            SolidityStackFrame frame = currentStackFrame();
+            SolidityStackFrame functionFrame = frame.getModifiedFunctionFrame();
+            if (functionFrame == null) {
+                throw new Exception("FullInterpreter: Placeholder statement outside of modifier");
+            }
+            executeModifiers((ASTFunctionDefinition)functionFrame.getFunction(), functionFrame, frame.getNextModifierIndex());
+        } else if (statement instanceof ASTThrow) {
+            throw new TransactionRevertedException("throw");
+        } else {
+            throw new Exception("FullInterpreter: Unsupported statement type " + statement.getClass().getSimpleName());
+        }
+        return Completion.COMPLETION_NORMAL;
+    }
 
-        Value returnValue = null;
+    protected Completion executeForStatement(ASTForStatement forStatement) throws Exception {
+        SolidityStackFrame frame = currentStackFrame();
 
-        if (currentNode instanceof ASTFunctionDefinition) {
-            ASTBlock body = ((ASTFunctionDefinition) currentNode).getBody();
-            body.setCovered(true);
-            returnValue = interpretChildNodes(body);
-        } else if (currentNode instanceof ASTEmitStatement) {
-            interpretEmitStatement((ASTEmitStatement)currentNode);
+        // Variables declared in the initialization part are visible in the whole loop only
+        frame.enterBlock();
+        try {
+            if (forStatement.getInitPart() != null) {
+                executeLoopPart(forStatement.getInitPart());
+            }
+            while (forStatement.getCondPart() == null || evaluateCondition(forStatement.getCondPart())) {
+                Completion completion = execute(forStatement.getBody());
+                if (completion == Completion.COMPLETION_BREAK) {
+                    break;
+                } else if (completion == Completion.COMPLETION_RETURN) {
+                    return completion;
+                }
+                if (forStatement.getLoopPart() != null) {
+                    executeLoopPart(forStatement.getLoopPart());
+                }
+            }
+        } finally {
+            frame.leaveBlock();
+        }
+        return Completion.COMPLETION_NORMAL;
+    }
+
+    // The initialization and loop parts of a "for" loop may be statements or plain expressions
+    protected void executeLoopPart(ASTNode part) throws Exception {
+        if (part instanceof ASTExpressionStatement
+                || part instanceof ASTVariableDeclarationStatement
+                || part instanceof ASTVariableDeclaration) {
+            execute(part);
         } else {
-            throw new Exception("FullInterpreter.doInterpret for unimplemented node type " + currentNode.getClass().toString());
-        }
-
-        /*
-        // Depth-first child node traversal for all paths
-        for (int i = 0; i < currentNode.getChildCount(); ++i) {
-            ast.setCurrentNode(currentNode.getChild(i));
-            interpret(ast);
-        }
-*/
-        // Restore position
-        //ast.setCurrentNode(currentNode);
-        //currentScope.leaveNode(currentNode);
-        return returnValue;
-    }
-
-    // Depth-first child node traversal for all paths
-    protected Value interpretChildNodes(ASTNode currentNode) throws Exception {
-        Value result = null;
-        for (int i = 0; i < currentNode.getChildCount(); ++i) {
-            ast.setCurrentNode(currentNode.getChild(i));
-            result = doInterpret();
-            if (result != null) {
-                // Have return value - stop
-                break;
+            evaluate(part);
+        }
+    }
+
+    protected void executeVariableDeclarationStatement(ASTVariableDeclarationStatement statement) throws Exception {
+        ArrayList<ASTNode> declarations = statement.getDeclarations();
+        ArrayList<Integer> assignmentIds = statement.getAssignmentIds();
+
+        if (assignmentIds == null || assignmentIds.size() <= 1) {
+            declareLocalVariable((ASTVariableDeclaration)declarations.get(0), statement.getInitializer());
+        } else {
+            // Tuple declaration, e.g. "var (a, , c) = f();"
+            ArrayList<Value> values = evaluateTuple(statement.getInitializer(), null);
+            if (values.size() != assignmentIds.size()) {
+                throw new Exception("FullInterpreter: Tuple size mismatch in " + statement.toSolidityCode());
+            }
+            for (int i = 0, declarationIndex = 0; i < assignmentIds.size(); ++i) {
+                if (assignmentIds.get(i) >= 0) {
+                    ASTVariableDeclaration declaration = (ASTVariableDeclaration)declarations.get(declarationIndex++);
+                    currentStackFrame().declareVariable(declaration, implicitlyConvert(values.get(i), declaration.getTypeName()));
+                }
+            }
+        }
+    }
+
+    protected void declareLocalVariable(ASTVariableDeclaration declaration, ASTNode initializer) throws Exception {
+        Value value;
+        if (initializer == null) {
+            value = defaultValue(declaration.getTypeName());
+        } else {
+            value = evaluate(initializer, declaration.getTypeName());
+            if (!isStoragePointer(declaration) && isStorageExpression(initializer)) {
+                value = copyValue(value);
+            }
+        }
+        currentStackFrame().declareVariable(declaration, value);
+    }
+
+    protected void executeReturnStatement(ASTReturnStatement statement) throws Exception {
+        ASTNode argument = statement.getArgument();
+        if (argument == null) {
+            // Return the values of the return variables
+            return;
+        }
+
+        SolidityStackFrame frame = currentStackFrame();
+        ArrayList<ASTVariableDeclaration> returnParameters = getReturnParameters(frame.getFunction());
+        ArrayList<ASTNode> returnTypes = new ArrayList<ASTNode>();
+        for (ASTVariableDeclaration returnParameter : returnParameters) {
+            returnTypes.add(returnParameter.getTypeName());
+        }
+
+        ArrayList<Value> values;
+        if (returnParameters.size() == 1) {
+            Value value = evaluate(argument, returnTypes.get(0));
+            if (!isStoragePointer(returnParameters.get(0)) && isStorageExpression(argument)) {
+                value = copyValue(value);
+            }
+            values = new ArrayList<Value>();
+            values.add(value);
+        } else {
+            values = evaluateTuple(argument, returnTypes);
+        }
+        if (values.size() != returnParameters.size()) {
+            throw new Exception("FullInterpreter: Return value count mismatch in " + statement.toSolidityCode());
+        }
+        for (int i = 0; i < values.size(); ++i) {
+            values.set(i, implicitlyConvert(values.get(i), returnTypes.get(i)));
+        }
+        frame.setReturnValues(values);
+    }
+
+    protected void emitEvent(ASTFunctionCall call) throws Exception {
+        String name = call.getCalled().getName();
+        ASTEventDefinition event = events.get(name);
+        if (event == null) {
+            throw new Exception("FullInterpreter: Emission of unknown event " + name);
+        }
+
+        ArrayList<ASTVariableDeclaration> parameters = event.getParameterList().toArrayList();
+        ArrayList<Value> values = evaluateArguments(call.getArguments(), call.getArgumentNames(), parameters);
+        ArrayList<String> names = new ArrayList<String>();
+        for (int i = 0; i < parameters.size(); ++i) {
+            // Unnamed parameters are logged under their position
+            String parameterName = parameters.get(i).getName();
+            names.add(parameterName == null || parameterName.isEmpty()? String.valueOf(i): parameterName);
+        }
+        emitEvent(name, names, values);
+    }
+
+    protected void emitEvent(String name, ArrayList<String> argumentNames, ArrayList<Value> argumentValues) throws Exception {
+        // Write arguments in declaration order, which a JSONObject would not preserve
+        StringBuilder line = new StringBuilder();
+        line.append("{\"event\":").append(JSONValue.toJSONString(name)).append(",\"args\":{");
+        for (int i = 0; i < argumentNames.size(); ++i) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(JSONValue.toJSONString(argumentNames.get(i))).append(':');
+            line.append(JSONValue.toJSONString(JSONValueConverter.objsoltixromValue(argumentValues.get(i))));
+        }
+        line.append("}}");
+        emittedEvents.add(line.toString());
+    }
+
+
+    // Expressions
+
+    protected Value evaluate(ASTNode expression) throws Exception {
+        if (expression instanceof ASTLiteral) {
+            return evaluateLiteral((ASTLiteral)expression);
+        } else if (expression instanceof ASTIdentifier) {
+            return evaluateIdentifier((ASTIdentifier)expression);
+        } else if (expression instanceof ASTBinaryOperation) {
+            return evaluateBinaryOperation((ASTBinaryOperation)expression);
+        } else if (expression instanceof ASTUnaryOperation) {
+            return evaluateUnaryOperation((ASTUnaryOperation)expression);
+        } else if (expression instanceof ASTAssignment) {
+            return evaluateAssignment((ASTAssignment)expression);
+        } else if (expression instanceof ASTConditional) {
+            ASTConditional conditional = (ASTConditional)expression;
+            return evaluate(evaluateCondition(conditional.getCondition())
+                    ? conditional.getTrueExpression()
+                    : conditional.getFalseExpression());
+        } else if (expression instanceof ASTFunctionCall) {
+            ArrayList<Value> results = evaluateCall((ASTFunctionCall)expression);
+            if (results.size() > 1) {
+                throw new Exception("FullInterpreter: Unexpected tuple result of " + expression.toSolidityCode());
+            }
+            return results.isEmpty()? null: results.get(0);
+        } else if (expression instanceof ASTMemberAccess) {
+            return evaluateMemberAccess((ASTMemberAccess)expression);
+        } else if (expression instanceof ASTIndexAccess) {
+            return evaluateIndexAccess((ASTIndexAccess)expression);
+        } else if (expression instanceof ASTTupleExpression) {
+            ASTTupleExpression tuple = (ASTTupleExpression)expression;
+            if (isParenthesized(tuple)) {
+                return evaluate(tuple.getTupleItems().get(0));
+            } else if (tuple.isInlineArray()) {
+                return evaluateInlineArray(tuple);
+            }
+            throw new Exception("FullInterpreter: Unexpected tuple " + expression.toSolidityCode());
+        } else {
+            throw new Exception("FullInterpreter: Unsupported expression type " + expression.getClass().getSimpleName());
+        }
+    }
+
+    // Evaluate an expression whose value is used as the given type, which determines the type of constants and
+    // implicit integer and bytes conversions
+    protected Value evaluate(ASTNode expression, ASTNode expectedType) throws Exception {
+        if (expectedType != null) {
+            if (isConstantExpression(expression)) {
+                return constantToType(evaluateConstant(expression), expectedType);
+            } else if (isStringLiteral(expression)) {
+                return stringLiteralToType((ASTLiteral)expression, expectedType);
+            } else if (expression instanceof ASTConditional) {
+                ASTConditional conditional = (ASTConditional)expression;
+                return evaluate(evaluateCondition(conditional.getCondition())
+                        ? conditional.getTrueExpression()
+                        : conditional.getFalseExpression(), expectedType);
+            } else if (isParenthesized(expression)) {
+                return evaluate(((ASTTupleExpression)expression).getTupleItems().get(0), expectedType);
+            }
+        }
+        return implicitlyConvert(evaluate(expression), expectedType);
+    }
+
+    protected boolean evaluateCondition(ASTNode expression) throws Exception {
+        Value value = evaluate(expression);
+        if (!(value instanceof BoolValue)) {
+            throw new Exception("FullInterpreter: Non-bool condition " + expression.toSolidityCode());
+        }
+        return ((BoolValue)value).getValue();
+    }
+
+    // Evaluate the items of a tuple, or the results of a call returning several values. Omitted items yield null
+    protected ArrayList<Value> evaluateTuple(ASTNode expression, ArrayList<ASTNode> expectedTypes) throws Exception {
+        ArrayList<Value> result = new ArrayList<Value>();
+        if (expression instanceof ASTTupleExpression && !isParenthesized(expression)
+                && !((ASTTupleExpression)expression).isInlineArray()) {
+            ASTTupleExpression tuple = (ASTTupleExpression)expression;
+            ArrayList<Boolean> components = tuple.getTupleComponents();
+            for (int i = 0, itemIndex = 0; i < components.size(); ++i) {
+                if (components.get(i)) {
+                    ASTNode item = tuple.getTupleItems().get(itemIndex++);
+                    Value value = evaluate(item, expectedTypes != null? expectedTypes.get(i): null);
+                    result.add(isStorageExpression(item)? copyValue(value): value);
+                } else {
+                    result.add(null);
+                }
+            }
+        } else if (expression instanceof ASTFunctionCall) {
+            result = evaluateCall((ASTFunctionCall)expression);
+        } else {
+            result.add(evaluate(expression, expectedTypes != null? expectedTypes.get(0): null));
+        }
+        return result;
+    }
+
+    protected Value evaluateLiteral(ASTLiteral literal) throws Exception {
+        if (isConstantExpression(literal)) {
+            return constantValue(evaluateConstant(literal));
+        }
+        return Value.fromASTNode(literal);
+    }
+
+    protected Value evaluateIdentifier(ASTIdentifier identifier) throws Exception {
+        String name = identifier.getName();
+        SolidityStackFrame frame = currentStackFrame();
+
+        if (frame.getDeclaration(name) != null) {
+            return frame.getValue(name);
+        } else if (storageDeclarations.containsKey(name)) {
+            return storage.get(name);
+        } else if (name.equals("_mynow")) {
+            // Replacement of "now" (see Configuration.renameNowTimestamps)
+            return constantValue(BigInteger.valueOf(configuration.renameNowTimestamps));
+        }
+        throw new Exception("FullInterpreter: Unsupported identifier " + name);
+    }
+
+    protected boolean isVariable(String name) {
+        return currentStackFrame().getDeclaration(name) != null || storageDeclarations.containsKey(name);
+    }
+
+    protected Value evaluateMemberAccess(ASTMemberAccess access) throws Exception {
+        ASTNode base = access.getAppliedTo();
+        String name = access.getName();
+
+        if (base instanceof ASTIdentifier && !isVariable(base.getName())) {
+            ASTEnumDefinition enumDefinition = ast.getEnumDefinition(base.getName());
+            if (enumDefinition != null) {
+                for (ASTEnumValue enumValue : enumDefinition.getValues()) {
+                    if (enumValue.getName().equals(name)) {
+                        return new EnumValue(enumDefinition, enumValue);
+                    }
+                }
+            }
+            throw new Exception("FullInterpreter: Unsupported member access " + access.toSolidityCode());
+        }
+
+        Value value = evaluate(base);
+        if (value instanceof StructValue) {
+            Value memberValue = ((StructValue)value).getMemberValue(name);
+            if (memberValue == null) {
+                throw new Exception("FullInterpreter: Unknown struct member in " + access.toSolidityCode());
+            }
+            return memberValue;
+        } else if (name.equals("length")) {
+            if (value instanceof ArrayValue) {
+                return constantValue(BigInteger.valueOf(((ArrayValue)value).getElementCount()));
+            } else if (value instanceof BytesValue) {
+                return ((BytesValue)value).length();
+            }
+        }
+        throw new Exception("FullInterpreter: Unsupported member access " + access.toSolidityCode());
+    }
+
+    protected Value evaluateIndexAccess(ASTIndexAccess access) throws Exception {
+        Value base = evaluate(access.getAccessedItem());
+
+        if (base instanceof MappingValue) {
+            ASTMapping type = (ASTMapping)base.getType();
+            Value value = ((MappingValue)base).get(evaluate(access.getIndex(), type.getSourceType()));
+            return value != null? value: defaultValue(type.getDestinationType());
+        }
+        int index = evaluateIndex(access.getIndex(), base);
+        if (base instanceof ArrayValue) {
+            return ((ArrayValue)base).indexAccess(index);
+        } else {
+            return ((BytesValue)base).indexAccess(constantValue(BigInteger.valueOf(index)));
+        }
+    }
+
+    // Evaluate an index into an array or bytes value, which reverts the transaction if it is out of bounds
+    protected int evaluateIndex(ASTNode indexExpression, Value container) throws Exception {
+        int length;
+        if (container instanceof ArrayValue) {
+            length = ((ArrayValue)container).getElementCount();
+        } else if (container instanceof BytesValue) {
+            length = ((BytesValue)container).getValue().length;
+        } else {
+            throw new Exception("FullInterpreter: Unsupported index access to " + container.getType().toSolidityCode());
+        }
+
+        Value indexValue = evaluate(indexExpression, TypeContainer.getIntegerType(false, 256));
+        if (!(indexValue instanceof IntegerValue)) {
+            throw new Exception("FullInterpreter: Non-integer index " + indexExpression.toSolidityCode());
+        }
+        BigInteger index = ((IntegerValue)indexValue).getBigValue();
+        if (index.signum() < 0 || index.compareTo(BigInteger.valueOf(length)) >= 0) {
+            throw new TransactionRevertedException("Index " + index + " out of bounds for length " + length);
+        }
+        return index.intValue();
+    }
+
+    protected Value evaluateInlineArray(ASTTupleExpression tuple) throws Exception {
+        ArrayList<ASTNode> items = tuple.getTupleItems();
+        Value[] values = new Value[items.size()];
+
+        // The element type is that of the first non-constant item, or the smallest type for all constants
+        ASTNode baseType = null;
+        BigInteger largestConstant = BigInteger.ZERO;
+        BigInteger smallestConstant = BigInteger.ZERO;
+        for (int i = 0; i < items.size(); ++i) {
+            if (isConstantExpression(items.get(i))) {
+                BigInteger constant = evaluateConstant(items.get(i));
+                largestConstant = largestConstant.max(constant);
+                smallestConstant = smallestConstant.min(constant);
+            } else {
+                values[i] = evaluate(items.get(i));
+                if (baseType == null) {
+                    baseType = values[i].getType();
+                }
             }
         }
+        if (baseType == null) {
+            ASTElementaryTypeName largestType = getMobileType(largestConstant);
+            ASTElementaryTypeName smallestType = getMobileType(smallestConstant);
+            baseType = smallestConstant.signum() < 0
+                    ? TypeContainer.getIntegerType(true, Math.max(largestType.getBits() + (largestType.isSigned()? 0: 8), smallestType.getBits()))
+                    : largestType;
+        }
+
+        ArrayValue result = new ArrayValue(baseType);
+        for (int i = 0; i < items.size(); ++i) {
+            result.addElement(values[i] != null
+                    ? implicitlyConvert(values[i], baseType)
+                    : constantToType(evaluateConstant(items.get(i)), baseType));
+        }
         return result;
     }
 
+    protected Value evaluateBinaryOperation(ASTBinaryOperation operation) throws Exception {
+        ASTBinaryOperation.Operator operator = operation.getOperator();
+        ASTNode left = operation.getLeftOperand();
+        ASTNode right = operation.getRightOperand();
 
-    protected void interpretEmitStatement(ASTEmitStatement emitStatement) throws Exception {
-        JSONObject eventObject = new JSONObject();
-        eventObject.put("event", emitStatement.getName());
-        emittedEventsJSONObjectList.add(eventObject);
+        if (operator == OP_LAND) {
+            return ValueContainer.getBoolValue(evaluateCondition(left) && evaluateCondition(right));
+        } else if (operator == OP_LOR) {
+            return ValueContainer.getBoolValue(evaluateCondition(left) || evaluateCondition(right));
+        } else if (isConstantExpression(operation)) {
+            return constantValue(evaluateConstant(operation));
+        }
 
-        JSONObject argsObject = new JSONObject();
+        Value first;
+        Value second;
+        if (isConstantExpression(left)) {
+            // Constants take the type of the other operand, except for the base of shifts and exponentiations. The
+            // constant has no side effects, so the operands can be evaluated in reverse order
+            second = evaluate(right);
+            BigInteger constant = evaluateConstant(left);
+            first = isShiftOrExponentiation(operator)
+                    ? constantToType(constant, getMobileType(constant))
+                    : constantToType(constant, second.getType());
+        } else {
+            first = evaluate(left);
+            second = evaluateSecondOperand(first, operator, right);
+        }
+        return applyBinaryOperator(first, operator, second);
+    }
 
-        // Evaluate arguments
-        ASTFunctionCall functionCall = emitStatement.getFunctionCall();
-        ArrayList<Expression> arguments = functionCall.getExpressionArguments(null/*TODO*/);
-        for (int i = 0 ; i < arguments.size(); ++i) {
-            System.out.println("  arg " + i + " " + arguments.get(i).toASTNode().toSolidityCode());
+    protected Value evaluateSecondOperand(Value firstOperand, ASTBinaryOperation.Operator operator, ASTNode secondOperand) throws Exception {
+        if (isShiftOrExponentiation(operator)) {
+            if (isConstantExpression(secondOperand)) {
+                BigInteger constant = evaluateConstant(secondOperand);
+                return constantToType(constant, getMobileType(constant));
+            }
+            return evaluate(secondOperand);
+        }
+        return evaluate(secondOperand, firstOperand.getType());
+    }
+
+    protected boolean isShiftOrExponentiation(ASTBinaryOperation.Operator operator) {
+        return operator == OP_EXP || operator == OP_BSHL || operator == OP_BSHR;
+    }
 
-            Value result = expressionEvaluator.evaluateForAll(globalEnvironment, arguments.get(i)).values.get(0);
-            // TODO Event argument name
-            argsObject.put("a", JSONValueConverter.objsoltixromValue(result));
+    // Apply an operator after implicit conversions of the operands
+    protected Value applyBinaryOperator(Value first, ASTBinaryOperation.Operator operator, Value second) throws Exception {
+        if (operator == OP_EXP && first instanceof IntegerValue && second instanceof IntegerValue
+                && ((ASTElementaryTypeName)first.getType()).isSigned()) {
+            return evaluateSignedExponentiation((IntegerValue)first, (IntegerValue)second);
         }
+        if (first instanceof IntegerValue && second instanceof IntegerValue
+                && !Type.isSameType(ast, first.getType(), second.getType())) {
+            IntegerValue firstInteger = (IntegerValue)first;
+            IntegerValue secondInteger = (IntegerValue)second;
+            ASTElementaryTypeName firstType = (ASTElementaryTypeName)first.getType();
+            ASTElementaryTypeName secondType = (ASTElementaryTypeName)second.getType();
 
-        eventObject.put("args", argsObject);
+            if (isShiftOrExponentiation(operator)) {
+                // The result has the type of the first operand
+                if (fitsIntegerType(secondInteger.getBigValue(), firstType)) {
+                    second = secondInteger.convertToIntegerType(firstType);
+                } else if (operator != OP_EXP && secondInteger.getBigValue().signum() > 0) {
+                    // All bits are shifted out
+                    boolean isNegativeShiftRight = operator == OP_BSHR && firstInteger.getBigValue().signum() < 0;
+                    return integerToType(isNegativeShiftRight? BigInteger.ONE.negate(): BigInteger.ZERO, firstType);
+                } else {
+                    throw new Exception("FullInterpreter: Unsupported second operand " + secondInteger + " for " + operator);
+                }
+            } else {
+                ASTElementaryTypeName commonType = getCommonIntegerType(firstType, secondType);
+                first = firstInteger.convertToIntegerType(commonType);
+                second = secondInteger.convertToIntegerType(commonType);
+            }
+        } else if (first instanceof BytesValue && second instanceof BytesValue) {
+            int firstBytes = ((BytesValue)first).getBytesCount();
+            int secondBytes = ((BytesValue)second).getBytesCount();
+            if (firstBytes < secondBytes && firstBytes > 0) {
+                first = ((BytesValue)first).convertToBytesType((ASTElementaryTypeName)second.getType());
+            } else if (secondBytes < firstBytes && secondBytes > 0) {
+                second = ((BytesValue)second).convertToBytesType((ASTElementaryTypeName)first.getType());
+            }
+        } else if (first instanceof EnumValue && second instanceof EnumValue) {
+            // Enums are ordered by their values
+            first = constantValue(BigInteger.valueOf(((EnumValue)first).getValue().getOrdinalNumber()));
+            second = constantValue(BigInteger.valueOf(((EnumValue)second).getValue().getOrdinalNumber()));
+        }
+
+        try {
+            return expressionEvaluator.applyBinaryOperator(first, operator, second);
+        } catch (ExpressionEvaluationException e) {
+            throw new TransactionRevertedException(e.getMessage());
+        }
+    }
+
+    // Exponentiation with a signed base, which wraps around in 256 bits before truncation to the base type as in the
+    // EVM. The IntegerValue operation does not provide this
+    protected Value evaluateSignedExponentiation(IntegerValue base, IntegerValue exponent) throws Exception {
+        if (exponent.getBigValue().signum() < 0) {
+            throw new TransactionRevertedException("Exponentiation with negative exponent");
+        }
+        BigInteger result = base.getBigValue().modPow(exponent.getBigValue(), BigInteger.ONE.shiftLeft(256));
+        return integerToType(result, (ASTElementaryTypeName)base.getType());
+    }
+
+    // Common type of two integer types for implicit conversions, which must not lose information
+    protected ASTElementaryTypeName getCommonIntegerType(ASTElementaryTypeName firstType, ASTElementaryTypeName secondType) throws Exception {
+        if (firstType.isSigned() == secondType.isSigned()) {
+            return firstType.getBits() >= secondType.getBits()? firstType: secondType;
+        } else if (firstType.isSigned() && firstType.getBits() > secondType.getBits()) {
+            return firstType;
+        } else if (secondType.isSigned() && secondType.getBits() > firstType.getBits()) {
+            return secondType;
+        }
+        throw new Exception("FullInterpreter: No common type for " + firstType.toSolidityCode() + " and " + secondType.toSolidityCode());
+    }
+
+    protected Value evaluateUnaryOperation(ASTUnaryOperation operation) throws Exception {
+        ASTUnaryOperation.Operator operator = operation.getOperator();
+
+        switch (operator) {
+            case OP_INC_PRE:
+            case OP_INC_POST:
+            case OP_DEC_PRE:
+            case OP_DEC_POST: {
+                LValue target = resolveLValue(operation.getOperand());
+                Value oldValue = target.get();
+                if (!(oldValue instanceof IntegerValue)) {
+                    throw new Exception("FullInterpreter: Non-integer operand in " + operation.toSolidityCode());
+                }
+                // Wraps around like other integer operations
+                IntegerValue one = ValueContainer.getSmallIntegerValue(oldValue.getType(), 1);
+                Value newValue = operator == ASTUnaryOperation.Operator.OP_INC_PRE || operator == ASTUnaryOperation.Operator.OP_INC_POST
+                        ? ((IntegerValue)oldValue).add(one)
+                        : ((IntegerValue)oldValue).sub(one);
+                target.set(newValue);
+                return operator == ASTUnaryOperation.Operator.OP_INC_PRE || operator == ASTUnaryOperation.Operator.OP_DEC_PRE
+                        ? newValue
+                        : oldValue;
+            }
+            case OP_DELETE: {
+                LValue target = resolveLValue(operation.getOperand());
+                target.set(defaultValue(target.getType()));
+                return null;
+            }
+            default:
+                if (isConstantExpression(operation)) {
+                    return constantValue(evaluateConstant(operation));
+                }
+                try {
+                    return expressionEvaluator.applyUnaryOperator(operator, evaluate(operation.getOperand()));
+                } catch (ExpressionEvaluationException e) {
+                    throw new TransactionRevertedException(e.getMessage());
+                }
+        }
+    }
+
+    protected Value evaluateAssignment(ASTAssignment assignment) throws Exception {
+        ASTNode lhs = assignment.getLHS();
+        ASTNode rhs = assignment.getRHS();
+
+        if (lhs instanceof ASTTupleExpression && !isParenthesized(lhs)) {
+            // Tuple assignment, e.g. "(a, b) = (b, a);" - all values are evaluated before the first assignment
+            ASTTupleExpression tuple = (ASTTupleExpression)lhs;
+            ArrayList<Boolean> components = tuple.getTupleComponents();
+            ArrayList<Value> values = evaluateTuple(rhs, null);
+            if (values.size() != components.size()) {
+                throw new Exception("FullInterpreter: Tuple size mismatch in " + assignment.toSolidityCode());
+            }
+            for (int i = 0, itemIndex = 0; i < components.size(); ++i) {
+                if (components.get(i)) {
+                    LValue target = resolveLValue(tuple.getTupleItems().get(itemIndex++));
+                    assign(target, implicitlyConvert(values.get(i), target.getType()), null);
+                }
+            }
+            return null;
+        }
+
+        LValue target = resolveLValue(lhs);
+        Value value;
+        if (assignment.getOperator() == ASTAssignment.Operator.OP_ASSIGN) {
+            value = evaluate(rhs, target.getType());
+            assign(target, value, rhs);
+        } else {
+            ASTBinaryOperation.Operator operator = getCompoundAssignmentOperator(assignment.getOperator());
+            Value currentValue = target.get();
+            value = applyBinaryOperator(currentValue, operator, evaluateSecondOperand(currentValue, operator, rhs));
+            value = implicitlyConvert(value, target.getType());
+            target.set(value);
+        }
+        return value;
+    }
+
+    protected ASTBinaryOperation.Operator getCompoundAssignmentOperator(ASTAssignment.Operator operator) throws Exception {
+        switch (operator) {
+            case OP_ASSIGN_COMP_PLUS:  return OP_PLUS;
+            case OP_ASSIGN_COMP_MINUS: return OP_MINUS;
+            case OP_ASSIGN_COMP_MUL:   return OP_MUL;
+            case OP_ASSIGN_COMP_DIV:   return OP_DIV;
+            case OP_ASSIGN_COMP_MOD:   return OP_MOD;
+            case OP_ASSIGN_COMP_BOR:   return OP_BOR;
+            case OP_ASSIGN_COMP_BAND:  return OP_BAND;
+            case OP_ASSIGN_COMP_BXOR:  return OP_BXOR;
+            case OP_ASSIGN_COMP_SHL:   return OP_BSHL;
+            case OP_ASSIGN_COMP_SHR:   return OP_BSHR;
+            default: throw new Exception("FullInterpreter: Unexpected compound assignment operator " + operator);
+        }
+    }
+
+    protected ArrayList<Value> evaluateCall(ASTFunctionCall call) throws Exception {
+        ASTNode called = call.getCalled();
+        ArrayList<ASTNode> arguments = call.getArguments();
+        ArrayList<Value> result = new ArrayList<Value>();
+
+        if (called.isTypeName()) {
+            if (arguments.size() != 1) {
+                throw new Exception("FullInterpreter: Unexpected conversion argument count in " + call.toSolidityCode());
+            }
+            result.add(evaluateConversion(called, arguments.get(0)));
+            return result;
+        } else if (called instanceof ASTMemberAccess) {
+            Value value = evaluateMemberFunctionCall((ASTMemberAccess)called, call);
+            if (value != null) {
+                result.add(value);
+            }
+            return result;
+        } else if (!(called instanceof ASTIdentifier)) {
+            throw new Exception("FullInterpreter: Unsupported function call " + call.toSolidityCode());
+        }
+
+        // Functions of the contract take precedence, such as the replacements of revert()/assert()/require()
+        String name = called.getName();
+        ASTFunctionDefinition function = findFunction(name, arguments.size());
+        if (function != null) {
+            return callFunction(function, evaluateArguments(arguments, call.getArgumentNames(), getParameters(function)));
+        }
+
+        if (name.equals("require") || name.equals("assert")) {
+            if (!evaluateCondition(arguments.get(0))) {
+                throw new TransactionRevertedException(name + " failed");
+            }
+        } else if (name.equals("revert")) {
+            throw new TransactionRevertedException(name);
+        } else if (name.equals("_myrevert") || name.equals("_myassert") || name.equals("_myrequire")) {
+            // Replacements which emit events instead of reverting (see Configuration.renameExceptionalEvents)
+            if (name.equals("_myrevert")) {
+                emitEvent("EXCEPTION_REVERTED", new ArrayList<String>(), new ArrayList<Value>());
+            } else if (!evaluateCondition(arguments.get(0))) {
+                emitEvent(name.equals("_myassert")? "EXCEPTION_ASSERT_FAILURE": "EXCEPTION_REQUIRE_FAILURE",
+                        new ArrayList<String>(), new ArrayList<Value>());
+            }
+        } else if (name.equals("keccak256") || name.equals("sha3")) {
+            result.add(evaluateKeccak256(call));
+        } else if (ast.getStructDefinition(name) != null) {
+            result.add(evaluateStructConstructor(ast.getStructDefinition(name), call));
+        } else if (events.containsKey(name)) {
+            // Event without "emit", as before Solidity 0.5
+            emitEvent(call);
+        } else {
+            throw new Exception("FullInterpreter: Unsupported function call " + call.toSolidityCode());
+        }
+        return result;
+    }
+
+    // Evaluate call arguments in the order of the declared parameters. Storage data passed to non-storage parameters
+    // is copied
+    protected ArrayList<Value> evaluateArguments(ArrayList<ASTNode> arguments,
+                                                 ArrayList<String> argumentNames,
+                                                 ArrayList<ASTVariableDeclaration> parameters) throws Exception {
+        int argumentCount = arguments == null? 0: arguments.size();
+        if (argumentCount != parameters.size()) {
+            throw new Exception("FullInterpreter: Expected " + parameters.size() + " arguments, got " + argumentCount);
+        }
+
+        ArrayList<Value> result = new ArrayList<Value>();
+        for (int i = 0; i < parameters.size(); ++i) {
+            result.add(null);
+        }
+        for (int i = 0; i < argumentCount; ++i) {
+            int position = i;
+            if (argumentNames != null && !argumentNames.isEmpty()) {
+                for (position = 0; position < parameters.size(); ++position) {
+                    if (parameters.get(position).getName().equals(argumentNames.get(i))) {
+                        break;
+                    }
+                }
+                if (position == parameters.size()) {
+                    throw new Exception("FullInterpreter: Unknown argument name " + argumentNames.get(i));
+                }
+            }
+
+            ASTVariableDeclaration parameter = parameters.get(position);
+            Value value = evaluate(arguments.get(i), parameter.getTypeName());
+            if (!isStoragePointer(parameter) && isStorageExpression(arguments.get(i))) {
+                value = copyValue(value);
+            }
+            result.set(position, value);
+        }
+        return result;
+    }
+
+    protected Value evaluateMemberFunctionCall(ASTMemberAccess called, ASTFunctionCall call) throws Exception {
+        String name = called.getName();
+
+        if (name.equals("push") || name.equals("pop")) {
+            Value base = evaluate(called.getAppliedTo());
+            if (base instanceof ArrayValue) {
+                ArrayValue array = (ArrayValue)base;
+                if (name.equals("push")) {
+                    array.addElement(copyValue(evaluate(call.getArguments().get(0), array.getBaseType())));
+                    return constantValue(BigInteger.valueOf(array.getElementCount()));
+                } else {
+                    if (array.getElementCount() == 0) {
+                        throw new TransactionRevertedException("pop() on empty array");
+                    }
+                    array.removeLastElement();
+                    return null;
+                }
+            }
+        }
+        throw new Exception("FullInterpreter: Unsupported function call " + call.toSolidityCode());
+    }
+
+    protected Value evaluateStructConstructor(ASTStructDefinition definition, ASTFunctionCall call) throws Exception {
+        // Mapping members are omitted from the arguments
+        ArrayList<ASTVariableDeclaration> initializedMembers = new ArrayList<ASTVariableDeclaration>();
+        for (ASTVariableDeclaration member : definition.getMembers()) {
+            if (!Type.isMappingType(member.getTypeName())) {
+                initializedMembers.add(member);
+            }
+        }
+        ArrayList<Value> values = evaluateArguments(call.getArguments(), call.getArgumentNames(), initializedMembers);
+
+        StructValue result = new StructValue(TypeContainer.getUserDefinedType(ast, definition.getName()), definition);
+        for (ASTVariableDeclaration member : definition.getMembers()) {
+            int index = initializedMembers.indexOf(member);
+            result.addMember(member, index >= 0? values.get(index): defaultValue(member.getTypeName()));
+        }
+        return result;
+    }
+
+    // keccak256() of the packed encoding of its arguments, i.e. of their concatenated plain byte representations.
+    // Integer constants are encoded in their smallest type, e.g. keccak256(1) is keccak256(uint8(1))
+    protected Value evaluateKeccak256(ASTFunctionCall call) throws Exception {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        for (ASTNode argument : call.getArguments()) {
+            Value value;
+            if (isConstantExpression(argument)) {
+                BigInteger constant = evaluateConstant(argument);
+                value = constantToType(constant, getMobileType(constant));
+            } else {
+                value = evaluate(argument);
+            }
+            byte[] bytes = getPackedEncoding(value);
+            if (bytes == null) {
+                throw new Exception("FullInterpreter: Unsupported keccak256() argument " + argument.toSolidityCode()
+                        + " in " + call.toSolidityCode());
+            }
+            input.write(bytes);
+        }
+        return new BytesValue(TypeContainer.getByteType(32), Hash.keccak256(input.toByteArray()));
+    }
+
+    // Packed encoding of an elementary value, or null for other values such as arrays and structs
+    protected byte[] getPackedEncoding(Value value) throws Exception {
+        if (value instanceof StringValue) {
+            return ((StringValue)value).getValue().getBytes("UTF-8");
+        } else if (value instanceof BytesValue) {
+            return ((BytesValue)value).getValue();
+        } else if (value instanceof IntegerValue) {
+            int bytes = ((ASTElementaryTypeName)value.getType()).getBits() / 8;
+            return ((IntegerValue)value).convertToBytesType(TypeContainer.getByteType(bytes)).getValue();
+        } else if (value instanceof BoolValue) {
+            return new byte[] { (byte)(((BoolValue)value).getValue()? 1: 0) };
+        } else if (value instanceof EnumValue) {
+            return new byte[] { (byte)((EnumValue)value).getValue().getOrdinalNumber() };
+        } else if (value instanceof AddressValue) {
+            BigInteger address = new BigInteger(((String)value.toJSONRepresentation()).substring(2), 16);
+            return integerToType(address, TypeContainer.getIntegerType(false, 160))
+                    .convertToBytesType(TypeContainer.getByteType(20)).getValue();
+        }
+        return null;
+    }
+
+    protected Value evaluateConversion(ASTNode typeName, ASTNode argument) throws Exception {
+        ASTNode targetType;
+        if (typeName instanceof ASTElementaryTypeName) {
+            targetType = typeName;
+        } else if (typeName instanceof ASTElementaryTypeNameExpression) {
+            targetType = getElementaryType(typeName.getName());
+        } else {
+            throw new Exception("FullInterpreter: Unsupported conversion to " + typeName.toSolidityCode());
+        }
+
+        if (isConstantExpression(argument)) {
+            return constantToType(evaluateConstant(argument), targetType);
+        } else if (isStringLiteral(argument)) {
+            return stringLiteralToType((ASTLiteral)argument, targetType);
+        }
+
+        Value value = evaluate(argument);
+        if (Type.isIntegerType(targetType)) {
+            ASTElementaryTypeName integerType = (ASTElementaryTypeName)targetType;
+            if (value instanceof IntegerValue) {
+                return ((IntegerValue)value).convertToIntegerType(integerType);
+            } else if (value instanceof BytesValue) {
+                return ((BytesValue)value).convertToIntegerType(integerType);
+            } else if (value instanceof AddressValue) {
+                String address = (String)value.toJSONRepresentation();
+                return integerToType(new BigInteger(address.substring(2), 16), integerType);
+            }
+        } else if (Type.isByteType(targetType)) {
+            ASTElementaryTypeName bytesType = (ASTElementaryTypeName)targetType;
+            if (bytesType.getBytes() == 0) {
+                if (value instanceof StringValue) {
+                    return new BytesValue(getElementaryType("bytes"), ((StringValue)value).getValue().getBytes("UTF-8"));
+                } else if (value instanceof BytesValue && ((BytesValue)value).getBytesCount() == 0) {
+                    return value;
+                }
+            } else if (value instanceof BytesValue) {
+                return ((BytesValue)value).convertToBytesType(bytesType);
+            } else if (value instanceof IntegerValue) {
+                return ((IntegerValue)value).convertToBytesType(bytesType);
+            }
+        } else if (Type.isAddressType(targetType)) {
+            if (value instanceof AddressValue) {
+                return value;
+            } else if (value instanceof IntegerValue) {
+                return ((IntegerValue)value).convertToAddressType();
+            } else if (value instanceof BytesValue) {
+                return ((BytesValue)value).convertToIntegerType(TypeContainer.getIntegerType(false, 160)).convertToAddressType();
+            }
+        } else if (Type.isStringType(targetType)) {
+            if (value instanceof StringValue) {
+                return value;
+            } else if (value instanceof BytesValue && ((BytesValue)value).getBytesCount() == 0) {
+                return new StringValue(new String(((BytesValue)value).getValue(), "UTF-8"));
+            }
+        } else if (Type.isBoolType(targetType) && value instanceof BoolValue) {
+            return value;
+        }
+        throw new Exception("FullInterpreter: Unsupported conversion of " + value.getType().toSolidityCode()
+                + " to " + targetType.toSolidityCode());
+    }
+
+    protected ASTElementaryTypeName getElementaryType(String name) throws Exception {
+        if (name.equals("uint")) {
+            return TypeContainer.getIntegerType(false, 256);
+        } else if (name.equals("int")) {
+            return TypeContainer.getIntegerType(true, 256);
+        } else if (name.startsWith("uint")) {
+            return TypeContainer.getIntegerType(false, Integer.parseInt(name.substring("uint".length())));
+        } else if (name.startsWith("int")) {
+            return TypeContainer.getIntegerType(true, Integer.parseInt(name.substring("int".length())));
+        } else if (name.equals("byte")) {
+            return TypeContainer.getByteType(1);
+        } else if (name.equals("bytes")) {
+            if (dynamicBytesType == null) {
+                dynamicBytesType = new ASTElementaryTypeName(0, "bytes");
+            }
+            return dynamicBytesType;
+        } else if (name.startsWith("bytes")) {
+            return TypeContainer.getByteType(Integer.parseInt(name.substring("bytes".length())));
+        } else if (name.equals("bool")) {
+            return TypeContainer.getBoolType();
+        } else if (name.equals("string")) {
+            return TypeContainer.getStringType();
+        } else if (name.startsWith("address")) {
+            return TypeContainer.getAddressType();
+        }
+        throw new Exception("FullInterpreter: Unknown elementary type " + name);
+    }
+
+
+    // Assignments
+
+    // Assignable location of a variable or of a part of one
+    protected abstract class LValue {
+        // Whether the location is part of storage, into which assigned structs, arrays and mappings are copied
+        protected boolean isStorage = false;
+        // Whether the location is a local storage pointer, which is rebound rather than copied into
+        protected boolean isStoragePointer = false;
+
+        abstract Value get() throws Exception;
+        abstract void set(Value value) throws Exception;
+        abstract ASTNode getType() throws Exception;
+
+        // Whether parts of the value at this location are part of storage
+        boolean containsStorage() { return isStorage || isStoragePointer; }
+    }
+
+    protected void assign(LValue target, Value value, ASTNode source) throws Exception {
+        if (target.isStoragePointer) {
+            target.set(value);
+        } else if (target.isStorage || (source != null && isStorageExpression(source))) {
+            target.set(copyValue(value));
+        } else {
+            target.set(value);
+        }
+    }
+
+    protected LValue resolveLValue(ASTNode expression) throws Exception {
+        if (isParenthesized(expression)) {
+            return resolveLValue(((ASTTupleExpression)expression).getTupleItems().get(0));
+        } else if (expression instanceof ASTIdentifier) {
+            return resolveVariableLValue(expression.getName());
+        } else if (expression instanceof ASTMemberAccess) {
+            final String name = expression.getName();
+            final LValue base = resolveLValue(((ASTMemberAccess)expression).getAppliedTo());
+            if (!(base.get() instanceof StructValue)) {
+                throw new Exception("FullInterpreter: Unsupported assignment to " + expression.toSolidityCode());
+            }
+            LValue result = new LValue() {
+                Value get() throws Exception { return ((StructValue)base.get()).getMemberValue(name); }
+                void set(Value value) throws Exception { ((StructValue)base.get()).setMemberValue(name, value); }
+                ASTNode getType() throws Exception {
+                    for (ASTVariableDeclaration member : ((StructValue)base.get()).getStructType().getMembers()) {
+                        if (member.getName().equals(name)) {
+                            return member.getTypeName();
+                        }
+                    }
+                    throw new Exception("FullInterpreter: Unknown struct member " + name);
+                }
+            };
+            result.isStorage = base.containsStorage();
+            return result;
+        } else if (expression instanceof ASTIndexAccess) {
+            ASTIndexAccess access = (ASTIndexAccess)expression;
+            final LValue base = resolveLValue(access.getAccessedItem());
+            Value container = base.get();
+            LValue result;
+
+            if (container instanceof MappingValue) {
+                final ASTMapping type = (ASTMapping)container.getType();
+                final Value key = evaluate(access.getIndex(), type.getSourceType());
+                result = new LValue() {
+                    Value get() throws Exception {
+                        MappingValue mapping = (MappingValue)base.get();
+                        Value value = mapping.get(key);
+                        if (value == null) {
+                            // Insert defaults for structs, arrays and mappings, whose parts may be assigned
+                            value = defaultValue(type.getDestinationType());
+                            if (isReferenceValue(value)) {
+                                mapping.put(key, value);
+                            }
+                        }
+                        return value;
+                    }
+                    void set(Value value) throws Exception { ((MappingValue)base.get()).put(key, value); }
+                    ASTNode getType() { return type.getDestinationType(); }
+                };
+            } else if (container instanceof ArrayValue) {
+                final int index = evaluateIndex(access.getIndex(), container);
+                result = new LValue() {
+                    Value get() throws Exception { return ((ArrayValue)base.get()).indexAccess(index); }
+                    void set(Value value) throws Exception { ((ArrayValue)base.get()).updateElement(index, value); }
+                    ASTNode getType() throws Exception { return ((ArrayValue)base.get()).getBaseType(); }
+                };
+            } else {
+                throw new Exception("FullInterpreter: Unsupported assignment to " + expression.toSolidityCode());
+            }
+            result.isStorage = base.containsStorage();
+            return result;
+        }
+        throw new Exception("FullInterpreter: Unsupported assignment to " + expression.toSolidityCode());
+    }
+
+    protected LValue resolveVariableLValue(final String name) throws Exception {
+        final SolidityStackFrame frame = currentStackFrame();
+        final ASTVariableDeclaration localDeclaration = frame.getDeclaration(name);
+        if (localDeclaration != null) {
+            LValue result = new LValue() {
+                Value get() { return frame.getValue(name); }
+                void set(Value value) throws Exception { frame.setValue(name, value); }
+                ASTNode getType() { return localDeclaration.getTypeName(); }
+            };
+            result.isStoragePointer = isStoragePointer(localDeclaration);
+            return result;
+        }
+
+        final ASTVariableDeclaration storageDeclaration = storageDeclarations.get(name);
+        if (storageDeclaration != null) {
+            LValue result = new LValue() {
+                Value get() { return storage.get(name); }
+                void set(Value value) { storage.put(name, value); }
+                ASTNode getType() { return storageDeclaration.getTypeName(); }
+            };
+            result.isStorage = true;
+            return result;
+        }
+        throw new Exception("FullInterpreter: Assignment to unsupported identifier " + name);
+    }
+
+    // Whether a local variable or parameter refers to storage rather than holding a value
+    protected boolean isStoragePointer(ASTVariableDeclaration declaration) throws Exception {
+        if (declaration.getStorageLocation() == Definitions.StorageLocation.STORAGE_LOCATION_STORAGE) {
+            return true;
+        } else if (declaration.getStorageLocation() == Definitions.StorageLocation.STORAGE_LOCATION_MEMORY) {
+            return false;
+        }
+        // Local structs and arrays are storage pointers by default before Solidity 0.5, parameters are not
+        return declaration.getParent() instanceof ASTVariableDeclarationStatement
+                && isReferenceType(declaration.getTypeName());
+    }
+
+    // Whether an expression denotes storage data, which is copied when assigned to memory
+    protected boolean isStorageExpression(ASTNode expression) throws Exception {
+        if (isParenthesized(expression)) {
+            return isStorageExpression(((ASTTupleExpression)expression).getTupleItems().get(0));
+        } else if (expression instanceof ASTIdentifier) {
+            ASTVariableDeclaration localDeclaration = currentStackFrame().getDeclaration(expression.getName());
+            if (localDeclaration != null) {
+                return isStoragePointer(localDeclaration);
+            }
+            return storageDeclarations.containsKey(expression.getName());
+        } else if (expression instanceof ASTMemberAccess) {
+            return isStorageExpression(((ASTMemberAccess)expression).getAppliedTo());
+        } else if (expression instanceof ASTIndexAccess) {
+            return isStorageExpression(((ASTIndexAccess)expression).getAccessedItem());
+        }
+        return false;
+    }
+
+
+    // Values
+
+    protected boolean isReferenceType(ASTNode type) {
+        return Type.isStructType(ast, type) || Type.isArrayType(type) || Type.isMappingType(type);
+    }
+
+    protected boolean isReferenceValue(Value value) {
+        return value instanceof StructValue || value instanceof ArrayValue || value instanceof MappingValue;
+    }
+
+    protected Value defaultValue(ASTNode type) throws Exception {
+        if (Type.isIntegerType(type)) {
+            return ValueContainer.getSmallIntegerValue(type, 0);
+        } else if (Type.isBoolType(type)) {
+            return ValueContainer.getBoolValue(false);
+        } else if (Type.isByteType(type)) {
+            return new BytesValue(type, new byte[((ASTElementaryTypeName)type).getBytes()]);
+        } else if (Type.isStringType(type)) {
+            return new StringValue("");
+        } else if (Type.isAddressType(type)) {
+            return ValueContainer.getSmallIntegerValue(TypeContainer.getIntegerType(false, 160), 0).convertToAddressType();
+        } else if (Type.isMappingType(type)) {
+            return new MappingValue((ASTMapping)type);
+        } else if (Type.isArrayType(type)) {
+            ASTArrayTypeName arrayType = (ASTArrayTypeName)type;
+            ArrayValue result = new ArrayValue(arrayType.getBaseType());
+            if (arrayType.getSize() != null) {
+                if (!isConstantExpression(arrayType.getSize())) {
+                    throw new Exception("FullInterpreter: Unsupported array size in " + type.toSolidityCode());
+                }
+                int size = evaluateConstant(arrayType.getSize()).intValue();
+                for (int i = 0; i < size; ++i) {
+                    result.addElement(defaultValue(arrayType.getBaseType()));
+                }
+            }
+            return result;
+        } else if (type instanceof ASTUserDefinedTypeName) {
+            ASTStructDefinition structDefinition = ast.getStructDefinition(type.getName());
+            if (structDefinition != null) {
+                StructValue result = new StructValue((ASTUserDefinedTypeName)type, structDefinition);
+                for (ASTVariableDeclaration member : structDefinition.getMembers()) {
+                    result.addMember(member, defaultValue(member.getTypeName()));
+                }
+                return result;
+            }
+            ASTEnumDefinition enumDefinition = ast.getEnumDefinition(type.getName());
+            if (enumDefinition != null) {
+                return new EnumValue(enumDefinition, enumDefinition.getValues().get(0));
+            }
+        }
+        throw new Exception("FullInterpreter: Unsupported type " + (type != null? type.toSolidityCode(): "var"));
+    }
+
+    // Copy structs, arrays and mappings, whose parts are updated in place. Other values are immutable
+    protected Value copyValue(Value value) throws Exception {
+        if (value instanceof StructValue) {
+            StructValue struct = (StructValue)value;
+            StructValue result = new StructValue((ASTUserDefinedTypeName)struct.getType(), struct.getStructType());
+            ArrayList<ASTVariableDeclaration> declarations = struct.getMemberValueList().getDeclarations();
+            for (int i = 0; declarations != null && i < declarations.size(); ++i) {
+                result.addMember(declarations.get(i), copyValue(struct.getMemberValueList().getValues().get(i)));
+            }
+            return result;
+        } else if (value instanceof ArrayValue) {
+            ArrayValue array = (ArrayValue)value;
+            ArrayValue result = new ArrayValue(array.getBaseType());
+            for (int i = 0; i < array.getElementCount(); ++i) {
+                result.addElement(copyValue(array.indexAccess(i)));
+            }
+            return result;
+        } else if (value instanceof MappingValue) {
+            MappingValue mapping = (MappingValue)value;
+            MappingValue result = new MappingValue((ASTMapping)mapping.getType());
+            for (Value key : mapping.getKeys()) {
+                result.put(key, copyValue(mapping.get(key)));
+            }
+            return result;
+        }
+        return value;
+    }
+
+    // Implicit conversion to a larger integer or bytes type
+    protected Value implicitlyConvert(Value value, ASTNode type) throws Exception {
+        if (value == null || type == null) {
+            return value;
+        } else if (value instanceof IntegerValue && Type.isIntegerType(type) && !Type.isSameType(ast, value.getType(), type)) {
+            return ((IntegerValue)value).convertToIntegerType((ASTElementaryTypeName)type);
+        } else if (value instanceof BytesValue && Type.isByteType(type)) {
+            int bytes = ((ASTElementaryTypeName)type).getBytes();
+            int valueBytes = ((BytesValue)value).getBytesCount();
+            if (bytes != valueBytes && bytes > 0 && valueBytes > 0) {
+                return ((BytesValue)value).convertToBytesType((ASTElementaryTypeName)type);
+            }
+        }
+        return value;
+    }
+
+
+    // Constants, which are computed with arbitrary precision as in Solidity
+
+    protected boolean isParenthesized(ASTNode expression) {
+        if (!(expression instanceof ASTTupleExpression)) {
+            return false;
+        }
+        ASTTupleExpression tuple = (ASTTupleExpression)expression;
+        return !tuple.isInlineArray() && tuple.getTupleComponents().size() == 1 && tuple.getTupleItems().size() == 1;
+    }
+
+    protected boolean isStringLiteral(ASTNode expression) {
+        return expression instanceof ASTLiteral
+                && ((ASTLiteral)expression).getType() == ASTLiteral.LiteralType.LITERAL_TYPE_STRING;
+    }
+
+    protected boolean isConstantExpression(ASTNode expression) {
+        if (expression instanceof ASTLiteral) {
+            ASTLiteral.LiteralType type = ((ASTLiteral)expression).getType();
+            return type == ASTLiteral.LiteralType.LITERAL_TYPE_INTEGER_DECIMAL
+                    || type == ASTLiteral.LiteralType.LITERAL_TYPE_INTEGER_HEXADECIMAL;
+        } else if (expression instanceof ASTUnaryOperation) {
+            ASTUnaryOperation.Operator operator = ((ASTUnaryOperation)expression).getOperator();
+            return (operator == ASTUnaryOperation.Operator.OP_MINUS
+                        || operator == ASTUnaryOperation.Operator.OP_PLUS
+                        || operator == ASTUnaryOperation.Operator.OP_BNEG)
+                    && isConstantExpression(((ASTUnaryOperation)expression).getOperand());
+        } else if (expression instanceof ASTBinaryOperation) {
+            ASTBinaryOperation operation = (ASTBinaryOperation)expression;
+            return !operation.getOperator().yieldsBoolResult()
+                    && isConstantExpression(operation.getLeftOperand())
+                    && isConstantExpression(operation.getRightOperand());
+        } else if (isParenthesized(expression)) {
+            return isConstantExpression(((ASTTupleExpression)expression).getTupleItems().get(0));
+        }
+        return false;
+    }
+
+    protected BigInteger evaluateConstant(ASTNode expression) throws Exception {
+        if (expression instanceof ASTLiteral) {
+            ASTLiteral literal = (ASTLiteral)expression;
+            String valueString = literal.getValueString().replace("_", "");
+            BigInteger value;
+            if (literal.getType() == ASTLiteral.LiteralType.LITERAL_TYPE_INTEGER_HEXADECIMAL) {
+                value = new BigInteger(valueString.substring(2), 16);
+            } else {
+                // Decimal constants may use exponential notation
+                value = new BigDecimal(valueString).toBigIntegerExact();
+            }
+            if (literal.getSubdenomination() != null) {
+                value = value.multiply(getSubdenominationFactor(literal.getSubdenomination()));
+            }
+            return value;
+        } else if (expression instanceof ASTUnaryOperation) {
+            BigInteger operand = evaluateConstant(((ASTUnaryOperation)expression).getOperand());
+            switch (((ASTUnaryOperation)expression).getOperator()) {
+                case OP_MINUS: return operand.negate();
+                case OP_BNEG:  return operand.not();
+                default:       return operand;
+            }
+        } else if (expression instanceof ASTBinaryOperation) {
+            ASTBinaryOperation operation = (ASTBinaryOperation)expression;
+            BigInteger first = evaluateConstant(operation.getLeftOperand());
+            BigInteger second = evaluateConstant(operation.getRightOperand());
+            switch (operation.getOperator()) {
+                case OP_PLUS:  return first.add(second);
+                case OP_MINUS: return first.subtract(second);
+                case OP_MUL:   return first.multiply(second);
+                case OP_DIV:
+                case OP_MOD:
+                    if (second.signum() == 0) {
+                        throw new Exception("FullInterpreter: Division by zero in constant " + expression.toSolidityCode());
+                    }
+                    // Truncating towards zero, with the sign of the first operand for the remainder
+                    return operation.getOperator() == OP_DIV? first.divide(second): first.remainder(second);
+                case OP_BOR:   return first.or(second);
+                case OP_BAND:  return first.and(second);
+                case OP_BXOR:  return first.xor(second);
+                case OP_EXP:
+                case OP_BSHL:
+                case OP_BSHR:
+                    return evaluateConstantShiftOrExponentiation(operation, first, second);
+                default: throw new Exception("FullInterpreter: Unexpected constant operator " + operation.getOperator());
+            }
+        } else if (isParenthesized(expression)) {
+            return evaluateConstant(((ASTTupleExpression)expression).getTupleItems().get(0));
+        }
+        throw new Exception("FullInterpreter: Non-constant expression " + expression.toSolidityCode());
+    }
+
+    // Exponentiations and shifts of constants. As in solc, the second operand must not be negative, and results that
+    // exceed MAX_CONSTANT_BITS are rejected, which is checked before computing large results
+    protected BigInteger evaluateConstantShiftOrExponentiation(ASTBinaryOperation operation, BigInteger first, BigInteger second) throws Exception {
+        ASTBinaryOperation.Operator operator = operation.getOperator();
+        if (second.signum() < 0) {
+            throw new Exception("FullInterpreter: Negative second operand in constant " + operation.toSolidityCode());
+        } else if (operator == OP_BSHR) {
+            // All bits are shifted out after bitLength() bits, leaving 0 or -1
+            return first.shiftRight(second.min(BigInteger.valueOf(first.bitLength())).intValue());
+        } else if (operator == OP_EXP && first.abs().compareTo(BigInteger.ONE) <= 0) {
+            // Powers of 0, 1 and -1 only depend on whether the exponent is 0, odd or even
+            return first.pow(second.bitLength() <= 1? second.intValue(): (second.testBit(0)? 1: 2));
+        } else if (first.signum() == 0) {
+            return first;
+        }
+
+        // The result has at least this many bits, as the magnitude of the first operand is at least 2
+        BigInteger minimumBits = operator == OP_BSHL
+                ? second.add(BigInteger.valueOf(first.bitLength()))
+                : second.multiply(BigInteger.valueOf(first.abs().bitLength() - 1)).add(BigInteger.ONE);
+        if (minimumBits.compareTo(BigInteger.valueOf(MAX_CONSTANT_BITS)) > 0) {
+            throw new Exception("FullInterpreter: Constant " + operation.toSolidityCode() + " exceeds "
+                    + MAX_CONSTANT_BITS + " bits");
+        }
+        BigInteger result = operator == OP_BSHL? first.shiftLeft(second.intValue()): first.pow(second.intValue());
+        if (result.bitLength() > MAX_CONSTANT_BITS) {
+            throw new Exception("FullInterpreter: Constant " + operation.toSolidityCode() + " exceeds "
+                    + MAX_CONSTANT_BITS + " bits");
+        }
+        return result;
+    }
+
+    protected BigInteger getSubdenominationFactor(String subdenomination) throws Exception {
+        switch (subdenomination) {
+            case "wei":     return BigInteger.ONE;
+            case "szabo":   return BigInteger.TEN.pow(12);
+            case "finney":  return BigInteger.TEN.pow(15);
+            case "ether":   return BigInteger.TEN.pow(18);
+            case "seconds": return BigInteger.ONE;
+            case "minutes": return BigInteger.valueOf(60);
+            case "hours":   return BigInteger.valueOf(60 * 60);
+            case "days":    return BigInteger.valueOf(24 * 60 * 60);
+            case "weeks":   return BigInteger.valueOf(7 * 24 * 60 * 60);
+            case "years":   return BigInteger.valueOf(365 * 24 * 60 * 60);
+            default: throw new Exception("FullInterpreter: Unknown subdenomination " + subdenomination);
+        }
+    }
+
+    // Value of a constant used without a type context
+    protected Value constantValue(BigInteger value) throws Exception {
+        return integerToType(value, TypeContainer.getIntegerType(value.signum() < 0, 256));
+    }
+
+    protected Value constantToType(BigInteger value, ASTNode type) throws Exception {
+        if (Type.isIntegerType(type)) {
+            return integerToType(value, (ASTElementaryTypeName)type);
+        } else if (Type.isByteType(type) && ((ASTElementaryTypeName)type).getBytes() > 0) {
+            // Right-aligned as in integer conversions, e.g. bytes4(0x12) = 0x00000012
+            int bytes = ((ASTElementaryTypeName)type).getBytes();
+            BigInteger unsignedValue = value.mod(BigInteger.ONE.shiftLeft(bytes * 8));
+            return integerToType(unsignedValue, TypeContainer.getIntegerType(false, bytes * 8))
+                    .convertToBytesType((ASTElementaryTypeName)type);
+        } else if (Type.isAddressType(type)) {
+            return integerToType(value, TypeContainer.getIntegerType(false, 160)).convertToAddressType();
+        }
+        return constantValue(value);
+    }
+
+    protected Value stringLiteralToType(ASTLiteral literal, ASTNode type) throws Exception {
+        StringValue value = new StringValue(literal.getValueString());
+        if (Type.isByteType(type)) {
+            byte[] bytes = value.getValue().getBytes("UTF-8");
+            int typeBytes = ((ASTElementaryTypeName)type).getBytes();
+            if (typeBytes == 0) {
+                return new BytesValue(getElementaryType("bytes"), bytes);
+            } else if (bytes.length > typeBytes) {
+                throw new Exception("FullInterpreter: String literal too long for " + type.toSolidityCode());
+            }
+            // Left-aligned
+            byte[] result = new byte[typeBytes];
+            System.arraycopy(bytes, 0, result, 0, bytes.length);
+            return new BytesValue(type, result);
+        }
+        return value;
+    }
+
+    // Convert an integer to a type, truncating excess bits
+    protected IntegerValue integerToType(BigInteger value, ASTElementaryTypeName type) throws Exception {
+        BigInteger unsignedValue = value.mod(BigInteger.ONE.shiftLeft(256));
+        return ValueContainer.getBigIntegerValue(TypeContainer.getIntegerType(false, 256), unsignedValue)
+                .convertToIntegerType(type);
+    }
+
+    protected boolean fitsIntegerType(BigInteger value, ASTElementaryTypeName type) throws Exception {
+        int bits = type.getBits();
+        BigInteger minimum = type.isSigned()? BigInteger.ONE.shiftLeft(bits - 1).negate(): BigInteger.ZERO;
+        BigInteger maximum = (type.isSigned()? BigInteger.ONE.shiftLeft(bits - 1): BigInteger.ONE.shiftLeft(bits))
+                .subtract(BigInteger.ONE);
+        return value.compareTo(minimum) >= 0 && value.compareTo(maximum) <= 0;
+    }
+
+    // Smallest integer type of a constant, as for the bases of shifts and exponentiations
+    protected ASTElementaryTypeName getMobileType(BigInteger value) throws Exception {
+        boolean signed = value.signum() < 0;
+        for (int bits = 8; bits < 256; bits += 8) {
+            ASTElementaryTypeName type = TypeContainer.getIntegerType(signed, bits);
+            if (fitsIntegerType(value, type)) {
+                return type;
+            }
+        }
+        return TypeContainer.getIntegerType(signed, 256);
     }
 }
@@ -21,24 +21,98 @@
 package soltix.interpretation;
 
 import soltix.ast.ASTContractDefinition;
-import soltix.ast.ASTFunctionDefinition;
+import soltix.ast.ASTVariableDeclaration;
+import soltix.ast.FunctionScope;
 import soltix.interpretation.values.Value;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
+/**
+ * Class to represent the activation of a function or modifier in FullInterpreter, with the values of its local
+ * variables in nested block scopes
+ */
 public class SolidityStackFrame {
-    private ASTFunctionDefinition function;
+    private ASTContractDefinition contract;
+    private FunctionScope function;
     private ArrayList<Value> arguments;
-    private Scope scope;
+
+    // Innermost scope last
+    private ArrayList<HashMap<String, ASTVariableDeclaration>> declarationScopes = new ArrayList<HashMap<String, ASTVariableDeclaration>>();
+    private ArrayList<HashMap<String, Value>> valueScopes = new ArrayList<HashMap<String, Value>>();
+
+    // Values passed by a return statement, if any
+    private ArrayList<Value> returnValues = null;
+
+    // For modifier activations: the frame of the modified function and the position of the next modifier, with
+    // which the placeholder statement "_" continues
+    private SolidityStackFrame modifiedFunctionFrame = null;
+    private int nextModifierIndex = 0;
 
     public SolidityStackFrame(ASTContractDefinition contract,
-                              ASTFunctionDefinition function,
+                              FunctionScope function,
                               ArrayList<Value> arguments) throws Exception {
 
+        this.contract = contract;
         this.function = function;
         this.arguments = arguments;
-        scope = new Scope(contract);
+        enterBlock();
+    }
+
+    public ASTContractDefinition getContract() { return contract; }
+    public FunctionScope getFunction() { return function; }
+    public ArrayList<Value> getArguments() { return arguments; }
+
+    public void enterBlock() {
+        declarationScopes.add(new HashMap<String, ASTVariableDeclaration>());
+        valueScopes.add(new HashMap<String, Value>());
+    }
+
+    public void leaveBlock() {
+        declarationScopes.remove(declarationScopes.size() - 1);
+        valueScopes.remove(valueScopes.size() - 1);
+    }
+
+    public void declareVariable(ASTVariableDeclaration declaration, Value value) {
+        declarationScopes.get(declarationScopes.size() - 1).put(declaration.getName(), declaration);
+        valueScopes.get(valueScopes.size() - 1).put(declaration.getName(), value);
     }
 
-    public Scope getScope() { return scope; }
+    // Returns the innermost declaration of a local variable, or null if there is none
+    public ASTVariableDeclaration getDeclaration(String name) {
+        int index = findScope(name);
+        return index < 0? null: declarationScopes.get(index).get(name);
+    }
+
+    public Value getValue(String name) {
+        int index = findScope(name);
+        return index < 0? null: valueScopes.get(index).get(name);
+    }
+
+    public void setValue(String name, Value value) throws Exception {
+        int index = findScope(name);
+        if (index < 0) {
+            throw new Exception("SolidityStackFrame: Assignment to undeclared variable " + name);
+        }
+        valueScopes.get(index).put(name, value);
+    }
+
+    private int findScope(String name) {
+        for (int i = declarationScopes.size() - 1; i >= 0; --i) {
+            if (declarationScopes.get(i).containsKey(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public ArrayList<Value> getReturnValues() { return returnValues; }
+    public void setReturnValues(ArrayList<Value> returnValues) { this.returnValues = returnValues; }
+
+    public void setPlaceholderContinuation(SolidityStackFrame modifiedFunctionFrame, int nextModifierIndex) {
+        this.modifiedFunctionFrame = modifiedFunctionFrame;
+        this.nextModifierIndex = nextModifierIndex;
+    }
+    public SolidityStackFrame getModifiedFunctionFrame() { return modifiedFunctionFrame; }
+    public int getNextModifierIndex() { return nextModifierIndex; }
 }
@@ -23,12 +23,16 @@ package soltix.interpretation;
 import soltix.ast.AST;
 import soltix.ast.ASTContractDefinition;
 import soltix.ast.ASTFunctionDefinition;
+import soltix.ast.ASTNode;
 import soltix.ast.ASTVariableDeclaration;
+import soltix.interpretation.values.IntegerValue;
 import soltix.interpretation.values.Value;
 import soltix.util.JSONValueConverter;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 
 /**
@@ -52,6 +56,7 @@ public class Transaction {
 
     // Constructor to load a transaction from a JSON object
     public Transaction(AST ast, JSONObject jsonObject) throws Exception {
+        arguments = new ArrayList<Value>();
         fromJSONObject(ast, jsonObject);
     }
 
@@ -87,8 +92,29 @@ public class Transaction {
         ArrayList<ASTVariableDeclaration> declaredParameters = function.getParameterList().toArrayList();
         for (int i = 0; i < jsonArgumentArray.size(); ++i) {
             Object item = (Object)jsonArgumentArray.get(i);
-            Value value = JSONValueConverter.valueFromObject(declaredParameters.get(i), item);
+            Value value = argumentFromObject(declaredParameters.get(i).getTypeName(), item);
             arguments.add(value);
         }
     }
+
+    // Integer arguments are written in decimal by toJSONObject(), unlike the hexadecimal values in the logs of newer
+    // truffle versions that JSONValueConverter expects, so they are decoded here
+    protected Value argumentFromObject(ASTNode type, Object item) throws Exception {
+        if (!Type.isIntegerType(type)) {
+            return JSONValueConverter.valueFromObject(type, item);
+        }
+
+        BigInteger value;
+        if (item instanceof Number) {
+            value = new BigDecimal(item.toString()).toBigInteger();
+        } else {
+            String valueString = (String)item;
+            if (valueString.startsWith("0x")) {
+                value = new BigInteger(valueString.substring(2), 16);
+            } else {
+                value = new BigDecimal(valueString).toBigInteger();
+            }
+        }
+        return new IntegerValue(type, value);
+    }
 }
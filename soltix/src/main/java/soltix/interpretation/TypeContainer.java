@@ -20,6 +20,7 @@
 
 package soltix.interpretation;
 
+import soltix.SoltixContext;
 import soltix.ast.*;
 import soltix.synthesis.StructTypeGenerator;
 import soltix.util.RandomNumbers;
@@ -33,85 +34,83 @@ import java.util.HashMap;
  * Class to produce and cache types.
  */
 public class TypeContainer {
-    static private HashMap<Integer, ASTElementaryTypeName> typesSignedInteger;
-    static private HashMap<Integer, ASTElementaryTypeName> typesUnsignedInteger;
-    static private ASTElementaryTypeName typeBool;
-    static private HashMap<Integer, ASTElementaryTypeName> typesByte;
-    static private ASTElementaryTypeName typeString;
-    static private ASTElementaryTypeName typeAddress;
-    static private HashMap<String, ASTUserDefinedTypeName> userDefinedTypes;
+    // Types are cached per job, see SoltixContext
+    private HashMap<Integer, ASTElementaryTypeName> typesSignedInteger = new HashMap<Integer, ASTElementaryTypeName>();
+    private HashMap<Integer, ASTElementaryTypeName> typesUnsignedInteger = new HashMap<Integer, ASTElementaryTypeName>();
+    private ASTElementaryTypeName typeBool;
+    private HashMap<Integer, ASTElementaryTypeName> typesByte = new HashMap<Integer, ASTElementaryTypeName>();
+    private ASTElementaryTypeName typeString;
+    private ASTElementaryTypeName typeAddress;
+    private HashMap<String, ASTUserDefinedTypeName> userDefinedTypes = new HashMap<String, ASTUserDefinedTypeName>();
     // For random type choice:
-    static private WeightedRandomChoice weightedRandomChoice;
+    private WeightedRandomChoice weightedRandomChoice;
 
+    static protected TypeContainer current() {
+        return SoltixContext.current().getTypeContainer();
+    }
 
     static public ASTElementaryTypeName getIntegerType(boolean signed, int bits) throws Exception {
+        TypeContainer types = current();
         if (signed) {
-            if (typesSignedInteger == null) {
-                typesSignedInteger = new HashMap<Integer, ASTElementaryTypeName>();
-            }
             ASTElementaryTypeName type;
-            type = typesSignedInteger.get(bits);
+            type = types.typesSignedInteger.get(bits);
             if (type == null) {
                 type = new ASTElementaryTypeName(0, "int" + String.valueOf(bits));
-                typesSignedInteger.put(bits, type);
+                types.typesSignedInteger.put(bits, type);
             }
             return type;
         } else {
-            if (typesUnsignedInteger == null) {
-                typesUnsignedInteger = new HashMap<Integer, ASTElementaryTypeName>();
-            }
             ASTElementaryTypeName type;
-            type = typesUnsignedInteger.get(bits);
+            type = types.typesUnsignedInteger.get(bits);
             if (type == null) {
                 type = new ASTElementaryTypeName(0, "uint" + String.valueOf(bits));
-                typesUnsignedInteger.put(bits, type);
+                types.typesUnsignedInteger.put(bits, type);
             }
             return type;
         }
     }
     static public ASTElementaryTypeName getBoolType() throws Exception {
-        if (typeBool == null) {
-            typeBool = new ASTElementaryTypeName(0, "bool");
+        TypeContainer types = current();
+        if (types.typeBool == null) {
+            types.typeBool = new ASTElementaryTypeName(0, "bool");
         }
-        return typeBool;
+        return types.typeBool;
     }
     static public ASTElementaryTypeName getByteType(int bytes) throws Exception {
-        if (typesByte == null) {
-            typesByte = new HashMap<Integer, ASTElementaryTypeName>();
-        }
-        ASTElementaryTypeName type = typesByte.get(bytes);
+        TypeContainer types = current();
+        ASTElementaryTypeName type = types.typesByte.get(bytes);
         if (type == null) {
             type = new ASTElementaryTypeName(0, "bytes" + String.valueOf(bytes));
-            typesByte.put(bytes, type);
+            types.typesByte.put(bytes, type);
         }
         return type;
     }
     static public ASTElementaryTypeName getStringType() throws Exception {
-        if (typeString == null) {
-            typeString = new ASTElementaryTypeName(0, "string");
+        TypeContainer types = current();
+        if (types.typeString == null) {
+            types.typeString = new ASTElementaryTypeName(0, "string");
         }
-        return typeString;
+        return types.typeString;
     }
     static public ASTElementaryTypeName getAddressType() throws Exception {
-        if (typeAddress == null) {
-            typeAddress = new ASTElementaryTypeName(0, "address");
+        TypeContainer types = current();
+        if (types.typeAddress == null) {
+            types.typeAddress = new ASTElementaryTypeName(0, "address");
         }
-        return typeAddress;
+        return types.typeAddress;
     }
 
     static public ASTUserDefinedTypeName getUserDefinedType(AST ast, String name) throws Exception {
-        ASTUserDefinedTypeName udt = userDefinedTypes != null? userDefinedTypes.get(name): null;
+        TypeContainer types = current();
+        ASTUserDefinedTypeName udt = types.userDefinedTypes.get(name);
         if (udt == null) {
-            if (userDefinedTypes == null) {
-                userDefinedTypes = new HashMap<String, ASTUserDefinedTypeName>();
-            }
             if (ast.getContract(name) == null
                     && ast.getStructDefinition(name) == null
                     && ast.getEnumDefinition(name) == null) {
                 throw new Exception("Unknown user-defined type " + name);
             }
             udt = new ASTUserDefinedTypeName(0, name);
-            userDefinedTypes.put(name, udt);
+            types.userDefinedTypes.put(name, udt);
         }
         return udt;
     }
@@ -163,8 +162,10 @@ public class TypeContainer {
         ASTNode type;
         int choiceValue;
 
-        if (weightedRandomChoice == null) {
-            weightedRandomChoice = new WeightedRandomChoice();
+        TypeContainer types = current();
+        if (types.weightedRandomChoice == null) {
+            WeightedRandomChoice weightedRandomChoice = new WeightedRandomChoice();
+            types.weightedRandomChoice = weightedRandomChoice;
             // Prepare random weighted type choice
             // TODO weights should be configurable - separately for storage variables and parameters
             weightedRandomChoice.addItem(35); // 0: Integers - overrepresented due to richer set of operations
@@ -184,7 +185,7 @@ public class TypeContainer {
 
         type = null;
         while (type == null) {
-            switch (choiceValue = weightedRandomChoice.choice(prng)) {
+            switch (choiceValue = types.weightedRandomChoice.choice(prng)) {
                 case 0: // Integers
                     type = TypeContainer.getRandomIntegerType(prng);
                     break;
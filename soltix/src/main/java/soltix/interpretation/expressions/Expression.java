@@ -20,6 +20,7 @@
 
 package soltix.interpretation.expressions;
 
+import soltix.SoltixContext;
 import soltix.ast.*;
 import soltix.interpretation.Type;
 import soltix.interpretation.values.Value;
@@ -33,11 +34,10 @@ import java.util.function.UnaryOperator;
  * Class to represent an expression in a format more suitable to work with than ASTNode items
  */
 public class Expression {
-    static private int idCounter = 0;
     private int id = -1;
 
     public int getID() { return id; }
-    public void assignID() { id = ++idCounter; }
+    public void assignID() { id = SoltixContext.current().allocateExpressionID(); }
 
     // A code snippet that can be prefixed to code generated (via toASTNode()) for this expression
     // This allows for the insertion of e.g. value checks:
@@ -101,15 +101,15 @@ public class Expression {
             if (binaryOperator == ASTBinaryOperation.Operator.OP_BSHR) {
                 System.out.println("binary shift right applied to "
                     + (firstOperand.getComputedValues() != null
-                            ? firstOperand.getComputedValues().values.get(0).toASTNode(false).toSolidityCode()
+                            ? firstOperand.getComputedValues().get(0).toASTNode(false).toSolidityCode()
                                 : "unevaluated")
                     + " and "
                     + (secondOperand.getComputedValues() != null
-                            ? secondOperand.getComputedValues().values.get(0).toASTNode(false).toSolidityCode()
+                            ? secondOperand.getComputedValues().get(0).toASTNode(false).toSolidityCode()
                                 : "unevaluated")
                         + " result = "
                         + (getComputedValues() != null
-                                ? getComputedValues().values.get(0).toASTNode(false).toSolidityCode()
+                                ? getComputedValues().get(0).toASTNode(false).toSolidityCode()
                                     : "unevaluated"));
                 System.out.println("expr code " + toASTNode().toSolidityCode());
             }
@@ -119,11 +119,11 @@ public class Expression {
 
             System.out.println("unary application of " + unaryOperator + " to "
                             + (firstOperand.getComputedValues() != null
-                                ? firstOperand.getComputedValues().values.get(0).toASTNode(false).toSolidityCode()
+                                ? firstOperand.getComputedValues().get(0).toASTNode(false).toSolidityCode()
                                     : "unevaluated")
                             + " result = "
                             + (getComputedValues() != null
-                                ? getComputedValues().values.get(0).toASTNode(false).toSolidityCode()
+                                ? getComputedValues().get(0).toASTNode(false).toSolidityCode()
                                     : "unevaluated"));
             System.out.println("expr code " + toASTNode().toSolidityCode());
             result += firstOperand.debugIntermediateValuesString(checkContained);
@@ -138,7 +138,7 @@ public class Expression {
                 System.out.println("   variable " +
                         getValue().toASTNode(false).toSolidityCode() +
                         " = "
-                        + (getComputedValues() != null ? getComputedValues().values.get(0).toASTNode(false).toSolidityCode() : "unevaluated"));
+                        + (getComputedValues() != null ? getComputedValues().get(0).toASTNode(false).toSolidityCode() : "unevaluated"));
             }
         } else if (memberAccess != null) {
             result += "(" + firstOperand.debugIntermediateValuesString(checkContained) + "." + memberAccess.toSolidityCode() + ")";
@@ -150,7 +150,7 @@ public class Expression {
 
         result += "[";
         if (getComputedValues() != null) {
-            result += getComputedValues().values.get(0).toASTNode(false).toSolidityCode();
+            result += getComputedValues().get(0).toASTNode(false).toSolidityCode();
         } else {
             result += "unevaluated";
         }
@@ -188,6 +188,12 @@ public class Expression {
     public ASTNode getCastExpressionType() { return castExpressionType; }
     public ArrayList<Expression> getFunctionCallArguments() { return functionCallArguments; }
 
+    // Node number of this expression in an ExpressionMemo, valid for the memo generation and structure version it was
+    // computed for (see ExpressionMemo.getNode())
+    int memoNode;
+    Object memoGeneration = null;
+    long memoStructureVersion;
+
     public /*ArrayList<Value>*/ExpressionEvaluator.ComputedValues getComputedValues() { return computedValues; }
     public void setComputedValues(/*ArrayList<Value>*/ExpressionEvaluator.ComputedValues computedValues) { this.computedValues = computedValues; }
 
@@ -205,6 +211,7 @@ public class Expression {
         }
         this.secondOperand = secondOperand;
         containsExpressionAlias = containsExpressionAlias || secondOperand.containsExpressionAlias;
+        ExpressionMemo.structureModified();
     }
 
     protected void inferTypeFromOperands(Expression firstOperand, Expression secondOperand) throws Exception {
@@ -0,0 +1,143 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.expressions;
+
+import soltix.ast.ASTBinaryOperation;
+import soltix.ast.ASTElementaryTypeName;
+import soltix.ast.ASTNode;
+import soltix.ast.ASTUnaryOperation;
+import soltix.interpretation.values.BoolValue;
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.values.Value;
+import soltix.interpretation.variables.IntegerDomain;
+import soltix.interpretation.variables.Variable;
+import soltix.interpretation.variables.VariableEnvironment;
+import soltix.interpretation.variables.VariableValues;
+
+import java.math.BigInteger;
+
+import static soltix.ast.ASTBinaryOperation.Operator.*;
+
+/**
+ * Class to decide boolean expressions for all value sets of a VariableEnvironment at once, using the domains
+ * of its integer variables (see IntegerDomain) instead of evaluating the expression for each value set.
+ *
+ * This covers boolean constants, the logical operators, and relational operators applied to a variable and an
+ * integer constant of the same type, or twice to the same variable. Everything else is left undecided, and
+ * must be evaluated with ExpressionEvaluator.
+ */
+public class ExpressionDomainEvaluator {
+    // Value of the expression for all value sets, or null if it is not the same for all value sets or cannot
+    // be decided
+    public Boolean evaluate(VariableEnvironment environment, Expression expression) throws Exception {
+        Value value = expression.getValue();
+        if (value != null) {
+            return value instanceof BoolValue ? ((BoolValue)value).getValue() : null;
+        }
+        if (expression.getUnaryOperator() == ASTUnaryOperation.Operator.OP_LNEG) {
+            Boolean operandValue = evaluate(environment, expression.getFirstOperand());
+            return operandValue == null ? null : !operandValue;
+        }
+        ASTBinaryOperation.Operator operator = expression.getBinaryOperator();
+        if (operator == null) {
+            return null;
+        }
+        switch (operator) {
+            case OP_LAND:
+            case OP_LOR: {
+                Boolean firstValue = evaluate(environment, expression.getFirstOperand());
+                Boolean secondValue = evaluate(environment, expression.getSecondOperand());
+                boolean dominantValue = operator == OP_LOR;
+                if ((firstValue != null && firstValue == dominantValue) || (secondValue != null && secondValue == dominantValue)) {
+                    return dominantValue;
+                } else if (firstValue != null && secondValue != null) {
+                    return !dominantValue;
+                }
+                return null;
+            }
+            case OP_EQ:
+            case OP_NEQ:
+            case OP_LT:
+            case OP_GT:
+            case OP_LTE:
+            case OP_GTE:
+                return evaluateComparison(environment, operator, expression.getFirstOperand(), expression.getSecondOperand());
+            default:
+                return null;
+        }
+    }
+
+    protected Boolean evaluateComparison(VariableEnvironment environment, ASTBinaryOperation.Operator operator,
+                                         Expression firstOperand, Expression secondOperand) throws Exception {
+        Value firstValue = firstOperand.getValue();
+        Value secondValue = secondOperand.getValue();
+        if (firstValue instanceof Variable && firstValue == secondValue) {
+            // Reflexive comparison
+            return operator == OP_EQ || operator == OP_LTE || operator == OP_GTE;
+        }
+        if (firstValue instanceof IntegerValue && secondValue instanceof Variable) {
+            // Bring the variable to the left: c < x  =>  x > c
+            Value swappedValue = firstValue;
+            firstValue = secondValue;
+            secondValue = swappedValue;
+            switch (operator) {
+                case OP_LT: operator = OP_GT; break;
+                case OP_GT: operator = OP_LT; break;
+                case OP_LTE: operator = OP_GTE; break;
+                case OP_GTE: operator = OP_LTE; break;
+                default: break;
+            }
+        }
+        if (!(firstValue instanceof Variable) || !(secondValue instanceof IntegerValue)) {
+            return null;
+        }
+        VariableValues variableValues = environment.getVariableValues(((Variable)firstValue).getName());
+        IntegerDomain domain = variableValues != null ? variableValues.getIntegerDomain() : null;
+        BigInteger constant = ((IntegerValue)secondValue).getBigValue();
+        if (domain == null || constant == null || !isSameIntegerType(domain.getType(), secondValue.getType())) {
+            return null;
+        }
+        switch (operator) {
+            case OP_EQ: return domain.isEqualTo(constant);
+            case OP_NEQ: return negate(domain.isEqualTo(constant));
+            case OP_LT: return domain.isSmallerThan(constant);
+            case OP_GT: return domain.isGreaterThan(constant);
+            case OP_LTE: return negate(domain.isGreaterThan(constant));
+            case OP_GTE: return negate(domain.isSmallerThan(constant));
+            default: return null;
+        }
+    }
+
+    static private Boolean negate(Boolean value) {
+        return value == null ? null : !value;
+    }
+
+    static private boolean isSameIntegerType(ASTNode first, ASTNode second) throws Exception {
+        if (!(first instanceof ASTElementaryTypeName) || !(second instanceof ASTElementaryTypeName)) {
+            return false;
+        }
+        ASTElementaryTypeName firstType = (ASTElementaryTypeName)first;
+        ASTElementaryTypeName secondType = (ASTElementaryTypeName)second;
+        return firstType.isIntegerType() && secondType.isIntegerType()
+                && firstType.isSigned() == secondType.isSigned()
+                && firstType.getBits() == secondType.getBits();
+    }
+}
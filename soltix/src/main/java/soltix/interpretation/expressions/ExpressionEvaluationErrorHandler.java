@@ -71,8 +71,8 @@ public class ExpressionEvaluationErrorHandler implements IExpressionEvaluatorErr
 
             boolean subtractionOK = true;
             boolean additionOK = true;
-            for (int j = 0; j < values.values.size(); ++j) {
-                IntegerValue currentValue = (IntegerValue) values.values.get(j);
+            for (int j = 0; j < values.size(); ++j) {
+                IntegerValue currentValue = (IntegerValue) values.get(j);
                 if (additionOK && currentValue.add(candidateOffset).isEqualTo(zeroValue).getValue()) {
                     additionOK = false;
                 }
@@ -116,11 +116,11 @@ public class ExpressionEvaluationErrorHandler implements IExpressionEvaluatorErr
         Expression newExpression;
 
         /*System.out.println("fixnegative - values");
-        for (int i = 0; i < values.values.size(); ++i) {
-            System.out.println("   i: " + values.values.get(i).toASTNode(false).toSolidityCode());
+        for (int i = 0; i < values.size(); ++i) {
+            System.out.println("   i: " + values.get(i).toASTNode(false).toSolidityCode());
         }*/
 
-        if (values.values.size() > 1) {
+        if (values.size() > 1) {
             // Wrap up in conditional operator
             Expression negatedOriginalExpression = new Expression(ASTUnaryOperation.Operator.OP_MINUS, originalExpression);
             Expression conditionExpression = new Expression(originalExpression,
@@ -131,7 +131,7 @@ public class ExpressionEvaluationErrorHandler implements IExpressionEvaluatorErr
             // A negation for the single value is sufficient for most values
             // Special case: Signed types with their minimum value yield that same value when negated. So
             // for those we add 1 to e.g. turn -128 into -127 before negating to 127
-            IntegerValue value = (IntegerValue)values.values.get(0);
+            IntegerValue value = (IntegerValue)values.get(0);
             if (((ASTElementaryTypeName)value.getType()).isSigned() && value.isEqualTo(value.getMinValue()).getValue()) {
                 // Subtract 1, negate below
                 newExpression = new Expression(originalExpression, OP_PLUS, new Expression(new IntegerValue(value.getType(), 1)));
@@ -29,6 +29,7 @@ import soltix.interpretation.variables.VariableEnvironment;
 import soltix.util.Hash;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import static soltix.ast.ASTBinaryOperation.Operator.*;
 import static soltix.ast.ASTUnaryOperation.Operator.OP_BNEG;
@@ -52,12 +53,17 @@ public class ExpressionEvaluator {
     //private AST ast;
     static public boolean freeIntermediateResults = false; //true;
     private IExpressionEvaluatorErrorCallback evaluatorErrorCallback;
+    // Results of side-effect-free expressions, shared between structurally equal expressions
+    ExpressionMemo memo = new ExpressionMemo();
 
     public ExpressionEvaluator(IExpressionEvaluatorErrorCallback evaluatorErrorCallback) { //AST ast) {
         this.evaluatorErrorCallback = evaluatorErrorCallback;
     }
 
 
+    // Results of an expression for all value sets. Values are held as Value objects, or as a column of primitives
+    // (see ValueLanes) from which Value objects are only created as they are requested. Operators are applied to
+    // columns where possible, without creating intermediate Value objects
     public class ComputedValues {
         public ComputedValues(int valueCount) {
             values = new ArrayList<Value>();
@@ -68,10 +74,84 @@ public class ExpressionEvaluator {
         public ComputedValues() {
             values = new ArrayList<Value>();
         }
+        ComputedValues(ValueLanes lanes) {
+            this.lanes = lanes;
+            lanesChecked = true;
+        }
+        ComputedValues(Value[] values) {
+            this.values = new ArrayList<Value>(Arrays.asList(values));
+        }
+        ComputedValues(ComputedValues other) throws Exception {
+            values = new ArrayList<Value>(other.size());
+            for (int i = 0; i < other.size(); ++i) {
+                values.add(other.get(i));
+            }
+            sourceExpression = other.sourceExpression;
+        }
 
-        public ArrayList<Value> values;
+        // Value objects, created on demand for columns (null entries are values not created yet in that case)
+        private ArrayList<Value> values;
+        private ValueLanes lanes = null;
+        // Whether the values have been checked for a column representation
+        private boolean lanesChecked = false;
         // Where appropriate: Pass source expression info (e.g. variables) along with computation results
         public Expression sourceExpression = null;
+        // Whether the values are stored in the memo, and must not be modified
+        boolean shared = false;
+
+        public int size() {
+            return lanes != null ? lanes.size() : values.size();
+        }
+
+        public Value get(int index) throws Exception {
+            if (lanes == null) {
+                return values.get(index);
+            }
+            if (values == null) {
+                values = new ArrayList<Value>(lanes.size());
+                for (int i = 0; i < lanes.size(); ++i) {
+                    values.add(null);
+                }
+            }
+            Value value = values.get(index);
+            if (value == null) {
+                value = lanes.createValue(index);
+                values.set(index, value);
+            }
+            return value;
+        }
+
+        public void add(Value value) throws Exception {
+            createAllValues();
+            values.add(value);
+        }
+
+        public void set(int index, Value value) throws Exception {
+            createAllValues();
+            values.set(index, value);
+        }
+
+        // Return the column representation, or null if there is none (e.g. for incomplete results)
+        ValueLanes getLanes() throws Exception {
+            if (!lanesChecked) {
+                lanesChecked = true;
+                if (!values.contains(null)) {
+                    lanes = ValueLanes.fromValues(values);
+                }
+            }
+            return lanes;
+        }
+
+        // Create all values ahead of a modification, after which they no longer correspond to the column
+        private void createAllValues() throws Exception {
+            if (lanes != null) {
+                for (int i = 0; i < lanes.size(); ++i) {
+                    get(i);
+                }
+                lanes = null;
+            }
+            lanesChecked = false;
+        }
     }
 
 
@@ -84,7 +164,14 @@ public class ExpressionEvaluator {
             throw new Exception("evaluateForOne called without value set selection");
         }
 
-        return evaluate(environment, valueSetIndex, expression, false).values.get(0);
+        if (!environment.isRecordingChanges()) {
+            int memoNode = memo.getNode(expression);
+            if (memoNode != ExpressionMemo.NO_NODE && memo.isTotal(memoNode)) {
+                // Evaluating for all value sets gives the same result, and is then reused for the other value sets
+                return evaluate(environment, VariableEnvironment.NO_VALUE_SET_SELECTED, expression, false).get(valueSetIndex);
+            }
+        }
+        return evaluate(environment, valueSetIndex, expression, false).get(0);
     }
 
     // evaluateForAllIncrementally() runs on all sets of values available in the VariableEnvironment and stores all
@@ -157,6 +244,76 @@ public class ExpressionEvaluator {
             return expression.getComputedValues();
         }
 
+        int memoNode = ExpressionMemo.NO_NODE;
+        ComputedValues memoizedValues = null;
+        if (!environment.isRecordingChanges()) {
+            memoNode = memo.getNode(expression);
+            if (memoNode != ExpressionMemo.NO_NODE) {
+                memoizedValues = memo.get(environment, memoNode);
+            }
+        }
+
+        if (memoizedValues != null) {
+            if (valueSetIndex == VariableEnvironment.NO_VALUE_SET_SELECTED) {
+                resultValues = memoizedValues;
+            } else {
+                resultValues = new ComputedValues();
+                resultValues.add(memoizedValues.get(valueSetIndex));
+            }
+        } else {
+            resultValues = evaluateOperator(environment, valueSetIndex, expression, reevaluating);
+            if (memoNode != ExpressionMemo.NO_NODE && valueSetIndex == VariableEnvironment.NO_VALUE_SET_SELECTED) {
+                // Operands may have been replaced to fix evaluation errors
+                memoNode = memo.getNode(expression);
+                if (memoNode != ExpressionMemo.NO_NODE && resultValues.size() == environment.getValueCount()) {
+                    resultValues.shared = true;
+                    memo.put(environment, memoNode, resultValues);
+                }
+            }
+        }
+
+        if (valueSetIndex == VariableEnvironment.NO_VALUE_SET_SELECTED) {
+            // Cache results for all-value evaluation
+            expression.setComputedValues(resultValues);
+        } else {
+            // Cache result for single-value evaluation using the selected value set index
+            ComputedValues existingValues = expression.getComputedValues();
+            if (existingValues == null) {
+                existingValues = new ComputedValues(environment.getValueCount());
+                expression.setComputedValues(existingValues);
+            } else if (existingValues.shared) {
+                // Memoized values must remain unchanged
+                existingValues = new ComputedValues(existingValues);
+                expression.setComputedValues(existingValues);
+            }
+
+            existingValues.set(valueSetIndex, resultValues.get(0));
+        }
+
+        if (traceExpressionId != -1 && expression.getID() == traceExpressionId) {
+            System.out.println(" ========== eval " + traceExpressionId + " end ");
+            environment.printLatestToLogger();
+
+            System.out.println(" ========== final result " + resultValues.get(0).toASTNode(false).toSolidityCode());
+
+            debugTrace = false;
+        }
+
+        if (debugTrace) {
+            System.out.println("cur result " + expression.toASTNode().toSolidityCode() + " = " + resultValues.get(0).toASTNode(false).toSolidityCode());
+        }
+
+        return resultValues;
+    }
+
+
+    // Evaluate the expression's operator, see evaluate()
+    protected ComputedValues evaluateOperator(VariableEnvironment environment,
+                                              int valueSetIndex,
+                                              Expression expression,
+                                              boolean reevaluating) throws Exception {
+        ComputedValues resultValues;
+
         if (expression.getBinaryOperator() != null) {
             ComputedValues firstOperandValues;
             ComputedValues secondOperandValues;
@@ -219,7 +376,7 @@ public class ExpressionEvaluator {
                     System.out.println("re-eval for " + expression.getFirstOperand().toASTNode().toSolidityCode()
                         + "       " + expression.getBinaryOperator() + "      " + expression.getSecondOperand().toASTNode().toSolidityCode());
                     System.out.println("full expr " + expression.toASTNode().toSolidityCode());
-                    System.out.println("first opernad values " + firstOperandValues.values.size());
+                    System.out.println("first opernad values " + firstOperandValues.size());
 */
 
                     // Note: Due to fix-up operations, at this point we might have the unintuitive constellation that
@@ -270,9 +427,10 @@ public class ExpressionEvaluator {
             ComputedValues operandValues;
 
             operandValues = evaluate(environment, valueSetIndex, expression.getFirstOperand(), reevaluating);
-            operandValues.sourceExpression = expression.getFirstOperand();
 
-            resultValues = evaluateUnaryOperatorForAll(environment, expression.getUnaryOperator(), operandValues, expression.getFirstOperand());
+            // The operand values may be shared with the memo, so the source expression is passed separately
+            resultValues = evaluateUnaryOperatorForAll(environment, expression.getUnaryOperator(), operandValues,
+                                                       expression.getFirstOperand(), expression.getFirstOperand());
 
             if (freeIntermediateResults) {
                 expression.getFirstOperand().setComputedValues(null);
@@ -344,7 +502,7 @@ public class ExpressionEvaluator {
                         }
                     } else {
                         resultValues = new ComputedValues();
-                        resultValues.values.add(evaluateKeccak256ForOne((StringValue)argumentValues.values.get(0)));
+                        resultValues.add(evaluateKeccak256ForOne((StringValue)argumentValues.get(0)));
                     }
                 } else {
                     throw new Exception("Attempt to evaluate unimplemented function " + identifier.getName());
@@ -374,14 +532,14 @@ public class ExpressionEvaluator {
                     if (environment.isRecordingChanges()) {
                         // Store a single value
                         Value v = environment.resolveVariableValue(0, ((Variable)expression.getValue()).getName());
-                        result.values.add(v);
+                        result.add(v);
                     } else {
                         // Resolve all variable values based on recorded profiling results
                         for (int i = 0; i < environment.getValueCount(); ++i) {
                             Value v = environment.resolveVariableValue(i, ((Variable)expression.getValue()).getName());
                             //System.out.println("Resolved var " + ((Variable)expression.getValue()).getName());
                             //System.out.println("to " + v.toASTNode(false).toSolidityCode());
-                            result.values.add(v);
+                            result.add(v);
                         }
                     }
                 } else {
@@ -390,7 +548,7 @@ public class ExpressionEvaluator {
                     v = environment.resolveVariableValue(valueSetIndex, ((Variable)expression.getValue()).getName());
                     //System.out.println("Resolved var " + ((Variable)expression.getValue()).getName());
                     //System.out.println("to " + v.toASTNode(false).toSolidityCode());
-                    result.values.add(v);
+                    result.add(v);
                 }
 
                 resultValues = result;
@@ -403,50 +561,22 @@ public class ExpressionEvaluator {
                 if (valueSetIndex == VariableEnvironment.NO_VALUE_SET_SELECTED) {
                     if (environment.isRecordingChanges()) {
                         // Store a single value (count = 1)
-                        result.values.add(value);
+                        result.add(value);
                     } else {
                         // Duplicate the given value for each variable set instance
                         int valueCount = environment.getValueCount();
                         for (int i = 0; i < valueCount; ++i) {
-                            result.values.add(value);
+                            result.add(value);
                         }
                     }
                 } else {
-                    result.values.add(value);
+                    result.add(value);
                 }
                 resultValues = result;
             }
         } else {
             throw new Exception("ExpressionEvaluator.evaluate received malformed Expression");
         }
-
-        if (valueSetIndex == VariableEnvironment.NO_VALUE_SET_SELECTED) {
-            // Cache results for all-value evaluation
-            expression.setComputedValues(resultValues);
-        } else {
-            // Cache result for single-value evaluation using the selected value set index
-            ComputedValues existingValues = expression.getComputedValues();
-            if (existingValues == null) {
-                existingValues = new ComputedValues(environment.getValueCount());
-                expression.setComputedValues(existingValues);
-            }
-
-            existingValues.values.set(valueSetIndex, resultValues.values.get(0));
-        }
-
-        if (traceExpressionId != -1 && expression.getID() == traceExpressionId) {
-            System.out.println(" ========== eval " + traceExpressionId + " end ");
-            environment.printLatestToLogger();
-
-            System.out.println(" ========== final result " + resultValues.values.get(0).toASTNode(false).toSolidityCode());
-
-            debugTrace = false;
-        }
-
-        if (debugTrace) {
-            System.out.println("cur result " + expression.toASTNode().toSolidityCode() + " = " + resultValues.values.get(0).toASTNode(false).toSolidityCode());
-        }
-
         return resultValues;
     }
 
@@ -456,6 +586,30 @@ public class ExpressionEvaluator {
         return new BytesValue(TypeContainer.getByteType(32), hash);
     }
 
+    // Apply an operator to single values outside of any variable environment, e.g. to interpret statements (see
+    // FullInterpreter). Operand types must already be compatible. Operations without a defined result, such as a
+    // division by zero, raise an ExpressionEvaluationException
+    public Value applyBinaryOperator(Value firstOperand,
+                                     ASTBinaryOperation.Operator operator,
+                                     Value secondOperand) throws Exception {
+        return evaluateBinaryOperator(firstOperand, operator, secondOperand, null, new Expression(secondOperand));
+    }
+
+    // Increment, decrement and delete update variables and are left to the caller
+    public Value applyUnaryOperator(ASTUnaryOperation.Operator operator, Value operand) throws Exception {
+        switch (operator) {
+            case OP_INC_PRE:
+            case OP_INC_POST:
+            case OP_DEC_PRE:
+            case OP_DEC_POST:
+            case OP_DELETE:
+                throw new Exception("ExpressionEvaluator.applyUnaryOperator: Unsupported operator " + operator);
+            default:
+                Expression operandExpression = new Expression(operand);
+                return evaluateUnaryOperator(null, operator, operand, operandExpression, operandExpression);
+        }
+    }
+
     protected ComputedValues evaluateKeccak256ForAll(ComputedValues stringValues) throws Exception {
         ComputedValues result = new ComputedValues();
 
@@ -477,16 +631,17 @@ public class ExpressionEvaluator {
                 resultBytes[i+2] = (byte)((hash & 0xff0000) >> 16);
                 resultBytes[i+3] = (byte)((hash & 0xff000000) >> 24);
             }
-            result.values.add(new BytesValue(TypeContainer.getByteType(32), resultBytes));
+            result.add(new BytesValue(TypeContainer.getByteType(32), resultBytes));
         }
        */
-        for (Value value : stringValues.values) {
+        for (int i = 0; i < stringValues.size(); ++i) {
+            Value value = stringValues.get(i);
             /*StringValue stringValue = (StringValue)value;
             byte[] hash = Hash.keccak256(stringValue.getValue().getBytes());
-            result.values.add(new BytesValue(TypeContainer.getByteType(32), hash));
+            result.add(new BytesValue(TypeContainer.getByteType(32), hash));
             */
             Value bytesResult = evaluateKeccak256ForOne((StringValue)value);
-            result.values.add(bytesResult);
+            result.add(bytesResult);
         }
         return result;
     }
@@ -496,22 +651,23 @@ public class ExpressionEvaluator {
                                                 ASTNode targetType) throws Exception {
         ComputedValues result = new ComputedValues();
 
-        for (Value value : operandValues.values) {
+        for (int i = 0; i < operandValues.size(); ++i) {
+            Value value = operandValues.get(i);
             if (Type.isIntegerType(sourceType) && Type.isIntegerType(targetType)) {
                 Value convertedValue = ((IntegerValue) value).convertToIntegerType((ASTElementaryTypeName) targetType);
-                result.values.add(convertedValue);
+                result.add(convertedValue);
             } else if (Type.isByteType(sourceType) && Type.isByteType(targetType)) {
                 Value convertedValue = ((BytesValue) value).convertToBytesType((ASTElementaryTypeName) targetType);
-                result.values.add(convertedValue);
+                result.add(convertedValue);
             } else if (Type.isByteType(sourceType) && Type.isIntegerType(targetType)) {
                 Value convertedValue = ((BytesValue) value).convertToIntegerType((ASTElementaryTypeName) targetType);
-                result.values.add(convertedValue);
+                result.add(convertedValue);
             } else if (Type.isIntegerType(sourceType) && Type.isByteType(targetType)) {
                 Value convertedValue = ((IntegerValue) value).convertToBytesType((ASTElementaryTypeName) targetType);
-                result.values.add(convertedValue);
+                result.add(convertedValue);
             } else if (Type.isIntegerType(sourceType) && Type.isAddressType(targetType)) {
                 Value convertedValue = ((IntegerValue)value).convertToAddressType();
-                result.values.add(convertedValue);
+                result.add(convertedValue);
             } else {
                 throw new Exception("Unimplemented cast from " + sourceType.toSolidityCode() + " to " + targetType.toSolidityCode());
             }
@@ -527,8 +683,8 @@ public class ExpressionEvaluator {
                                                                boolean reevaluating) throws Exception {
         ComputedValues result = new ComputedValues();
 
-        for (int i = 0; i < firstOperandValues.values.size(); ++i) {
-            Value conditionValue = firstOperandValues.values.get(0);
+        for (int i = 0; i < firstOperandValues.size(); ++i) {
+            Value conditionValue = firstOperandValues.get(0);
             if (!(conditionValue instanceof BoolValue)) {
                 throw new Exception("Conditional operator without bool condition " + " operand "
                         + firstOperand.toASTNode().toSolidityCode()
@@ -540,12 +696,12 @@ public class ExpressionEvaluator {
                 // Take true branch - evaluate corresponding expression
                 // (i = 0 if environment.isRecording() = true)
                 ComputedValues secondOperandValues = evaluate(environment, i, secondOperand, reevaluating);
-                result.values.add(secondOperandValues.values.get(0));
+                result.add(secondOperandValues.get(0));
             } else {
                 // Take false branch - evaluate corresponding branch expression
                 // (i = 0 if environment.isRecording() = true)
                 ComputedValues thirdOperandValues = evaluate(environment, i, thirdOperand, reevaluating);
-                result.values.add(thirdOperandValues.values.get(0));
+                result.add(thirdOperandValues.get(0));
             }
         }
         return result;
@@ -554,7 +710,8 @@ public class ExpressionEvaluator {
     protected ComputedValues evaluateMemberAccessForAll(ComputedValues operandValues,
                                                         ASTVariableDeclaration memberDeclaration) throws Exception {
         ComputedValues result = new ComputedValues();
-        for (Value value : operandValues.values) {
+        for (int i = 0; i < operandValues.size(); ++i) {
+            Value value = operandValues.get(i);
             if (!(value instanceof StructValue)) {
                 throw new Exception("Invalid member access to non-struct value");
             }
@@ -565,7 +722,7 @@ public class ExpressionEvaluator {
                 throw new Exception("Unknown struct member " + memberDeclaration.getName());
             }
 
-            result.values.add(memberValue);
+            result.add(memberValue);
         }
         return result;
     }
@@ -574,16 +731,16 @@ public class ExpressionEvaluator {
                                                        ComputedValues indexValues,
                                                        Expression debugIndexExpression) throws Exception {
         ComputedValues result = new ComputedValues();
-        for (int i = 0; i < operandValues.values.size(); ++i) {
-            if (!(operandValues.values.get(i) instanceof ArrayValue)) { // TODO Mappings
+        for (int i = 0; i < operandValues.size(); ++i) {
+            if (!(operandValues.get(i) instanceof ArrayValue)) { // TODO Mappings
                 throw new Exception("Invalid array subscript access to non-array value");
             }
-            if (!(indexValues.values.get(i) instanceof IntegerValue)) {
+            if (!(indexValues.get(i) instanceof IntegerValue)) {
                 throw new Exception("Invalid non-integer array subscript");
             }
 
-            ArrayValue arrayValue = (ArrayValue)operandValues.values.get(i);
-            IntegerValue indexValue = (IntegerValue)indexValues.values.get(i);
+            ArrayValue arrayValue = (ArrayValue)operandValues.get(i);
+            IntegerValue indexValue = (IntegerValue)indexValues.get(i);
             if (isNegativeInteger(indexValue) || indexValue.isGreaterThanOrEqualTo(arrayValue.length()).getValue()) {
                 throw new ExpressionEvaluationException(debugIndexExpression,
                                     ExpressionEvaluationException.ExceptionType.ExceptionType_ValueError_ArrayBounds,
@@ -591,7 +748,7 @@ public class ExpressionEvaluator {
             }
 
             Value elementValue = arrayValue.indexAccess(indexValue.toInt());
-            result.values.add(elementValue);
+            result.add(elementValue);
         }
         return result;
     }
@@ -649,38 +806,54 @@ public class ExpressionEvaluator {
         }
 
 
+        if (valueSetIndex == VariableEnvironment.NO_VALUE_SET_SELECTED && secondOperandValues != null) {
+            ComputedValues columnResult = evaluateBinaryOperatorForColumns(firstOperands, operator, secondOperandValues,
+                                                                           secondOperandExpression);
+            if (columnResult != null) {
+                return columnResult;
+            }
+            if (ParallelEvaluation.isApplicable(firstOperands.size())) {
+                ComputedValues parallelResult = evaluateBinaryOperatorInParallel(firstOperands, operator,
+                                                                                 secondOperandValues,
+                                                                                 secondOperandExpression);
+                if (parallelResult != null) {
+                    return parallelResult;
+                }
+            }
+        }
+
         int startIndex;
         int endIndex;
 
         if (valueSetIndex == VariableEnvironment.NO_VALUE_SET_SELECTED) {
             // Process all items
             startIndex = 0;
-            endIndex = firstOperands.values.size();
+            endIndex = firstOperands.size();
         } else {
             // Process a single specified item
             startIndex = valueSetIndex;
             endIndex = startIndex + 1;
         }
 
-        //for (int i = 0; i < firstOperands.values.size(); ++i) {
+        //for (int i = 0; i < firstOperands.size(); ++i) {
         for (int i = startIndex; i < endIndex; ++i) {
             // Support short-circuiting
-            if (operator == OP_LAND && ((BoolValue)firstOperands.values.get(i)).getValue() == false) {
+            if (operator == OP_LAND && ((BoolValue)firstOperands.get(i)).getValue() == false) {
                 // Result is already false - don't evaluate second operand
-                result.values.add(ValueContainer.getBoolValue(false));
-            } else if (operator == OP_LOR && ((BoolValue)firstOperands.values.get(i)).getValue() == true) {
+                result.add(ValueContainer.getBoolValue(false));
+            } else if (operator == OP_LOR && ((BoolValue)firstOperands.get(i)).getValue() == true) {
                 // Result is already true - don't evaluate second operand
-                result.values.add(ValueContainer.getBoolValue(true));
+                result.add(ValueContainer.getBoolValue(true));
             } else {
-                if (secondOperandValues == null || secondOperandValues.values.get(i) == null) {
+                if (secondOperandValues == null || secondOperandValues.get(i) == null) {
                     // Evaluate this single current second operand item before we can use its value
                     // (i = 0 for environment.isRecordingChanges() = true)
                     ComputedValues currentSecondOperandValue = evaluate(environment, i, secondOperandExpression, reevaluating);
 
-                    result.values.add(evaluateBinaryOperator(firstOperands.values.get(i), operator, currentSecondOperandValue.values.get(0),
+                    result.add(evaluateBinaryOperator(firstOperands.get(i), operator, currentSecondOperandValue.get(0),
                                                             secondOperandValues, secondOperandExpression));
                 } else {
-                    result.values.add(evaluateBinaryOperator(firstOperands.values.get(i), operator, secondOperandValues.values.get(i),
+                    result.add(evaluateBinaryOperator(firstOperands.get(i), operator, secondOperandValues.get(i),
                                                             secondOperandValues, secondOperandExpression));
                 }
             }
@@ -689,6 +862,101 @@ public class ExpressionEvaluator {
         return result;
     }
 
+    // Apply the operator to column representations of both operands, if available (see ValueLanes), or return null.
+    // Undefined operations are reported for the first failing value set like in evaluateBinaryOperator()
+    protected ComputedValues evaluateBinaryOperatorForColumns(ComputedValues firstOperands,
+                                                              ASTBinaryOperation.Operator operator,
+                                                              ComputedValues secondOperands,
+                                                              Expression debugSecondOperandExpression) throws Exception {
+        ValueLanes firstLanes = firstOperands.getLanes();
+        ValueLanes secondLanes = firstLanes != null ? secondOperands.getLanes() : null;
+        if (secondLanes == null || !ValueLanes.supportsBinaryOperator(firstLanes, operator, secondLanes)) {
+            return null;
+        }
+        if (secondLanes.holdsIntegers()) {
+            int errorLane = ValueLanes.findErrorLane(operator, secondLanes);
+            if (errorLane != ValueLanes.NO_ERROR_LANE) {
+                // Produces the exception for the failing value set
+                evaluateBinaryOperator(firstOperands.get(errorLane), operator, secondOperands.get(errorLane),
+                                       secondOperands, debugSecondOperandExpression);
+                throw new Exception("ExpressionEvaluator.evaluateBinaryOperatorForColumns: Missing error for " + operator);
+            }
+        }
+        return new ComputedValues(ValueLanes.applyBinaryOperator(firstLanes, operator, secondLanes));
+    }
+
+    // Bool results are shared values, which are created on first use. Create them before the value sets are
+    // evaluated on several threads, which must not create values or types (see ParallelEvaluation)
+    protected void createSharedBoolValues() throws Exception {
+        ValueContainer.getBoolValue(false);
+    }
+
+    // Apply the operator to all value sets on several threads (see ParallelEvaluation), or return null if it is
+    // unsupported or undefined for some value set. These are left to sequential evaluation, which reports the
+    // first failing value set
+    protected ComputedValues evaluateBinaryOperatorInParallel(final ComputedValues firstOperands,
+                                                              final ASTBinaryOperation.Operator operator,
+                                                              final ComputedValues secondOperands,
+                                                              final Expression debugSecondOperandExpression) throws Exception {
+        if (secondOperands.size() < firstOperands.size()) {
+            return null;
+        }
+        final Value[] firstValues = new Value[firstOperands.size()];
+        final Value[] secondValues = new Value[firstOperands.size()];
+        for (int i = 0; i < firstValues.length; ++i) {
+            firstValues[i] = firstOperands.get(i);
+            secondValues[i] = secondOperands.get(i);
+            if (!isDefinedBinaryOperation(firstValues[i], operator, secondValues[i])) {
+                return null;
+            }
+        }
+        createSharedBoolValues();
+
+        return new ComputedValues(ParallelEvaluation.apply(firstValues.length, new ParallelEvaluation.LaneOperation() {
+            @Override
+            public Value apply(int index) throws Exception {
+                return evaluateBinaryOperator(firstValues[index], operator, secondValues[index],
+                                              secondOperands, debugSecondOperandExpression);
+            }
+        }));
+    }
+
+    // Whether evaluateBinaryOperator() computes a result for integer or bool operands without an error
+    protected boolean isDefinedBinaryOperation(Value firstOperand,
+                                               ASTBinaryOperation.Operator operator,
+                                               Value secondOperand) throws Exception {
+        if (firstOperand instanceof IntegerValue && secondOperand instanceof IntegerValue) {
+            ASTElementaryTypeName firstType = (ASTElementaryTypeName)firstOperand.getType();
+            ASTElementaryTypeName secondType = (ASTElementaryTypeName)secondOperand.getType();
+            if (firstType.isSigned() != secondType.isSigned() || firstType.getBits() != secondType.getBits()) {
+                return false;
+            }
+            switch (operator) {
+                case OP_DIV:
+                case OP_MOD:
+                    return !isZeroInteger((IntegerValue)secondOperand);
+                case OP_EXP:
+                case OP_BSHL:
+                case OP_BSHR:
+                    return !isNegativeInteger((IntegerValue)secondOperand);
+                case OP_PLUS: case OP_MINUS: case OP_MUL:
+                case OP_EQ: case OP_NEQ: case OP_GT: case OP_LT: case OP_GTE: case OP_LTE:
+                case OP_BOR: case OP_BAND: case OP_BXOR:
+                    return true;
+                default:
+                    return false;
+            }
+        } else if (firstOperand instanceof BoolValue && secondOperand instanceof BoolValue) {
+            switch (operator) {
+                case OP_EQ: case OP_NEQ: case OP_GT: case OP_LT: case OP_GTE: case OP_LTE:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return false;
+    }
+
     protected boolean isNegativeInteger(IntegerValue value) throws Exception {
         return Type.isSignedIntegerType(value.getType())
             && value.isSmallerThan(ValueContainer.getSmallIntegerValue(value.getType(), 0)).getValue();
@@ -891,13 +1159,48 @@ public class ExpressionEvaluator {
         }
     }
 
-    protected ComputedValues evaluateUnaryOperatorForAll(VariableEnvironment environment,
-                                                         ASTUnaryOperation.Operator operator,
-                                                         ComputedValues operands,
-                                                         Expression debugOperandExpression) throws Exception {
+    protected ComputedValues evaluateUnaryOperatorForAll(final VariableEnvironment environment,
+                                                         final ASTUnaryOperation.Operator operator,
+                                                         final ComputedValues operands,
+                                                         final Expression operandSourceExpression,
+                                                         final Expression debugOperandExpression) throws Exception {
+        if (operator != ASTUnaryOperation.Operator.OP_INC_PRE && operator != ASTUnaryOperation.Operator.OP_INC_POST
+                && operator != ASTUnaryOperation.Operator.OP_DEC_PRE && operator != OP_DEC_POST) {
+            // No side effects - apply to the column if supported
+            if (operands.getLanes() != null) {
+                ValueLanes resultLanes = ValueLanes.applyUnaryOperator(operator, operands.getLanes());
+                if (resultLanes != null) {
+                    return new ComputedValues(resultLanes);
+                }
+            }
+            // ... or to all value sets on several threads
+            if (ParallelEvaluation.isApplicable(operands.size())) {
+                final Value[] values = new Value[operands.size()];
+                boolean defined = true;
+                for (int i = 0; i < values.length && defined; ++i) {
+                    values[i] = operands.get(i);
+                    defined = values[i] instanceof IntegerValue
+                                ? operator == ASTUnaryOperation.Operator.OP_MINUS || operator == OP_BNEG
+                                    || operator == ASTUnaryOperation.Operator.OP_PLUS
+                                : values[i] instanceof BoolValue && operator == ASTUnaryOperation.Operator.OP_LNEG;
+                }
+                if (defined) {
+                    createSharedBoolValues();
+                    return new ComputedValues(ParallelEvaluation.apply(values.length, new ParallelEvaluation.LaneOperation() {
+                        @Override
+                        public Value apply(int index) throws Exception {
+                            return evaluateUnaryOperator(environment, operator, values[index],
+                                                         operandSourceExpression, debugOperandExpression);
+                        }
+                    }));
+                }
+            }
+        }
+
         ComputedValues result = new ComputedValues();
-        for (Value value : operands.values) {
-            result.values.add( evaluateUnaryOperator(environment, operator, value, operands.sourceExpression, debugOperandExpression) );
+        for (int i = 0; i < operands.size(); ++i) {
+            Value value = operands.get(i);
+            result.add( evaluateUnaryOperator(environment, operator, value, operandSourceExpression, debugOperandExpression) );
         }
         return result;
     }
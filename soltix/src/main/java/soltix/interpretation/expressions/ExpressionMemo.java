@@ -0,0 +1,259 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.expressions;
+
+import soltix.ast.ASTBinaryOperation;
+import soltix.ast.ASTUnaryOperation;
+import soltix.interpretation.values.BoolValue;
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.values.Value;
+import soltix.interpretation.variables.Variable;
+import soltix.interpretation.variables.VariableEnvironment;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memo table for the results of side-effect-free expressions, shared between structurally equal expressions.
+ *
+ * Expressions are hash-consed to node numbers: two expressions get the same node number if they apply the same
+ * operator to operands with the same node numbers, or refer to the same variable or an equal constant. Results
+ * for all value sets of an environment are stored by node number and environment, so that structurally equal
+ * sub-expressions of different candidate expressions are evaluated once. Expressions containing side effects
+ * (increment/decrement) or function calls have no node number.
+ *
+ * Expression objects themselves remain distinct, since they carry state of their own (IDs, output aliases, and
+ * operand replacements for evaluation errors). Node numbers are cached in the expressions, and invalidated for all
+ * expressions if an operand is replaced (see Expression.updateSecondOperand()). Stored results are discarded when
+ * their environment is modified. The memo is bounded by the number of environments and results per environment.
+ */
+class ExpressionMemo {
+    static final int NO_NODE = -1;
+    static private final int MAX_NODES = 1 << 16;
+    static private final int MAX_ENVIRONMENTS = 8;
+    static private final int MAX_RESULTS_PER_ENVIRONMENT = 4096;
+
+    static private final int KIND_VARIABLE = 0;
+    static private final int KIND_CONSTANT = 1;
+    static private final int KIND_BINARY = 2;
+    static private final int KIND_UNARY = 3;
+    static private final int KIND_CONDITIONAL = 4;
+    static private final int KIND_MEMBER_ACCESS = 5;
+    static private final int KIND_INDEX_ACCESS = 6;
+    static private final int KIND_CAST = 7;
+
+    static private final AtomicLong structureVersion = new AtomicLong();
+
+    // Called when an expression's operands change
+    static void structureModified() {
+        structureVersion.incrementAndGet();
+    }
+
+    // Hash-consing table. Node numbers are only valid for one generation, which ends when the table is cleared
+    private Object generation = new Object();
+    private HashMap<NodeKey, Integer> nodes = new HashMap<NodeKey, Integer>();
+    // Nodes which evaluate without value errors, in the same way for all value sets as for a single one
+    private BitSet totalNodes = new BitSet();
+
+    private LinkedHashMap<VariableEnvironment, EnvironmentResults> results
+            = new LinkedHashMap<VariableEnvironment, EnvironmentResults>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<VariableEnvironment, EnvironmentResults> eldest) {
+            return size() > MAX_ENVIRONMENTS;
+        }
+    };
+
+    private long hits = 0;
+    private long misses = 0;
+
+    static private class NodeKey {
+        private final int kind;
+        private final Object item;   // Operator, variable, type or constant, compared with equals()
+        private final Object detail; // Constant value
+        private final int[] operands;
+        private final int hash;
+
+        NodeKey(int kind, Object item, Object detail, int[] operands) {
+            this.kind = kind;
+            this.item = item;
+            this.detail = detail;
+            this.operands = operands;
+            int hash = kind;
+            hash = 31 * hash + (item == null ? 0 : item.hashCode());
+            hash = 31 * hash + (detail == null ? 0 : detail.hashCode());
+            this.hash = 31 * hash + Arrays.hashCode(operands);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof NodeKey)) {
+                return false;
+            }
+            NodeKey otherKey = (NodeKey)other;
+            return kind == otherKey.kind
+                    && (item == null ? otherKey.item == null : item.equals(otherKey.item))
+                    && (detail == null ? otherKey.detail == null : detail.equals(otherKey.detail))
+                    && Arrays.equals(operands, otherKey.operands);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    static private class EnvironmentResults {
+        private final int modificationCount;
+        private final HashMap<Integer, ExpressionEvaluator.ComputedValues> values = new HashMap<Integer, ExpressionEvaluator.ComputedValues>();
+
+        EnvironmentResults(int modificationCount) {
+            this.modificationCount = modificationCount;
+        }
+    }
+
+    // Return the node number of a side-effect-free expression, or NO_NODE
+    int getNode(Expression expression) throws Exception {
+        if (nodes.size() >= MAX_NODES) {
+            clear();
+        }
+        return lookupNode(expression);
+    }
+
+    private int lookupNode(Expression expression) throws Exception {
+        if (expression.getExpressionAlias() != null) {
+            return lookupNode(expression.getExpressionAlias());
+        }
+        long currentStructureVersion = structureVersion.get();
+        if (expression.memoGeneration == generation && expression.memoStructureVersion == currentStructureVersion) {
+            return expression.memoNode;
+        }
+        int node = computeNode(expression);
+        expression.memoNode = node;
+        expression.memoGeneration = generation;
+        expression.memoStructureVersion = currentStructureVersion;
+        return node;
+    }
+
+    boolean isTotal(int node) {
+        return totalNodes.get(node);
+    }
+
+    private int computeNode(Expression expression) throws Exception {
+        if (expression.getBinaryOperator() != null) {
+            ASTBinaryOperation.Operator operator = expression.getBinaryOperator();
+            boolean total = operator != ASTBinaryOperation.Operator.OP_DIV && operator != ASTBinaryOperation.Operator.OP_MOD
+                    && operator != ASTBinaryOperation.Operator.OP_EXP && operator != ASTBinaryOperation.Operator.OP_BSHL
+                    && operator != ASTBinaryOperation.Operator.OP_BSHR;
+            return internNode(KIND_BINARY, operator, null, total, expression.getFirstOperand(), expression.getSecondOperand());
+        } else if (expression.getUnaryOperator() != null) {
+            ASTUnaryOperation.Operator operator = expression.getUnaryOperator();
+            if (operator == ASTUnaryOperation.Operator.OP_INC_PRE || operator == ASTUnaryOperation.Operator.OP_INC_POST
+                    || operator == ASTUnaryOperation.Operator.OP_DEC_PRE || operator == ASTUnaryOperation.Operator.OP_DEC_POST) {
+                return NO_NODE;
+            }
+            return internNode(KIND_UNARY, operator, null, true, expression.getFirstOperand());
+        } else if (expression.getConditionalOperator()) {
+            // Branches are evaluated for individual value sets
+            return internNode(KIND_CONDITIONAL, null, null, false,
+                    expression.getFirstOperand(), expression.getSecondOperand(), expression.getThirdOperand());
+        } else if (expression.getMemberAccess() != null) {
+            return internNode(KIND_MEMBER_ACCESS, expression.getMemberAccess(), null, true, expression.getFirstOperand());
+        } else if (expression.getIndexAccess() != null) {
+            return internNode(KIND_INDEX_ACCESS, null, null, false, expression.getFirstOperand(), expression.getIndexAccess());
+        } else if (expression.getCastExpressionType() != null) {
+            return internNode(KIND_CAST, expression.getCastExpressionType(), null, true, expression.getFirstOperand());
+        } else if (expression.getValue() instanceof Variable) {
+            return internNode(KIND_VARIABLE, expression.getValue(), null, true);
+        } else if (expression.getValue() instanceof IntegerValue) {
+            // Constants of the same type node are equal, so that results have the same type
+            return internNode(KIND_CONSTANT, expression.getValue().getType(), expression.getValue().toString(), true);
+        } else if (expression.getValue() instanceof BoolValue) {
+            return internNode(KIND_CONSTANT, null, ((BoolValue)expression.getValue()).getValue(), true);
+        } else if (expression.getValue() != null) {
+            return internNode(KIND_CONSTANT, expression.getValue(), null, true);
+        } else {
+            // Function calls and assignments
+            return NO_NODE;
+        }
+    }
+
+    private int internNode(int kind, Object item, Object detail, boolean total, Expression... operands) throws Exception {
+        int[] operandNodes = new int[operands.length];
+        for (int i = 0; i < operands.length; ++i) {
+            operandNodes[i] = lookupNode(operands[i]);
+            if (operandNodes[i] == NO_NODE) {
+                return NO_NODE;
+            }
+            total = total && totalNodes.get(operandNodes[i]);
+        }
+        NodeKey key = new NodeKey(kind, item, detail, operandNodes);
+        Integer node = nodes.get(key);
+        if (node == null) {
+            node = nodes.size();
+            nodes.put(key, node);
+            totalNodes.set(node, total);
+        }
+        return node;
+    }
+
+    // Return the stored results of a node for all value sets of the environment, or null
+    ExpressionEvaluator.ComputedValues get(VariableEnvironment environment, int node) {
+        EnvironmentResults environmentResults = getEnvironmentResults(environment);
+        ExpressionEvaluator.ComputedValues values = environmentResults.values.get(node);
+        if (values != null) {
+            ++hits;
+        } else {
+            ++misses;
+        }
+        return values;
+    }
+
+    void put(VariableEnvironment environment, int node, ExpressionEvaluator.ComputedValues values) {
+        EnvironmentResults environmentResults = getEnvironmentResults(environment);
+        if (environmentResults.values.size() >= MAX_RESULTS_PER_ENVIRONMENT) {
+            environmentResults.values.clear();
+        }
+        environmentResults.values.put(node, values);
+    }
+
+    private EnvironmentResults getEnvironmentResults(VariableEnvironment environment) {
+        EnvironmentResults environmentResults = results.get(environment);
+        if (environmentResults == null || environmentResults.modificationCount != environment.getModificationCount()) {
+            environmentResults = new EnvironmentResults(environment.getModificationCount());
+            results.put(environment, environmentResults);
+        }
+        return environmentResults;
+    }
+
+    private void clear() {
+        generation = new Object();
+        nodes.clear();
+        totalNodes.clear();
+        results.clear();
+    }
+
+    long getHitCount() { return hits; }
+    long getMissCount() { return misses; }
+}
@@ -55,7 +55,7 @@ public class ExpressionTypeChecker {
             case OP_DEC_PRE:
             case OP_INC_POST:
             case OP_INC_PRE:
-                if (Configuration.avoidGeneratingSubexpressionSideEffects) {
+                if (Configuration.current().avoidGeneratingSubexpressionSideEffects) {
                     return true; // we don't want side effects - undefined
                 }
                 // These operators may only be applied to modifiable (non-costant) variables or array subscripts on
@@ -108,7 +108,7 @@ public class ExpressionTypeChecker {
                     return v.getDeclaration().isConstant();
                 }*/
             case OP_PLUS:
-                if (Configuration.languageVersionMinor >= 5) {
+                if (Configuration.current().languageVersionMinor >= 5) {
                     return true; // Unary plus is no longer allowed in 0.5.x
 		}
             case OP_MINUS:
@@ -162,7 +162,7 @@ public class ExpressionTypeChecker {
                 }
 
                 if (operator == OP_EXP) {
-                    if (Configuration.ganacheOptimizationWorkarounds || Configuration.avoidExponentialOperator) {
+                    if (Configuration.current().ganacheOptimizationWorkarounds || Configuration.current().avoidExponentialOperator) {
                         return true;
                     }
                     // The operands must be unigned
@@ -189,7 +189,7 @@ public class ExpressionTypeChecker {
                 // Bitwise, shift
             case OP_BSHL: // <<
             case OP_BSHR: // >>
-                if (Configuration.ganacheOptimizationWorkarounds || Configuration.avoidShiftOperators) {
+                if (Configuration.current().ganacheOptimizationWorkarounds || Configuration.current().avoidShiftOperators) {
                     return true; //if (operator == OP_BSHR) return true; // is undefined
                 }
 
@@ -240,7 +240,7 @@ public class ExpressionTypeChecker {
                         }
                     } else {
                         // Relational operator applied to booleans - this is OK only prior to 0.5.x
-                        if (Configuration.languageVersionMinor >= 5) {
+                        if (Configuration.current().languageVersionMinor >= 5) {
                             return true; // is undefined 
 		        }
                     }
@@ -250,7 +250,7 @@ public class ExpressionTypeChecker {
             // Logical
             case OP_LOR: // ||
             case OP_LAND: // &&
-                if (Configuration.avoidLogicalAndConditionalOperators) {
+                if (Configuration.current().avoidLogicalAndConditionalOperators) {
                     return true;
                 }
                 if (!Type.isBoolType(firstOperand.getType()) || !Type.isBoolType(secondOperand.getType())) {
@@ -56,7 +56,7 @@ public class ExpressionTypeConverter {
     public void run(VariableEnvironment environment, RandomNumbers prng) throws Exception {
         // Most distinct types aren't compatible for any operations, so we convert one operand to the
         // other type (typically not preserving any semblance to the original value)
-        if (Configuration.verboseDebugOutput) System.out.println("    FIRST OPERAND " + firstOperand.toASTNode().toSolidityCode() + "   SECOND   " + secondOperand.toASTNode().toSolidityCode());
+        if (Configuration.current().verboseDebugOutput) System.out.println("    FIRST OPERAND " + firstOperand.toASTNode().toSolidityCode() + "   SECOND   " + secondOperand.toASTNode().toSolidityCode());
 
         // TODO Move all conversions below to TypeConverter?
         // TODO The type conversions here are pretty ad-hoc, e.g. in byte+integer being allowed for shifts.
@@ -83,8 +83,8 @@ public class ExpressionTypeConverter {
             }
         } else if (Type.isByteType(firstOperand.getType())
                 && Type.isIntegerType(secondOperand.getType())
-                && !Configuration.ganacheOptimizationWorkarounds
-                && !Configuration.avoidShiftOperators
+                && !Configuration.current().ganacheOptimizationWorkarounds
+                && !Configuration.current().avoidShiftOperators
                 && prng.flipCoin()) {
             // This enables bitwise shift operators. The flipCoin() above is mixed in to permit this only
             // half the time and convert the second operand otherwise. This reduces the bias on shift
@@ -0,0 +1,140 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.expressions;
+
+import soltix.Configuration;
+import soltix.SoltixContext;
+import soltix.interpretation.values.Value;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluation of an operation for all value sets on several threads, for environments with at least
+ * Configuration.parallelEvaluationThreshold value sets.
+ *
+ * The value set index range is split into fork/join tasks on the common pool, and every result is stored at its
+ * value set index, so the results are the same as for sequential evaluation. If value sets fail, the exception for
+ * the first of them is rethrown. The operation runs with the caller's SoltixContext. It must not modify shared
+ * state: ExpressionEvaluator only uses this for operators without side effects on values that have already been
+ * computed, and for which no types or AST nodes are created (these would allocate node IDs in a nondeterministic
+ * order).
+ */
+final class ParallelEvaluation {
+    // Fewest value sets evaluated by one task
+    static final int MIN_TASK_SIZE = 1024;
+
+    interface LaneOperation {
+        Value apply(int index) throws Exception;
+    }
+
+    private ParallelEvaluation() {
+    }
+
+    static boolean isApplicable(int valueCount) {
+        int threshold = Configuration.current().parallelEvaluationThreshold;
+        return threshold > 0 && valueCount >= threshold;
+    }
+
+    static Value[] apply(int valueCount, LaneOperation operation) throws Exception {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Value[] results = new Value[valueCount];
+        int taskSize = Math.max(MIN_TASK_SIZE, valueCount / (4 * pool.getParallelism()));
+        Failure failure = new Failure();
+
+        pool.invoke(new RangeTask(SoltixContext.current(), operation, results, failure, 0, valueCount, taskSize));
+        if (failure.exception != null) {
+            throw failure.exception;
+        }
+        return results;
+    }
+
+    // Exception for the value set with the lowest index that failed
+    private static class Failure {
+        private int index = Integer.MAX_VALUE;
+        private Exception exception = null;
+
+        synchronized void record(int failedIndex, Exception failedException) {
+            if (failedIndex < index) {
+                index = failedIndex;
+                exception = failedException;
+            }
+        }
+
+        synchronized boolean precedes(int firstIndex) {
+            return index < firstIndex;
+        }
+    }
+
+    private static class RangeTask extends RecursiveAction {
+        private final SoltixContext context;
+        private final LaneOperation operation;
+        private final Value[] results;
+        private final Failure failure;
+        private final int from;
+        private final int to;
+        private final int taskSize;
+
+        RangeTask(SoltixContext context, LaneOperation operation, Value[] results, Failure failure,
+                  int from, int to, int taskSize) {
+            this.context = context;
+            this.operation = operation;
+            this.results = results;
+            this.failure = failure;
+            this.from = from;
+            this.to = to;
+            this.taskSize = taskSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > taskSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(context, operation, results, failure, from, middle, taskSize),
+                          new RangeTask(context, operation, results, failure, middle, to, taskSize));
+                return;
+            }
+            if (failure.precedes(from)) {
+                // An earlier value set failed already, which is the one reported
+                return;
+            }
+            try {
+                context.callAttached(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = from; i < to; ++i) {
+                            try {
+                                results[i] = operation.apply(i);
+                            } catch (Exception e) {
+                                failure.record(i, e);
+                                return null;
+                            }
+                        }
+                        return null;
+                    }
+                });
+            } catch (Exception e) {
+                failure.record(from, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.expressions;
+
+import soltix.Configuration;
+import soltix.ast.ASTBinaryOperation;
+import soltix.ast.ASTElementaryTypeName;
+import soltix.ast.ASTUnaryOperation;
+import soltix.interpretation.values.BoolValue;
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.values.Value;
+import soltix.interpretation.values.ValueContainer;
+
+import java.util.ArrayList;
+
+/**
+ * Column of computed values for all value sets, held as primitives: one long per value for integers of a type of
+ * at most 64 bits (63 for unsigned types, so that all values fit), or one boolean per value for bools.
+ *
+ * Integer columns only hold values within the range of their type, so that operators can be applied like in the
+ * EVM by computing on longs and truncating the result to the type's bits. This gives the same results as the
+ * corresponding IntegerValue operations. Operators that are not supported here (e.g. **, or operand types
+ * without a column representation) yield null, so that the caller falls back to evaluating Value objects.
+ */
+final class ValueLanes {
+    // Marker for operations without a failing lane, see findErrorLane()
+    static final int NO_ERROR_LANE = -1;
+
+    private final ASTElementaryTypeName integerType; // null for bool columns
+    private final long[] integers;
+    private final boolean[] bools;
+
+    private ValueLanes(ASTElementaryTypeName integerType, long[] integers) {
+        this.integerType = integerType;
+        this.integers = integers;
+        this.bools = null;
+    }
+
+    private ValueLanes(boolean[] bools) {
+        this.integerType = null;
+        this.integers = null;
+        this.bools = bools;
+    }
+
+    int size() { return integers != null ? integers.length : bools.length; }
+
+    boolean holdsIntegers() { return integers != null; }
+
+    // Create a column from boxed values, or return null if they cannot be represented as one. All integers
+    // must have the same type node, so that values created by createValue() have the type of the original ones
+    static ValueLanes fromValues(ArrayList<Value> values) throws Exception {
+        if (values.isEmpty()) {
+            return null;
+        }
+        Value firstValue = values.get(0);
+        if (firstValue instanceof IntegerValue) {
+            ASTElementaryTypeName type = (ASTElementaryTypeName)firstValue.getType();
+            if (type.getBits() > (type.isSigned() ? 64 : 63)) {
+                return null;
+            }
+            long[] integers = new long[values.size()];
+            Value previousValue = null;
+            for (int i = 0; i < integers.length; ++i) {
+                Value value = values.get(i);
+                if (value == previousValue) {
+                    // Constants are repeated for all value sets
+                    integers[i] = integers[i - 1];
+                    continue;
+                }
+                if (!(value instanceof IntegerValue) || value.getType() != type) {
+                    return null;
+                }
+                IntegerValue integerValue = (IntegerValue)value;
+                if (!integerValue.fitsInLong()) {
+                    return null;
+                }
+                long longValue = integerValue.toLong();
+                if (truncate(type.getBits(), type.isSigned(), longValue) != longValue) {
+                    // Out of range for the type
+                    return null;
+                }
+                integers[i] = longValue;
+                previousValue = value;
+            }
+            return new ValueLanes(type, integers);
+        } else if (firstValue instanceof BoolValue) {
+            boolean[] bools = new boolean[values.size()];
+            for (int i = 0; i < bools.length; ++i) {
+                Value value = values.get(i);
+                if (!(value instanceof BoolValue)) {
+                    return null;
+                }
+                bools[i] = ((BoolValue)value).getValue();
+            }
+            return new ValueLanes(bools);
+        } else {
+            return null;
+        }
+    }
+
+    Value createValue(int index) throws Exception {
+        if (integers != null) {
+            return new IntegerValue(integerType, integers[index]);
+        } else {
+            return ValueContainer.getBoolValue(bools[index]);
+        }
+    }
+
+    // Wrap a value around to the type's bits, like IntegerValue results
+    static private long truncate(int bits, boolean signed, long value) {
+        int shift = 64 - bits;
+        return signed ? (value << shift) >> shift : (value << shift) >>> shift;
+    }
+
+    // Whether the binary operator can be applied to these columns by applyBinaryOperator()
+    static boolean supportsBinaryOperator(ValueLanes first, ASTBinaryOperation.Operator operator, ValueLanes second) throws Exception {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        if (first.integers != null && second.integers != null) {
+            if (first.integerType.isSigned() != second.integerType.isSigned()
+                    || first.integerType.getBits() != second.integerType.getBits()) {
+                // Left to the Value evaluation to report
+                return false;
+            }
+            switch (operator) {
+                case OP_PLUS: case OP_MINUS: case OP_MUL: case OP_DIV: case OP_MOD:
+                case OP_EQ: case OP_NEQ: case OP_GT: case OP_LT: case OP_GTE: case OP_LTE:
+                case OP_BOR: case OP_BAND: case OP_BXOR: case OP_BSHL: case OP_BSHR:
+                    return true;
+                default:
+                    return false;
+            }
+        } else if (first.bools != null && second.bools != null) {
+            return operator == ASTBinaryOperation.Operator.OP_EQ || operator == ASTBinaryOperation.Operator.OP_NEQ;
+        } else {
+            return false;
+        }
+    }
+
+    // Return the first lane for which the operator is undefined - a zero divisor for / and %, or a negative shift
+    // bit count - or NO_ERROR_LANE
+    static int findErrorLane(ASTBinaryOperation.Operator operator, ValueLanes second) {
+        long[] operands = second.integers;
+        switch (operator) {
+            case OP_DIV:
+            case OP_MOD:
+                for (int i = 0; i < operands.length; ++i) {
+                    if (operands[i] == 0) {
+                        return i;
+                    }
+                }
+                break;
+            case OP_BSHL:
+            case OP_BSHR:
+                for (int i = 0; i < operands.length; ++i) {
+                    if (operands[i] < 0) {
+                        return i;
+                    }
+                }
+                break;
+        }
+        return NO_ERROR_LANE;
+    }
+
+    // Apply a supported binary operator, see supportsBinaryOperator(). findErrorLane() must not have found an
+    // error lane
+    static ValueLanes applyBinaryOperator(ValueLanes first, ASTBinaryOperation.Operator operator, ValueLanes second) throws Exception {
+        int count = first.size();
+        if (first.bools != null) {
+            boolean[] x = first.bools;
+            boolean[] y = second.bools;
+            boolean[] result = new boolean[count];
+            boolean equal = operator == ASTBinaryOperation.Operator.OP_EQ;
+            for (int i = 0; i < count; ++i) {
+                result[i] = (x[i] == y[i]) == equal;
+            }
+            return new ValueLanes(result);
+        }
+
+        long[] x = first.integers;
+        long[] y = second.integers;
+        ASTElementaryTypeName type = first.integerType;
+        int bits = type.getBits();
+        boolean signed = type.isSigned();
+        boolean[] boolResult = null;
+        long[] result = null;
+        switch (operator) {
+            case OP_EQ:
+                boolResult = new boolean[count];
+                for (int i = 0; i < count; ++i) boolResult[i] = x[i] == y[i];
+                break;
+            case OP_NEQ:
+                boolResult = new boolean[count];
+                for (int i = 0; i < count; ++i) boolResult[i] = x[i] != y[i];
+                break;
+            case OP_GT:
+                boolResult = new boolean[count];
+                for (int i = 0; i < count; ++i) boolResult[i] = x[i] > y[i];
+                break;
+            case OP_LT:
+                boolResult = new boolean[count];
+                for (int i = 0; i < count; ++i) boolResult[i] = x[i] < y[i];
+                break;
+            case OP_GTE:
+                boolResult = new boolean[count];
+                for (int i = 0; i < count; ++i) boolResult[i] = x[i] >= y[i];
+                break;
+            case OP_LTE:
+                boolResult = new boolean[count];
+                for (int i = 0; i < count; ++i) boolResult[i] = x[i] <= y[i];
+                break;
+            case OP_PLUS:
+                result = new long[count];
+                for (int i = 0; i < count; ++i) result[i] = truncate(bits, signed, x[i] + y[i]);
+                break;
+            case OP_MINUS:
+                result = new long[count];
+                for (int i = 0; i < count; ++i) result[i] = truncate(bits, signed, x[i] - y[i]);
+                break;
+            case OP_MUL:
+                result = new long[count];
+                for (int i = 0; i < count; ++i) result[i] = truncate(bits, signed, x[i] * y[i]);
+                break;
+            case OP_DIV:
+                // Rounds towards zero, and MIN / -1 wraps around to MIN
+                result = new long[count];
+                for (int i = 0; i < count; ++i) result[i] = truncate(bits, signed, x[i] / y[i]);
+                break;
+            case OP_MOD:
+                // The remainder has the sign of the dividend
+                result = new long[count];
+                for (int i = 0; i < count; ++i) result[i] = x[i] % y[i];
+                break;
+            case OP_BOR:
+                result = new long[count];
+                for (int i = 0; i < count; ++i) result[i] = truncate(bits, signed, x[i] | y[i]);
+                break;
+            case OP_BAND:
+                result = new long[count];
+                for (int i = 0; i < count; ++i) result[i] = truncate(bits, signed, x[i] & y[i]);
+                break;
+            case OP_BXOR:
+                result = new long[count];
+                for (int i = 0; i < count; ++i) result[i] = truncate(bits, signed, x[i] ^ y[i]);
+                break;
+            case OP_BSHL:
+                result = new long[count];
+                for (int i = 0; i < count; ++i) result[i] = y[i] >= 64 ? 0 : truncate(bits, signed, x[i] << y[i]);
+                break;
+            case OP_BSHR:
+                // See IntegerValue.bitwiseShiftRight() on signed shifts
+                result = new long[count];
+                boolean arithmeticShift = Configuration.current().languageVersionMinor >= 5;
+                for (int i = 0; i < count; ++i) {
+                    if (x[i] >= 0) {
+                        result[i] = y[i] >= 64 ? 0 : x[i] >>> y[i];
+                    } else if (arithmeticShift) {
+                        result[i] = x[i] >> Math.min(y[i], 63);
+                    } else {
+                        result[i] = y[i] >= 64 ? 0 : truncate(bits, signed, -((-x[i]) >>> y[i]));
+                    }
+                }
+                break;
+            default:
+                return null;
+        }
+        return boolResult != null ? new ValueLanes(boolResult) : new ValueLanes(type, result);
+    }
+
+    // Apply a unary operator without side effects, or return null if it is not supported for the column
+    static ValueLanes applyUnaryOperator(ASTUnaryOperation.Operator operator, ValueLanes operand) throws Exception {
+        int count = operand.size();
+        if (operand.bools != null) {
+            if (operator != ASTUnaryOperation.Operator.OP_LNEG) {
+                return null;
+            }
+            boolean[] result = new boolean[count];
+            for (int i = 0; i < count; ++i) result[i] = !operand.bools[i];
+            return new ValueLanes(result);
+        }
+
+        long[] x = operand.integers;
+        ASTElementaryTypeName type = operand.integerType;
+        int bits = type.getBits();
+        boolean signed = type.isSigned();
+        long[] result;
+        switch (operator) {
+            case OP_PLUS:
+                return operand;
+            case OP_MINUS:
+                // For unsigned types, -60 = 196 for uint8, and for signed types -MIN = MIN
+                result = new long[count];
+                for (int i = 0; i < count; ++i) result[i] = truncate(bits, signed, -x[i]);
+                break;
+            case OP_BNEG:
+                result = new long[count];
+                for (int i = 0; i < count; ++i) result[i] = truncate(bits, signed, ~x[i]);
+                break;
+            default:
+                return null;
+        }
+        return new ValueLanes(type, result);
+    }
+}
@@ -32,7 +32,7 @@ import static soltix.ast.ASTLiteral.LiteralType.LITERAL_TYPE_INTEGER_HEXADECIMAL
  */
 public class AddressValue extends Value implements IAddressOperations {
     private String value;
-    static private ASTNode addressType = null;
+    private ASTNode addressType;
 
     public AddressValue(String value) throws Exception { // TODO input 160-bits BigInteger address value instead?
         this.value = value;
@@ -51,12 +51,23 @@ public class ArrayValue extends Value implements IArrayOperations {
         values.add(value);
     }
 
+    public void updateElement(int index, Value value) {
+        values.set(index, value);
+    }
+
+    public Value removeLastElement() {
+        return values.remove(values.size() - 1);
+    }
+
+    public int getElementCount() { return values == null? 0: values.size(); }
+    public ASTNode getBaseType() { return baseType; }
+
     // Exported array operations:
     public Value indexAccess(int index) throws Exception {
         return values.get(index);
     }
     public IntegerValue length() throws Exception {
-        return ValueContainer.getSmallIntegerValue(TypeContainer.getIntegerType(false, 32), values.size());
+        return ValueContainer.getSmallIntegerValue(TypeContainer.getIntegerType(false, 32), getElementCount());
     }
 
     @Override
@@ -95,8 +106,8 @@ public class ArrayValue extends Value implements IArrayOperations {
     @Override
     public Object toJSONRepresentation() throws Exception {
         JSONArray result = new JSONArray();
-        for (Value elementValue : values) {
-            result.add(elementValue.toJSONRepresentation());
+        for (int i = 0; i < getElementCount(); ++i) {
+            result.add(values.get(i).toJSONRepresentation());
         }
         return result;
     }
@@ -32,7 +32,7 @@ import static soltix.ast.ASTLiteral.LiteralType.LITERAL_TYPE_BOOL;
  */
 public class BoolValue extends Value implements IBoolOperations {
     private boolean value;
-    static private ASTNode boolType = null;
+    private ASTNode boolType;
 
     public BoolValue(boolean value) throws Exception {
         this.boolType = TypeContainer.getBoolType();
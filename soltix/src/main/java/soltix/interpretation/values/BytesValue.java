@@ -60,6 +60,9 @@ public class BytesValue extends Value implements IByteOperations {
         return type.getBytes();
     }
 
+    // The returned array is shared with this value and must not be modified
+    public byte[] getValue() { return value; }
+
     @Override
     public ASTNode getType() { return type; }
 
@@ -84,7 +87,7 @@ public class BytesValue extends Value implements IByteOperations {
             }*/
             valueString = toHexConstantString();
 
-            if (value.length == 20 && Configuration.languageVersionMinor >= 5) {
+            if (value.length == 20 && Configuration.current().languageVersionMinor >= 5) {
                 // Ensure that an address-like bytes constant also passes the checksum test, or else
                 // a 0.5+ compiler will error out
                 valueString = Hash.toChecksumAddress(valueString);
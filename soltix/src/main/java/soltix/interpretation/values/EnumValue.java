@@ -40,6 +40,7 @@ public class EnumValue extends Value {
 
     @Override
     public ASTNode getType() { return type; }
+    public ASTEnumValue getValue() { return value; }
 
     @Override
     public ASTNode toASTNode(boolean forJavaScript) throws Exception {
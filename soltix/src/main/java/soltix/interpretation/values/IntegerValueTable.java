@@ -0,0 +1,290 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.values;
+
+/**
+ * Bounded interning table for IntegerValue instances, keyed by one or more longs.
+ *
+ * Entries are kept in open-addressing tables with linear probing, with keys stored in primitive arrays. Tables
+ * grow up to a maximum number of entries. Once that is reached, each insertion evicts an entry chosen by the
+ * CLOCK algorithm: entries are marked as referenced on lookup, and the clock hand passes over (and unmarks)
+ * referenced entries until it finds one which has not been used since the last pass.
+ *
+ * The table is divided into independently locked segments by key hash, so that threads sharing a ValueContainer
+ * rarely contend.
+ */
+class IntegerValueTable {
+    static private final int MINIMUM_SEGMENT_CAPACITY = 16;
+
+    private final int keyWidth;
+    private final Segment[] segments;
+
+    // Table with keyWidth longs per key (at most 5) for up to maxEntries entries
+    IntegerValueTable(int keyWidth, int segmentCount, int maxEntries) {
+        this.keyWidth = keyWidth;
+        segments = new Segment[segmentCount];
+        // Capacity is a power of two with a load factor of at most 3/4
+        int maxSegmentEntries = Math.max(1, maxEntries / segmentCount);
+        int maxCapacity = MINIMUM_SEGMENT_CAPACITY;
+        while (maxCapacity / 4 * 3 < maxSegmentEntries) {
+            maxCapacity *= 2;
+        }
+        for (int i = 0; i < segmentCount; ++i) {
+            segments[i] = new Segment(maxSegmentEntries, maxCapacity);
+        }
+    }
+
+    IntegerValue get(long k0) {
+        return get(k0, 0, 0, 0, 0);
+    }
+
+    IntegerValue put(long k0, IntegerValue value) {
+        return put(k0, 0, 0, 0, 0, value);
+    }
+
+    IntegerValue get(long k0, long k1, long k2, long k3, long k4) {
+        int hash = hash(k0, k1, k2, k3, k4);
+        Segment segment = segments[(hash >>> 24) % segments.length];
+        synchronized (segment) {
+            return segment.get(hash, k0, k1, k2, k3, k4);
+        }
+    }
+
+    // Add the value unless the key is already present, and return the value that is stored for the key
+    IntegerValue put(long k0, long k1, long k2, long k3, long k4, IntegerValue value) {
+        int hash = hash(k0, k1, k2, k3, k4);
+        Segment segment = segments[(hash >>> 24) % segments.length];
+        synchronized (segment) {
+            IntegerValue existingValue = segment.find(hash, k0, k1, k2, k3, k4);
+            if (existingValue != null) {
+                return existingValue;
+            }
+            segment.insert(hash, k0, k1, k2, k3, k4, value);
+            return value;
+        }
+    }
+
+    long getHitCount() {
+        long result = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                result += segment.hits;
+            }
+        }
+        return result;
+    }
+
+    long getMissCount() {
+        long result = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                result += segment.misses;
+            }
+        }
+        return result;
+    }
+
+    long getEvictionCount() {
+        long result = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                result += segment.evictions;
+            }
+        }
+        return result;
+    }
+
+    int size() {
+        int result = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                result += segment.size;
+            }
+        }
+        return result;
+    }
+
+    static private int hash(long k0, long k1, long k2, long k3, long k4) {
+        long hash = k0 * 0x9e3779b97f4a7c15L;
+        hash = (hash ^ k1) * 0x9e3779b97f4a7c15L;
+        hash = (hash ^ k2) * 0x9e3779b97f4a7c15L;
+        hash = (hash ^ k3) * 0x9e3779b97f4a7c15L;
+        hash = (hash ^ k4) * 0x9e3779b97f4a7c15L;
+        return (int)(hash ^ (hash >>> 32));
+    }
+
+    private class Segment {
+        private final int maxEntries;
+        private final int maxCapacity;
+        private long[] keys;
+        private IntegerValue[] values;
+        private boolean[] referenced;
+        private int size = 0;
+        private int hand = 0;
+
+        private long hits = 0;
+        private long misses = 0;
+        private long evictions = 0;
+
+        Segment(int maxEntries, int maxCapacity) {
+            this.maxEntries = maxEntries;
+            this.maxCapacity = maxCapacity;
+            allocate(MINIMUM_SEGMENT_CAPACITY);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity * keyWidth];
+            values = new IntegerValue[capacity];
+            referenced = new boolean[capacity];
+        }
+
+        IntegerValue get(int hash, long k0, long k1, long k2, long k3, long k4) {
+            IntegerValue value = find(hash, k0, k1, k2, k3, k4);
+            if (value != null) {
+                ++hits;
+            } else {
+                ++misses;
+            }
+            return value;
+        }
+
+        IntegerValue find(int hash, long k0, long k1, long k2, long k3, long k4) {
+            int mask = values.length - 1;
+            for (int slot = hash & mask; values[slot] != null; slot = (slot + 1) & mask) {
+                if (matches(slot, k0, k1, k2, k3, k4)) {
+                    referenced[slot] = true;
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        void insert(int hash, long k0, long k1, long k2, long k3, long k4, IntegerValue value) {
+            if (size >= maxEntries) {
+                evict();
+            } else if ((size + 1) * 4 > values.length * 3 && values.length < maxCapacity) {
+                grow();
+            }
+            int mask = values.length - 1;
+            int slot = hash & mask;
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            int offset = slot * keyWidth;
+            keys[offset] = k0;
+            if (keyWidth > 1) {
+                keys[offset + 1] = k1;
+                keys[offset + 2] = k2;
+                keys[offset + 3] = k3;
+                keys[offset + 4] = k4;
+            }
+            values[slot] = value;
+            referenced[slot] = false;
+            ++size;
+        }
+
+        private boolean matches(int slot, long k0, long k1, long k2, long k3, long k4) {
+            int offset = slot * keyWidth;
+            if (keys[offset] != k0) {
+                return false;
+            }
+            return keyWidth == 1
+                    || (keys[offset + 1] == k1 && keys[offset + 2] == k2 && keys[offset + 3] == k3 && keys[offset + 4] == k4);
+        }
+
+        private int hashSlot(int slot) {
+            int offset = slot * keyWidth;
+            if (keyWidth == 1) {
+                return hash(keys[offset], 0, 0, 0, 0);
+            }
+            return hash(keys[offset], keys[offset + 1], keys[offset + 2], keys[offset + 3], keys[offset + 4]);
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            IntegerValue[] oldValues = values;
+            boolean[] oldReferenced = referenced;
+            allocate(values.length * 2);
+            int mask = values.length - 1;
+            for (int i = 0; i < oldValues.length; ++i) {
+                if (oldValues[i] == null) {
+                    continue;
+                }
+                int slot = hash(oldKeys[i * keyWidth],
+                        keyWidth > 1 ? oldKeys[i * keyWidth + 1] : 0,
+                        keyWidth > 1 ? oldKeys[i * keyWidth + 2] : 0,
+                        keyWidth > 1 ? oldKeys[i * keyWidth + 3] : 0,
+                        keyWidth > 1 ? oldKeys[i * keyWidth + 4] : 0) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                System.arraycopy(oldKeys, i * keyWidth, keys, slot * keyWidth, keyWidth);
+                values[slot] = oldValues[i];
+                referenced[slot] = oldReferenced[i];
+            }
+            hand = 0;
+        }
+
+        private void evict() {
+            int mask = values.length - 1;
+            while (true) {
+                int slot = hand;
+                hand = (hand + 1) & mask;
+                if (values[slot] == null) {
+                    continue;
+                }
+                if (referenced[slot]) {
+                    // Second chance
+                    referenced[slot] = false;
+                    continue;
+                }
+                remove(slot);
+                ++evictions;
+                return;
+            }
+        }
+
+        // Remove the entry in the slot, and move subsequent entries of the probe sequence back so that no lookup
+        // stops at the empty slot prematurely
+        private void remove(int slot) {
+            int mask = values.length - 1;
+            values[slot] = null;
+            --size;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (values[next] == null) {
+                    return;
+                }
+                int home = hashSlot(next) & mask;
+                // The entry can be moved unless its home slot lies cyclically within (slot, next]
+                boolean homeInRange = slot <= next ? (home > slot && home <= next) : (home > slot || home <= next);
+                if (!homeInRange) {
+                    System.arraycopy(keys, next * keyWidth, keys, slot * keyWidth, keyWidth);
+                    values[slot] = values[next];
+                    referenced[slot] = referenced[next];
+                    values[next] = null;
+                    slot = next;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.values;
+
+import soltix.ast.ASTMapping;
+import soltix.ast.ASTNode;
+import org.json.simple.JSONObject;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Class to represent mapping values. Only assigned entries are stored - lookups of other keys yield null, and the
+ * caller supplies the default value of the value type
+ */
+public class MappingValue extends Value {
+    private ASTMapping type;
+
+    // Keys and values by the JSON representation of the key, which is unique for the single key type of a mapping
+    private LinkedHashMap<String, Value> keys = new LinkedHashMap<String, Value>();
+    private LinkedHashMap<String, Value> values = new LinkedHashMap<String, Value>();
+
+    public MappingValue(ASTMapping type) {
+        this.type = type;
+    }
+
+    public Value get(Value key) throws Exception {
+        return values.get(keyString(key));
+    }
+
+    public void put(Value key, Value value) throws Exception {
+        String keyString = keyString(key);
+        keys.put(keyString, key);
+        values.put(keyString, value);
+    }
+
+    public Collection<Value> getKeys() { return keys.values(); }
+
+    private String keyString(Value key) throws Exception {
+        // Addresses are not normalized otherwise
+        return key.toJSONRepresentation().toString().toLowerCase();
+    }
+
+    @Override
+    public ASTNode getType() { return type; }
+
+    @Override
+    public ASTNode toASTNode(boolean forJavaScript) throws Exception {
+        throw new Exception("MappingValue.toASTNode: Mappings have no literal representation");
+    }
+
+    @Override
+    public Object toJSONRepresentation() throws Exception {
+        HashMap<String, Object> result = new HashMap<String, Object>();
+        for (String keyString : values.keySet()) {
+            result.put(keyString, values.get(keyString).toJSONRepresentation());
+        }
+        return new JSONObject(result);
+    }
+}
@@ -66,9 +66,15 @@ public class NamedValueList {
                     declaration.getTypeName().toSolidityCode() + " vs " + value.getType().toSolidityCode());
         }
 
-        valuesMap.put(name, value);
+        setValue(name, value);
+    }
 
-        int index = indexMap.get(name);
+    public void setValue(String name, Value value) throws Exception {
+        Integer index = indexMap.get(name);
+        if (index == null) {
+            throw new Exception("NamedValueList: Unknown member " + name);
+        }
+        valuesMap.put(name, value);
         values.set(index, value);
     }
 
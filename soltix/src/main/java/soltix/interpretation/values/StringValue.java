@@ -34,7 +34,7 @@ import static soltix.ast.ASTLiteral.LiteralType.LITERAL_TYPE_STRING;
 public class StringValue extends Value {
     private String textRepresentation;
     private String value;
-    static private ASTNode stringType = null;
+    private ASTNode stringType;
 
     public StringValue(String textRepresentation) throws Exception {
         stringType = TypeContainer.getStringType();
@@ -50,6 +50,8 @@ public class StructValue extends Value {
         return members.getMemberValue(name);
     }
     public void updateMemberValue(String name, Value value) throws Exception { members.updateValue(name, value); }
+    // Update without type check, for members whose values carry no comparable type, such as arrays and mappings
+    public void setMemberValue(String name, Value value) throws Exception { members.setValue(name, value); }
     public NamedValueList getMemberValueList() { return members; }
 
     @Override
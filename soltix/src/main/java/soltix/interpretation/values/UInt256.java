@@ -0,0 +1,576 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.values;
+
+import java.math.BigInteger;
+
+/**
+ * Class to represent a 256-bit EVM word as four 64-bit limbs, for integer arithmetic without BigInteger.
+ *
+ * Operations modify the word in place and wrap around modulo 2^256 like the corresponding EVM instructions. The
+ * word itself has no signedness - operations which depend on it (division, right shifts, comparisons) come in
+ * unsigned and signed (two's complement) variants. Intermediate results are kept in local variables, so that no
+ * operation allocates memory. IntegerValue truncates or sign-extends results to the bits of its type.
+ */
+public final class UInt256 {
+    static private final long DIGIT_MASK = 0xffffffffL;
+
+    // Limbs in order of increasing significance
+    private long w0;
+    private long w1;
+    private long w2;
+    private long w3;
+
+    public UInt256() {
+    }
+
+    public UInt256(long value) {
+        set(value);
+    }
+
+    public UInt256(UInt256 other) {
+        set(other);
+    }
+
+    public UInt256(BigInteger value) {
+        set(value);
+    }
+
+    // Sign-extends the value to 256 bits
+    public UInt256 set(long value) {
+        w0 = value;
+        w1 = w2 = w3 = value >> 63;
+        return this;
+    }
+
+    public UInt256 set(UInt256 other) {
+        w0 = other.w0;
+        w1 = other.w1;
+        w2 = other.w2;
+        w3 = other.w3;
+        return this;
+    }
+
+    // Takes the lowest 256 bits of the two's complement representation of the value
+    public UInt256 set(BigInteger value) {
+        if (value.bitLength() < 64) {
+            return set(value.longValue());
+        }
+        w0 = value.longValue();
+        w1 = value.shiftRight(64).longValue();
+        w2 = value.shiftRight(128).longValue();
+        w3 = value.shiftRight(192).longValue();
+        return this;
+    }
+
+    public long getLimb(int index) {
+        switch (index) {
+            case 0: return w0;
+            case 1: return w1;
+            case 2: return w2;
+            case 3: return w3;
+            default: throw new IndexOutOfBoundsException("Limb index: " + index);
+        }
+    }
+
+    private void setLimb(int index, long value) {
+        switch (index) {
+            case 0: w0 = value; break;
+            case 1: w1 = value; break;
+            case 2: w2 = value; break;
+            case 3: w3 = value; break;
+            default: throw new IndexOutOfBoundsException("Limb index: " + index);
+        }
+    }
+
+    public boolean isZero() { return (w0 | w1 | w2 | w3) == 0; }
+
+    // Whether the most significant bit is set, i.e. whether the signed interpretation is negative
+    public boolean isNegative() { return w3 < 0; }
+
+    // Whether the signed interpretation fits into a long, see longValue()
+    public boolean fitsInLong() {
+        long extension = w0 >> 63;
+        return w1 == extension && w2 == extension && w3 == extension;
+    }
+
+    public long longValue() { return w0; }
+
+    public boolean testBit(int index) {
+        return ((getLimb(index >>> 6) >>> (index & 63)) & 1) != 0;
+    }
+
+    // Number of bits of the unsigned interpretation, without leading zeros
+    public int bitLength() {
+        return bitLength(w0, w1, w2, w3);
+    }
+
+    public int compareUnsigned(UInt256 other) {
+        return compareUnsigned(w0, w1, w2, w3, other.w0, other.w1, other.w2, other.w3);
+    }
+
+    public int compareSigned(UInt256 other) {
+        if (w3 != other.w3) {
+            return w3 < other.w3 ? -1 : 1;
+        }
+        return compareUnsigned(w0, w1, w2, 0, other.w0, other.w1, other.w2, 0);
+    }
+
+    public UInt256 add(UInt256 other) {
+        long r0 = w0 + other.w0;
+        long carry = carry(w0, other.w0, r0);
+        long r1 = w1 + other.w1 + carry;
+        carry = carry(w1, other.w1, r1);
+        long r2 = w2 + other.w2 + carry;
+        carry = carry(w2, other.w2, r2);
+        w3 = w3 + other.w3 + carry;
+        w0 = r0;
+        w1 = r1;
+        w2 = r2;
+        return this;
+    }
+
+    public UInt256 subtract(UInt256 other) {
+        long r0 = w0 - other.w0;
+        long borrow = borrow(w0, other.w0, r0);
+        long r1 = w1 - other.w1 - borrow;
+        borrow = borrow(w1, other.w1, r1);
+        long r2 = w2 - other.w2 - borrow;
+        borrow = borrow(w2, other.w2, r2);
+        w3 = w3 - other.w3 - borrow;
+        w0 = r0;
+        w1 = r1;
+        w2 = r2;
+        return this;
+    }
+
+    public UInt256 multiply(UInt256 other) {
+        multiply(other.w0, other.w1, other.w2, other.w3);
+        return this;
+    }
+
+    // Two's complement negation
+    public UInt256 negate() {
+        w0 = -w0;
+        long carry = w0 == 0 ? 1 : 0;
+        w1 = ~w1 + carry;
+        carry &= w1 == 0 ? 1 : 0;
+        w2 = ~w2 + carry;
+        carry &= w2 == 0 ? 1 : 0;
+        w3 = ~w3 + carry;
+        return this;
+    }
+
+    public UInt256 not() {
+        w0 = ~w0;
+        w1 = ~w1;
+        w2 = ~w2;
+        w3 = ~w3;
+        return this;
+    }
+
+    public UInt256 and(UInt256 other) {
+        w0 &= other.w0;
+        w1 &= other.w1;
+        w2 &= other.w2;
+        w3 &= other.w3;
+        return this;
+    }
+
+    public UInt256 or(UInt256 other) {
+        w0 |= other.w0;
+        w1 |= other.w1;
+        w2 |= other.w2;
+        w3 |= other.w3;
+        return this;
+    }
+
+    public UInt256 xor(UInt256 other) {
+        w0 ^= other.w0;
+        w1 ^= other.w1;
+        w2 ^= other.w2;
+        w3 ^= other.w3;
+        return this;
+    }
+
+    // Unsigned division. Division by zero yields zero, as for the EVM DIV instruction
+    public UInt256 divideUnsigned(UInt256 divisor) {
+        divide(divisor.w0, divisor.w1, divisor.w2, divisor.w3, false);
+        return this;
+    }
+
+    // Unsigned remainder. Division by zero yields zero, as for the EVM MOD instruction
+    public UInt256 remainderUnsigned(UInt256 divisor) {
+        divide(divisor.w0, divisor.w1, divisor.w2, divisor.w3, true);
+        return this;
+    }
+
+    // Signed division rounding towards zero, as for the EVM SDIV instruction. The smallest value divided by -1
+    // wraps around to itself
+    public UInt256 divideSigned(UInt256 divisor) {
+        boolean negative = isNegative();
+        boolean divisorNegative = divisor.isNegative();
+        divideMagnitudes(divisor, false);
+        if (negative != divisorNegative) {
+            negate();
+        }
+        return this;
+    }
+
+    // Signed remainder with the sign of the dividend, as for the EVM SMOD instruction
+    public UInt256 remainderSigned(UInt256 divisor) {
+        boolean negative = isNegative();
+        divideMagnitudes(divisor, true);
+        if (negative) {
+            negate();
+        }
+        return this;
+    }
+
+    // Exponentiation modulo 2^256, as for the EVM EXP instruction
+    public UInt256 pow(UInt256 exponent) {
+        long e0 = exponent.w0, e1 = exponent.w1, e2 = exponent.w2, e3 = exponent.w3;
+        long b0 = w0, b1 = w1, b2 = w2, b3 = w3;
+        set(1);
+        for (int i = bitLength(e0, e1, e2, e3) - 1; i >= 0; --i) {
+            multiply(w0, w1, w2, w3);
+            if (((limb(e0, e1, e2, e3, i >>> 6) >>> (i & 63)) & 1) != 0) {
+                multiply(b0, b1, b2, b3);
+            }
+        }
+        return this;
+    }
+
+    // Shift counts of 256 or more yield zero
+    public UInt256 shiftLeft(int count) {
+        if (count >= 256) {
+            return set(0);
+        }
+        int limbs = count >>> 6;
+        int bits = count & 63;
+        long r0 = shiftedLeftLimb(0, limbs, bits);
+        long r1 = shiftedLeftLimb(1, limbs, bits);
+        long r2 = shiftedLeftLimb(2, limbs, bits);
+        w3 = shiftedLeftLimb(3, limbs, bits);
+        w0 = r0;
+        w1 = r1;
+        w2 = r2;
+        return this;
+    }
+
+    // Logical right shift, as for the EVM SHR instruction
+    public UInt256 shiftRightUnsigned(int count) {
+        return shiftRight(count, 0);
+    }
+
+    // Arithmetic right shift rounding towards negative infinity, as for the EVM SAR instruction
+    public UInt256 shiftRightSigned(int count) {
+        return shiftRight(count, w3 >> 63);
+    }
+
+    // Keep the lowest bits and sign-extend or zero-extend them to 256 bits
+    public UInt256 truncate(int bits, boolean signed) {
+        if (bits >= 256) {
+            return this;
+        }
+        int topLimb = (bits - 1) >>> 6;
+        int unusedBits = 63 - ((bits - 1) & 63);
+        long value = getLimb(topLimb) << unusedBits;
+        value = signed ? value >> unusedBits : value >>> unusedBits;
+        setLimb(topLimb, value);
+        long extension = value >> 63;
+        for (int i = topLimb + 1; i < 4; ++i) {
+            setLimb(i, signed ? extension : 0);
+        }
+        return this;
+    }
+
+    public BigInteger toUnsignedBigInteger() {
+        if ((w1 | w2 | w3) == 0 && w0 >= 0) {
+            return BigInteger.valueOf(w0);
+        }
+        return new BigInteger(1, toByteArray());
+    }
+
+    public BigInteger toSignedBigInteger() {
+        if (fitsInLong()) {
+            return BigInteger.valueOf(w0);
+        }
+        return new BigInteger(toByteArray());
+    }
+
+    // Big-endian representation
+    private byte[] toByteArray() {
+        byte[] result = new byte[32];
+        for (int i = 0; i < 32; ++i) {
+            result[31 - i] = (byte)(getLimb(i >>> 3) >>> ((i & 7) * 8));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof UInt256)) {
+            return false;
+        }
+        UInt256 otherWord = (UInt256)other;
+        return w0 == otherWord.w0 && w1 == otherWord.w1 && w2 == otherWord.w2 && w3 == otherWord.w3;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = w0 + 31 * (w1 + 31 * (w2 + 31 * w3));
+        return (int)(hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return toUnsignedBigInteger().toString();
+    }
+
+    // this = this * b mod 2^256, by schoolbook multiplication of the limbs that contribute to the lowest 256 bits
+    private void multiply(long b0, long b1, long b2, long b3) {
+        long a0 = w0, a1 = w1, a2 = w2, a3 = w3;
+        long low, high, sum;
+
+        // a0 * b
+        long r0 = a0 * b0;
+        long carry = multiplyHighUnsigned(a0, b0);
+        low = a0 * b1;
+        long r1 = low + carry;
+        carry = multiplyHighUnsigned(a0, b1) + lessThanUnsigned(r1, low);
+        low = a0 * b2;
+        long r2 = low + carry;
+        carry = multiplyHighUnsigned(a0, b2) + lessThanUnsigned(r2, low);
+        long r3 = a0 * b3 + carry;
+
+        // a1 * b, shifted by one limb
+        low = a1 * b0;
+        sum = r1 + low;
+        carry = multiplyHighUnsigned(a1, b0) + lessThanUnsigned(sum, low);
+        r1 = sum;
+        low = a1 * b1;
+        sum = r2 + low;
+        high = multiplyHighUnsigned(a1, b1) + lessThanUnsigned(sum, low);
+        r2 = sum + carry;
+        carry = high + lessThanUnsigned(r2, carry);
+        r3 += a1 * b2 + carry;
+
+        // a2 * b, shifted by two limbs
+        low = a2 * b0;
+        sum = r2 + low;
+        carry = multiplyHighUnsigned(a2, b0) + lessThanUnsigned(sum, low);
+        r2 = sum;
+        r3 += a2 * b1 + carry;
+
+        // a3 * b, shifted by three limbs
+        r3 += a3 * b0;
+
+        w0 = r0;
+        w1 = r1;
+        w2 = r2;
+        w3 = r3;
+    }
+
+    // Divide the absolute values of the signed interpretations
+    private void divideMagnitudes(UInt256 divisor, boolean remainder) {
+        long d0 = divisor.w0, d1 = divisor.w1, d2 = divisor.w2, d3 = divisor.w3;
+        if (isNegative()) {
+            negate();
+        }
+        if (d3 < 0) {
+            d0 = -d0;
+            long carry = d0 == 0 ? 1 : 0;
+            d1 = ~d1 + carry;
+            carry &= d1 == 0 ? 1 : 0;
+            d2 = ~d2 + carry;
+            carry &= d2 == 0 ? 1 : 0;
+            d3 = ~d3 + carry;
+        }
+        divide(d0, d1, d2, d3, remainder);
+    }
+
+    // this = this / d or this % d for unsigned interpretations, with a zero result for division by zero
+    private void divide(long d0, long d1, long d2, long d3, boolean remainder) {
+        if ((d0 | d1 | d2 | d3) == 0) {
+            set(0);
+            return;
+        }
+        if ((w1 | w2 | w3 | d1 | d2 | d3) == 0) {
+            w0 = remainder ? Long.remainderUnsigned(w0, d0) : Long.divideUnsigned(w0, d0);
+            return;
+        }
+        if (compareUnsigned(w0, w1, w2, w3, d0, d1, d2, d3) < 0) {
+            if (!remainder) {
+                set(0);
+            }
+            return;
+        }
+
+        long q0 = 0, q1 = 0, q2 = 0, q3 = 0;
+        long r0 = 0, r1 = 0, r2 = 0, r3 = 0;
+        if ((d1 | d2 | d3) == 0 && (d0 >>> 32) == 0) {
+            // Short division by a single 32-bit digit
+            for (int i = 7; i >= 0; --i) {
+                long current = (r0 << 32) | ((getLimb(i >>> 1) >>> ((i & 1) * 32)) & DIGIT_MASK);
+                long digit = Long.divideUnsigned(current, d0);
+                r0 = current - digit * d0;
+                q3 = (q3 << 32) | (q2 >>> 32);
+                q2 = (q2 << 32) | (q1 >>> 32);
+                q1 = (q1 << 32) | (q0 >>> 32);
+                q0 = (q0 << 32) | digit;
+            }
+        } else {
+            // Binary long division. The remainder starts out with all but the last divisorBits - 1 dividend bits,
+            // which are smaller than the divisor
+            int dividendBits = bitLength();
+            int divisorBits = bitLength(d0, d1, d2, d3);
+            int shift = dividendBits - divisorBits + 1;
+            r0 = shiftedRightLimb(0, shift, 0);
+            r1 = shiftedRightLimb(1, shift, 0);
+            r2 = shiftedRightLimb(2, shift, 0);
+            r3 = shiftedRightLimb(3, shift, 0);
+            for (int i = shift - 1; i >= 0; --i) {
+                // Remainder bits shifted out at the top are needed when the divisor uses the highest bit
+                long overflow = r3 >>> 63;
+                r3 = (r3 << 1) | (r2 >>> 63);
+                r2 = (r2 << 1) | (r1 >>> 63);
+                r1 = (r1 << 1) | (r0 >>> 63);
+                r0 = (r0 << 1) | ((getLimb(i >>> 6) >>> (i & 63)) & 1);
+                q3 = (q3 << 1) | (q2 >>> 63);
+                q2 = (q2 << 1) | (q1 >>> 63);
+                q1 = (q1 << 1) | (q0 >>> 63);
+                q0 <<= 1;
+                if (overflow != 0 || compareUnsigned(r0, r1, r2, r3, d0, d1, d2, d3) >= 0) {
+                    long s0 = r0 - d0;
+                    long borrow = borrow(r0, d0, s0);
+                    long s1 = r1 - d1 - borrow;
+                    borrow = borrow(r1, d1, s1);
+                    long s2 = r2 - d2 - borrow;
+                    borrow = borrow(r2, d2, s2);
+                    r3 = r3 - d3 - borrow;
+                    r0 = s0;
+                    r1 = s1;
+                    r2 = s2;
+                    q0 |= 1;
+                }
+            }
+        }
+        if (remainder) {
+            w0 = r0;
+            w1 = r1;
+            w2 = r2;
+            w3 = r3;
+        } else {
+            w0 = q0;
+            w1 = q1;
+            w2 = q2;
+            w3 = q3;
+        }
+    }
+
+    private UInt256 shiftRight(int count, long fill) {
+        if (count >= 256) {
+            w0 = w1 = w2 = w3 = fill;
+            return this;
+        }
+        long r0 = shiftedRightLimb(0, count, fill);
+        long r1 = shiftedRightLimb(1, count, fill);
+        long r2 = shiftedRightLimb(2, count, fill);
+        w3 = shiftedRightLimb(3, count, fill);
+        w0 = r0;
+        w1 = r1;
+        w2 = r2;
+        return this;
+    }
+
+    // Limb of this << (64 * limbs + bits)
+    private long shiftedLeftLimb(int index, int limbs, int bits) {
+        int source = index - limbs;
+        if (source < 0) {
+            return 0;
+        }
+        long result = getLimb(source) << bits;
+        if (bits != 0 && source > 0) {
+            result |= getLimb(source - 1) >>> (64 - bits);
+        }
+        return result;
+    }
+
+    // Limb of this >> count, with bits shifted in from the fill value (0 or -1), for count < 256
+    private long shiftedRightLimb(int index, int count, long fill) {
+        int source = index + (count >>> 6);
+        int bits = count & 63;
+        long result = (source < 4 ? getLimb(source) : fill) >>> bits;
+        if (bits != 0) {
+            result |= (source + 1 < 4 ? getLimb(source + 1) : fill) << (64 - bits);
+        }
+        return result;
+    }
+
+    static private long limb(long l0, long l1, long l2, long l3, int index) {
+        switch (index) {
+            case 0: return l0;
+            case 1: return l1;
+            case 2: return l2;
+            default: return l3;
+        }
+    }
+
+    static private int bitLength(long l0, long l1, long l2, long l3) {
+        if (l3 != 0) return 256 - Long.numberOfLeadingZeros(l3);
+        if (l2 != 0) return 192 - Long.numberOfLeadingZeros(l2);
+        if (l1 != 0) return 128 - Long.numberOfLeadingZeros(l1);
+        return 64 - Long.numberOfLeadingZeros(l0);
+    }
+
+    static private int compareUnsigned(long a0, long a1, long a2, long a3, long b0, long b1, long b2, long b3) {
+        if (a3 != b3) return Long.compareUnsigned(a3, b3);
+        if (a2 != b2) return Long.compareUnsigned(a2, b2);
+        if (a1 != b1) return Long.compareUnsigned(a1, b1);
+        return Long.compareUnsigned(a0, b0);
+    }
+
+    static private long lessThanUnsigned(long a, long b) {
+        return Long.compareUnsigned(a, b) < 0 ? 1 : 0;
+    }
+
+    // Carry out of the most significant bit of sum = a + b (+ carry in)
+    static private long carry(long a, long b, long sum) {
+        return ((a & b) | ((a | b) & ~sum)) >>> 63;
+    }
+
+    // Borrow out of the most significant bit of difference = a - b (- borrow in)
+    static private long borrow(long a, long b, long difference) {
+        return ((~a & b) | (~(a ^ b) & difference)) >>> 63;
+    }
+
+    // High 64 bits of the unsigned 128-bit product
+    static private long multiplyHighUnsigned(long x, long y) {
+        long x0 = x & DIGIT_MASK, x1 = x >>> 32;
+        long y0 = y & DIGIT_MASK, y1 = y >>> 32;
+        long p00 = x0 * y0;
+        long p01 = x0 * y1;
+        long p10 = x1 * y0;
+        long middle = (p00 >>> 32) + (p01 & DIGIT_MASK) + (p10 & DIGIT_MASK);
+        return x1 * y1 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+    }
+}
@@ -20,65 +20,100 @@
 
 package soltix.interpretation.values;
 
+import soltix.SoltixContext;
 import soltix.ast.ASTElementaryTypeName;
 import soltix.ast.ASTNode;
 import soltix.interpretation.Type;
-import soltix.interpretation.TypeContainer;
 
-import javax.swing.text.AbstractDocument;
 import java.math.BigInteger;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Class to create and store, for potential subsequent reuse, integer value instances
+ *
+ * Values that fit into a long are interned in one table per signedness and bit width, keyed by the long. Larger
+ * values share one table keyed by their 256-bit word and type. Both kinds of tables are bounded and evict rarely
+ * used values (see IntegerValueTable), and can be used by several threads.
  */
 public class ValueContainer {
-    static private HashMap<Integer, HashMap<Long, IntegerValue>> smallSignedIntegerValues
-            = new HashMap<Integer, HashMap<Long, IntegerValue>>();
-    static private HashMap<Integer, HashMap<Long, IntegerValue>> smallUnsignedIntegerValues
-            = new HashMap<Integer, HashMap<Long, IntegerValue>>();
+    static public final int DEFAULT_SMALL_VALUES_PER_TYPE = 4096;
+    static public final int DEFAULT_LARGE_VALUES = 4096;
+    static private final int MAX_BITS = 256;
+    static private final int SEGMENT_COUNT = 8;
+
+    // Values are cached per job, see SoltixContext. Tables are indexed by bit width and created on demand
+    private final int smallValuesPerType;
+    private final AtomicReferenceArray<IntegerValueTable> smallSignedIntegerValues = new AtomicReferenceArray<IntegerValueTable>(MAX_BITS + 1);
+    private final AtomicReferenceArray<IntegerValueTable> smallUnsignedIntegerValues = new AtomicReferenceArray<IntegerValueTable>(MAX_BITS + 1);
+    private final IntegerValueTable largeIntegerValues;
+
+    private volatile BoolValue trueBoolValue;
+    private volatile BoolValue falseBoolValue;
 
-    static private BoolValue trueBoolValue;
-    static private BoolValue falseBoolValue;
+    // Shared min/max values for various integer types, computed by IntegerValue on demand
+    ConcurrentHashMap<Integer, IntegerValue> signedMinValueByBits = new ConcurrentHashMap<Integer, IntegerValue>();
+    ConcurrentHashMap<Integer, IntegerValue> signedMaxValueByBits = new ConcurrentHashMap<Integer, IntegerValue>();
+    ConcurrentHashMap<Integer, IntegerValue> unsignedMinValueByBits = new ConcurrentHashMap<Integer, IntegerValue>();
+    ConcurrentHashMap<Integer, IntegerValue> unsignedMaxValueByBits = new ConcurrentHashMap<Integer, IntegerValue>();
+
+    public ValueContainer() {
+        this(DEFAULT_SMALL_VALUES_PER_TYPE, DEFAULT_LARGE_VALUES);
+    }
+
+    public ValueContainer(int smallValuesPerType, int largeValues) {
+        this.smallValuesPerType = smallValuesPerType;
+        largeIntegerValues = new IntegerValueTable(5, SEGMENT_COUNT, largeValues);
+    }
+
+    static protected ValueContainer current() {
+        return SoltixContext.current().getValueContainer();
+    }
 
     static protected IntegerValue doGetIntegerValue(ASTNode type, long smallInitializer, BigInteger bigInitializer) throws Exception {
         if (!Type.isIntegerType(type)) {
             throw new Exception("ValueContainer.getSmallInteger value applied to non-integer type " + type.toSolidityCode());
         }
+        ValueContainer values = current();
         if (bigInitializer != null) {
-            // Not caching BigIntegers for now
-            return new IntegerValue(type, bigInitializer);
+            if (bigInitializer.bitLength() < 64) {
+                smallInitializer = bigInitializer.longValue();
+            } else {
+                return values.getLargeIntegerValue((ASTElementaryTypeName)type, bigInitializer);
+            }
         }
+        return values.getSmallIntegerValue((ASTElementaryTypeName)type, smallInitializer);
+    }
 
-        ASTElementaryTypeName elementaryTypeName = (ASTElementaryTypeName)type;
-        boolean signed = elementaryTypeName.isSigned();
-        int bits = elementaryTypeName.getBits();
+    private IntegerValue getSmallIntegerValue(ASTElementaryTypeName type, long initializer) throws Exception {
+        AtomicReferenceArray<IntegerValueTable> tables = type.isSigned() ? smallSignedIntegerValues : smallUnsignedIntegerValues;
+        int bits = type.getBits();
+        IntegerValueTable table = tables.get(bits);
+        if (table == null) {
+            tables.compareAndSet(bits, null, new IntegerValueTable(1, SEGMENT_COUNT, smallValuesPerType));
+            table = tables.get(bits);
+        }
+        IntegerValue value = table.get(initializer);
+        if (value == null) {
+            value = table.put(initializer, new IntegerValue(type, initializer));
+        }
+        return value;
+    }
 
-        if (signed) {
-            HashMap<Long, IntegerValue> valueMap = smallSignedIntegerValues.get(bits);
-            if (valueMap == null) {
-                valueMap = new HashMap<Long, IntegerValue>();
-                smallSignedIntegerValues.put(bits, valueMap);
-            }
-            IntegerValue value = valueMap.get(smallInitializer);
-            if (value == null) {
-                value = new IntegerValue(type, smallInitializer);
-                valueMap.put(smallInitializer, value);
-            }
-            return value;
-        } else {
-            HashMap<Long, IntegerValue> valueMap = smallUnsignedIntegerValues.get(bits);
-            if (valueMap == null) {
-                valueMap = new HashMap<Long, IntegerValue>();
-                smallUnsignedIntegerValues.put(bits, valueMap);
-            }
-            IntegerValue value = valueMap.get(smallInitializer);
-            if (value == null) {
-                value = new IntegerValue(type, smallInitializer);
-                valueMap.put(smallInitializer, value);
-            }
+    private IntegerValue getLargeIntegerValue(ASTElementaryTypeName type, BigInteger initializer) throws Exception {
+        IntegerValue value = new IntegerValue(type, initializer);
+        UInt256 word = value.getWord();
+        if (value.isNegative() != (type.isSigned() && word.isNegative())) {
+            // Out-of-range values, which the word alone does not identify, are not cached
             return value;
         }
+        long typeKey = type.isSigned() ? -type.getBits() : type.getBits();
+        IntegerValue cachedValue = largeIntegerValues.get(word.getLimb(0), word.getLimb(1), word.getLimb(2), word.getLimb(3), typeKey);
+        if (cachedValue == null) {
+            cachedValue = largeIntegerValues.put(word.getLimb(0), word.getLimb(1), word.getLimb(2), word.getLimb(3), typeKey, value);
+        }
+        return cachedValue;
     }
 
     static public IntegerValue getSmallIntegerValue(ASTNode type, long initializer) throws Exception {
@@ -90,12 +125,76 @@ public class ValueContainer {
     }
 
     static public BoolValue getBoolValue(boolean value) throws Exception {
+        ValueContainer values = current();
         if (value) {
-            if (trueBoolValue == null) trueBoolValue = new BoolValue(true);
-            return trueBoolValue;
+            if (values.trueBoolValue == null) values.createBoolValues();
+            return values.trueBoolValue;
         } else {
-            if (falseBoolValue == null) falseBoolValue = new BoolValue(false);
-            return falseBoolValue;
+            if (values.falseBoolValue == null) values.createBoolValues();
+            return values.falseBoolValue;
+        }
+    }
+
+    private synchronized void createBoolValues() throws Exception {
+        if (trueBoolValue == null) {
+            trueBoolValue = new BoolValue(true);
+            falseBoolValue = new BoolValue(false);
+        }
+    }
+
+    // Interning statistics, summed over all tables
+    public long getHitCount() {
+        long result = largeIntegerValues.getHitCount();
+        for (IntegerValueTable table : getSmallTables()) {
+            result += table.getHitCount();
+        }
+        return result;
+    }
+
+    public long getMissCount() {
+        long result = largeIntegerValues.getMissCount();
+        for (IntegerValueTable table : getSmallTables()) {
+            result += table.getMissCount();
+        }
+        return result;
+    }
+
+    public long getEvictionCount() {
+        long result = largeIntegerValues.getEvictionCount();
+        for (IntegerValueTable table : getSmallTables()) {
+            result += table.getEvictionCount();
         }
+        return result;
+    }
+
+    public int getInternedValueCount() {
+        int result = largeIntegerValues.size();
+        for (IntegerValueTable table : getSmallTables()) {
+            result += table.size();
+        }
+        return result;
+    }
+
+    private ArrayList<IntegerValueTable> getSmallTables() {
+        ArrayList<IntegerValueTable> result = new ArrayList<IntegerValueTable>();
+        addSmallTables(smallSignedIntegerValues, result);
+        addSmallTables(smallUnsignedIntegerValues, result);
+        return result;
+    }
+
+    // Add the tables created so far for the types of one signedness
+    static private void addSmallTables(AtomicReferenceArray<IntegerValueTable> tables, ArrayList<IntegerValueTable> result) {
+        for (int i = 0; i < tables.length(); ++i) {
+            IntegerValueTable table = tables.get(i);
+            if (table != null) {
+                result.add(table);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "interned integer values: " + getInternedValueCount() + ", hits: " + getHitCount()
+                + ", misses: " + getMissCount() + ", evictions: " + getEvictionCount();
     }
 }
@@ -0,0 +1,134 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.variables;
+
+import soltix.ast.ASTNode;
+import soltix.interpretation.values.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Value column for immutable bool, string, address and bytes values of one type. Each distinct value is
+ * stored once, and the column records the index of the value for each observation.
+ */
+class DictionaryValueColumn extends ValueColumn {
+    private final Class<?> valueClass;
+    private final ASTNode type;
+    private ArrayList<Value> dictionary = new ArrayList<Value>();
+    private HashMap<Object, Integer> dictionaryIndices = new HashMap<Object, Integer>();
+    private int[] indices = new int[1];
+    private int count = 0;
+
+    DictionaryValueColumn(Class<?> valueClass, ASTNode type) {
+        this.valueClass = valueClass;
+        this.type = type;
+    }
+
+    // Key to identify equal values of the same class, or null for values that cannot be stored here
+    static Object getKey(Value value) throws Exception {
+        if (value instanceof BoolValue) {
+            return ((BoolValue)value).getValue();
+        } else if (value instanceof StringValue || value instanceof AddressValue) {
+            return value.toJSONRepresentation();
+        } else if (value instanceof BytesValue) {
+            return ByteBuffer.wrap(((BytesValue)value).getValue());
+        } else {
+            return null;
+        }
+    }
+
+    DictionaryValueColumn copy() throws Exception {
+        DictionaryValueColumn copy = (DictionaryValueColumn)clone();
+        copy.dictionary = new ArrayList<Value>(dictionary);
+        copy.dictionaryIndices = new HashMap<Object, Integer>(dictionaryIndices);
+        copy.indices = indices.clone();
+        return copy;
+    }
+
+    int size() { return count; }
+
+    Value get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        return dictionary.get(indices[index]);
+    }
+
+    boolean add(Value value) throws Exception {
+        int dictionaryIndex = getDictionaryIndex(value);
+        if (dictionaryIndex == -1) {
+            return false;
+        }
+        if (count == indices.length) {
+            indices = Arrays.copyOf(indices, indices.length * 2);
+        }
+        indices[count++] = dictionaryIndex;
+        return true;
+    }
+
+    boolean set(int index, Value value) throws Exception {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        int dictionaryIndex = getDictionaryIndex(value);
+        if (dictionaryIndex == -1) {
+            return false;
+        }
+        indices[index] = dictionaryIndex;
+        return true;
+    }
+
+    Object getKey(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        return indices[index];
+    }
+
+    void move(int from, int to) {
+        indices[to] = indices[from];
+    }
+
+    void removeLast() {
+        --count;
+    }
+
+    boolean holdsIntegers() { return false; }
+    IntegerValue getSmallestIntegerValue() { return null; }
+    IntegerValue getLargestIntegerValue() { return null; }
+
+    private int getDictionaryIndex(Value value) throws Exception {
+        if (value.getClass() != valueClass || value.getType() != type) {
+            return -1;
+        }
+        Object key = getKey(value);
+        Integer dictionaryIndex = dictionaryIndices.get(key);
+        if (dictionaryIndex == null) {
+            dictionaryIndex = dictionary.size();
+            dictionary.add(value);
+            dictionaryIndices.put(key, dictionaryIndex);
+        }
+        return dictionaryIndex;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.variables;
+
+import soltix.ast.ASTElementaryTypeName;
+
+import java.math.BigInteger;
+
+/**
+ * Abstract domain of the values of an integer variable: the interval of values, in the signedness of the
+ * variable type, and the bits of the type's two's complement representation that are equal in all values.
+ *
+ * The domain is used to decide predicates over a variable for all of its values at once, see
+ * ExpressionDomainEvaluator. Methods that decide a relation return null if the relation holds for some
+ * values but not for others, or if that cannot be determined from the domain.
+ */
+public class IntegerDomain {
+    private final ASTElementaryTypeName type;
+    private final BigInteger smallestValue;
+    private final BigInteger largestValue;
+    private final BigInteger bitMask;
+    private final BigInteger knownOnes;
+    private final BigInteger knownZeros;
+
+    // The bit arguments are the bitwise AND and OR of all values, which are sign-extended as BigIntegers
+    public IntegerDomain(ASTElementaryTypeName type, BigInteger smallestValue, BigInteger largestValue,
+                         BigInteger andBits, BigInteger orBits) throws Exception {
+        this.type = type;
+        this.smallestValue = smallestValue;
+        this.largestValue = largestValue;
+        bitMask = BigInteger.ONE.shiftLeft(type.getBits()).subtract(BigInteger.ONE);
+        knownOnes = andBits.and(bitMask);
+        knownZeros = orBits.not().and(bitMask);
+    }
+
+    public ASTElementaryTypeName getType() { return type; }
+    public BigInteger getSmallestValue() { return smallestValue; }
+    public BigInteger getLargestValue() { return largestValue; }
+    public BigInteger getKnownOnes() { return knownOnes; }
+    public BigInteger getKnownZeros() { return knownZeros; }
+
+    // Whether the value is compatible with the interval and the known bits
+    public boolean mayContain(BigInteger value) {
+        if (value.compareTo(smallestValue) < 0 || value.compareTo(largestValue) > 0) {
+            return false;
+        }
+        BigInteger bits = value.and(bitMask);
+        return bits.and(knownOnes).equals(knownOnes) && bits.and(knownZeros).signum() == 0;
+    }
+
+    public Boolean isSmallerThan(BigInteger value) {
+        if (largestValue.compareTo(value) < 0) {
+            return true;
+        } else if (smallestValue.compareTo(value) >= 0) {
+            return false;
+        }
+        return null;
+    }
+
+    public Boolean isGreaterThan(BigInteger value) {
+        if (smallestValue.compareTo(value) > 0) {
+            return true;
+        } else if (largestValue.compareTo(value) <= 0) {
+            return false;
+        }
+        return null;
+    }
+
+    public Boolean isEqualTo(BigInteger value) {
+        if (!mayContain(value)) {
+            return false;
+        } else if (smallestValue.equals(largestValue)) {
+            return true;
+        }
+        return null;
+    }
+}
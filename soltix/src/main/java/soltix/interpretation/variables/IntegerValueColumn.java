@@ -0,0 +1,288 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.variables;
+
+import soltix.ast.ASTElementaryTypeName;
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.values.Value;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Value column for integers of one type.
+ *
+ * Values are stored as one long each while they all fit into 64 bits. The first larger value converts the
+ * column to a packed two's complement representation of four longs per value, which covers all integer types.
+ * The smallest and largest values are maintained while values are appended.
+ */
+class IntegerValueColumn extends ValueColumn {
+    static private final int WIDE_WORDS = 4;
+    static private final BigInteger WORD_MODULUS = BigInteger.ONE.shiftLeft(64);
+
+    private final ASTElementaryTypeName type;
+    private final boolean signed;
+    private long[] words = new long[1];
+    private boolean wide = false;
+    private int count = 0;
+
+    // Smallest and largest values, as longs before the column is converted and as BigIntegers after
+    private boolean minMaxValid = true;
+    private long smallestSmallValue;
+    private long largestSmallValue;
+    private BigInteger smallestBigValue;
+    private BigInteger largestBigValue;
+
+    // Bitwise AND and OR of all added values, in the same representations. Values removed with move() or
+    // removeLast() remain included, since those are used to drop values that were observed nonetheless
+    private boolean bitsValid = true;
+    private long andSmallBits;
+    private long orSmallBits;
+    private BigInteger andBigBits;
+    private BigInteger orBigBits;
+
+    IntegerValueColumn(ASTElementaryTypeName type) throws Exception {
+        this.type = type;
+        this.signed = type.isSigned();
+    }
+
+    IntegerValueColumn copy() throws Exception {
+        IntegerValueColumn copy = (IntegerValueColumn)clone();
+        copy.words = words.clone();
+        return copy;
+    }
+
+    int size() { return count; }
+
+    Value get(int index) throws Exception {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        return wide ? new IntegerValue(type, getBigValue(index)) : new IntegerValue(type, words[index]);
+    }
+
+    boolean add(Value value) throws Exception {
+        BigInteger bigValue = getStorableValue(value);
+        if (bigValue == null) {
+            return false;
+        }
+        int wordsPerValue = wide ? WIDE_WORDS : 1;
+        if ((count + 1) * wordsPerValue > words.length) {
+            words = Arrays.copyOf(words, Math.max(words.length * 2, (count + 1) * wordsPerValue));
+        }
+        if (!store(count, bigValue)) {
+            return false;
+        }
+        ++count;
+        if (minMaxValid) {
+            updateMinMax(count == 1, count - 1, bigValue);
+        }
+        if (bitsValid) {
+            updateBits(count == 1, count - 1, bigValue);
+        }
+        return true;
+    }
+
+    boolean set(int index, Value value) throws Exception {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        BigInteger bigValue = getStorableValue(value);
+        if (bigValue == null || !store(index, bigValue)) {
+            return false;
+        }
+        // The replaced value may have been the smallest or largest one, or determined bits
+        minMaxValid = false;
+        bitsValid = false;
+        return true;
+    }
+
+    // Values that fit into 64 bits are identified by a Long, others by a BigInteger
+    Object getKey(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        if (!wide) {
+            return words[index];
+        }
+        BigInteger value = getBigValue(index);
+        return value.bitLength() < 64 ? (Object)value.longValue() : value;
+    }
+
+    void move(int from, int to) {
+        int wordsPerValue = wide ? WIDE_WORDS : 1;
+        System.arraycopy(words, from * wordsPerValue, words, to * wordsPerValue, wordsPerValue);
+        minMaxValid = false;
+    }
+
+    void removeLast() {
+        --count;
+        minMaxValid = false;
+    }
+
+    boolean holdsIntegers() { return true; }
+
+    IntegerDomain getIntegerDomain() throws Exception {
+        validateMinMax();
+        validateBits();
+        if (wide) {
+            return new IntegerDomain(type, smallestBigValue, largestBigValue, andBigBits, orBigBits);
+        }
+        return new IntegerDomain(type, BigInteger.valueOf(smallestSmallValue), BigInteger.valueOf(largestSmallValue),
+                BigInteger.valueOf(andSmallBits), BigInteger.valueOf(orSmallBits));
+    }
+
+    IntegerValue getSmallestIntegerValue() throws Exception {
+        validateMinMax();
+        return wide ? new IntegerValue(type, smallestBigValue) : new IntegerValue(type, smallestSmallValue);
+    }
+
+    IntegerValue getLargestIntegerValue() throws Exception {
+        validateMinMax();
+        return wide ? new IntegerValue(type, largestBigValue) : new IntegerValue(type, largestSmallValue);
+    }
+
+    private BigInteger getStorableValue(Value value) throws Exception {
+        if (!(value instanceof IntegerValue) || value.getType() != type) {
+            return null;
+        }
+        return ((IntegerValue)value).getBigValue();
+    }
+
+    // Store a value to an allocated slot, converting the column to the wide representation if needed
+    private boolean store(int index, BigInteger value) {
+        if (!wide) {
+            if (value.bitLength() < 64) {
+                words[index] = value.longValue();
+                return true;
+            }
+            if (!widen()) {
+                return false;
+            }
+        }
+        if (signed ? value.bitLength() >= 64 * WIDE_WORDS : (value.signum() < 0 || value.bitLength() > 64 * WIDE_WORDS)) {
+            return false;
+        }
+        int offset = index * WIDE_WORDS;
+        for (int i = WIDE_WORDS - 1; i >= 0; --i) {
+            words[offset + i] = value.longValue();
+            value = value.shiftRight(64);
+        }
+        return true;
+    }
+
+    private boolean widen() {
+        if (!signed) {
+            // Negative values cannot be represented as unsigned 256-bit numbers
+            for (int i = 0; i < count; ++i) {
+                if (words[i] < 0) {
+                    return false;
+                }
+            }
+        }
+        long[] wideWords = new long[Math.max(words.length, count + 1) * WIDE_WORDS];
+        for (int i = 0; i < count; ++i) {
+            long word = words[i];
+            int offset = i * WIDE_WORDS;
+            for (int j = 0; j < WIDE_WORDS - 1; ++j) {
+                wideWords[offset + j] = word < 0 ? -1 : 0;
+            }
+            wideWords[offset + WIDE_WORDS - 1] = word;
+        }
+        words = wideWords;
+        wide = true;
+        if (count > 0) {
+            smallestBigValue = BigInteger.valueOf(smallestSmallValue);
+            largestBigValue = BigInteger.valueOf(largestSmallValue);
+            andBigBits = BigInteger.valueOf(andSmallBits);
+            orBigBits = BigInteger.valueOf(orSmallBits);
+        }
+        return true;
+    }
+
+    private BigInteger getBigValue(int index) {
+        if (!wide) {
+            return BigInteger.valueOf(words[index]);
+        }
+        int offset = index * WIDE_WORDS;
+        BigInteger result = signed ? BigInteger.valueOf(words[offset]) : unsignedWord(words[offset]);
+        for (int i = 1; i < WIDE_WORDS; ++i) {
+            result = result.shiftLeft(64).or(unsignedWord(words[offset + i]));
+        }
+        return result;
+    }
+
+    static private BigInteger unsignedWord(long word) {
+        BigInteger result = BigInteger.valueOf(word);
+        return word < 0 ? result.add(WORD_MODULUS) : result;
+    }
+
+    private void updateMinMax(boolean first, int index, BigInteger value) {
+        if (!wide) {
+            long smallValue = words[index];
+            if (first || smallValue < smallestSmallValue) {
+                smallestSmallValue = smallValue;
+            }
+            if (first || smallValue > largestSmallValue) {
+                largestSmallValue = smallValue;
+            }
+        } else {
+            if (first || value.compareTo(smallestBigValue) < 0) {
+                smallestBigValue = value;
+            }
+            if (first || value.compareTo(largestBigValue) > 0) {
+                largestBigValue = value;
+            }
+        }
+    }
+
+    private void validateMinMax() {
+        if (count == 0) {
+            throw new IndexOutOfBoundsException("Index: 0, Size: 0");
+        }
+        if (!minMaxValid) {
+            for (int i = 0; i < count; ++i) {
+                updateMinMax(i == 0, i, wide ? getBigValue(i) : null);
+            }
+            minMaxValid = true;
+        }
+    }
+
+    private void updateBits(boolean first, int index, BigInteger value) {
+        if (!wide) {
+            long smallValue = words[index];
+            andSmallBits = first ? smallValue : andSmallBits & smallValue;
+            orSmallBits = first ? smallValue : orSmallBits | smallValue;
+        } else {
+            andBigBits = first ? value : andBigBits.and(value);
+            orBigBits = first ? value : orBigBits.or(value);
+        }
+    }
+
+    private void validateBits() {
+        if (!bitsValid) {
+            for (int i = 0; i < count; ++i) {
+                updateBits(i == 0, i, wide ? getBigValue(i) : null);
+            }
+            bitsValid = true;
+        }
+    }
+}
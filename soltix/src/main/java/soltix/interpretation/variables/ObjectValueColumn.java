@@ -0,0 +1,100 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.variables;
+
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.values.Value;
+
+import java.util.ArrayList;
+
+/**
+ * Value column that stores Value objects, e.g. for structs, which are updated in place, or for values
+ * that the specialized columns cannot represent
+ */
+class ObjectValueColumn extends ValueColumn {
+    private ArrayList<Value> values;
+    private IntegerValue smallestIntegerValue = null;
+    private IntegerValue largestIntegerValue = null;
+
+    ObjectValueColumn() {
+        values = new ArrayList<Value>();
+    }
+
+    ObjectValueColumn(ValueColumn column) throws Exception {
+        values = new ArrayList<Value>(column.size() + 1);
+        for (int i = 0; i < column.size(); ++i) {
+            values.add(column.get(i));
+        }
+        if (column.size() > 0 && column.holdsIntegers()) {
+            smallestIntegerValue = column.getSmallestIntegerValue();
+            largestIntegerValue = column.getLargestIntegerValue();
+        }
+    }
+
+    ObjectValueColumn copy() throws Exception {
+        ObjectValueColumn copy = (ObjectValueColumn)clone();
+        copy.values = new ArrayList<Value>(values);
+        return copy;
+    }
+
+    int size() { return values.size(); }
+    Value get(int index) { return values.get(index); }
+
+    boolean add(Value value) {
+        values.add(value);
+        return true;
+    }
+
+    boolean set(int index, Value value) {
+        values.set(index, value);
+        return true;
+    }
+
+    Object getKey(int index) { return null; }
+
+    void move(int from, int to) {
+        values.set(to, values.get(from));
+    }
+
+    void removeLast() {
+        values.remove(values.size() - 1);
+    }
+
+    boolean holdsIntegers() { return values.get(0) instanceof IntegerValue; }
+
+    void finishAdding() throws Exception {
+        if (values.get(0) instanceof IntegerValue) { // At least one is available
+            // Find min/max values
+            for (Value value : values) {
+                IntegerValue currentIntegerValue = (IntegerValue)value;
+                if (smallestIntegerValue == null || smallestIntegerValue.isGreaterThan(currentIntegerValue).getValue()) {
+                    smallestIntegerValue = currentIntegerValue;
+                }
+                if (largestIntegerValue == null || largestIntegerValue.isSmallerThan(currentIntegerValue).getValue()) {
+                    largestIntegerValue = currentIntegerValue;
+                }
+            }
+        }
+    }
+
+    IntegerValue getSmallestIntegerValue() { return smallestIntegerValue; }
+    IntegerValue getLargestIntegerValue() { return largestIntegerValue; }
+}
@@ -0,0 +1,69 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.variables;
+
+import soltix.ast.ASTElementaryTypeName;
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.values.Value;
+
+/**
+ * Storage for the values observed for one variable, see VariableValues.
+ *
+ * Sub-classes hold the values in a compact form where possible and create Value objects on demand. A column
+ * that cannot represent a value exactly rejects it, and VariableValues falls back to an ObjectValueColumn.
+ */
+abstract class ValueColumn implements Cloneable {
+    static ValueColumn create(Value firstValue) throws Exception {
+        if (firstValue instanceof IntegerValue
+                && ((IntegerValue)firstValue).getBigValue() != null
+                && firstValue.getType() instanceof ASTElementaryTypeName) {
+            return new IntegerValueColumn((ASTElementaryTypeName)firstValue.getType());
+        } else if (DictionaryValueColumn.getKey(firstValue) != null) {
+            return new DictionaryValueColumn(firstValue.getClass(), firstValue.getType());
+        } else {
+            return new ObjectValueColumn();
+        }
+    }
+
+    // Independent copy of this column, for copies of the variable environment
+    abstract ValueColumn copy() throws Exception;
+
+    abstract int size();
+    abstract Value get(int index) throws Exception;
+
+    // Append or replace a value - returns false if the value cannot be represented by this column
+    abstract boolean add(Value value) throws Exception;
+    abstract boolean set(int index, Value value) throws Exception;
+
+    // Key identifying the value at the given index among the values of this column (equal keys denote equal values),
+    // or null if the column cannot provide keys
+    abstract Object getKey(int index) throws Exception;
+    // Overwrite the value at index "to" with the value at index "from"
+    abstract void move(int from, int to) throws Exception;
+    abstract void removeLast();
+
+    abstract boolean holdsIntegers() throws Exception;
+    void finishAdding() throws Exception { }
+    // Domain of the integer values of this column, or null if it is not available
+    IntegerDomain getIntegerDomain() throws Exception { return null; }
+    abstract IntegerValue getSmallestIntegerValue() throws Exception;
+    abstract IntegerValue getLargestIntegerValue() throws Exception;
+}
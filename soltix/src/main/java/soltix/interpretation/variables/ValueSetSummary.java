@@ -0,0 +1,219 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.variables;
+
+import soltix.ast.ASTElementaryTypeName;
+import soltix.ast.ASTNode;
+import soltix.util.RandomNumbers;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Bounded summary of the value sets recorded for one VariableEnvironment, see
+ * VariableEnvironment.setValueSetBudget().
+ *
+ * Value sets that repeat a retained value set are dropped, which does not change the result of any evaluation.
+ * Once more distinct value sets than the budget were seen, a reservoir sample of the budget's size is kept
+ * instead. Value sets that contain the smallest or largest value of an integer variable, or the first
+ * occurrence of 0 or of a type limit, are pinned and never replaced. The smallest and largest values of
+ * every variable thus remain those of all recorded value sets, and predicates synthesized from them
+ * (see PredicateGenerator) hold for all of them. Only the other value sets may be missing.
+ */
+class ValueSetSummary {
+    // Kinds of pinned value sets for each integer variable
+    static private final int PIN_SMALLEST = 0;
+    static private final int PIN_LARGEST = 1;
+    static private final int PIN_ZERO = 2;
+    static private final int PIN_TYPE_MIN = 3;
+    static private final int PIN_TYPE_MAX = 4;
+    static private final int PIN_KINDS = 5;
+
+    private final int budget;
+    private final ArrayList<VariableValues> variables;
+    private final ArrayList<VariableValues> integerVariables;
+    private final RandomNumbers prng;
+
+    // Keys of the retained value sets, by index and for lookups
+    private ArrayList<List<Object>> valueSetKeys = new ArrayList<List<Object>>();
+    private HashSet<List<Object>> retainedValueSetKeys = new HashSet<List<Object>>();
+
+    // Pinned value set index for each integer variable and pin kind (-1 = none) and the key of the pinned value
+    private int[] pinnedValueSets;
+    private Object[] pinnedKeys;
+    private Object[] typeLimitKeys;
+
+    // Distinct value sets seen since the budget was exceeded, including the sampled ones
+    private long sampledValueSetCount = 0;
+    private boolean sampling = false;
+
+    ValueSetSummary(int budget, ArrayList<VariableValues> variables, ArrayList<VariableValues> integerVariables,
+                    long statementID) throws Exception {
+        this.budget = budget;
+        this.variables = variables;
+        this.integerVariables = integerVariables;
+        this.prng = new RandomNumbers((int)statementID);
+        pinnedValueSets = new int[integerVariables.size() * PIN_KINDS];
+        Arrays.fill(pinnedValueSets, -1);
+        pinnedKeys = new Object[pinnedValueSets.length];
+        typeLimitKeys = new Object[integerVariables.size() * 2];
+        for (int i = 0; i < integerVariables.size(); ++i) {
+            ASTNode type = integerVariables.get(i).getVariable().getType();
+            if (type instanceof ASTElementaryTypeName) {
+                ASTElementaryTypeName elementaryTypeName = (ASTElementaryTypeName)type;
+                int bits = elementaryTypeName.getBits();
+                BigInteger min = elementaryTypeName.isSigned() ? BigInteger.ONE.shiftLeft(bits - 1).negate() : BigInteger.ZERO;
+                BigInteger max = elementaryTypeName.isSigned()
+                        ? BigInteger.ONE.shiftLeft(bits - 1).subtract(BigInteger.ONE)
+                        : BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE);
+                typeLimitKeys[i * 2] = toKey(min);
+                typeLimitKeys[i * 2 + 1] = toKey(max);
+            }
+        }
+    }
+
+    boolean isSampling() { return sampling; }
+
+    // Process the value set that was last added to the variables. Returns false if the values cannot be
+    // summarized, in which case the value set is kept and no further value sets should be passed
+    boolean completeValueSet(int index) throws Exception {
+        Object[] keys = new Object[variables.size()];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = variables.get(i).getValueKey(index);
+            if (keys[i] == null) {
+                return false;
+            }
+        }
+        List<Object> valueSetKey = Arrays.asList(keys);
+        if (retainedValueSetKeys.contains(valueSetKey)) {
+            removeLastValueSet();
+            return true;
+        }
+
+        boolean pinned = updatePins(index);
+        if (!sampling && index < budget) {
+            retain(valueSetKey);
+            return true;
+        }
+        if (!sampling) {
+            sampling = true;
+            sampledValueSetCount = budget;
+        }
+        ++sampledValueSetCount;
+        if (!pinned && prng.generateLongInteger(0, sampledValueSetCount - 1) >= budget) {
+            removeLastValueSet();
+            return true;
+        }
+
+        // Replace a random unpinned value set, if there is one
+        int start = (int)prng.generateLongInteger(0, index - 1);
+        for (int i = 0; i < index; ++i) {
+            int victim = (start + i) % index;
+            if (!isPinned(victim)) {
+                retainedValueSetKeys.remove(valueSetKeys.get(victim));
+                valueSetKeys.set(victim, valueSetKey);
+                retainedValueSetKeys.add(valueSetKey);
+                for (VariableValues variableValues : variables) {
+                    variableValues.moveValue(index, victim);
+                }
+                removeLastValueSet();
+                for (int j = 0; j < pinnedValueSets.length; ++j) {
+                    if (pinnedValueSets[j] == index) {
+                        pinnedValueSets[j] = victim;
+                    }
+                }
+                return true;
+            }
+        }
+        retain(valueSetKey);
+        return true;
+    }
+
+    private void retain(List<Object> valueSetKey) {
+        valueSetKeys.add(valueSetKey);
+        retainedValueSetKeys.add(valueSetKey);
+    }
+
+    private void removeLastValueSet() {
+        for (VariableValues variableValues : variables) {
+            variableValues.removeLastValue();
+        }
+    }
+
+    // Pin the value set at the given index where it contains new extreme or boundary values. Returns true if
+    // it was pinned
+    private boolean updatePins(int index) throws Exception {
+        boolean pinned = false;
+        for (int i = 0; i < integerVariables.size(); ++i) {
+            Object key = integerVariables.get(i).getValueKey(index);
+            int pin = i * PIN_KINDS;
+            if (pinnedValueSets[pin + PIN_SMALLEST] == -1 || compareKeys(key, pinnedKeys[pin + PIN_SMALLEST]) < 0) {
+                pinned |= pin(pin + PIN_SMALLEST, index, key);
+            }
+            if (pinnedValueSets[pin + PIN_LARGEST] == -1 || compareKeys(key, pinnedKeys[pin + PIN_LARGEST]) > 0) {
+                pinned |= pin(pin + PIN_LARGEST, index, key);
+            }
+            if (pinnedValueSets[pin + PIN_ZERO] == -1 && key.equals(0L)) {
+                pinned |= pin(pin + PIN_ZERO, index, key);
+            }
+            if (pinnedValueSets[pin + PIN_TYPE_MIN] == -1 && key.equals(typeLimitKeys[i * 2])) {
+                pinned |= pin(pin + PIN_TYPE_MIN, index, key);
+            }
+            if (pinnedValueSets[pin + PIN_TYPE_MAX] == -1 && key.equals(typeLimitKeys[i * 2 + 1])) {
+                pinned |= pin(pin + PIN_TYPE_MAX, index, key);
+            }
+        }
+        return pinned;
+    }
+
+    private boolean pin(int pin, int index, Object key) {
+        pinnedValueSets[pin] = index;
+        pinnedKeys[pin] = key;
+        return true;
+    }
+
+    private boolean isPinned(int index) {
+        for (int pinnedValueSet : pinnedValueSets) {
+            if (pinnedValueSet == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static private Object toKey(BigInteger value) {
+        return value.bitLength() < 64 ? (Object)value.longValue() : value;
+    }
+
+    static private int compareKeys(Object first, Object second) {
+        if (first instanceof Long && second instanceof Long) {
+            return Long.compare((Long)first, (Long)second);
+        }
+        return toBigInteger(first).compareTo(toBigInteger(second));
+    }
+
+    static private BigInteger toBigInteger(Object key) {
+        return key instanceof Long ? BigInteger.valueOf((Long)key) : (BigInteger)key;
+    }
+}
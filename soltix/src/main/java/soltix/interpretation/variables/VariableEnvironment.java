@@ -21,6 +21,7 @@ package soltix.interpretation.variables;
 
 import soltix.Configuration;
 import soltix.ast.AST;
+import soltix.ast.ASTCopier;
 import soltix.interpretation.Type;
 import soltix.interpretation.expressions.Expression;
 import soltix.util.JSONValueConverter;
@@ -32,6 +33,8 @@ import soltix.interpretation.values.*;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * Class to represent a variable environment (variables for which profiling or interpretation result values
@@ -58,6 +61,16 @@ public class VariableEnvironment {
 
     private boolean recordingChanges = false;
 
+    // Summary of the value sets read from a profiling log (null = all value sets are kept)
+    private int valueSetBudget = 0;
+    private ValueSetSummary valueSetSummary = null;
+    private boolean valueSetSummaryFailed = false;
+    private int completedValueSetCount = 0;
+    private boolean summarized = false;
+
+    // Number of changes to variables and values, so that results computed from them can be recognized as outdated
+    private int modificationCount = 0;
+
     // Integer variables (of interest for relational expression generation, unlike the other types)
 
     public VariableEnvironment(AST ast, boolean recordingChanges) throws Exception {
@@ -96,6 +109,42 @@ public class VariableEnvironment {
         }
     }
 
+    // Copy for a copy of the AST, see AST.copy(). The values are copied, but the Value objects are shared. A value
+    // set summary in progress is not copied, since copies are only made once the profiling log has been read
+    public VariableEnvironment copy(ASTCopier copier) throws Exception {
+        VariableEnvironment copy = new VariableEnvironment(copier.getAST(), recordingChanges);
+        copy.statementID = statementID;
+        copy.valueCount = valueCount;
+        copy.valueSetBudget = valueSetBudget;
+        copy.valueSetSummaryFailed = valueSetSummaryFailed;
+        copy.completedValueSetCount = completedValueSetCount;
+        copy.summarized = summarized;
+        copy.modificationCount = modificationCount;
+        IdentityHashMap<VariableValues, VariableValues> copiedValues = new IdentityHashMap<VariableValues, VariableValues>();
+        for (VariableValues values : variablesList) {
+            copiedValues.put(values, values.copy(copier.mapVariable(values.getVariable())));
+        }
+        // Cloned so that it is iterated in the same order as the original
+        @SuppressWarnings("unchecked")
+        HashMap<String, VariableValues> copiedVariables = (HashMap<String, VariableValues>)variables.clone();
+        for (Map.Entry<String, VariableValues> entry : copiedVariables.entrySet()) {
+            VariableValues values = copiedValues.get(entry.getValue());
+            if (values == null) {
+                values = entry.getValue().copy(copier.mapVariable(entry.getValue().getVariable()));
+                copiedValues.put(entry.getValue(), values);
+            }
+            entry.setValue(values);
+        }
+        copy.variables = copiedVariables;
+        for (VariableValues values : variablesList) {
+            copy.variablesList.add(copiedValues.get(values));
+        }
+        for (VariableValues values : integerVariablesList) {
+            copy.integerVariablesList.add(copiedValues.get(values));
+        }
+        return copy;
+    }
+
     public Variable getVariable(String name) {
         return variables.get(name).getVariable();
     }
@@ -126,6 +175,7 @@ public class VariableEnvironment {
     }
 
     public void addVariableValues(Variable var, VariableValues values) throws Exception {
+        ++modificationCount;
         // Check type consistency of one representative value (if available) with variable type
         if (var.getType() == null) throw new Exception("Variable type is null for " + var.getName());
 
@@ -222,6 +272,7 @@ public class VariableEnvironment {
 
     // TODO This desperately needs unit tests for partial value updates
     public void updateVariableValue(Variable variable, Expression expression, Value value) throws Exception {
+        ++modificationCount;
         boolean debugOutput = false;
 
         if (debugOutput) {
@@ -265,6 +316,7 @@ public class VariableEnvironment {
     }
 
     public void updateVariableValue(Variable variable, Value value) throws Exception {
+        ++modificationCount;
         VariableValues variableValues = variables.get(variable.getName());
         if (variableValues.getValueCount() != 1) {
             // We could use the most recent value, and that may even be desirable if we're generating profiling
@@ -275,6 +327,7 @@ public class VariableEnvironment {
     }
 
     public void removeVariableValues(Variable var) {
+        ++modificationCount;
         VariableValues values = variables.get(var.getName());
         variables.remove(var.getName());
         variablesList.remove(values);
@@ -291,6 +344,9 @@ public class VariableEnvironment {
     public VariableValues getVariableValues(int index) {
         return variablesList.get(index);
     }
+    public VariableValues getVariableValues(String name) {
+        return variables.get(name);
+    }
 
     public int getIntegerVariableCount() {
         return integerVariablesList == null? 0: integerVariablesList.size();
@@ -312,16 +368,57 @@ public class VariableEnvironment {
         }
 
         Variable variable = variableValues.getVariable();
-        Value value = JSONValueConverter.valueFromObject(variable.getType(), valueObject);
+        storeVariableValue(variableValues, JSONValueConverter.valueFromObject(variable.getType(), valueObject));
+    }
 
-        if (Configuration.verboseDebugOutput) {
+    // Store a value read from a profiling log to the given values of a variable of this environment
+    public void storeVariableValue(VariableValues variableValues, Value value) throws Exception {
+        ++modificationCount;
+        if (Configuration.current().verboseDebugOutput) {
+            Variable variable = variableValues.getVariable();
             System.out.println("   STORED TO var " + variable.getName() + " (type " + variable.getType().toSolidityCode() + ") = "
                     + value.toASTNode(false).toSolidityCode() + " (type " + value.getType().toSolidityCode() + ")");
         }
         variableValues.addValue(value);
     }
 
+    // Bound the number of value sets read from a profiling log, see ValueSetSummary (0 = keep all value sets).
+    // Must be set before the first value set is completed
+    public void setValueSetBudget(int budget) { valueSetBudget = budget; }
+    public int getValueSetBudget() { return valueSetBudget; }
+
+    // Whether value sets were left out by the summary. Then the smallest and largest value of each variable are
+    // still those of all value sets, but evaluating an expression for the remaining value sets does not cover all
+    // values that it will encounter at runtime
+    public boolean isSummarized() { return summarized; }
+
+    // Complete one value set, i.e. one value stored for each variable of this environment from a profiling event
+    public void completeValueSet() throws Exception {
+        ++modificationCount;
+        if (valueSetBudget == 0 || valueSetSummaryFailed) {
+            return;
+        }
+        for (VariableValues variableValues : variablesList) {
+            if (variableValues.getValueCount() != completedValueSetCount + 1) {
+                // Inconsistent value counts are reported by finishAddingValues()
+                valueSetSummaryFailed = true;
+                return;
+            }
+        }
+        if (valueSetSummary == null) {
+            valueSetSummary = new ValueSetSummary(valueSetBudget, variablesList, integerVariablesList, statementID);
+        }
+        if (!valueSetSummary.completeValueSet(completedValueSetCount)) {
+            valueSetSummaryFailed = true;
+            valueSetSummary = null;
+            return;
+        }
+        completedValueSetCount = variablesList.isEmpty() ? 0 : variablesList.get(0).getValueCount();
+        summarized |= valueSetSummary.isSampling();
+    }
+
     public void finishAddingValues() throws Exception {
+        ++modificationCount;
         for (VariableValues variableValues : variables.values()) {
             int currentVariableValueCount = variableValues.finishAddingValues();
             // Make sure that this environment has the same number of values for each included variable
@@ -335,6 +432,8 @@ public class VariableEnvironment {
 
     public int getValueCount() { return valueCount; }
 
+    public int getModificationCount() { return modificationCount; }
+
     public Value resolveVariableValue(int valueSetIndex, /*Variable variable*/ String variableName) throws Exception {
         if (valueSetIndex == NO_VALUE_SET_SELECTED) {
             throw new Exception("Variable.resolveVariableValue called without selected value set index");
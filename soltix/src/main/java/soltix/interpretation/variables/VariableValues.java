@@ -23,9 +23,6 @@ package soltix.interpretation.variables;
 import soltix.interpretation.values.IntegerValue;
 import org.apache.log4j.Logger;
 
-import java.util.ArrayList;
-import java.util.Collections;
-
 import soltix.interpretation.values.Value;
 
 /**
@@ -40,7 +37,10 @@ public class VariableValues {
 
     private long statementID;
     private Variable variable;
-    private ArrayList<Value> values;
+    // Values are stored in a compact column representation where possible, see ValueColumn
+    private ValueColumn values;
+    // Domain of integer values, computed on demand
+    private IntegerDomain integerDomain = null;
     private int observedValuesCount = 0;
 
     public VariableValues(Variable variable, long statementID) {
@@ -48,32 +48,56 @@ public class VariableValues {
         this.statementID = statementID;
     }
 
+    // Copy for a copy of the variable environment, which refers to the given copy of the variable
+    VariableValues copy(Variable variable) throws Exception {
+        VariableValues copy = new VariableValues(variable, statementID);
+        copy.values = values == null ? null : values.copy();
+        copy.integerDomain = integerDomain;
+        copy.observedValuesCount = observedValuesCount;
+        return copy;
+    }
+
     public long getStatementID() { return statementID; }
     public Variable getVariable() { return variable; }
 
-    public void addValue(Value value) {
+    public void addValue(Value value) throws Exception {
+        integerDomain = null;
         if (values == null) {
-            values = new ArrayList<Value>();
+            values = ValueColumn.create(value);
+        }
+        if (!values.add(value)) {
+            values = new ObjectValueColumn(values);
+            values.add(value);
         }
-        values.add(value);
+    }
 
-        /*
-        System.out.println("----- values for " + variable.getName() + " now -----");
-        for (Value v : values) {
-            System.out.println( " ............ " + v.get());
+    public void updateValue(int index, Value newValue) throws Exception {
+        integerDomain = null;
+        if (!values.set(index, newValue)) {
+            values = new ObjectValueColumn(values);
+            values.set(index, newValue);
         }
-        */
     }
 
-    public void updateValue(int index, Value newValue) {
-        values.set(index, newValue);
+    // Key identifying a value among the values of this variable, or null if the values cannot be identified
+    // by keys. Used to summarize value sets, see VariableEnvironment.completeValueSet()
+    public Object getValueKey(int index) throws Exception {
+        return values.getKey(index);
     }
 
-    // If this is a recording for an integer value, these are the smallest and largest encountered values:
-    // TODO Only recording min/max values may be too coarse-grained in general, and maybe there's a better representation
-    private IntegerValue smallestIntegerValue = null;
-    private IntegerValue largestIntegerValue = null;
+    // Overwrite the value at index "to" with the value at index "from"
+    public void moveValue(int from, int to) throws Exception {
+        integerDomain = null;
+        values.move(from, to);
+    }
 
+    public void removeLastValue() {
+        integerDomain = null;
+        values.removeLast();
+    }
+
+    // If this is a recording for an integer value, the column provides the smallest and largest encountered values
+    // TODO Only recording min/max values may be too coarse-grained in general, and maybe there's a better representation
     public int finishAddingValues() throws Exception {
         if (values == null) {
             // TODO Fix this: No values were produced for this variable, even though this whole value processing
@@ -85,49 +109,44 @@ public class VariableValues {
             throw new Exception("Unexpected finishAddingValues for " + variable.getName() + ", type "
                     + variable.getType().toSolidityCode() + " without any values");
         }
-        if (values.get(0) instanceof IntegerValue) { // At least one is available
-            // Find min/max values
-
-            //Collections.sort(values, Collections.reverseOrder());
-            for (Value value : values) {
-                IntegerValue currentIntegerValue = (IntegerValue)value;
-                if (smallestIntegerValue == null || smallestIntegerValue.isGreaterThan(currentIntegerValue).getValue()) {
-                    smallestIntegerValue = currentIntegerValue;
-                }
-                if (largestIntegerValue == null || largestIntegerValue.isSmallerThan(currentIntegerValue).getValue()) {
-                    largestIntegerValue = currentIntegerValue;
-                }
-            }
-        }
+        values.finishAdding();
         return values.size();
     }
 
-    public boolean haveMinMaxValues() { return values.get(0) instanceof IntegerValue; }
+    // Domain of the values of an integer variable, or null if none is available (see IntegerDomain)
+    public IntegerDomain getIntegerDomain() throws Exception {
+        if (integerDomain == null && values != null && values.size() > 0) {
+            integerDomain = values.getIntegerDomain();
+        }
+        return integerDomain;
+    }
+
+    public boolean haveMinMaxValues() throws Exception { return values.holdsIntegers(); }
     public IntegerValue getLargestValue() throws Exception {
-        if (!(values.get(0) instanceof IntegerValue)) {
+        if (!values.holdsIntegers()) {
             throw new Exception("getLargestValue called on non-integer type");
         }
         if (values.size() == 1) {
             // For single-value recordings, small/large integer values do not need to be tracked
             return (IntegerValue)values.get(0);
         }
-        return largestIntegerValue;
+        return values.getLargestIntegerValue();
     }
 
     public IntegerValue getSmallestValue() throws Exception {
-        if (!(values.get(0) instanceof IntegerValue)) {
+        if (!values.holdsIntegers()) {
             throw new Exception("getLargestValue called on non-integer type " + values.get(0).getClass().getName());
         }
         if (values.size() == 1) {
             // For single-value recordings, small/large integer values do not need to be tracked
             return (IntegerValue)values.get(0);
         }
-        return smallestIntegerValue;
+        return values.getSmallestIntegerValue();
     }
 
     public int getValueCount() { return values == null? 0: values.size(); }
 
-    public Value getValue(int index) {
+    public Value getValue(int index) throws Exception {
         return values.get(index);
     }
 
@@ -21,6 +21,7 @@ package soltix.mutation;
 
 import soltix.ASTEditor;
 import soltix.Configuration;
+import soltix.SoltixContext;
 import soltix.ast.*;
 import soltix.interpretation.Type;
 import soltix.interpretation.expressions.Expression;
@@ -40,6 +41,7 @@ import java.util.ArrayList;
 public class LiveEMIMutator implements IMutator {
     private AST ast;
     private ASTEditor editor;
+    private Configuration configuration;
     private RandomNumbers prng;
     private ExpressionGenerator expressionGenerator;
     private PredicateGenerator predicateGenerator;
@@ -52,10 +54,11 @@ public class LiveEMIMutator implements IMutator {
     private ASTContractDefinition currentContract = null;
     private ASTFunctionDefinition currentFunction = null;
 
-    public LiveEMIMutator(AST ast, ASTEditor editor) throws Exception {
+    public LiveEMIMutator(AST ast, ASTEditor editor, SoltixContext context) throws Exception {
         this.ast = ast;
         this.editor = editor;
-        prng = new RandomNumbers(Configuration.randomNumbersSeed);
+        configuration = context.getConfiguration();
+        prng = context.createRandomNumbers();
         predicateGenerator = new PredicateGenerator(ast, editor, prng);
         structTypeGenerator = new StructTypeGenerator(prng); // TODO fix awkward circular StructTypeGenerator-VariableGenerator dependency
         variableGenerator = new VariableGenerator(ast, prng, structTypeGenerator);
@@ -104,6 +107,12 @@ public class LiveEMIMutator implements IMutator {
                     }
                     break;
                 case 2:
+                    if (environment.isSummarized()) {
+                        // The synthesized expression is executed, but it can only be made safe (e.g. against division
+                        // by zero) for the value sets that were kept - use the predicate-only mutation instead
+                        synthesizeAlwaysTrueGuard(node, environment);
+                        break;
+                    }
                     // (Only in normal contracts, since library/interface contracts don't allow mutable storage)
                     if (currentContract.getContractKind() == Definitions.ContractKind.CONTRACT_KIND_CONTRACT) {
                         // Apply "Always True Conditional Block"  mutation
@@ -144,7 +153,7 @@ public class LiveEMIMutator implements IMutator {
         generatedIfStatement = editor.embedInIfStatement(generatedTrueCondition.toASTNode(), node);
 
         // For debugging: check whether the generated expression is really true
-        if (Configuration.checkRuntimeTautologyCorrectness) {
+        if (configuration.checkRuntimeTautologyCorrectness) {
             String code = "if ( (" + generatedTrueCondition.toASTNode().toSolidityCode() + ") != true) emit TAUTOLOGY_ERROR(" + node.getID() + ");";
             ASTVerbatimText checkedGeneratedTrueCondition = new ASTVerbatimText(0, code );
 
@@ -158,7 +167,7 @@ public class LiveEMIMutator implements IMutator {
         // To prepend a conditional block to a given statement, first embed that statement in a new block
         ASTBlock block = new ASTBlock(0);
 
-        if (!Configuration.eventsReplaceStorageLog) { // Only needed for low-level storage tracing
+        if (!configuration.eventsReplaceStorageLog) { // Only needed for low-level storage tracing
             // Mark the beginning of a conditional block through special storage write value
             ASTVerbatimText startMarker = new ASTVerbatimText(0, "_internalMutationsMarkerStorage = _internalMutationsMarkerValue;");
             block.addChildNode(startMarker);
@@ -167,7 +176,7 @@ public class LiveEMIMutator implements IMutator {
     }
 
     protected void endConditionalBlock(ASTBlock block) throws Exception {
-        if (!Configuration.eventsReplaceStorageLog) { // Only needed for low-level storage tracing
+        if (!configuration.eventsReplaceStorageLog) { // Only needed for low-level storage tracing
             // Mark end of conditional block through special storage write value
             ASTVerbatimText endMarker = new ASTVerbatimText(0, "_internalMutationsMarkerStorage = _internalMutationsMarkerValue;");
             block.addChildNode(endMarker);
@@ -428,7 +437,7 @@ public class LiveEMIMutator implements IMutator {
         // Replace parent with synthesized block
         editor.replaceParentNode(node.getParent(), conditionalBlock, node);
         // Append original statement at end of block
-        conditionalBlock.addChildNode(node);
+        editor.addChildNode(conditionalBlock, node);
     }
 
     protected void synthesizeAlwaysFalseConditionalBlock(ASTNode node, VariableEnvironment environment) throws Exception {
@@ -447,7 +456,7 @@ public class LiveEMIMutator implements IMutator {
         // Replace parent with synthesized block
         editor.replaceParentNode(node.getParent(), conditionalBlock, node);
         // Append original statement at end of block
-        conditionalBlock.addChildNode(node);
+        editor.addChildNode(conditionalBlock, node);
 
         // Generate body
         statementGenerator.generate(environment, currentContract, currentFunction, outerIfStatement);
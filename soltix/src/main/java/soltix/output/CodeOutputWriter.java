@@ -20,6 +20,7 @@
 package soltix.output;
 
 import org.apache.log4j.Logger;
+import soltix.ast.ASTNode;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
@@ -27,9 +28,31 @@ import java.util.ArrayList;
 public class CodeOutputWriter {
     final static Logger logger = Logger.getLogger(CodeOutputWriter.class);
 
+    // Lines written between beginFragment() and endFragment(), which can be written again with printFragment()
+    public static class Fragment {
+        private final ArrayList<String> lines = new ArrayList<String>();
+        private final ArrayList<ASTNode> lineNodes = new ArrayList<ASTNode>();
+
+        void addLine(String line, ASTNode sourceNode) {
+            lines.add(line);
+            lineNodes.add(sourceNode);
+        }
+
+        public int getLineCount() { return lines.size(); }
+        public String getLine(int index) { return lines.get(index); }
+    }
+
     private PrintWriter printWriter = null;
     private ArrayList<String> memoryList = null;
-    private String currentMemoryLine = null;
+    // Node which produced each line of memoryList (null for lines not produced by a node)
+    private ArrayList<ASTNode> memoryLineNodes = null;
+    private StringBuilder currentMemoryLine = null;
+    // Buffer for rendering node code, see getCodeBuffer(), and for copying it to printWriter
+    private final StringBuilder codeBuffer = new StringBuilder();
+    private char[] writeBuffer = new char[256];
+    // Fragments being recorded, innermost last, and the current line for them if it isn't kept in currentMemoryLine
+    private ArrayList<Fragment> recordedFragments = new ArrayList<Fragment>();
+    private StringBuilder recordedLine = new StringBuilder();
     private int lineNumber = 1;
     private int linePosition = 0;
 
@@ -38,23 +61,44 @@ public class CodeOutputWriter {
             this.printWriter = printWriter;
         } else {
             memoryList = new ArrayList<String>();
+            memoryLineNodes = new ArrayList<ASTNode>();
         }
     }
 
-    protected void doPrint(String s, boolean newline) throws Exception {
+    protected void doPrint(CharSequence s, boolean newline) throws Exception {
         if (printWriter != null) {
-            printWriter.print(s);
+            if (s instanceof StringBuilder) {
+                StringBuilder builder = (StringBuilder)s;
+                int length = builder.length();
+                if (writeBuffer.length < length) {
+                    writeBuffer = new char[Math.max(length, 2 * writeBuffer.length)];
+                }
+                builder.getChars(0, length, writeBuffer, 0);
+                printWriter.write(writeBuffer, 0, length);
+            } else {
+                printWriter.print(s);
+            }
             if (newline) {
                 printWriter.println();
             }
+            if (!recordedFragments.isEmpty()) {
+                recordedLine.append(s);
+            }
         } else {
             if (currentMemoryLine == null) {
-                currentMemoryLine = "";
+                currentMemoryLine = new StringBuilder();
             }
-            currentMemoryLine += s; // newline not appended!
+            currentMemoryLine.append(s); // newline not appended!
         }
     }
 
+    // Get the (emptied) buffer to render the code of a node into before passing it to println(). The buffer is
+    // reused for every node, so it must be printed before rendering the next one
+    public StringBuilder getCodeBuffer() {
+        codeBuffer.setLength(0);
+        return codeBuffer;
+    }
+
     public void print(String s) throws Exception {
         if (s.contains("\n")) {
             throw new Exception("Unexpected newline in CodeOutputWriter.print() - use println instead");
@@ -64,15 +108,70 @@ public class CodeOutputWriter {
     }
 
     public void println(String s) throws Exception {
+        println(s, null);
+    }
+
+    public void println(CharSequence s, ASTNode sourceNode) throws Exception {
         doPrint(s, true);
         linePosition = 0;
+        String line = null;
         if (printWriter == null) {
-            memoryList.add(currentMemoryLine);
+            line = currentMemoryLine.toString();
+            memoryList.add(line);
+            memoryLineNodes.add(sourceNode);
             currentMemoryLine = null;
         }
+        if (!recordedFragments.isEmpty()) {
+            if (line == null) {
+                line = recordedLine.toString();
+                recordedLine.setLength(0);
+            }
+            for (Fragment fragment : recordedFragments) {
+                fragment.addLine(line, sourceNode);
+            }
+        }
         ++lineNumber;
     }
 
+    // Start recording the following lines as a fragment. Fragments may be nested, and must start at the beginning
+    // of a line
+    public void beginFragment() throws Exception {
+        if (linePosition != 0) {
+            throw new Exception("CodeOutputWriter.beginFragment() called within line " + lineNumber);
+        }
+        recordedFragments.add(new Fragment());
+    }
+
+    // Stop recording the innermost fragment and return it
+    public Fragment endFragment() throws Exception {
+        if (recordedFragments.isEmpty()) {
+            throw new Exception("CodeOutputWriter.endFragment() called without fragment");
+        }
+        return recordedFragments.remove(recordedFragments.size() - 1);
+    }
+
+    // Write the lines of a previously recorded fragment (from any writer), as println() would
+    public void printFragment(Fragment fragment) throws Exception {
+        if (linePosition != 0) {
+            throw new Exception("CodeOutputWriter.printFragment() called within line " + lineNumber);
+        }
+        for (int i = 0; i < fragment.lines.size(); ++i) {
+            String line = fragment.lines.get(i);
+            ASTNode sourceNode = fragment.lineNodes.get(i);
+            if (printWriter != null) {
+                printWriter.print(line);
+                printWriter.println();
+            } else {
+                memoryList.add(line);
+                memoryLineNodes.add(sourceNode);
+            }
+            for (Fragment recordedFragment : recordedFragments) {
+                recordedFragment.addLine(line, sourceNode);
+            }
+        }
+        lineNumber += fragment.lines.size();
+    }
+
     public void flush() {
         if (printWriter != null) {
             printWriter.flush();
@@ -95,6 +194,21 @@ public class CodeOutputWriter {
         return memoryList.get(number);
     }
 
+    public ASTNode getMemoryLineNode(int number) throws Exception {
+        --number; // 1-based counting
+        if (memoryLineNodes == null) {
+            throw new Exception("getMemoryLineNode called on non-memory CodeOutputWriter");
+        }
+        return memoryLineNodes.get(number);
+    }
+
+    public int getMemoryLineCount() throws Exception {
+        if (memoryList == null) {
+            throw new Exception("getMemoryLineCount called on non-memory CodeOutputWriter");
+        }
+        return memoryList.size();
+    }
+
     public void printLineToLogger(int lineNumber, long statementID) throws Exception {
         String line = getMemoryLine(lineNumber);
         logger.info("" + lineNumber + "    [S " + statementID + "]    " + line);
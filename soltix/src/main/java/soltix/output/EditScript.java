@@ -0,0 +1,370 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.output;
+
+import org.bouncycastle.jcajce.provider.digest.Keccak;
+import org.bouncycastle.util.encoders.Hex;
+import soltix.ast.AST;
+import soltix.ast.ASTNode;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+
+/**
+ * Class to represent a program as a list of line edits against a base program, e.g. a mutated program in terms of
+ * the original program it was derived from. Live code mutations only insert code around existing statements, so
+ * the script is typically much smaller than the program, and the program can be materialized by streaming the base
+ * program through apply(). Script format:
+ *
+ *      soltix-edit-script 1
+ *      base [base line count] [keccak256 of base lines]
+ *      @[line] [anchor node ID] -[deleted line count] +[inserted line count]
+ *      [inserted lines]
+ *      ...
+ *
+ * Each operation inserts lines before the given 1-based line of the base program (line count + 1 to append), then
+ * drops the deleted lines from that line on. The anchor is the ID of the AST node which produced that base line
+ * (-1 if there is none), e.g. the statement a mutation wrapped or inserted code before.
+ *
+ * Scripts for mutated programs are computed from the nodes edited since the base program was rendered, so that only
+ * the edited functions are rendered and compared again (see Recorder).
+ */
+public class EditScript {
+    static final String HEADER = "soltix-edit-script 1";
+
+    static class Operation {
+        final int line;
+        final long anchorNodeID;
+        int deletedLineCount = 0;
+        final ArrayList<String> insertedLines = new ArrayList<String>();
+
+        Operation(int line, long anchorNodeID) {
+            this.line = line;
+            this.anchorNodeID = anchorNodeID;
+        }
+    }
+
+    private final int baseLineCount;
+    private final String baseHash;
+    private final ArrayList<Operation> operations = new ArrayList<Operation>();
+
+    private EditScript(int baseLineCount, String baseHash) {
+        this.baseLineCount = baseLineCount;
+        this.baseHash = baseHash;
+    }
+
+    public int getOperationCount() { return operations.size(); }
+
+    static private void updateHash(Keccak.DigestKeccak keccak, String line) throws Exception {
+        byte[] bytes = (line + "\n").getBytes("UTF-8");
+        keccak.update(bytes, 0, bytes.length);
+    }
+
+    // The lines of a program rendered into memory, split at newlines embedded in the code of a node (e.g. comments
+    // preceding the expression of an expression statement) to line up with the lines of the program file
+    static class Lines {
+        final ArrayList<String> text = new ArrayList<String>();
+        final ArrayList<ASTNode> nodes = new ArrayList<ASTNode>();
+
+        Lines(CodeOutputWriter code) throws Exception {
+            for (int i = 1; i <= code.getMemoryLineCount(); ++i) {
+                for (String line : code.getMemoryLine(i).split("\n", -1)) {
+                    text.add(line);
+                    nodes.add(code.getMemoryLineNode(i));
+                }
+            }
+        }
+
+        int size() { return text.size(); }
+        // 1-based counting
+        String getText(int number) { return text.get(number - 1); }
+        ASTNode getNode(int number) { return nodes.get(number - 1); }
+    }
+
+    static private String computeHash(Lines lines) throws Exception {
+        Keccak.DigestKeccak keccak = new Keccak.Digest256();
+        for (String line : lines.text) {
+            updateHash(keccak, line);
+        }
+        return Hex.toHexString(keccak.digest());
+    }
+
+    // Nodes edited since the base program was rendered, in the order of the edits. ASTEditor adds every node it
+    // edits to the recorder attached to the AST (see AST.setEditRecorder()), and journals this like the edit itself
+    public static class Recorder {
+        private final ArrayList<ASTNode> editedNodes = new ArrayList<ASTNode>();
+
+        public void add(ASTNode node) { editedNodes.add(node); }
+        public void removeLast() { editedNodes.remove(editedNodes.size() - 1); }
+        public int getEditCount() { return editedNodes.size(); }
+    }
+
+    // A base program rendered into memory, along with the lookup structures for computing scripts against it, which
+    // are built once for all derived programs
+    public static class Base {
+        private final Lines lines;
+        private final String hash;
+        // Base lines produced by each node, in ascending order
+        private final IdentityHashMap<ASTNode, ArrayList<Integer>> linesByNode = new IdentityHashMap<ASTNode, ArrayList<Integer>>();
+        // First and last base line of each function and contract (see SolidityCodeCache.isCachedNode())
+        private final IdentityHashMap<ASTNode, int[]> regions = new IdentityHashMap<ASTNode, int[]>();
+
+        public Base(CodeOutputWriter code) throws Exception {
+            lines = new Lines(code);
+            hash = computeHash(lines);
+            for (int i = 1; i <= lines.size(); ++i) {
+                ASTNode node = lines.getNode(i);
+                ArrayList<Integer> nodeLines = linesByNode.get(node);
+                if (nodeLines == null) {
+                    nodeLines = new ArrayList<Integer>();
+                    linesByNode.put(node, nodeLines);
+                }
+                nodeLines.add(i);
+
+                for (; node != null; node = node.getParent()) {
+                    if (SolidityCodeCache.isCachedNode(node)) {
+                        int[] region = regions.get(node);
+                        if (region == null) {
+                            regions.put(node, new int[] { i, i });
+                        } else {
+                            region[1] = i;
+                        }
+                    }
+                }
+            }
+        }
+
+        public int getLineCount() { return lines.size(); }
+
+        // The outermost functions and contracts of the base program containing the recorded edits, in program order,
+        // or null if some edit is not contained in any of them
+        ArrayList<ASTNode> getEditedRegions(AST ast, Recorder recorder) {
+            IdentityHashMap<ASTNode, Boolean> editedRegions = new IdentityHashMap<ASTNode, Boolean>();
+            for (ASTNode node : recorder.editedNodes) {
+                ASTNode region = null;
+                ASTNode top = node;
+                for (; node != null; node = node.getParent()) {
+                    if (region == null && regions.containsKey(node)) {
+                        region = node;
+                    }
+                    top = node;
+                }
+                if (top != ast.getRoot()) {
+                    // The node has been removed from the AST, which was recorded as an edit of its parent
+                    continue;
+                }
+                if (region == null) {
+                    return null;
+                }
+                editedRegions.put(region, true);
+            }
+
+            ArrayList<ASTNode> result = new ArrayList<ASTNode>();
+            for (ASTNode region : editedRegions.keySet()) {
+                boolean isOutermost = true;
+                for (ASTNode parent = region.getParent(); parent != null; parent = parent.getParent()) {
+                    if (editedRegions.containsKey(parent)) {
+                        isOutermost = false;
+                        break;
+                    }
+                }
+                if (isOutermost) {
+                    result.add(region);
+                }
+            }
+            Collections.sort(result, new Comparator<ASTNode>() {
+                @Override
+                public int compare(ASTNode a, ASTNode b) {
+                    return Integer.compare(regions.get(a)[0], regions.get(b)[0]);
+                }
+            });
+            return result;
+        }
+    }
+
+    // Compute the edits from the base program to the derived program, both rendered into memory from the same AST
+    // (see Emitter.renderSolidityCode())
+    static public EditScript compute(CodeOutputWriter baseCode, CodeOutputWriter derivedCode) throws Exception {
+        return compute(new Base(baseCode), derivedCode);
+    }
+
+    static public EditScript compute(Base base, CodeOutputWriter derivedCode) throws Exception {
+        EditScript script = new EditScript(base.getLineCount(), base.hash);
+        script.addOperations(base, 1, base.getLineCount(), new Lines(derivedCode));
+        return script;
+    }
+
+    // Compute the edits from the base program to the current state of its AST. Only the functions and contracts
+    // containing the edits recorded since the base program was rendered are rendered again and compared to their
+    // base lines, so the cost is proportional to the size of the edited functions rather than the program. Edits
+    // outside of functions and contracts fall back to comparing the whole program
+    static public EditScript compute(Base base, AST ast, Recorder recorder) throws Exception {
+        ArrayList<ASTNode> editedRegions = base.getEditedRegions(ast, recorder);
+        if (editedRegions == null) {
+            return compute(base, Emitter.renderSolidityCode(ast));
+        }
+        EditScript script = new EditScript(base.getLineCount(), base.hash);
+        for (ASTNode region : editedRegions) {
+            int[] lines = base.regions.get(region);
+            script.addOperations(base, lines[0], lines[1], new Lines(Emitter.renderSolidityCode(region, ast.getCodeCache())));
+        }
+        return script;
+    }
+
+    // Add the edits from base lines firstBaseLine to lastBaseLine to the derived lines. A base line is kept if the
+    // derived lines contain it, produced by the same node, at or after the current position - everything up to
+    // there is deleted, and unmatched derived lines are inserted. This is optimal for insertions and always yields a
+    // correct (if not minimal) script
+    private void addOperations(Base base, int firstBaseLine, int lastBaseLine, Lines derived) throws Exception {
+        int baseLine = firstBaseLine;
+        Operation operation = null;
+        for (int i = 1; i <= derived.size(); ++i) {
+            String line = derived.getText(i);
+            int matchingBaseLine = -1;
+            ArrayList<Integer> candidates = base.linesByNode.get(derived.getNode(i));
+            if (candidates != null) {
+                for (int candidate : candidates) {
+                    if (candidate > lastBaseLine) {
+                        break;
+                    }
+                    if (candidate >= baseLine && base.lines.getText(candidate).equals(line)) {
+                        matchingBaseLine = candidate;
+                        break;
+                    }
+                }
+            }
+
+            if (matchingBaseLine == -1) {
+                if (operation == null) {
+                    operation = newOperation(base.lines, baseLine);
+                }
+                operation.insertedLines.add(line);
+                continue;
+            }
+            if (matchingBaseLine > baseLine) {
+                if (operation == null) {
+                    operation = newOperation(base.lines, baseLine);
+                }
+                operation.deletedLineCount = matchingBaseLine - baseLine;
+            }
+            operation = null;
+            baseLine = matchingBaseLine + 1;
+        }
+
+        if (baseLine <= lastBaseLine) {
+            if (operation == null) {
+                operation = newOperation(base.lines, baseLine);
+            }
+            operation.deletedLineCount = lastBaseLine + 1 - baseLine;
+        }
+    }
+
+    private Operation newOperation(Lines base, int line) {
+        ASTNode anchor = line <= baseLineCount ? base.getNode(line) : null;
+        Operation operation = new Operation(line, anchor != null ? anchor.getID() : -1);
+        operations.add(operation);
+        return operation;
+    }
+
+    public void write(PrintWriter writer) {
+        writer.println(HEADER);
+        writer.println("base " + baseLineCount + " " + baseHash);
+        for (Operation operation : operations) {
+            writer.println("@" + operation.line + " " + operation.anchorNodeID
+                    + " -" + operation.deletedLineCount + " +" + operation.insertedLines.size());
+            for (String line : operation.insertedLines) {
+                writer.println(line);
+            }
+        }
+        writer.flush();
+    }
+
+    // Materialize the program described by a script by streaming the base program through it. The base program
+    // is verified against the line count and hash recorded in the script, so output written before a mismatch is
+    // detected (signalled by an exception) must be discarded
+    static public void apply(BufferedReader base, BufferedReader script, PrintWriter output) throws Exception {
+        String line = script.readLine();
+        if (line == null || !line.equals(HEADER)) {
+            throw new Exception("Invalid edit script header '" + line + "'");
+        }
+        line = script.readLine();
+        String[] baseInfo = line != null ? line.split(" ") : new String[0];
+        if (baseInfo.length != 3 || !baseInfo[0].equals("base")) {
+            throw new Exception("Invalid edit script base line '" + line + "'");
+        }
+        int expectedBaseLineCount = Integer.parseInt(baseInfo[1]);
+
+        Keccak.DigestKeccak keccak = new Keccak.Digest256();
+        int baseLine = 1;
+        while ((line = script.readLine()) != null) {
+            String[] fields = line.split(" ");
+            if (fields.length != 4 || !fields[0].startsWith("@")
+                || !fields[2].startsWith("-") || !fields[3].startsWith("+")) {
+                throw new Exception("Invalid edit script operation '" + line + "'");
+            }
+            int operationLine = Integer.parseInt(fields[0].substring(1));
+            int deletedLineCount = Integer.parseInt(fields[2].substring(1));
+            int insertedLineCount = Integer.parseInt(fields[3].substring(1));
+            if (operationLine < baseLine) {
+                throw new Exception("Edit script operations out of order at '" + line + "'");
+            }
+
+            for (; baseLine < operationLine; ++baseLine) {
+                output.println(readBaseLine(base, keccak, baseLine));
+            }
+            for (int i = 0; i < insertedLineCount; ++i) {
+                String insertedLine = script.readLine();
+                if (insertedLine == null) {
+                    throw new Exception("Edit script ends in inserted lines of operation '" + line + "'");
+                }
+                output.println(insertedLine);
+            }
+            for (int i = 0; i < deletedLineCount; ++i, ++baseLine) {
+                readBaseLine(base, keccak, baseLine);
+            }
+        }
+        while ((line = base.readLine()) != null) {
+            updateHash(keccak, line);
+            output.println(line);
+            ++baseLine;
+        }
+        output.flush();
+
+        if (baseLine - 1 != expectedBaseLineCount) {
+            throw new Exception("Edit script expects " + expectedBaseLineCount + " base lines, got " + (baseLine - 1));
+        }
+        if (!Hex.toHexString(keccak.digest()).equals(baseInfo[2])) {
+            throw new Exception("Edit script does not match base program (hash mismatch)");
+        }
+    }
+
+    static private String readBaseLine(BufferedReader base, Keccak.DigestKeccak keccak, int number) throws Exception {
+        String line = base.readLine();
+        if (line == null) {
+            throw new Exception("Edit script refers to line " + number + " beyond the end of the base program");
+        }
+        updateHash(keccak, line);
+        return line;
+    }
+}
@@ -52,7 +52,7 @@ public class Emitter {
 
         // Define each vertex with its ID as name and Solidity code as label
         String colorString = "";
-        if (Configuration.showCoverage) {
+        if (Configuration.current().showCoverage) {
             colorString = ",color=" + (currentNode.getCovered()? "green": "red");
         }
         writer.println("    " + currentNode.getID() + "[label=\"" + code + "\" " + colorString + "];");
@@ -95,17 +95,35 @@ public class Emitter {
         }
     }
 
-    static private int callDepth = 0;
-
     static protected void outputASTSolidityCode(CodeOutputWriter writer, ASTNode currentNode) throws Exception {
-        ++callDepth;
-        if (currentNode.toSolidityCode() != null) {
-            if (Configuration.showCoverage && currentNode.getCovered()) {
+        outputASTSolidityCode(writer, currentNode, null);
+    }
+
+    // Output a node, copying the code of functions and contracts from the cache (if any) where possible
+    static protected void outputASTSolidityCode(CodeOutputWriter writer, ASTNode currentNode, SolidityCodeCache cache) throws Exception {
+        if (cache != null && SolidityCodeCache.isCachedNode(currentNode)) {
+            CodeOutputWriter.Fragment fragment = cache.get(currentNode);
+            if (fragment != null) {
+                writer.printFragment(fragment);
+            } else {
+                writer.beginFragment();
+                outputASTNodeSolidityCode(writer, currentNode, cache);
+                cache.put(currentNode, writer.endFragment());
+            }
+        } else {
+            outputASTNodeSolidityCode(writer, currentNode, cache);
+        }
+    }
+
+    static protected void outputASTNodeSolidityCode(CodeOutputWriter writer, ASTNode currentNode, SolidityCodeCache cache) throws Exception {
+        // Render the code once, before the termination check below, which depends on rendering side effects
+        StringBuilder code = writer.getCodeBuffer();
+        if (currentNode.render(code)) {
+            if (Configuration.current().showCoverage && currentNode.getCovered()) {
                 writer.print("/*#*/");
             }
             printNestingLevel(writer, currentNode);
 
-            String termination = "";
             if (currentNode instanceof ASTVariableDeclaration // Declaration which is not part of a declaration statement (?)
                 || (currentNode instanceof ASTFunctionDefinition && currentNode.getChildCount() == 0) // Function declaration without body
                 || currentNode instanceof ASTExpressionStatement
@@ -133,7 +151,7 @@ public class Emitter {
                     }
                 }
                 if (!skipTermination) {
-                    termination = ";";
+                    code.append(';');
                 }
             }
 
@@ -141,7 +159,7 @@ public class Emitter {
             int positionInLine = writer.getCurrentLinePosition();
 
             // Output solidity code
-            writer.println(currentNode.toSolidityCode() + termination);
+            writer.println(code, currentNode);
 
             // Accounting in node
             int outputLength = writer.getCurrentLinePosition() - positionInLine;
@@ -154,53 +172,67 @@ public class Emitter {
             // The if and else bodies are stored as child nodes for graph visualization,
             // but we have to process them consciously to insert the else part
             ASTIfStatement ifStatement = (ASTIfStatement) currentNode;
-            outputASTSolidityCode(writer, ifStatement.getIfBranch());
+            outputASTSolidityCode(writer, ifStatement.getIfBranch(), cache);
             if (ifStatement.getElseBranch() != null) {
                 printNestingLevel(writer, currentNode);
-                writer.println("else");
-                outputASTSolidityCode(writer, ifStatement.getElseBranch());
+                writer.println("else", currentNode);
+                outputASTSolidityCode(writer, ifStatement.getElseBranch(), cache);
             }
         } else {
             for (int i = 0; i < currentNode.getChildCount(); ++i) {
-                outputASTSolidityCode(writer, currentNode.getChild(i));
+                outputASTSolidityCode(writer, currentNode.getChild(i), cache);
             }
         }
 
-        if (currentNode.toSolidityCodePostfix() != null) {
-            if (Configuration.showCoverage && currentNode.getCovered()) {
+        String postfix = currentNode.toSolidityCodePostfix();
+        if (postfix != null) {
+            if (Configuration.current().showCoverage && currentNode.getCovered()) {
                 writer.print("/*#*/");
             }
             printNestingLevel(writer, currentNode);
-            writer.println(currentNode.toSolidityCodePostfix());
+            writer.println(postfix, currentNode);
         }
-        --callDepth;
     }
 
     static public void emitSolidityCode(OutputStream output, AST ast) throws Exception {
         PrintWriter writer = new PrintWriter(output);
         CodeOutputWriter codeWriter = new CodeOutputWriter(writer);
 
-        if (Configuration.insertLCMSupportCode && Configuration.useABIEncoderV2) {
+        if (Configuration.current().insertLCMSupportCode && Configuration.current().useABIEncoderV2) {
             // To allow for structs containing strings (clashes for contracts which already contain this line):
             // TODO: This encoder adds a 20x performance penalty for large contracts. Re-enable once fixed or generate V2-specific contracts
             codeWriter.println("pragma experimental ABIEncoderV2;");
         }
 
-        outputASTSolidityCode(codeWriter, ast.getRoot());
+        outputASTSolidityCode(codeWriter, ast.getRoot(), ast.getCodeCache());
 
         codeWriter.flush();
     }
 
     static public void emitSolidityCode(CodeOutputWriter writer, AST ast) throws Exception {
 
-        if (Configuration.insertLCMSupportCode && Configuration.useABIEncoderV2) {
+        if (Configuration.current().insertLCMSupportCode && Configuration.current().useABIEncoderV2) {
             // To allow for structs containing strings (clashes for contracts which already contain this line):
             // TODO: This encoder adds a 20x performance penalty for large contracts. Re-enable once fixed or generate V2-specific contracts
             writer.println("pragma experimental ABIEncoderV2;");
         }
 
         // Output code
-        outputASTSolidityCode(writer, ast.getRoot());
+        outputASTSolidityCode(writer, ast.getRoot(), ast.getCodeCache());
+    }
+
+    // Render the Solidity code into memory, recording the node which produced each line
+    static public CodeOutputWriter renderSolidityCode(AST ast) throws Exception {
+        CodeOutputWriter writer = new CodeOutputWriter(null /* store to memory */);
+        emitSolidityCode(writer, ast);
+        return writer;
+    }
+
+    // Render the Solidity code of one node into memory, as it appears in the code of the whole program
+    static public CodeOutputWriter renderSolidityCode(ASTNode node, SolidityCodeCache cache) throws Exception {
+        CodeOutputWriter writer = new CodeOutputWriter(null /* store to memory */);
+        outputASTSolidityCode(writer, node, cache);
+        return writer;
     }
 
     // Only for limited transactions code for now: emit truffle JavaScript code
@@ -0,0 +1,78 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.output;
+
+import soltix.ast.ASTContractDefinition;
+import soltix.ast.ASTNode;
+import soltix.ast.FunctionScope;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Cache of the Solidity code emitted for functions and contracts, so that an edited AST can be emitted again by
+ * only rendering the functions and contracts that contain edits, and copying the cached code of all others. This
+ * makes writing many mutants of a large program cost roughly the size of the mutations rather than the program.
+ *
+ * The cache is attached to an AST (see AST.setCodeCache()). ASTEditor invalidates the cached code of the functions
+ * and contracts containing every node it edits, so other changes are only allowed on nodes which are not emitted
+ * yet, or whose function has already been invalidated, as is the case for code generated by mutations. Nodes whose
+ * code is copied from the cache keep the output positions of the emission that rendered them.
+ */
+public class SolidityCodeCache {
+    // Cached code removed by invalidate(), which can be restored once the edit has been undone
+    public class Invalidation {
+        private final ArrayList<ASTNode> nodes = new ArrayList<ASTNode>();
+        private final ArrayList<CodeOutputWriter.Fragment> fragments = new ArrayList<CodeOutputWriter.Fragment>();
+
+        public void restore() {
+            for (int i = 0; i < nodes.size(); ++i) {
+                SolidityCodeCache.this.fragments.put(nodes.get(i), fragments.get(i));
+            }
+        }
+    }
+
+    private final HashMap<ASTNode, CodeOutputWriter.Fragment> fragments = new HashMap<ASTNode, CodeOutputWriter.Fragment>();
+
+    static public boolean isCachedNode(ASTNode node) {
+        return node instanceof FunctionScope || node instanceof ASTContractDefinition;
+    }
+
+    CodeOutputWriter.Fragment get(ASTNode node) { return fragments.get(node); }
+    void put(ASTNode node, CodeOutputWriter.Fragment fragment) { fragments.put(node, fragment); }
+
+    public int getFragmentCount() { return fragments.size(); }
+
+    // Drop the cached code of the node and all its ancestors, returning it (or null if none was cached)
+    public Invalidation invalidate(ASTNode node) {
+        Invalidation invalidation = null;
+        for (; node != null; node = node.getParent()) {
+            CodeOutputWriter.Fragment fragment = fragments.remove(node);
+            if (fragment != null) {
+                if (invalidation == null) {
+                    invalidation = new Invalidation();
+                }
+                invalidation.nodes.add(node);
+                invalidation.fragments.add(fragment);
+            }
+        }
+        return invalidation;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.profiling;
+
+import soltix.input.JSONTokenReader;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * Streaming reader of event logs, which contain one JSON object per line, such as
+ *
+ *     {"logIndex":0,...,"event":"Profiling_C_18_0","args":{"0":"1","x":"1","__length__":2},...}
+ *
+ * Each event is made available in a compact canonical binary form of its name and arguments, which is the same for
+ * two events if and only if their names match and their argument objects contain the same names and values. Entry
+ * order does not matter, and values of different JSON types (e.g. 1, 1.0 and "1") differ. The canonical forms of
+ * consecutive events can be concatenated without ambiguity, e.g. to compute a digest of a log.
+ *
+ * Lines without an event name are skipped (see EventLogComparator), as are profiling events if requested.
+ */
+public class CanonicalEventReader {
+    private static final byte TAG_NULL = 'N';
+    private static final byte TAG_TRUE = 'T';
+    private static final byte TAG_FALSE = 'F';
+    private static final byte TAG_LONG = 'L';
+    private static final byte TAG_DOUBLE = 'D';
+    private static final byte TAG_STRING = 'S';
+    private static final byte TAG_ARRAY = 'A';
+    private static final byte TAG_OBJECT = 'O';
+
+    // Object entry recorded for sorting
+    private static class Entry {
+        final String name;
+        final int start;
+        int end;
+
+        Entry(String name, int start) {
+            this.name = name;
+            this.start = start;
+        }
+    }
+
+    private static final Comparator<Entry> entryComparator = new Comparator<Entry>() {
+        public int compare(Entry first, Entry second) { return first.name.compareTo(second.name); }
+    };
+
+    private final Reader input;
+    private final JSONTokenReader reader;
+    private final boolean ignoreProfilingEvents;
+    private byte[] buffer = new byte[256];
+    private int length = 0;
+    private String eventName = null;
+    private int lineNumber = 0;
+    private int eventCount = 0;
+
+    public CanonicalEventReader(Reader input, boolean ignoreProfilingEvents) {
+        this.input = input;
+        reader = new JSONTokenReader(input);
+        this.ignoreProfilingEvents = ignoreProfilingEvents;
+    }
+
+    // Advance to the next event, returning false at the end of the log
+    public boolean next() throws Exception {
+        while (reader.nextDocument()) {
+            if (reader.next() != JSONTokenReader.Token.BEGIN_OBJECT) {
+                throw new Exception("Event log line " + reader.getLine() + " is not a JSON object");
+            }
+            lineNumber = reader.getLine();
+            String name = null;
+            boolean haveArguments = false;
+            length = 0;
+            while (reader.next() == JSONTokenReader.Token.NAME) {
+                String key = reader.getName();
+                if (key.equals("event") && reader.peek() == JSONTokenReader.Token.VALUE) {
+                    Object value = reader.readValue();
+                    name = value instanceof String? (String) value: null;
+                } else if (key.equals("args") && !haveArguments) {
+                    encodeValue();
+                    haveArguments = true;
+                } else {
+                    reader.skipValue();
+                }
+            }
+            if (name == null || (ignoreProfilingEvents && name.startsWith(ProfilingEvent.profilingEventPrefix))) {
+                continue;
+            }
+            if (!haveArguments) {
+                writeByte(TAG_NULL);
+            }
+            writeString(name);
+            eventName = name;
+            ++eventCount;
+            return true;
+        }
+        eventName = null;
+        return false;
+    }
+
+    public String getEventName() { return eventName; }
+    // Line of the current event in the log (1-based)
+    public int getLineNumber() { return lineNumber; }
+    // Number of events read so far
+    public int getEventCount() { return eventCount; }
+
+    // Canonical form of the current event, valid until the next call to next()
+    public byte[] getBuffer() { return buffer; }
+    public int getLength() { return length; }
+
+    public boolean sameEventAs(CanonicalEventReader other) {
+        return hasCanonicalForm(other.buffer, 0, other.length);
+    }
+
+    // Check whether the canonical form of the current event is the given one
+    public boolean hasCanonicalForm(byte[] form, int offset, int formLength) {
+        if (length != formLength) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (buffer[i] != form[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void close() throws Exception { input.close(); }
+
+    protected void encodeValue() throws Exception {
+        switch (reader.next()) {
+            case BEGIN_OBJECT:
+                encodeObject();
+                break;
+            case BEGIN_ARRAY:
+                writeByte(TAG_ARRAY);
+                int countPosition = length;
+                writeInt(0);
+                int count = 0;
+                while (reader.peek() != JSONTokenReader.Token.END_ARRAY) {
+                    encodeValue();
+                    ++count;
+                }
+                reader.next();
+                patchInt(countPosition, count);
+                break;
+            case VALUE:
+                Object value = reader.getValue();
+                if (value == null) {
+                    writeByte(TAG_NULL);
+                } else if (value instanceof String) {
+                    writeByte(TAG_STRING);
+                    writeString((String) value);
+                } else if (value instanceof Long) {
+                    writeByte(TAG_LONG);
+                    writeLong((Long) value);
+                } else if (value instanceof Double) {
+                    writeByte(TAG_DOUBLE);
+                    writeLong(Double.doubleToLongBits((Double) value));
+                } else {
+                    writeByte((Boolean) value? TAG_TRUE: TAG_FALSE);
+                }
+                break;
+            default:
+                throw new Exception("Unexpected JSON token on event log line " + reader.getLine());
+        }
+    }
+
+    // Encode an object with its entries sorted by name
+    protected void encodeObject() throws Exception {
+        writeByte(TAG_OBJECT);
+        int countPosition = length;
+        writeInt(0);
+        int entriesStart = length;
+        ArrayList<Entry> entries = new ArrayList<Entry>();
+        boolean sorted = true;
+        while (reader.next() == JSONTokenReader.Token.NAME) {
+            Entry entry = new Entry(reader.getName(), length);
+            writeString(entry.name);
+            encodeValue();
+            entry.end = length;
+            if (!entries.isEmpty() && entries.get(entries.size() - 1).name.compareTo(entry.name) > 0) {
+                sorted = false;
+            }
+            entries.add(entry);
+        }
+        patchInt(countPosition, entries.size());
+        if (!sorted) {
+            Collections.sort(entries, entryComparator);
+            byte[] unsorted = Arrays.copyOfRange(buffer, entriesStart, length);
+            int position = entriesStart;
+            for (Entry entry : entries) {
+                System.arraycopy(unsorted, entry.start - entriesStart, buffer, position, entry.end - entry.start);
+                position += entry.end - entry.start;
+            }
+        }
+    }
+
+    private void reserve(int count) {
+        if (length + count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+        }
+    }
+
+    private void writeByte(byte value) {
+        reserve(1);
+        buffer[length++] = value;
+    }
+
+    private void writeInt(int value) {
+        reserve(4);
+        patchInt(length, value);
+        length += 4;
+    }
+
+    private void patchInt(int position, int value) {
+        buffer[position] = (byte) (value >>> 24);
+        buffer[position + 1] = (byte) (value >>> 16);
+        buffer[position + 2] = (byte) (value >>> 8);
+        buffer[position + 3] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private void writeString(String value) {
+        int count = value.length();
+        writeInt(count);
+        reserve(count * 2);
+        for (int i = 0; i < count; ++i) {
+            char c = value.charAt(i);
+            buffer[length++] = (byte) (c >>> 8);
+            buffer[length++] = (byte) c;
+        }
+    }
+}
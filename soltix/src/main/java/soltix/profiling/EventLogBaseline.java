@@ -0,0 +1,96 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.profiling;
+
+import java.util.Arrays;
+
+/**
+ * Event log held in memory in canonical form (see CanonicalEventReader), so that it can be compared against many
+ * other logs - e.g. the logs of all mutated programs of a test against that of the original program - while only
+ * streaming the other logs. Comparisons do not modify the baseline and can run concurrently.
+ */
+public class EventLogBaseline {
+    private final String path;
+    private final boolean ignoreProfilingEvents;
+    // Canonical forms of all events, event i occupying forms[offsets[i]] to forms[offsets[i + 1] - 1]
+    private byte[] forms = new byte[4096];
+    private int[] offsets = new int[257];
+    private int[] lineNumbers = new int[256];
+    private String[] eventNames = new String[256];
+    private int eventCount = 0;
+    // Last line read from the log, which is reported for differences after its end
+    private int lastLineNumber = 0;
+
+    public EventLogBaseline(String path, boolean ignoreProfilingEvents) throws Exception {
+        this.path = path;
+        this.ignoreProfilingEvents = ignoreProfilingEvents;
+        CanonicalEventReader reader = EventLogComparator.openLog(path, ignoreProfilingEvents);
+        try {
+            while (reader.next()) {
+                add(reader);
+            }
+            lastLineNumber = reader.getLineNumber();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void add(CanonicalEventReader reader) {
+        if (eventCount == lineNumbers.length) {
+            offsets = Arrays.copyOf(offsets, eventCount * 2 + 1);
+            lineNumbers = Arrays.copyOf(lineNumbers, eventCount * 2);
+            eventNames = Arrays.copyOf(eventNames, eventCount * 2);
+        }
+        int offset = offsets[eventCount];
+        if (offset + reader.getLength() > forms.length) {
+            forms = Arrays.copyOf(forms, Math.max(forms.length * 2, offset + reader.getLength()));
+        }
+        System.arraycopy(reader.getBuffer(), 0, forms, offset, reader.getLength());
+        offsets[eventCount + 1] = offset + reader.getLength();
+        lineNumbers[eventCount] = reader.getLineNumber();
+        eventNames[eventCount] = reader.getEventName();
+        ++eventCount;
+    }
+
+    public String getPath() { return path; }
+    public int getEventCount() { return eventCount; }
+
+    // Find the first event in which the given log differs from the baseline (the first log of the difference), or
+    // return null if they are equal
+    public EventLogComparator.Difference findDifference(String logPath) throws Exception {
+        CanonicalEventReader reader = EventLogComparator.openLog(logPath, ignoreProfilingEvents);
+        try {
+            for (int i = 0; ; ++i) {
+                boolean haveEvent = reader.next();
+                if (i == eventCount) {
+                    return haveEvent
+                            ? new EventLogComparator.Difference(lastLineNumber, null, reader.getLineNumber(), reader.getEventName())
+                            : null;
+                }
+                if (!haveEvent || !reader.hasCanonicalForm(forms, offsets[i], offsets[i + 1] - offsets[i])) {
+                    return new EventLogComparator.Difference(lineNumbers[i], eventNames[i],
+                            reader.getLineNumber(), reader.getEventName());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -21,106 +21,256 @@ package soltix.profiling;
 
 import org.apache.log4j.Logger;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
+import java.io.PrintWriter;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * Comparison of two event logs from the execution of two contracts that are expected to be semantically equivalent
  * for the input data given in the test.
  *
  * (Potentially but not necessarily containing Profiling-specific events as well)
+ *
+ * Each log is streamed once and its events, in the canonical form produced by CanonicalEventReader, are fed into a
+ * digest, so that equality is decided by comparing two digests, and the digest of one log can be compared against
+ * those of many others. Only logs that differ are read again to locate the first differing event.
+ *
+ * compareAll() compares one baseline log against many others (e.g. those of all mutated programs of a test) in one
+ * JVM, keeping the baseline in memory (see EventLogBaseline) and streaming the other logs on a thread pool.
  */
 public class EventLogComparator {
     final static Logger logger = Logger.getLogger(EventLogComparator.class);
 
-    static public boolean equal(String firstLogPath, String secondLogPath, boolean ignoreProfilingEvents) throws Exception {
-        // Perform a light-weight line-by-line event comparison. No AST or type info is needed, only event
-        // names and argument names/values
-        BufferedReader firstLogReader = new BufferedReader(new FileReader(firstLogPath));
-        BufferedReader secondLogReader = new BufferedReader(new FileReader(secondLogPath));
-        boolean result = true;
-
-        String firstLine = null, secondLine = null;
-        JSONParser jsonParser = new JSONParser();
-
-        int firstLineNumber = 0, secondLineNumber = 0;
-        for (;;) {
-            String firstEventName = null, secondEventName = null;
-            String firstEventArguments = null, secondEventArguments = null;
-            while (firstLogReader != null) {
-                firstLine = firstLogReader.readLine();
-                if (firstLine == null) {
-                    firstLogReader.close();
-                    firstLogReader = null;
-                } else {
-                    ++firstLineNumber;
-                    JSONObject firstLineJSON = (JSONObject) jsonParser.parse(firstLine);
-                    firstEventName = (String) firstLineJSON.get("event");
-                    if (firstEventName == null) {
-                        // Some test cases, such as 01fa569a017e8d103f8c9c0b5fecaad0a3d4b28ffc465f63195754c5257947d0,
-                        // apparently result in events that were not emitted by the Solidity program, the nature of which is unclear:
-                        //      {"logIndex":0,"transactionIndex":0,"transactionHash":"0x99f8cae7fd148ac7b8ef615113c89d1065a098eabe9ad25f0ee17b23a5043b8d","blockHash":"0x9a1b8f13df9f406267b8f30a9650405d8d377b6e7b01611645ada6cda1d2553    a","blockNumber":5,"address":"0x802042f99aed5e1d327ddb2aaf82790d89c154bd","data":"0x0","topics":["0x0cb5c216387887a30c1b56bfd6d4562eaf53b432f9a7d3a8bde0298f3f130fa3"],"type":"mined"}
-                        continue;
+    static final String digestAlgorithm = "SHA-256";
+
+    // Digest of the events of a log
+    static public class Digest {
+        private final byte[] value;
+        private final int eventCount;
+
+        Digest(byte[] value, int eventCount) {
+            this.value = value;
+            this.eventCount = eventCount;
+        }
+
+        public int getEventCount() { return eventCount; }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Digest
+                    && eventCount == ((Digest) other).eventCount
+                    && Arrays.equals(value, ((Digest) other).value);
+        }
+
+        @Override
+        public int hashCode() { return Arrays.hashCode(value); }
+    }
+
+    // First differing event of two logs. On a side whose log has ended, the event name is null and the line number
+    // is that of the last line read
+    static public class Difference {
+        private final int firstLineNumber, secondLineNumber;
+        private final String firstEventName, secondEventName;
+
+        Difference(int firstLineNumber, String firstEventName, int secondLineNumber, String secondEventName) {
+            this.firstLineNumber = firstLineNumber;
+            this.firstEventName = firstEventName;
+            this.secondLineNumber = secondLineNumber;
+            this.secondEventName = secondEventName;
+        }
+
+        public int getFirstLineNumber() { return firstLineNumber; }
+        public int getSecondLineNumber() { return secondLineNumber; }
+        public String getFirstEventName() { return firstEventName; }
+        public String getSecondEventName() { return secondEventName; }
+    }
+
+    static public CanonicalEventReader openLog(String logPath, boolean ignoreProfilingEvents) throws Exception {
+        return new CanonicalEventReader(new BufferedReader(new FileReader(logPath)), ignoreProfilingEvents);
+    }
+
+    static public Digest digest(String logPath, boolean ignoreProfilingEvents) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance(digestAlgorithm);
+        CanonicalEventReader reader = openLog(logPath, ignoreProfilingEvents);
+        try {
+            while (reader.next()) {
+                digest.update(reader.getBuffer(), 0, reader.getLength());
+            }
+        } finally {
+            reader.close();
+        }
+        return new Digest(digest.digest(), reader.getEventCount());
+    }
+
+    // Find the first event in which the logs differ, or return null if they are equal
+    static public Difference findDifference(String firstLogPath, String secondLogPath, boolean ignoreProfilingEvents) throws Exception {
+        CanonicalEventReader firstReader = openLog(firstLogPath, ignoreProfilingEvents);
+        try {
+            CanonicalEventReader secondReader = openLog(secondLogPath, ignoreProfilingEvents);
+            try {
+                for (;;) {
+                    boolean haveFirst = firstReader.next();
+                    boolean haveSecond = secondReader.next();
+                    if (!haveFirst && !haveSecond) {
+                        return null;
                     }
-                    firstEventArguments = ((JSONObject) firstLineJSON.get("args")).toJSONString();
-                    if (ignoreProfilingEvents && firstEventName.startsWith(ProfilingEvent.profilingEventPrefix)) {
-                        // Skip profiling events
-                        firstEventName = null;
-                        continue;
-                    } else {
-                        break;
+                    // If one log has ended, the other one has an extra event - since profiling events have already
+                    // been excluded if requested, this is not permissible
+                    if (!haveFirst || !haveSecond || !firstReader.sameEventAs(secondReader)) {
+                        return new Difference(firstReader.getLineNumber(), firstReader.getEventName(),
+                                secondReader.getLineNumber(), secondReader.getEventName());
                     }
                 }
+            } finally {
+                secondReader.close();
             }
-            while (secondLogReader != null) {
-                secondLine = secondLogReader.readLine();
-                if (secondLine == null) {
-                    secondLogReader.close();
-                    secondLogReader = null;
-                } else {
-                    ++secondLineNumber;
-                    JSONObject secondLineJSON = (JSONObject) jsonParser.parse(secondLine);
-                    secondEventName = (String) secondLineJSON.get("event");
-                    if (secondEventName == null) {
-                        continue;
-                    }
-                    secondEventArguments = ((JSONObject) secondLineJSON.get("args")).toJSONString();
-                    if (ignoreProfilingEvents && secondEventName.startsWith(ProfilingEvent.profilingEventPrefix)) {
-                        // Skip profiling events
-                        secondEventName = null;
-                        continue;
-                    } else {
-                        break;
+        } finally {
+            firstReader.close();
+        }
+    }
+
+    static public boolean equal(String firstLogPath, String secondLogPath, boolean ignoreProfilingEvents) throws Exception {
+        // Perform a light-weight event comparison. No AST or type info is needed, only event names and argument
+        // names/values
+        if (digest(firstLogPath, ignoreProfilingEvents).equals(digest(secondLogPath, ignoreProfilingEvents))) {
+            return true;
+        }
+        Difference difference = findDifference(firstLogPath, secondLogPath, ignoreProfilingEvents);
+        if (difference == null) {
+            // Cannot happen unless a log changed between the two passes
+            return true;
+        }
+        logDifference(firstLogPath, secondLogPath, difference);
+        return false;
+    }
+
+    static protected void logDifference(String firstLogPath, String secondLogPath, Difference difference) {
+        logger.error(describeDifference(firstLogPath, secondLogPath, difference));
+    }
+
+    static public String describeDifference(String firstLogPath, String secondLogPath, Difference difference) {
+        return "Error: Log difference on line " + difference.getFirstLineNumber() + " (" + firstLogPath + ", "
+                + describeEvent(difference.getFirstEventName()) + ") vs line " + difference.getSecondLineNumber()
+                + " (" + secondLogPath + ", " + describeEvent(difference.getSecondEventName()) + ")";
+    }
+
+    static protected String describeEvent(String eventName) {
+        return eventName != null? "event " + eventName: "end of log";
+    }
+
+    // Expand a list of log paths given as comma-separated paths or glob patterns (e.g. "dir/mutated*.log", matched
+    // within the directory of the pattern), or as "@file" naming a file that lists one path per line
+    static public ArrayList<String> expandLogPaths(String specification) throws Exception {
+        ArrayList<String> paths = new ArrayList<String>();
+        if (specification.startsWith("@")) {
+            BufferedReader reader = new BufferedReader(new FileReader(specification.substring(1)));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        paths.add(line.trim());
                     }
                 }
+            } finally {
+                reader.close();
             }
+            return paths;
+        }
+        for (String item : specification.split(",")) {
+            File file = new File(item);
+            if (!file.getName().matches(".*[*?\\[{].*")) {
+                paths.add(item);
+                continue;
+            }
+            File directory = file.getParentFile() != null? file.getParentFile(): new File(".");
+            ArrayList<String> matches = new ArrayList<String>();
+            DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath(), file.getName());
+            try {
+                for (Path path : stream) {
+                    matches.add(path.toString());
+                }
+            } finally {
+                stream.close();
+            }
+            if (matches.isEmpty()) {
+                throw new Exception("No event log matches " + item);
+            }
+            Collections.sort(matches);
+            paths.addAll(matches);
+        }
+        return paths;
+    }
 
-            //System.out.println( "     " + (firstEventName!=null? firstEventName: " (none) ") + " vs " +
-            //        (secondEventName!=null? secondEventName: " (none) ") );
+    // Compare every log against the baseline log using the given number of worker threads (0 = one per available
+    // processor), and write one JSON line per log to the summary, in the order of the logs:
+    //
+    //     {"log":"m0.log","equal":true}
+    //     {"log":"m1.log","equal":false,"line":12,"event":"E","baselineLine":12,"baselineEvent":"F"}
+    //     {"log":"m2.log","equal":false,"error":"..."}
+    //
+    // On a difference, line and event describe the first differing event of the log, and baselineLine and
+    // baselineEvent that of the baseline (0 and null if the respective log has already ended). Returns true if all
+    // logs are equal to the baseline
+    static public boolean compareAll(String baselinePath, final ArrayList<String> logPaths, boolean ignoreProfilingEvents,
+                                     int threads, PrintWriter summary) throws Exception {
+        final EventLogBaseline baseline = new EventLogBaseline(baselinePath, ignoreProfilingEvents);
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(threads, logPaths.size())));
+        ArrayList<Future<Difference>> results = new ArrayList<Future<Difference>>();
+        try {
+            for (final String logPath : logPaths) {
+                results.add(pool.submit(new Callable<Difference>() {
+                    @Override
+                    public Difference call() throws Exception {
+                        return baseline.findDifference(logPath);
+                    }
+                }));
+            }
 
-            if (firstEventName != null && secondEventName != null) {
-                // Both sides have an event
-                if (!firstEventName.equals(secondEventName)
-                        || !firstEventArguments.equals(secondEventArguments)) {
-                    result = false;
-                    break;
+            int differences = 0;
+            for (int i = 0; i < logPaths.size(); ++i) {
+                HashMap<String, Object> line = new HashMap<String, Object>();
+                line.put("log", logPaths.get(i));
+                try {
+                    Difference difference = results.get(i).get();
+                    line.put("equal", difference == null);
+                    if (difference != null) {
+                        line.put("line", difference.getSecondLineNumber());
+                        line.put("event", difference.getSecondEventName());
+                        line.put("baselineLine", difference.getFirstLineNumber());
+                        line.put("baselineEvent", difference.getFirstEventName());
+                        logDifference(baselinePath, logPaths.get(i), difference);
+                        ++differences;
+                    }
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null? e.getCause(): e;
+                    logger.error("Exception while trying to compare logs " + baselinePath + " and " + logPaths.get(i)
+                            + ": " + cause.toString());
+                    line.put("equal", false);
+                    line.put("error", cause.toString());
+                    ++differences;
                 }
-            } else if (firstEventName == null && secondEventName == null) {
-                // Neither side has an event - done
-                result = true;
-                break;
-            } else {
-                // One is null - since we've already excluded profiling events, this is not permissible
-                result = false;
-                break;
+                summary.println(JSONObject.toJSONString(line));
             }
+            summary.flush();
+            return differences == 0;
+        } finally {
+            pool.shutdown();
         }
-        if (!result) {
-            logger.error("Error: Log difference on line " + firstLineNumber + " (" + firstLogPath + ") vs line " + secondLineNumber + " (" + secondLogPath + ")");
-        }
-        return result;
     }
 }
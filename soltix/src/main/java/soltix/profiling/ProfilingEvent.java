@@ -19,9 +19,11 @@
  */
 package soltix.profiling;
 
+import soltix.Configuration;
 import soltix.ast.*;
 import soltix.interpretation.*;
 import soltix.interpretation.variables.*;
+import soltix.input.JSONTokenReader;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
@@ -46,6 +48,10 @@ public class ProfilingEvent {
     // Event arguments
     private ArrayList<Variable> arguments = null;
     private int stringArgumentCount = 0;
+    // Definition of an event read from a log, if found in the ProfilingEventTable, and the decoder compiled for
+    // the arguments of a definition
+    private ProfilingEvent definition = null;
+    private ProfilingEventDecoder decoder = null;
 
     // Indicates whether event arguments are incomplete due to a full stack
     private boolean stackOverflow = false;
@@ -71,6 +77,13 @@ public class ProfilingEvent {
         this.name = constructName(contractName, this.statementID, this.partNumber);
     }
 
+    // For the event-generating part, with the resolved contract and statement (see ProfilingEventTable)
+    public ProfilingEvent(ASTContractDefinition contract, ASTNode statement, int partNumber) {
+        this(contract.getName(), statement.getID(), partNumber);
+        this.contract = contract;
+        this.statement = statement;
+    }
+
     protected ProfilingEvent() {}
 
     protected String constructName(String contractName, long statementID, int partNumber) {
@@ -83,60 +96,141 @@ public class ProfilingEvent {
 
     static public ProfilingEvent fromJSON(AST ast, JSONObject jsonObject) throws Exception {
         String eventName = (String)jsonObject.get("event");
-        ProfilingEvent result = new ProfilingEvent();
 
         if (eventName == null) { // These events sometimes occur for unknown reasons
             return null;
         }
 
-        result.name = eventName;
-
-        // Naming convention:
-        // Profiling_<ContractName>_<StatementID>_<PartNumber>
-        // Note that the contract name may also contain underscores
-        if (eventName.startsWith(profilingEventPrefix)) {
-            String[] parts = eventName.split("_");
-
-            int expectedPartCount = 4;
-            if (parts.length < expectedPartCount) { // not == due to possible underscores in contract names
-                throw new Exception("Malformed profiling event with less than 3 components");
-            }
-            result.partNumber = Integer.parseInt(parts[parts.length - 1]);
-            result.statementID = Integer.parseInt(parts[parts.length - 2]);
-            result.statement = ast.getNodeById(result.statementID);
-
-            String contractName = "";
-            int contractParts = parts.length - expectedPartCount + 1;
-            for (int i = 0; i < contractParts; ++i) {
-                if (i > 0) {
-                    contractName += "_";
-                }
-                contractName += parts[1+i];
-            }
-
-            ASTContractDefinition contract = ast.getContract(contractName);
-            if (contract == null) {
-                throw new Exception("Event log references non-existing contract " + contractName + ", extracted from event name: " + eventName);
-            }
-            result.contract = contract;
-
+        ProfilingEvent result = fromName(ast, eventName);
+        if (!result.isOrdinaryUserEvent) {
             JSONObject args = (JSONObject)jsonObject.get("args");
             if (args != null) {
-                for (Object key : args.keySet()) {
-                    Object value = (Object)args.get((String)key);
+                result.decodeArguments(args);
+            }
+        }
+        return result;
+    }
 
-                    // Locate variable declaration to obtain type for value interpretation
-                    VariableEnvironment environment = result.statement.getVariableEnvironment();
-                    environment.storeVariableValue((String)key, value, result.statementID);
+    // Read an event from the next document of the reader, which is usually one line of an event log. Arguments are
+    // decoded while they are read if the event name precedes them
+    static public ProfilingEvent read(AST ast, JSONTokenReader reader) throws Exception {
+        if (reader.next() != JSONTokenReader.Token.BEGIN_OBJECT) {
+            throw new Exception("Event log entry is not a JSON object");
+        }
+        ProfilingEvent result = null;
+        JSONObject args = null;
+        while (reader.next() == JSONTokenReader.Token.NAME) {
+            String name = reader.getName();
+            if (name.equals("event") && result == null) {
+                String eventName = (String)reader.readValue();
+                if (eventName != null) {
+                    result = fromName(ast, eventName);
                 }
+            } else if (name.equals("args") && result != null && !result.isOrdinaryUserEvent
+                    && reader.peek() == JSONTokenReader.Token.BEGIN_OBJECT) {
+                result.decodeArguments(reader);
+            } else if (name.equals("args") && result == null) {
+                args = (JSONObject)reader.readValue();
+            } else {
+                reader.skipValue();
             }
-        } else {
+        }
+        if (result != null && !result.isOrdinaryUserEvent && args != null) {
+            result.decodeArguments(args);
+        }
+        // These events sometimes occur for unknown reasons
+        return result;
+    }
+
+    // Construct an event read from a log by its name, without arguments
+    static protected ProfilingEvent fromName(AST ast, String eventName) throws Exception {
+        ProfilingEvent result = new ProfilingEvent();
+        result.name = eventName;
+
+        if (!eventName.startsWith(profilingEventPrefix)) {
             result.isOrdinaryUserEvent = true;
+            return result;
         }
 
+        // Events defined by the instrumentation of this AST are decoded with a single lookup, others by their name
+        ProfilingEventTable eventTable = ast.getProfilingEventTable();
+        ProfilingEvent definition = eventTable != null? eventTable.lookup(eventName): null;
+        if (definition != null && definition.statement != null) {
+            result.definition = definition;
+            result.contract = definition.contract;
+            result.statementID = definition.statementID;
+            result.statement = definition.statement;
+            result.partNumber = definition.partNumber;
+        } else {
+            result.decodeName(ast, eventName);
+        }
         return result;
     }
 
+    protected ProfilingEventDecoder getDecoder() throws Exception {
+        if (definition == null || statement.getVariableEnvironment() == null) {
+            return null;
+        }
+        if (definition.decoder == null) {
+            statement.getVariableEnvironment().setValueSetBudget(Configuration.current().valueSetBudget);
+            definition.decoder = new ProfilingEventDecoder(definition);
+        }
+        return definition.decoder;
+    }
+
+    protected void decodeArguments(JSONObject args) throws Exception {
+        ProfilingEventDecoder decoder = getDecoder();
+        if (decoder != null) {
+            decoder.decode(args);
+            return;
+        }
+        for (Object key : args.keySet()) {
+            Object value = (Object)args.get((String)key);
+
+            // Locate variable declaration to obtain type for value interpretation
+            VariableEnvironment environment = statement.getVariableEnvironment();
+            environment.storeVariableValue((String)key, value, statementID);
+        }
+    }
+
+    protected void decodeArguments(JSONTokenReader reader) throws Exception {
+        ProfilingEventDecoder decoder = getDecoder();
+        if (decoder != null) {
+            decoder.decode(reader);
+        } else {
+            decodeArguments((JSONObject)reader.readValue());
+        }
+    }
+
+    // Naming convention:
+    // Profiling_<ContractName>_<StatementID>_<PartNumber>
+    // Note that the contract name may also contain underscores
+    protected void decodeName(AST ast, String eventName) throws Exception {
+        String[] parts = eventName.split("_");
+
+        int expectedPartCount = 4;
+        if (parts.length < expectedPartCount) { // not == due to possible underscores in contract names
+            throw new Exception("Malformed profiling event with less than 3 components");
+        }
+        partNumber = Integer.parseInt(parts[parts.length - 1]);
+        statementID = Integer.parseInt(parts[parts.length - 2]);
+        statement = ast.getNodeById(statementID);
+
+        String contractName = "";
+        int contractParts = parts.length - expectedPartCount + 1;
+        for (int i = 0; i < contractParts; ++i) {
+            if (i > 0) {
+                contractName += "_";
+            }
+            contractName += parts[1+i];
+        }
+
+        contract = ast.getContract(contractName);
+        if (contract == null) {
+            throw new Exception("Event log references non-existing contract " + contractName + ", extracted from event name: " + eventName);
+        }
+    }
+
     // For the event-reading part:
     public ProfilingEvent(String eventName) {
         this.name = eventName;
@@ -0,0 +1,107 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.profiling;
+
+import soltix.input.JSONTokenReader;
+import soltix.interpretation.variables.Variable;
+import soltix.interpretation.variables.VariableEnvironment;
+import soltix.interpretation.variables.VariableValues;
+import soltix.util.JSONValueConverter;
+import org.json.simple.JSONObject;
+
+import java.util.ArrayList;
+
+/**
+ * Decoder for the arguments of one profiling event, compiled once from the event definition (see
+ * ProfilingEventTable). Every argument is mapped to the values it is stored to and to a value decoder for its
+ * type, so decoding an event does no variable lookups or type dispatch. The arguments are usually logged in their
+ * order of definition, which is tried first to find the argument of a name. The value set budget of the environment
+ * is left to the caller (see ProfilingEvent.getDecoder()).
+ */
+public class ProfilingEventDecoder {
+    private final long statementID;
+    private final VariableEnvironment environment;
+    private final String[] names;
+    private final VariableValues[] slots;
+    private final JSONValueConverter.ValueDecoder[] decoders;
+
+    public ProfilingEventDecoder(ProfilingEvent definition) throws Exception {
+        statementID = definition.getStatementID();
+        environment = definition.getStatement().getVariableEnvironment();
+        ArrayList<Variable> arguments = definition.getArguments();
+        int count = arguments != null? arguments.size(): 0;
+        names = new String[count];
+        slots = new VariableValues[count];
+        decoders = new JSONValueConverter.ValueDecoder[count];
+        for (int i = 0; i < count; ++i) {
+            names[i] = arguments.get(i).getName();
+            slots[i] = environment.getVariableValues(names[i]);
+            if (slots[i] != null) {
+                decoders[i] = JSONValueConverter.decoderFor(slots[i].getVariable().getType());
+            }
+        }
+    }
+
+    // Index of the argument of the given name, trying the expected index first, or -1 if there is none
+    protected int findArgument(String name, int expectedIndex) {
+        if (expectedIndex < names.length && names[expectedIndex].equals(name)) {
+            return expectedIndex;
+        }
+        for (int i = 0; i < names.length; ++i) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Store the value of the argument of the given name, returning the expected index of the next argument
+    protected int store(String name, Object valueObject, int expectedIndex) throws Exception {
+        int index = findArgument(name, expectedIndex);
+        if (index == -1 || slots[index] == null) {
+            // Truffle/ganache metadata, or (unexpectedly) a variable that is not part of this event
+            environment.storeVariableValue(name, valueObject, statementID);
+            return expectedIndex;
+        }
+        environment.storeVariableValue(slots[index], decoders[index].decode(valueObject));
+        return index + 1;
+    }
+
+    public void decode(JSONObject arguments) throws Exception {
+        int expectedIndex = 0;
+        for (Object key : arguments.keySet()) {
+            expectedIndex = store((String)key, arguments.get(key), expectedIndex);
+        }
+        environment.completeValueSet();
+    }
+
+    // Decode the argument object that is the next value of the reader
+    public void decode(JSONTokenReader reader) throws Exception {
+        if (reader.next() != JSONTokenReader.Token.BEGIN_OBJECT) {
+            throw new Exception("Profiling event arguments are not a JSON object");
+        }
+        int expectedIndex = 0;
+        while (reader.next() == JSONTokenReader.Token.NAME) {
+            String name = reader.getName();
+            expectedIndex = store(name, reader.readValue(), expectedIndex);
+        }
+        environment.completeValueSet();
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.profiling;
+
+import java.util.HashMap;
+
+/**
+ * Table of the profiling events defined by the instrumentation of an AST, which maps every generated event name
+ * (Profiling_<ContractName>_<StatementID>_<PartNumber>) to the event with its resolved contract, statement and
+ * arguments. Events read from a log are decoded with one lookup in this table rather than by parsing their names
+ * and searching the contract.
+ */
+public class ProfilingEventTable {
+    private HashMap<String, ProfilingEvent> events = new HashMap<String, ProfilingEvent>();
+
+    public void add(ProfilingEvent event) { events.put(event.getName(), event); }
+    public ProfilingEvent lookup(String name) { return events.get(name); }
+    public int getEventCount() { return events.size(); }
+}
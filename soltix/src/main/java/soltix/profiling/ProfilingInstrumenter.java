@@ -61,7 +61,7 @@ public class ProfilingInstrumenter implements IInterpreterCallback {
     }
 
     protected boolean includeNode(ASTNode node) {
-        if (!Configuration.includeAllNodesForInstrumentation && !prng.flipCoin()) {
+        if (!Configuration.current().includeAllNodesForInstrumentation && !prng.flipCoin()) {
             return false;
         }
         return node instanceof ASTIfStatement
@@ -118,8 +118,8 @@ public class ProfilingInstrumenter implements IInterpreterCallback {
     }
 
     public void finish() throws Exception {
-        if (Configuration.profiling && modifications != null) {
-            if (Configuration.loadProfilingLog != null) {
+        if (Configuration.current().profiling && modifications != null) {
+            if (Configuration.current().loadProfilingLog != null) {
                 // We only re-ran the instrumentation to obtain event and event argument type info for
                 // the interpretation of an event log. Thus we can skip the AST output (which is beneficial
                 // to avoid event "noise" for the code trace output)
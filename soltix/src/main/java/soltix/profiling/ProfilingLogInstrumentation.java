@@ -125,17 +125,24 @@ public class ProfilingLogInstrumentation {
         return type != null && !(type instanceof ASTMapping) && !(type instanceof ASTArrayTypeName) && !(type instanceof ASTFunctionTypeName);
     }
 
+    protected void addToEventTable(ProfilingEvent event) {
+        if (ast.getProfilingEventTable() != null) {
+            ast.getProfilingEventTable().add(event);
+        }
+    }
+
     public ArrayList<ProfilingEvent> constructEventList(ASTNode statement, Scope currentScope) throws Exception {
         HashMap<Long, Variable> variablesMap = currentScope.getVariablesById();
         ArrayList<ProfilingEvent> currentStatementResultList = new ArrayList<ProfilingEvent>();
 
         // We definitely want an event for coverage at this point, even if no variables of interest are defined
-        currentEvent = new ProfilingEvent(contract.getName(), statement.getID(), 0);
+        currentEvent = new ProfilingEvent(contract, statement, 0);
         currentStatementResultList.add(currentEvent);
         if (totalResultList == null) {
             totalResultList = new ArrayList<ProfilingEvent>();
         }
         totalResultList.add(currentEvent);
+        addToEventTable(currentEvent);
 
         // Define all events that are needed to record the current scope's state
         for (Variable variable : variablesMap.values()) {
@@ -151,9 +158,10 @@ public class ProfilingLogInstrumentation {
                     currentEvent.setStackOverflow(true);
                     break;
                 }
-                currentEvent = new ProfilingEvent(contract.getName(), statement.getID(), currentEvent.getPartNumber()+1);
+                currentEvent = new ProfilingEvent(contract, statement, currentEvent.getPartNumber()+1);
                 currentStatementResultList.add(currentEvent);
                 totalResultList.add(currentEvent);
+                addToEventTable(currentEvent);
             }
             currentEvent.addArgument(variable);
         }
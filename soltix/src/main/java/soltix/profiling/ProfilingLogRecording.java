@@ -22,12 +22,13 @@ package soltix.profiling;
 import soltix.ast.AST;
 import soltix.ast.ASTContractDefinition;
 import soltix.ast.ASTFunctionDefinition;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
+import soltix.interpretation.variables.VariableEnvironment;
+import soltix.input.JSONTokenReader;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 
 /**
  * Class to represent a loaded recording of profiling events
@@ -53,14 +54,15 @@ public class ProfilingLogRecording {
 
     public void loadEventLog(String path) throws Exception {
         BufferedReader br = new BufferedReader(new FileReader(path));
-        String line;
 
         recordedResultList = new ArrayList<ProfilingEvent>();
-        while ((line = br.readLine()) != null) {
-            JSONParser jsonParser = new JSONParser();
-            JSONObject jsonObject = (JSONObject)jsonParser.parse(line);
-
-            ProfilingEvent event = ProfilingEvent.fromJSON(ast, jsonObject);
+        // Environments that received values, each of which is finished once after loading
+        LinkedHashSet<VariableEnvironment> environments = new LinkedHashSet<VariableEnvironment>();
+        ProfilingEvent lastProfilingEvent = null;
+        // The log contains one JSON document per line
+        JSONTokenReader reader = new JSONTokenReader(br);
+        while (reader.nextDocument()) {
+            ProfilingEvent event = ProfilingEvent.read(ast, reader);
             if (event == null) {
                 continue;
             }
@@ -68,27 +70,33 @@ public class ProfilingLogRecording {
             recordedResultList.add(event);
 
             if (!event.getIsOrdinaryUserEvent()) {
-                /*
-                // A log for multiple contracts must be allowed at least for inter-contract
-                // calls
-                if (contract != null) {
-                    if (contract != event.getContract()) {
-                        throw new Exception("Event log contains events from more than one contract");
-                    }
-                } else*/ {
-                    contract = event.getContract();
-                    // Infer the containing function of this first event as well
-                    firstEventFunction = ast.getFunctionByStatementId(event.getStatementID());
+                lastProfilingEvent = event;
+                if (event.getStatement().getVariableEnvironment() != null) {
+                    environments.add(event.getStatement().getVariableEnvironment());
+                }
+            }
+        }
+        br.close();
+
+        if (lastProfilingEvent != null) {
+            /*
+            // A log for multiple contracts must be allowed at least for inter-contract
+            // calls
+            if (contract != null) {
+                if (contract != event.getContract()) {
+                    throw new Exception("Event log contains events from more than one contract");
                 }
+            } else*/ {
+                contract = lastProfilingEvent.getContract();
+                // Infer the containing function of this first event as well
+                firstEventFunction = ast.getFunctionByStatementId(lastProfilingEvent.getStatementID());
             }
         }
         currentReplayIndex = 0;
 
         // Finalize environment variables
-        for (ProfilingEvent eventData : recordedResultList) {
-            if (eventData.getStatement() != null) {
-                eventData.getStatement().getVariableEnvironment().finishAddingValues();
-            }
+        for (VariableEnvironment environment : environments) {
+            environment.finishAddingValues();
         }
     }
 
@@ -47,15 +47,15 @@ public class ProfilingResultLoader implements IInterpreterCallback {
 
         // Produce in-memory Solidity code representation for tracing output
         codeOutput = new CodeOutputWriter(null /* store to memory */);
-        boolean showCoverage = Configuration.showCoverage;
-        Configuration.showCoverage = false; // not useful for code tracing
+        boolean showCoverage = Configuration.current().showCoverage;
+        Configuration.current().showCoverage = false; // not useful for code tracing
 
         try {
             Emitter.emitSolidityCode(codeOutput, astInterpreter.getAST());
         } catch (Exception e) {
             logger.error("Solidity code output error: " + e.toString());
         }
-        Configuration.showCoverage = showCoverage;
+        Configuration.current().showCoverage = showCoverage;
     }
 
     public ASTInterpreter.NavigationPolicy getNavigationPolicy() { return ASTInterpreter.NavigationPolicy.NAVIGATION_POLICY_TARGETED; }
@@ -96,7 +96,7 @@ public class ProfilingResultLoader implements IInterpreterCallback {
 
     public void visitNodeBeforeProcessing(ASTNode node) throws Exception {
         node.setCovered(true);
-        if (Configuration.verboseDebugOutput) {
+        if (Configuration.current().verboseDebugOutput) {
             codeOutput.printLineToLogger(node.getOutputCodeLineNumber(), node.getID());
             VariableEnvironment environment = node.getVariableEnvironment();
             if (environment != null) {
@@ -21,6 +21,7 @@
 package soltix.synthesis;
 
 import soltix.Configuration;
+import soltix.SoltixContext;
 import soltix.ast.*;
 import soltix.interpretation.variables.Variable;
 import soltix.interpretation.variables.VariableEnvironment;
@@ -37,6 +38,7 @@ public class ContractGenerator {
     private AST ast;
     private AST transactionAST;
     private JSONObject transactionsJSONObject;
+    private Configuration configuration;
     private RandomNumbers prng;
     private int functionCount;
     private int variableCount;
@@ -55,18 +57,19 @@ public class ContractGenerator {
 
     public TransactionGenerator getTransactionGenerator() { return transactionGenerator; }
 
-    public ContractGenerator(AST ast, AST transactionAST, JSONObject transactionsJSONObject, RandomNumbers prng) throws Exception {
+    public ContractGenerator(AST ast, AST transactionAST, JSONObject transactionsJSONObject, SoltixContext context) throws Exception {
         this.ast = ast;
         this.transactionAST = transactionAST;
         this.transactionsJSONObject = transactionsJSONObject;
-        this.prng = prng;
+        this.configuration = context.getConfiguration();
+        this.prng = context.createRandomNumbers();
 
         // For assignment statements between 0 to 100 and 10 variables, this already breaks at 20
-        functionCount = Configuration.contractGenerationFunctionCount;
+        functionCount = configuration.contractGenerationFunctionCount;
 
         // For functions = 10, assignment statements between 0 to 100, 30 variables is close to the limit before
         // the framework fails
-        variableCount = Configuration.contractGenerationVariableCount;
+        variableCount = configuration.contractGenerationVariableCount;
 
         structTypeGenerator = new StructTypeGenerator(prng); // TODO fix awkward circular StructTypeGenerator-VariableGenerator dependency
         variableGenerator = new VariableGenerator(ast, prng, structTypeGenerator);
@@ -158,7 +161,7 @@ public class ContractGenerator {
             }
 
             // Generate function body
-            FunctionGenerator.FunctionType functionType = Configuration.generateFullContractFunctionType; //FunctionGenerator.FunctionType.FUNCTION_TYPE_RANDOM    FunctionGenerator.FunctionType.FUNCTION_TYPE_ASSIGNMENT_SEQUENCE;
+            FunctionGenerator.FunctionType functionType = configuration.generateFullContractFunctionType; //FunctionGenerator.FunctionType.FUNCTION_TYPE_RANDOM    FunctionGenerator.FunctionType.FUNCTION_TYPE_ASSIGNMENT_SEQUENCE;
             functionGenerator.generateFunctionBody(environment, contractDefinition, functionDefinition, functionType);
 
             // Remove generated function's parameters from environment
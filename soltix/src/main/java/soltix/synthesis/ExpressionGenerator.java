@@ -302,19 +302,19 @@ public class ExpressionGenerator {
                                                                       VariableEnvironment environment,
                                                                       ASTNode desiredResultType,
                                                                       boolean enforceInclusionAndEvaluation) throws Exception {
-        if (Configuration.verboseDebugOutput) System.out.println( "=================== new expr gen ==============");
+        if (Configuration.current().verboseDebugOutput) System.out.println( "=================== new expr gen ==============");
 
-        boolean oldDisallowLogicalAndConditionalOperators = Configuration.avoidLogicalAndConditionalOperators;
+        boolean oldDisallowLogicalAndConditionalOperators = Configuration.current().avoidLogicalAndConditionalOperators;
         if (enforceInclusionAndEvaluation) {
-            Configuration.avoidLogicalAndConditionalOperators = true;
+            Configuration.current().avoidLogicalAndConditionalOperators = true;
         }
 
         while (worklist.size() > 1) {
-            if (Configuration.verboseDebugOutput) {
+            if (Configuration.current().verboseDebugOutput) {
                 System.out.println("Expr gen worklist:");
                 for (Expression expr : worklist) {
                     System.out.println("           > " + expr.toASTNode().toSolidityCode() + " type " + expr.getType().toSolidityCode()
-                            + "    inc values " + (expr.getComputedValues() == null ? 0 : expr.getComputedValues().values.size()));
+                            + "    inc values " + (expr.getComputedValues() == null ? 0 : expr.getComputedValues().size()));
                 }
             }
 
@@ -334,7 +334,7 @@ public class ExpressionGenerator {
 
 
 
-                if (!Configuration.allowStructsInFunctionABI) {
+                if (!Configuration.current().allowStructsInFunctionABI) {
                     for (int i = 0; i < worklist.size(); ++i) {
                         if (!Type.isStructType(ast, worklist.get(i).getType())) {
                             ++nonStructItemCount;
@@ -361,28 +361,28 @@ public class ExpressionGenerator {
                         // of 5-10 ! operators applied to the same item in succession
                         Expression operand = pickRandomItemWithoutReplacement(worklist);
                         ArrayList<ASTUnaryOperation.Operator> operators = buildUnaryOperatorList();
-                        if (Configuration.verboseDebugOutput) System.out.println(" ==== START UNARY OP APP ===");
+                        if (Configuration.current().verboseDebugOutput) System.out.println(" ==== START UNARY OP APP ===");
                         while (operators.size() > 0) {
                             ASTUnaryOperation.Operator operator = pickRandomItemWithoutReplacement(operators);
                             if (expressionTypeChecker.isUndefinedUnaryOperation(environment, operand, operator)) {
                                 continue;
                             }
-                            if (Configuration.verboseDebugOutput)
+                            if (Configuration.current().verboseDebugOutput)
                                 System.out.println("    APPLYING " + operator + " TO " + operand.toASTNode().toSolidityCode());
                             Expression newExpression = new Expression(operator, operand);
-                            if (Configuration.verboseDebugOutput)
+                            if (Configuration.current().verboseDebugOutput)
                                 System.out.println("    BUILT EXPR " + newExpression.toASTNode().toSolidityCode());
 
                             worklist.add(newExpression);
                             break;
                         }
-                        if (Configuration.verboseDebugOutput) System.out.println(" ==== END UNARY OP APP ===");
+                        if (Configuration.current().verboseDebugOutput) System.out.println(" ==== END UNARY OP APP ===");
                         break;
                     }
                     case 1: // function call
                     {
                         int argumentCount = (int)prng.generateLongInteger(1,
-                                (Configuration.allowStructsInFunctionABI? worklist.size(): nonStructItemCount) - unusableFunctionArgumentsCount);
+                                (Configuration.current().allowStructsInFunctionABI? worklist.size(): nonStructItemCount) - unusableFunctionArgumentsCount);
 
                         argumentCount = Math.min(argumentCount, 5); // Avoid stack space limit errors
 
@@ -394,7 +394,7 @@ public class ExpressionGenerator {
                         for (int i = worklist.size() - 1; i >= 0; --i) {
                             Expression e = worklist.get(i);
                             boolean isUsableExpression = e.getExpressionAlias() == null;
-                            if (!Configuration.allowStructsInFunctionABI && Type.isStructType(ast, e.getType())) {
+                            if (!Configuration.current().allowStructsInFunctionABI && Type.isStructType(ast, e.getType())) {
                                 isUsableExpression = false;
                             }
 
@@ -435,7 +435,7 @@ public class ExpressionGenerator {
                 expressionTypeConverter.setFirstOperand(firstOperand);
                 expressionTypeConverter.setSecondOperand(secondOperand);
                 
-                if (Configuration.verboseDebugOutput) System.out.println(" === START BINARY OP APP ===");
+                if (Configuration.current().verboseDebugOutput) System.out.println(" === START BINARY OP APP ===");
 
                 expressionTypeConverter.run(environment, prng);
 
@@ -449,7 +449,7 @@ public class ExpressionGenerator {
                         continue;
                     }
 
-                    if (Configuration.guaranteeSafeExecution) {
+                    if (Configuration.current().guaranteeSafeExecution) {
                         // Catch invalid constructs:
                         //    - div/mod by 0
                         //    - shift by negative bit count
@@ -460,7 +460,7 @@ public class ExpressionGenerator {
                     worklist.add(newExpression);
                     break;
                 }
-                if (Configuration.verboseDebugOutput) System.out.println(" === END BINARY OP APP, SIZE =  ===" + operators.size());
+                if (Configuration.current().verboseDebugOutput) System.out.println(" === END BINARY OP APP, SIZE =  ===" + operators.size());
 
                 if (worklist.size() == 0) {
                     // Filter out known "bytes" problems first
@@ -492,7 +492,7 @@ public class ExpressionGenerator {
                         break;
                     }
 
-                    if (!Configuration.ganacheOptimizationWorkarounds) {
+                    if (!Configuration.current().ganacheOptimizationWorkarounds) {
                         // No defined operators - probably can't happen!? TODO Keep one of the arguments, drop the other one if this can really happen?
                         throw new Exception("ExpressionGenerator: Unexpected generation failure: no defined binary operator for "
                                 + "["+firstOperand.toASTNode().toSolidityCode()+"]"
@@ -513,15 +513,15 @@ public class ExpressionGenerator {
             }
         }
 
-        if (Configuration.verboseDebugOutput) System.out.println("############## RETURNING EXPR " + worklist.get(0).toASTNode().toSolidityCode());
-        if (Configuration.verboseDebugOutput) System.out.println("type conv " + worklist.get(0).getType().toSolidityCode() + " -> " + desiredResultType.toSolidityCode());
+        if (Configuration.current().verboseDebugOutput) System.out.println("############## RETURNING EXPR " + worklist.get(0).toASTNode().toSolidityCode());
+        if (Configuration.current().verboseDebugOutput) System.out.println("type conv " + worklist.get(0).getType().toSolidityCode() + " -> " + desiredResultType.toSolidityCode());
 
         Expression ret = typeConverter.convertToCompatibleType(environment, worklist.get(0), desiredResultType);
 
-        if (Configuration.verboseDebugOutput) System.out.println("############## RETURNING CONV " + ret.toASTNode().toSolidityCode());
+        if (Configuration.current().verboseDebugOutput) System.out.println("############## RETURNING CONV " + ret.toASTNode().toSolidityCode());
 
         if (enforceInclusionAndEvaluation) {
-            Configuration.avoidLogicalAndConditionalOperators = oldDisallowLogicalAndConditionalOperators;
+            Configuration.current().avoidLogicalAndConditionalOperators = oldDisallowLogicalAndConditionalOperators;
         }
 
         ret.assignID();
@@ -22,6 +22,7 @@ package soltix.synthesis;
 
 import soltix.ASTEditor;
 import soltix.Configuration;
+import soltix.SoltixContext;
 import soltix.ast.*;
 import soltix.interpretation.Type;
 import soltix.interpretation.TypeContainer;
@@ -184,7 +185,6 @@ public class FunctionGenerator {
     //    - Raises questions on proper evaluation rules (evaluated-value-caching would probably work to avoid side
     // (effect reevaluation issues)
     static public String returnFunctionNamePrefix = "__returnFunction";
-    static public int returnFunctionCounter = 0;
     public Expression generateFunctionWithSingleReturn(ASTContractDefinition contract,
                                                  VariableEnvironment environment,
                                                  ArrayList<Expression> arguments) throws Exception{
@@ -196,7 +196,7 @@ public class FunctionGenerator {
         }
 
         // 2. Build expression
-        ASTNode randomResultType = TypeContainer.chooseRandomType(ast, contract, Configuration.allowStructsInFunctionABI, structTypeGenerator, prng);
+        ASTNode randomResultType = TypeContainer.chooseRandomType(ast, contract, Configuration.current().allowStructsInFunctionABI, structTypeGenerator, prng);
         boolean oldAllowFunctionCalls = expressionGenerator.getAllowFunctionCalls();
         expressionGenerator.setAllowFunctionCalls(false); // don't allow nested calls, as explained above
 
@@ -204,8 +204,8 @@ public class FunctionGenerator {
         // they really didn't, e.g. in:
         //      function f(t arg) { return ++arg; }      f(v);
         // we build "++v" as evaluation expression, but the compiler works on an argument that is discarded
-        boolean oldAvoidGeneratingSubexpressionSideEffects = Configuration.avoidGeneratingSubexpressionSideEffects;
-        Configuration.avoidGeneratingSubexpressionSideEffects = true;
+        boolean oldAvoidGeneratingSubexpressionSideEffects = Configuration.current().avoidGeneratingSubexpressionSideEffects;
+        Configuration.current().avoidGeneratingSubexpressionSideEffects = true;
 
         // Create a copy of the list structure because the expression generation shall not disrupt it
         ArrayList<Expression> worklist = new ArrayList<Expression>();
@@ -213,7 +213,7 @@ public class FunctionGenerator {
             worklist.add(expression);
         }
 
-        //Configuration.verboseDebugOutput = true;
+        //Configuration.current().verboseDebugOutput = true;
 
 
         // Evaluator *must*, in order to produce proper side effects for arguments (e.g. f(i++)):
@@ -222,7 +222,7 @@ public class FunctionGenerator {
         Expression generatedExpression = expressionGenerator.synthesizeBaseExpressionForSpecifiedWorklist(contract, worklist, environment, randomResultType, true);
 
         expressionGenerator.setAllowFunctionCalls(oldAllowFunctionCalls);
-        Configuration.avoidGeneratingSubexpressionSideEffects = oldAvoidGeneratingSubexpressionSideEffects;
+        Configuration.current().avoidGeneratingSubexpressionSideEffects = oldAvoidGeneratingSubexpressionSideEffects;
 
         // 3. Assign a function call alias to the expression.
         // This is modelled by creating an ordinary function call expression, which is also supplied with the
@@ -232,7 +232,7 @@ public class FunctionGenerator {
         // It's important to keep working with expressions here rather than say switching to textual expression argument
         // representations already at this point, because the expression evauation may later change it due to fix-up
         // operations
-        String functionName = returnFunctionNamePrefix + returnFunctionCounter++;
+        String functionName = returnFunctionNamePrefix + SoltixContext.current().allocateReturnFunctionID();
         ASTFunctionCall functionCall = new ASTFunctionCall(0, false, null);
         functionCall.addChildNode(new ASTIdentifier(0, functionName, 0));
         functionCall.finalize();
@@ -283,7 +283,7 @@ public class FunctionGenerator {
         // alone - because fix-up operations may alter the expression and render saved textual code at this point
         // obsolete
         ASTVerbatimText functionNode1 = new ASTVerbatimText(0, firstPart, generatedExpression, secondPart); //sb.toString());
-        contract.addChildNode(functionNode1);
+        astEditor.addChildNode(contract, functionNode1);
 
 
 
@@ -329,8 +329,8 @@ public class FunctionGenerator {
         function.setBody(bodyBlock);
         function.addChildNode(bodyBlock); // for output
 
-        int statementCount = (int) prng.generateLongInteger(Configuration.contractGenerationFunctionStatementsLowerBound,
-                Configuration.contractGenerationFunctionStatementsUpperBound);
+        int statementCount = (int) prng.generateLongInteger(Configuration.current().contractGenerationFunctionStatementsLowerBound,
+                Configuration.current().contractGenerationFunctionStatementsUpperBound);
 
         for (int i = 0; i < statementCount; ++i) {
             statementGenerator.generate(environment, contract, function, bodyBlock);
@@ -366,8 +366,8 @@ public class FunctionGenerator {
 
         // For now we generate a sequence of assignments of random expressions to randomly chosen variables,
         // with ATG if-statements thrown in occasionally
-        int expressionCount = (int) prng.generateLongInteger(Configuration.contractGenerationFunctionStatementsLowerBound,
-                Configuration.contractGenerationFunctionStatementsUpperBound);
+        int expressionCount = (int) prng.generateLongInteger(Configuration.current().contractGenerationFunctionStatementsLowerBound,
+                Configuration.current().contractGenerationFunctionStatementsUpperBound);
         for (int i = 0; i < expressionCount; ++i) {
             Variable variable = expressionGenerator.pickRandomUsableVariable(environment);
             Expression lhsVariableExpression = new Expression(variable);
@@ -398,7 +398,7 @@ public class FunctionGenerator {
                 Expression tautology = predicateGenerator.synthesizePredicate(environment, true,
                         Configuration.randomPredicateDepth(prng));
 
-                if (Configuration.checkRuntimeTautologyCorrectness) {
+                if (Configuration.current().checkRuntimeTautologyCorrectness) {
                     ASTVerbatimText checkNode = astEditor.generateExpressionValueCheck(tautology, true);
 
                     // Tautology checks drastically reduce the amount of other code that is allowed before the framework
@@ -431,8 +431,8 @@ public class FunctionGenerator {
                                         ? "keccak256(bytes(" + lhsVariableString + "))"
                                             : lhsVariableString;
                 String rhsVariableStringForComparison = Type.isStringType(expression.getType())
-                                        ? "keccak256(bytes(" + evaluationResult.values.get(0).toASTNode(false).toSolidityCode() + "))"
-                                            : evaluationResult.values.get(0).toASTNode(false).toSolidityCode();
+                                        ? "keccak256(bytes(" + evaluationResult.get(0).toASTNode(false).toSolidityCode() + "))"
+                                            : evaluationResult.get(0).toASTNode(false).toSolidityCode();
                 checkStatement = "if (" + lhsVariableStringForComparison + " != " + rhsVariableStringForComparison
                         + ") emit EXPR_ERROR(" + errorId++ + ");";
             }
@@ -467,7 +467,7 @@ public class FunctionGenerator {
             }
 
             // Update assigned-to variable's value
-            environment.updateVariableValue(variable, lhsVariableExpression, evaluationResult.values.get(0));
+            environment.updateVariableValue(variable, lhsVariableExpression, evaluationResult.get(0));
 
             // Record value after computing the expression (which may contain side effects) and updating the lhs variable
             VariableEnvironment postAssignmentValues = environment.createSingleValueSnapshot(0);
@@ -27,6 +27,7 @@ import soltix.ast.ASTBinaryOperation;
 import soltix.ast.ASTNode;
 import soltix.ast.ASTUnaryOperation;
 import soltix.interpretation.expressions.Expression;
+import soltix.interpretation.expressions.ExpressionDomainEvaluator;
 import soltix.interpretation.expressions.ExpressionEvaluationErrorHandler;
 import soltix.interpretation.expressions.ExpressionEvaluator;
 import soltix.interpretation.values.BoolValue;
@@ -47,6 +48,7 @@ public class PredicateGenerator {
     private AST ast; // for things like user-defined type lookups
     private ASTEditor astEditor;
     private ExpressionEvaluator expressionEvaluator;
+    private ExpressionDomainEvaluator expressionDomainEvaluator = new ExpressionDomainEvaluator();
 
     public PredicateGenerator(AST ast, ASTEditor astEditor, RandomNumbers prng) {
         this.prng = prng;
@@ -56,9 +58,13 @@ public class PredicateGenerator {
     }
 
     protected Expression debugVerifyResult(VariableEnvironment environment, Expression result, boolean expectedValue) throws Exception {
-        if (Configuration.checkCompileTimeTautologyCorrectness) {
-            // Check whether the expected predicate result is fulfilled for all variable values that were encountered
-            // TODO turn this into evaluateForAll
+        if (Configuration.current().checkCompileTimeTautologyCorrectness) {
+            // Check whether the expected predicate result is fulfilled for all variable values that were encountered.
+            // Predicates that the variable domains decide need not be evaluated for each value set
+            if (environment.getValueCount() > 0
+                    && Boolean.valueOf(expectedValue).equals(expressionDomainEvaluator.evaluate(environment, result))) {
+                return result;
+            }
             for (int i = 0; i < environment.getValueCount(); ++i) {
                 Value synthesizedValue = expressionEvaluator.evaluateForOne(environment, i, result);
 
@@ -97,7 +103,7 @@ public class PredicateGenerator {
                 throw new Exception("synthesizePredicate: Unknown switch case");
         }
 
-        if (Configuration.checkRuntimeTautologyCorrectness) {
+        if (Configuration.current().checkRuntimeTautologyCorrectness) {
             astEditor.prependExpressionValueCheck(result, expectedValue);
         }
         return result;
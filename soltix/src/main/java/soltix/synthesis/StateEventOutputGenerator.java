@@ -81,7 +81,7 @@ public class StateEventOutputGenerator {
             return;
         }
 
-        if (!Configuration.useABIEncoderV2 && Type.isStructType(ast, mappingType.getDestinationType())) {
+        if (!Configuration.current().useABIEncoderV2 && Type.isStructType(ast, mappingType.getDestinationType())) {
             // Can't do structs without V2 encoder - drop it
             return;
         }
@@ -20,6 +20,7 @@
 
 package soltix.synthesis;
 
+import soltix.ASTEditor;
 import soltix.ast.*;
 import soltix.util.RandomNumbers;
 
@@ -57,10 +58,9 @@ public class StructTypeGenerator {
         structDefinition.finalize();
 
         // Add struct definition directly first for immediate type-lookups (TODO probably unneeded? The AST class is used for lookups),
-        // but also as a child node for subsequent code emission
-        contract.addStructDefinition(structDefinition);
-        contract.addChildNode(structDefinition);
-        ast.addStructDefinition(structDefinition);
+        // but also as a child node for subsequent code emission. The contract may already have been emitted when
+        // mutating, so add it through an editor to invalidate its cached code and journal all of these changes
+        new ASTEditor(ast).addStructDefinition(contract, structDefinition);
 
         // Return an ASTUserDefinedType for consistency with existing type representations
         ASTUserDefinedTypeName udt = new ASTUserDefinedTypeName(0, structDefinition.getName());
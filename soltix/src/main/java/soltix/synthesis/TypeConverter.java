@@ -120,7 +120,7 @@ public class TypeConverter {
             /* The below is probably better (less restrictively) handled by debugIntermediateValuesString() after
                generating a return function - which should in that case always be enabled
 
-            if (Configuration.allowStructsInFunctionABI) {
+            if (Configuration.current().allowStructsInFunctionABI) {
                 throw new Exception("Discarding struct item -");
             }*/
 
@@ -204,13 +204,13 @@ public class TypeConverter {
             // available for the maximum-sized types, such as int256 to bytes32 and vice-versa.
             // For now, we use intermediate conversions to these types where needed. 
 	    ASTElementaryTypeName sourceType = (ASTElementaryTypeName)expressionToConvert.getType();
-	    if (Configuration.languageVersionMinor >= 5 && sourceType.getBits() < 256) {
+	    if (Configuration.current().languageVersionMinor >= 5 && sourceType.getBits() < 256) {
                 ASTElementaryTypeName tempTargetType = TypeContainer.getIntegerType(sourceType.isSigned(), 256);
                 expressionToConvert = new Expression(expressionToConvert, tempTargetType);
             }
 
             ASTElementaryTypeName destType = (ASTElementaryTypeName)desiredType;
-            if (Configuration.languageVersionMinor >= 5 && destType.getBytes() < 32) {
+            if (Configuration.current().languageVersionMinor >= 5 && destType.getBytes() < 32) {
                 ASTElementaryTypeName tempTargetType = TypeContainer.getByteType(32);
                 expressionToConvert = new Expression(expressionToConvert, tempTargetType);
             }
@@ -280,13 +280,13 @@ public class TypeConverter {
             // For now, we use intermediate conversions to these types where needed. 
 	    ASTElementaryTypeName sourceType = (ASTElementaryTypeName)expressionToConvert.getType();
 
-	    if (Configuration.languageVersionMinor >= 5 && sourceType.getBytes() < 32) {
+	    if (Configuration.current().languageVersionMinor >= 5 && sourceType.getBytes() < 32) {
                 ASTElementaryTypeName tempTargetType = TypeContainer.getByteType(32);
                 expressionToConvert = new Expression(expressionToConvert, tempTargetType);
             }
 
             ASTElementaryTypeName destType = (ASTElementaryTypeName)desiredType;
-            if (Configuration.languageVersionMinor >= 5 && destType.getBits() < 256) {
+            if (Configuration.current().languageVersionMinor >= 5 && destType.getBits() < 256) {
                 ASTElementaryTypeName tempTargetType = TypeContainer.getIntegerType(destType.isSigned(), 256);
                 expressionToConvert = new Expression(expressionToConvert, tempTargetType);
             }
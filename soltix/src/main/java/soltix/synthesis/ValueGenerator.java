@@ -20,7 +20,7 @@
 
 package soltix.synthesis;
 
-import soltix.Configuration;
+import soltix.SoltixContext;
 import soltix.ast.*;
 import soltix.interpretation.Type;
 import soltix.interpretation.TypeContainer;
@@ -227,7 +227,7 @@ public class ValueGenerator {
     protected Value generateDefaultUDTValue(AST ast, ASTUserDefinedTypeName type, IntegerGenerationPolicy integerPolicy) throws Exception {
         ASTEnumDefinition enumDefinition = ast.getEnumDefinition(type.getName());
         if (enumDefinition != null) {
-            RandomNumbers generator = new RandomNumbers(Configuration.randomNumbersSeed);
+            RandomNumbers generator = SoltixContext.current().createRandomNumbers();
             int selectedEnumIndex = (int)generator.generateLongInteger(1, enumDefinition.getValues().size()) - 1;
             EnumValue enumValue = new EnumValue(enumDefinition, enumDefinition.getValues().get(selectedEnumIndex));
             return enumValue;
@@ -32,7 +32,17 @@ import java.math.BigInteger;
  * Class to convert between internal Value sub-classes and JSON objects
  */
 public class JSONValueConverter {
+    // Conversion of JSON field values to values of one variable type, which is selected once rather than for each
+    // value, e.g. to decode all values of a profiling event argument
+    public interface ValueDecoder {
+        Value decode(Object valueObject) throws Exception;
+    }
+
     static public Value valueFromObject(/*Variable variable,*/ ASTNode variableType, Object valueObject) throws Exception {
+        return decoderFor(variableType).decode(valueObject);
+    }
+
+    static public ValueDecoder decoderFor(final ASTNode variableType) throws Exception {
         // The value Object is expected to have been obtained from reading a JSONObject field.
         // To interpret its contents correctly, we need to reference the variable type information, since
         // must - but not all - JSON fields are represented as String objects
@@ -41,47 +51,72 @@ public class JSONValueConverter {
         //     ASTNode variableType = variable.getType();
 
         if (Type.isIntegerType(variableType)) {
-            // TODO: Use ValueContainer, decision of Big/Small dichotomy unclear here. Maybe we should be using BigInteger
-            // for everything but that will hurt performance
-            BigInteger bigValue;
+            return new ValueDecoder() {
+                public Value decode(Object valueObject) throws Exception {
+                    // TODO: Use ValueContainer, decision of Big/Small dichotomy unclear here. Maybe we should be using BigInteger
+                    // for everything but that will hurt performance
+                    BigInteger bigValue;
 
-            try {
-                // In new truffle versions, integers are passed in hexadecimal format - try that first
-                bigValue = new BigInteger((String)valueObject, 16);
-            } catch (Exception e) {
-                // Try to fall back to decimal
-                BigDecimal decimal = new BigDecimal((String) valueObject); // to parse JSON fields in exponential notation
-                bigValue = decimal.toBigInteger();
-            }
-            return new IntegerValue(variableType, bigValue);
+                    try {
+                        // In new truffle versions, integers are passed in hexadecimal format - try that first
+                        bigValue = new BigInteger((String)valueObject, 16);
+                    } catch (Exception e) {
+                        // Try to fall back to decimal
+                        BigDecimal decimal = new BigDecimal((String) valueObject); // to parse JSON fields in exponential notation
+                        bigValue = decimal.toBigInteger();
+                    }
+                    return new IntegerValue(variableType, bigValue);
+                }
+            };
         } else if (Type.isBoolType(variableType)) {
-            return ValueContainer.getBoolValue((Boolean)valueObject);
+            return new ValueDecoder() {
+                public Value decode(Object valueObject) throws Exception {
+                    return ValueContainer.getBoolValue((Boolean)valueObject);
+                }
+            };
         } else if (Type.isStringType(variableType)) {
-            return new StringValue((String)valueObject);
+            return new ValueDecoder() {
+                public Value decode(Object valueObject) throws Exception {
+                    return new StringValue((String)valueObject);
+                }
+            };
         } else if (Type.isAddressType(variableType)) {
-            return new AddressValue((String)valueObject);
+            return new ValueDecoder() {
+                public Value decode(Object valueObject) throws Exception {
+                    return new AddressValue((String)valueObject);
+                }
+            };
         } else if (Type.isByteType(variableType)) {
-            String value = (String)valueObject;
-            if (!value.startsWith("0x")) {
-                throw new Exception("Malformed byte value in profiling log: " + value);
-            }
+            final ASTElementaryTypeName elementaryTypeName = (ASTElementaryTypeName)variableType;
+            final int byteCount = elementaryTypeName.getBytes();
+            return new ValueDecoder() {
+                public Value decode(Object valueObject) throws Exception {
+                    String value = (String)valueObject;
+                    if (!value.startsWith("0x")) {
+                        throw new Exception("Malformed byte value in profiling log: " + value);
+                    }
 
-            // There must be 2 characters for each byte
-            ASTElementaryTypeName elementaryTypeName = (ASTElementaryTypeName)variableType;
-            int expectedSize = elementaryTypeName.getBytes() * 2;
-            if (value.length() != expectedSize + 2) {  // +2 for 0x prefix
-                throw new Exception("Byte (" + elementaryTypeName.getBytes()
-                        + ") value of unexpected length in profiling log: " + value);
-            }
+                    // There must be 2 characters for each byte
+                    int expectedSize = byteCount * 2;
+                    if (value.length() != expectedSize + 2) {  // +2 for 0x prefix
+                        throw new Exception("Byte (" + byteCount
+                                + ") value of unexpected length in profiling log: " + value);
+                    }
 
-            byte[] result = new byte[elementaryTypeName.getBytes()];
-            for (int i = 0, index = 2; i < elementaryTypeName.getBytes(); ++i, index += 2) {
-                result[i] = (byte)Integer.parseInt(value.substring(index, index+2) /*index+elementaryTypeName.getBytes()) ??? */, 16);
-            }
-            return new BytesValue(elementaryTypeName, result);
+                    byte[] result = new byte[byteCount];
+                    for (int i = 0, index = 2; i < byteCount; ++i, index += 2) {
+                        result[i] = (byte)Integer.parseInt(value.substring(index, index+2), 16);
+                    }
+                    return new BytesValue(elementaryTypeName, result);
+                }
+            };
         } else {
-            // TODO implement remaining types
-            throw new Exception("Unimplemented profiling log type for " + /*variable.getName() +*/ ": " + variableType.toSolidityCode());
+            return new ValueDecoder() {
+                public Value decode(Object valueObject) throws Exception {
+                    // TODO implement remaining types
+                    throw new Exception("Unimplemented profiling log type for " + /*variable.getName() +*/ ": " + variableType.toSolidityCode());
+                }
+            };
         }
     }
 
@@ -0,0 +1,130 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix;
+
+import soltix.ast.*;
+import soltix.benchmark.EmitterBenchmark;
+import soltix.synthesis.StructTypeGenerator;
+import soltix.synthesis.VariableGenerator;
+import soltix.util.RandomNumbers;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for class ASTEditJournal
+ */
+public class ASTEditJournalTest {
+    // Flat textual representation of a subtree, including structure
+    protected String render(ASTNode node) throws Exception {
+        String code = node.toSolidityCodeNonNull();
+        for (int i = 0; i < node.getChildCount(); ++i) {
+            code += " " + render(node.getChild(i));
+        }
+        String postfix = node.toSolidityCodePostfix();
+        return postfix != null ? code + " " + postfix : code;
+    }
+
+    // Test that editor operations are fully undone, including parent links and ID allocation
+    @Test
+    public void testRollback() throws Exception {
+        AST ast = new AST();
+        ASTBlock body = new ASTBlock(0);
+        ASTNode s1 = new ASTVerbatimText(0, "x = 1;");
+        ASTNode s2 = new ASTVerbatimText(0, "y = 2;");
+        body.addChildNode(s1);
+        body.addChildNode(s2);
+
+        ASTEditor editor = new ASTEditor(ast);
+        ASTEditJournal journal = editor.enableJournal();
+        ASTEditJournal.Savepoint savepoint = journal.savepoint();
+        String original = render(body);
+
+        for (int i = 0; i < 2; ++i) {
+            ASTVerbatimText condition = new ASTVerbatimText(0, "true");
+            long firstGeneratedID = condition.getID();
+            editor.embedInIfStatement(condition, s1);
+            editor.embedInBlock(s2);
+            editor.insertChildNode(body, 0, new ASTVerbatimText(0, "z = 3;"));
+
+            String edited = render(body);
+            Assert.assertEquals("{ z = 3; { if (true) x = 1; } { y = 2; } }", edited);
+            Assert.assertTrue(journal.getEditCount() > 0);
+
+            journal.rollback(savepoint);
+            Assert.assertEquals(original, render(body));
+            Assert.assertEquals(0, journal.getEditCount());
+            Assert.assertSame(body, s1.getParent());
+            Assert.assertSame(body, s2.getParent());
+
+            // Nodes created after the rollback get the same IDs again
+            Assert.assertEquals(firstGeneratedID, new ASTVerbatimText(0, "true").getID());
+            journal.rollback(savepoint);
+        }
+    }
+
+    // Test that struct definitions generated while mutating are also unregistered from the contract, the AST and the
+    // context by a rollback
+    @Test
+    public void testStructDefinitionRollback() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = EmitterBenchmark.buildProgram(1, 1, 1);
+            ASTContractDefinition contract = ast.getContracts().get(0);
+            String original = render(contract);
+            ASTEditor editor = new ASTEditor(ast);
+            ASTEditJournal journal = editor.enableJournal();
+            ASTEditJournal.Savepoint savepoint = journal.savepoint();
+            RandomNumbers prng = context.createRandomNumbers();
+            StructTypeGenerator structTypeGenerator = new StructTypeGenerator(prng);
+            structTypeGenerator.setVariableGenerator(new VariableGenerator(ast, prng, structTypeGenerator));
+
+            String name = structTypeGenerator.generate(ast, contract).getName();
+            ASTStructDefinition definition = ast.getStructDefinition(name);
+            Assert.assertNotNull(definition);
+            Assert.assertSame(definition, contract.getStructDefinition(name));
+            Assert.assertSame(definition, context.getStructDefinitionsByCanonicalName().get(definition.getCanonicalName()));
+            Assert.assertSame(contract, definition.getParent());
+
+            journal.rollback(savepoint);
+            Assert.assertNull(ast.getStructDefinition(name));
+            Assert.assertNull(contract.getStructDefinition(name));
+            Assert.assertTrue(ast.getStructDefinitions().isEmpty());
+            Assert.assertTrue(context.getStructDefinitionsByCanonicalName().isEmpty());
+            Assert.assertEquals(original, render(contract));
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Test that edits of an AST without journal are not recorded
+    @Test
+    public void testNoJournal() throws Exception {
+        AST ast = new AST();
+        ASTBlock body = new ASTBlock(0);
+        ASTNode s1 = new ASTVerbatimText(0, "x = 1;");
+        body.addChildNode(s1);
+
+        new ASTEditor(ast).embedInBlock(s1);
+        Assert.assertNull(ast.getEditJournal());
+        Assert.assertEquals("{ { x = 1; } }", render(body));
+    }
+}
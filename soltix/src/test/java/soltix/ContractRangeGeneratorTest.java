@@ -0,0 +1,126 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Test class for class ContractRangeGenerator
+ */
+public class ContractRangeGeneratorTest {
+    static final String[] GENERATION_ARGUMENTS = {
+            "--contractGenerationFunctionCount=3",
+            "--contractGenerationFunctionStatementsLowerBound=1",
+            "--contractGenerationFunctionStatementsUpperBound=10",
+            "--contractGenerationVariableCount=5",
+            "--inject-loop-limits",
+            "--guaranteeSafeExecution"
+    };
+
+    protected String[] arguments(String... arguments) {
+        ArrayList<String> result = new ArrayList<String>(Arrays.asList(GENERATION_ARGUMENTS));
+        result.addAll(Arrays.asList(arguments));
+        return result.toArray(new String[result.size()]);
+    }
+
+    // Generate the contract of a seed as a --generateFullContract job with the file names used for seed ranges.
+    // The mutated contracts of such jobs have a fixed default path, which is redirected to the directory
+    protected void generateSequentially(int seed, File directory) throws Exception {
+        File mutationsDirectory = new File(directory, "mutations");
+        Assert.assertTrue(mutationsDirectory.mkdirs());
+        String path = directory.getPath();
+        String[] args = arguments("--prng-seed=" + seed,
+                "--generateFullContract=" + path + "/c0.sol=random",
+                "--generateTruffleConstructorInvocation=c0=" + path + "/c0-base.cons",
+                "--generateTruffleTransaction=c0=" + path + "/c0-base.tx=" + path + "/c0.tx-json",
+                "--metadataOutput=" + path + "/meta.kv");
+
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        Configuration configuration = context.getConfiguration();
+        try {
+            Assert.assertEquals(Main.CONTINUE_PROCESSING, Main.processArguments(args, configuration));
+            configuration.generateFullContractMutationsFile = new File(mutationsDirectory, "mutated#.sol").getPath();
+            Assert.assertTrue(new Driver(context).run(new ByteArrayInputStream(new byte[0]), System.out));
+        } finally {
+            if (configuration.metadataOutputLogWriter != null) {
+                configuration.metadataOutputLogWriter.close();
+            }
+            context.detach();
+        }
+    }
+
+    protected void assertSameFiles(File expected, File actual) throws Exception {
+        String[] names = expected.list();
+        Arrays.sort(names);
+        String[] actualNames = actual.list();
+        Arrays.sort(actualNames);
+        Assert.assertArrayEquals(actual.getPath(), names, actualNames);
+        for (String name : names) {
+            File expectedFile = new File(expected, name);
+            File actualFile = new File(actual, name);
+            if (expectedFile.isDirectory()) {
+                assertSameFiles(expectedFile, actualFile);
+            } else {
+                Assert.assertArrayEquals(actualFile.getPath(),
+                        Files.readAllBytes(expectedFile.toPath()), Files.readAllBytes(actualFile.toPath()));
+            }
+        }
+    }
+
+    protected void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    // Test that the contracts of a seed range generated in parallel are byte-identical to those of separate runs
+    // for each seed
+    @Test
+    public void testParallelMatchesSequential() throws Exception {
+        File directory = Files.createTempDirectory("contract-range-test").toFile();
+        try {
+            File rangeDirectory = new File(directory, "range");
+            Assert.assertEquals(0, Main.runJob(arguments("--generateFullContractRange=5:4:" + rangeDirectory.getPath() + ":random",
+                    "--generateFullContractRangeThreads=3"), new ByteArrayInputStream(new byte[0]), System.out));
+
+            for (int seed = 5; seed < 9; ++seed) {
+                File sequentialDirectory = new File(directory, "sequential" + seed);
+                generateSequentially(seed, sequentialDirectory);
+                Assert.assertTrue(new File(sequentialDirectory, "mutations/mutated3.sol").isFile());
+                assertSameFiles(sequentialDirectory, new File(rangeDirectory, String.valueOf(seed)));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+}
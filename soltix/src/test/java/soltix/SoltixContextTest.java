@@ -0,0 +1,176 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix;
+
+import soltix.ast.ASTElementaryTypeName;
+import soltix.interpretation.TypeContainer;
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.values.ValueContainer;
+import soltix.util.RandomNumbers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for class SoltixContext
+ */
+public class SoltixContextTest {
+    static final int NODE_COUNT = 100;
+    static final int RANDOM_COUNT = 50;
+    // IDs of generated nodes are offset from the allocated IDs (see ASTNode)
+    static final long GENERATED_NODE_ID_OFFSET = 1000000;
+
+    // State observed by a job running in its own context
+    static class Observation {
+        Configuration configuration;
+        ArrayList<Long> nodeIDs = new ArrayList<Long>();
+        ASTElementaryTypeName type;
+        IntegerValue value;
+        ArrayList<Long> randomNumbers = new ArrayList<Long>();
+    }
+
+    // Use the context-dependent state in lockstep with the other job, so that any sharing would interleave
+    protected Callable<Observation> job(final SoltixContext context, final CyclicBarrier barrier) {
+        return new Callable<Observation>() {
+            @Override
+            public Observation call() throws Exception {
+                Observation result = new Observation();
+                context.attach();
+                try {
+                    barrier.await();
+                    result.configuration = Configuration.current();
+                    for (int i = 0; i < NODE_COUNT; ++i) {
+                        result.nodeIDs.add(new ASTElementaryTypeName(0, "uint8").getID());
+                        if (i % 10 == 0) {
+                            barrier.await();
+                        }
+                    }
+
+                    result.type = TypeContainer.getIntegerType(false, 8);
+                    barrier.await();
+                    Assert.assertSame(result.type, TypeContainer.getIntegerType(false, 8));
+                    result.value = ValueContainer.getSmallIntegerValue(result.type, 5);
+                    barrier.await();
+                    Assert.assertSame(result.value, ValueContainer.getSmallIntegerValue(result.type, 5));
+
+                    RandomNumbers randomNumbers = context.createRandomNumbers();
+                    for (int i = 0; i < RANDOM_COUNT; ++i) {
+                        result.randomNumbers.add(randomNumbers.generateLongInteger(0, 1000000));
+                        if (i % 10 == 0) {
+                            barrier.await();
+                        }
+                    }
+                    Assert.assertSame(context, SoltixContext.current());
+                } finally {
+                    context.detach();
+                }
+                return result;
+            }
+        };
+    }
+
+    protected ArrayList<Long> randomNumbers(int seed) {
+        RandomNumbers randomNumbers = new RandomNumbers(seed);
+        ArrayList<Long> result = new ArrayList<Long>();
+        for (int i = 0; i < RANDOM_COUNT; ++i) {
+            result.add(randomNumbers.generateLongInteger(0, 1000000));
+        }
+        return result;
+    }
+
+    // Test that two contexts used concurrently on separate threads each have their own configuration, caches, node
+    // IDs and random numbers, and that the default context of other threads is not affected
+    @Test
+    public void testConcurrentContextsAreIsolated() throws Exception {
+        SoltixContext first = new SoltixContext();
+        first.getConfiguration().randomNumbersSeed = 1;
+        first.getConfiguration().languageVersionMinor = 4;
+        SoltixContext second = new SoltixContext();
+        second.getConfiguration().randomNumbersSeed = 2;
+        SoltixContext defaultContext = SoltixContext.current();
+
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Observation firstObservation;
+        Observation secondObservation;
+        try {
+            Future<Observation> firstResult = executor.submit(job(first, barrier));
+            Future<Observation> secondResult = executor.submit(job(second, barrier));
+            firstObservation = firstResult.get(60, TimeUnit.SECONDS);
+            secondObservation = secondResult.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertSame(first.getConfiguration(), firstObservation.configuration);
+        Assert.assertSame(second.getConfiguration(), secondObservation.configuration);
+        Assert.assertEquals(4, first.getConfiguration().languageVersionMinor);
+        Assert.assertEquals(5, second.getConfiguration().languageVersionMinor);
+
+        // Each context numbers its nodes from the start without gaps
+        for (int i = 0; i < NODE_COUNT; ++i) {
+            Assert.assertEquals(GENERATED_NODE_ID_OFFSET + i + 1, (long)firstObservation.nodeIDs.get(i));
+            Assert.assertEquals(GENERATED_NODE_ID_OFFSET + i + 1, (long)secondObservation.nodeIDs.get(i));
+        }
+
+        // Cached types and values are per context, and values have the type of their own context
+        Assert.assertNotSame(firstObservation.type, secondObservation.type);
+        Assert.assertNotSame(firstObservation.value, secondObservation.value);
+        Assert.assertSame(firstObservation.type, firstObservation.value.getType());
+        Assert.assertSame(secondObservation.type, secondObservation.value.getType());
+
+        // Each job's random numbers follow its own seed only
+        Assert.assertEquals(randomNumbers(1), firstObservation.randomNumbers);
+        Assert.assertEquals(randomNumbers(2), secondObservation.randomNumbers);
+        Assert.assertFalse(firstObservation.randomNumbers.equals(secondObservation.randomNumbers));
+
+        Assert.assertSame(defaultContext, SoltixContext.current());
+        Assert.assertNotSame(firstObservation.type, TypeContainer.getIntegerType(false, 8));
+        Assert.assertNotSame(secondObservation.type, TypeContainer.getIntegerType(false, 8));
+    }
+
+    // Test that a context attached for a task is detached afterwards, restoring the previous one
+    @Test
+    public void testCallAttached() throws Exception {
+        final SoltixContext outer = new SoltixContext();
+        final SoltixContext inner = new SoltixContext();
+        outer.attach();
+        try {
+            SoltixContext observed = inner.callAttached(new Callable<SoltixContext>() {
+                @Override
+                public SoltixContext call() {
+                    return SoltixContext.current();
+                }
+            });
+            Assert.assertSame(inner, observed);
+            Assert.assertSame(outer, SoltixContext.current());
+        } finally {
+            outer.detach();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+/**
+ * Test class for class SoltixServer
+ */
+public class SoltixServerTest {
+    static final String LOG = "{\"event\":\"E\",\"args\":{\"a\":\"1\"}}\n";
+
+    protected File write(File directory, String name, String text) throws Exception {
+        File file = new File(directory, name);
+        Files.write(file.toPath(), text.getBytes("UTF-8"));
+        return file;
+    }
+
+    // Run the server on the given request lines and return its response lines
+    protected String[] serve(String requests) throws Exception {
+        ByteArrayOutputStream responses = new ByteArrayOutputStream();
+        SoltixServer server = new SoltixServer(new PrintStream(responses, true, "UTF-8"), new ArrayList<String>());
+        Assert.assertEquals(0, server.run(new ByteArrayInputStream(requests.getBytes("UTF-8"))));
+        String text = responses.toString("UTF-8");
+        return text.isEmpty()? new String[0]: text.split("\n");
+    }
+
+    // Test that every job reports its own exit status, and that a job does not inherit the configuration of the job
+    // before it. The second job is only valid if it sees the event log comparison requested by the first job, so it
+    // fails if it runs in a fresh context
+    @Test
+    public void testJobs() throws Exception {
+        File directory = Files.createTempDirectory("soltix-server-test").toFile();
+        try {
+            String log = write(directory, "log", LOG).getPath();
+            String other = write(directory, "other", LOG).getPath();
+            File summary = new File(directory, "summary");
+
+            String[] responses = serve("--testEventLogEquivalenceAll=" + log + "=" + other + "=" + summary.getPath() + "\n"
+                    + "\n"
+                    + "--testEventLogEquivalenceThreads=2\n"
+                    + "--unknownArgument\n"
+                    + "quit\n"
+                    + "--testEventLogEquivalenceAll=" + log + "=" + other + "\n");
+            Assert.assertArrayEquals(new String[] { "0", "1", "1" }, responses);
+            Assert.assertEquals(1, Files.readAllLines(summary.toPath()).size());
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    // Test that a job whose input file cannot be opened fails without ending the server
+    @Test
+    public void testMissingInputFile() throws Exception {
+        File directory = Files.createTempDirectory("soltix-server-test").toFile();
+        try {
+            String log = write(directory, "log", LOG).getPath();
+            File missing = new File(directory, "missing");
+            File output = new File(directory, "output");
+            String[] responses = serve("--compactAST --input=" + missing.getPath() + " --output=" + output.getPath() + "\n"
+                    + "--testEventLogEquivalenceAll=" + log + "=" + log + "\n");
+            Assert.assertArrayEquals(new String[] { "1", "0" }, responses);
+            Assert.assertFalse(output.exists());
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+}
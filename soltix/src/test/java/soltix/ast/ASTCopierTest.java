@@ -0,0 +1,113 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.ast;
+
+import soltix.ASTEditor;
+import soltix.SoltixContext;
+import soltix.benchmark.EmitterBenchmark;
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.variables.Variable;
+import soltix.interpretation.variables.VariableEnvironment;
+import soltix.interpretation.variables.VariableValues;
+import soltix.output.Emitter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Test class for class ASTCopier
+ */
+public class ASTCopierTest {
+    protected String emit(AST ast) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Emitter.emitSolidityCode(output, ast);
+        return output.toString("UTF-8");
+    }
+
+    // Test that the copy has the same code and structure as the original, but consists of its own nodes, so that
+    // it can be edited without affecting the original
+    @Test
+    public void testCopy() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = EmitterBenchmark.buildProgram(3, 2, 1);
+            String original = emit(ast);
+            AST copy = ast.copy();
+            Assert.assertEquals(original, emit(copy));
+
+            ASTContractDefinition contract = copy.getContracts().get(0);
+            Assert.assertNotSame(ast.getContracts().get(0), contract);
+            Assert.assertSame(contract, copy.getContract("C"));
+            Assert.assertSame(copy.getRoot(), contract.getParent());
+            for (int i = 0; i < 3; ++i) {
+                FunctionScope function = copy.getFunctions().get(i);
+                Assert.assertNotSame(ast.getFunctions().get(i), function);
+                Assert.assertSame(contract, function.getParent());
+                Assert.assertSame(function, contract.getFunctions().get(i));
+                Assert.assertSame(function, function.getBody().getParent());
+            }
+
+            FunctionScope function = copy.getFunctions().get(1);
+            new ASTEditor(copy).embedInBlock(function.getBody().getChild(1));
+            Assert.assertFalse(original.equals(emit(copy)));
+            Assert.assertEquals(original, emit(ast));
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Test that variable environments are copied along with the nodes, and refer to the copied declarations
+    @Test
+    public void testEnvironmentCopy() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = EmitterBenchmark.buildProgram(1, 2, 1);
+            ASTVariableDeclaration declaration = (ASTVariableDeclaration)ast.getContracts().get(0).getVariables().get(0);
+            ASTNode statement = ast.getFunctions().get(0).getBody().getChild(0);
+            VariableEnvironment environment = new VariableEnvironment(ast, false);
+            Variable variable = new Variable(declaration);
+            VariableValues values = new VariableValues(variable, statement.getID());
+            values.addValue(new IntegerValue(declaration.getTypeName(), 1));
+            values.addValue(new IntegerValue(declaration.getTypeName(), 5));
+            environment.addVariableValues(variable, values);
+            environment.finishAddingValues();
+            statement.setVariableEnvironment(environment);
+
+            AST copy = ast.copy();
+            ASTNode copiedStatement = copy.getFunctions().get(0).getBody().getChild(0);
+            VariableEnvironment copiedEnvironment = copiedStatement.getVariableEnvironment();
+            Assert.assertNotSame(environment, copiedEnvironment);
+            Assert.assertEquals(2, copiedEnvironment.getValueCount());
+            VariableValues copiedValues = copiedEnvironment.getVariableValues("x");
+            Assert.assertSame(copiedValues, copiedEnvironment.getIntegerVariableValues(0));
+            Assert.assertSame(copy.getContracts().get(0).getVariables().get(0), copiedValues.getVariable().getDeclaration());
+            Assert.assertEquals(5, copiedValues.getLargestValue().getBigValue().intValue());
+
+            copiedValues.updateValue(1, new IntegerValue(declaration.getTypeName(), 7));
+            Assert.assertEquals(7, ((IntegerValue)copiedValues.getValue(1)).getBigValue().intValue());
+            Assert.assertEquals(5, ((IntegerValue)values.getValue(1)).getBigValue().intValue());
+        } finally {
+            context.detach();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.ast;
+
+import soltix.ASTEditor;
+import soltix.SoltixContext;
+import soltix.benchmark.EmitterBenchmark;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for class ASTIndex
+ */
+public class ASTIndexTest {
+    // Test that lookups match a search of the tree, also after moving a statement to another function
+    @Test
+    public void testLookups() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = EmitterBenchmark.buildProgram(3, 4, 2);
+            ASTIndex index = ast.getIndex();
+            Assert.assertEquals("C", ast.getContract("C").getName());
+            Assert.assertNull(ast.getContract("D"));
+
+            int total = 0;
+            for (FunctionScope function : ast.getFunctions()) {
+                total += function.getBodyNodeCount();
+            }
+            Assert.assertEquals(total, ast.getTotalFunctionBodyNodeCount());
+
+            ASTFunctionDefinition first = (ASTFunctionDefinition)ast.getFunctions().get(0);
+            ASTFunctionDefinition second = (ASTFunctionDefinition)ast.getFunctions().get(1);
+            ASTNode statement = first.getBody().getChild(2);
+            ASTNode operand = ((ASTExpressionStatement)statement).getBody();
+            Assert.assertSame(first, index.getEnclosingFunction(operand));
+            Assert.assertEquals(2, first.getBody().getChildNodeIndex(statement));
+
+            new ASTEditor(ast).insertChildNode(second.getBody(), 0, statement);
+            Assert.assertSame(second, index.getEnclosingFunction(operand));
+            Assert.assertEquals(0, second.getBody().getChildNodeIndex(statement));
+            Assert.assertEquals(4, second.getBody().getChildNodeIndex(second.getBody().getChild(4)));
+        } finally {
+            context.detach();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.input;
+
+import soltix.ast.AST;
+import soltix.ast.ASTNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * Test class for class ASTCache
+ */
+public class ASTCacheTest {
+    protected String render(ASTNode node) {
+        String result = node.getClass().getSimpleName() + ":" + node.getID() + ":" + node.getName();
+        for (int i = 0; i < node.getChildCount(); ++i) {
+            result += " (" + render(node.getChild(i)) + ")";
+        }
+        return result;
+    }
+
+    protected AST parse(ASTCache cache, String json) throws Exception {
+        return cache.parse(new ByteArrayInputStream(json.getBytes("UTF-8")));
+    }
+
+    // Test that an AST loaded from the cache equals the parsed AST, and that different inputs get different entries
+    @Test
+    public void testLoad() throws Exception {
+        String document = "{ \"attributes\" : { \"absolutePath\" : \"c.sol\" }, \"children\" : [ "
+            + "{ \"attributes\" : { \"literals\" : [ \"solidity\", \"^\", \"0.5\", \".0\" ] }, "
+            + "\"id\" : 2, \"name\" : \"PragmaDirective\" }, "
+            + "{ \"attributes\" : { \"name\" : \"C\", \"contractKind\" : \"contract\", \"x\" : -1.5e3 }, "
+            + "\"children\" : [ ], \"id\" : 3, \"name\" : \"ContractDefinition\" } ], "
+            + "\"id\" : 1, \"name\" : \"SourceUnit\", \"src\" : \"0:0:0\" }";
+        File directory = Files.createTempDirectory("ast-cache-test").toFile();
+        try {
+            ASTCache cache = new ASTCache(directory.getPath());
+            String parsed = render(parse(cache, document).getRoot());
+            Assert.assertEquals(1, directory.listFiles().length);
+            Assert.assertEquals(parsed, render(parse(cache, document).getRoot()));
+            Assert.assertEquals(1, directory.listFiles().length);
+
+            String otherDocument = document.replace("\"C\"", "\"D\"");
+            Assert.assertEquals(parsed.replace(":C", ":D"), render(parse(cache, otherDocument).getRoot()));
+            Assert.assertEquals(2, directory.listFiles().length);
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+}
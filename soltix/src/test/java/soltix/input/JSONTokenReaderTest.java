@@ -0,0 +1,106 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.input;
+
+import org.json.simple.parser.JSONParser;
+import soltix.ast.AST;
+import soltix.ast.ASTNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
+/**
+ * Test class for the streaming AST-JSON parser and its tokenizer
+ */
+public class JSONTokenReaderTest {
+    protected Object read(String json) throws Exception {
+        JSONTokenReader reader = new JSONTokenReader(new StringReader(json));
+        Object value = reader.readValue();
+        Assert.assertEquals(JSONTokenReader.Token.END_DOCUMENT, reader.next());
+        return value;
+    }
+
+    // Test that values are read exactly as by json-simple
+    @Test
+    public void testReadValue() throws Exception {
+        String[] documents = {
+            "{ \"a\" : [ 1, -2, 3.5, 1e3, true, false, null ], \"b\" : { }, \"c\" : [ ] }",
+            "\"escapes \\\" \\\\ \\/ \\n \\t \\u00e4\"",
+            "[ { \"x\" : { \"y\" : [ [ ], \"\" ] } }, 9223372036854775807 ]",
+            "\t\n 42 \r\n"
+        };
+        for (String document : documents) {
+            Assert.assertEquals(new JSONParser().parse(document), read(document));
+        }
+    }
+
+    @Test
+    public void testSyntaxErrors() throws Exception {
+        String[] documents = { "{ \"a\" 1 }", "[ 1, ]", "[ 1 2 ]", "{ \"a\" : 1 ", "\"abc", "1 2", "{ 1 : 2 }", "[ }" };
+        for (String document : documents) {
+            try {
+                read(document);
+                Assert.fail("Expected syntax error for " + document);
+            } catch (Exception e) {
+                Assert.assertTrue(e.getMessage().startsWith("JSON syntax error"));
+            }
+        }
+    }
+
+    protected String render(ASTNode node) {
+        String result = node.getClass().getSimpleName() + ":" + node.getID();
+        for (int i = 0; i < node.getChildCount(); ++i) {
+            result += " (" + render(node.getChild(i)) + ")";
+        }
+        return result;
+    }
+
+    protected String parse(String json, boolean stream) throws Exception {
+        ParserASTJSON parser = new ParserASTJSON();
+        ByteArrayInputStream input = new ByteArrayInputStream(json.getBytes("UTF-8"));
+        AST ast = stream ? parser.parse(input) : parser.parse(parser.readDocument(input));
+        return render(ast.getRoot());
+    }
+
+    // Test that the streaming parser builds the same AST as the document parser, both for items with children
+    // preceding their name (as in solc output) and items with children following their name
+    @Test
+    public void testStreamingParser() throws Exception {
+        String pragma = "\"attributes\" : { \"literals\" : [ \"solidity\", \"^\", \"0.5\", \".0\" ] }";
+        String contract = "\"attributes\" : { \"name\" : \"C\", \"contractKind\" : \"contract\" }";
+        String unit = "\"attributes\" : { \"absolutePath\" : \"c.sol\" }";
+        String[] documents = {
+            "{ " + unit + ", \"children\" : [ { " + pragma + ", \"id\" : 2, \"name\" : \"PragmaDirective\" }, "
+                + "{ " + contract + ", \"children\" : [ ], \"id\" : 3, \"name\" : \"ContractDefinition\" } ], "
+                + "\"id\" : 1, \"name\" : \"SourceUnit\", \"src\" : \"0:0:0\" }",
+            "{ \"id\" : 1, \"name\" : \"SourceUnit\", " + unit + ", \"children\" : [ "
+                + "{ \"id\" : 2, \"name\" : \"PragmaDirective\", " + pragma + " }, "
+                + "{ \"id\" : 3, \"name\" : \"ContractDefinition\", " + contract + ", \"children\" : [ ] } ] }"
+        };
+        for (String document : documents) {
+            String expected = parse(document, false);
+            Assert.assertEquals("ASTSourceUnit:1 (ASTPragmaDirective:2) (ASTContractDefinition:3)", expected);
+            Assert.assertEquals(expected, parse(document, true));
+        }
+    }
+}
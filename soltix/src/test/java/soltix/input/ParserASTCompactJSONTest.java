@@ -0,0 +1,113 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.input;
+
+import soltix.SoltixContext;
+import soltix.ast.AST;
+import soltix.ast.ASTAssignment;
+import soltix.ast.ASTBlock;
+import soltix.ast.ASTNode;
+import soltix.ast.FunctionScope;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+
+/**
+ * Test class for class ParserASTCompactJSON
+ */
+public class ParserASTCompactJSONTest {
+    // contract C { uint x; function f() public { x = 1; } }, with entries sorted by name as in solc's output
+    static final String DOCUMENT = "{ \"absolutePath\" : \"c.sol\", \"id\" : 1, \"nodeType\" : \"SourceUnit\", \"nodes\" : [ "
+        + "{ \"id\" : 2, \"literals\" : [ \"solidity\", \"^\", \"0.5\", \".0\" ], \"nodeType\" : \"PragmaDirective\" }, "
+        + "{ \"baseContracts\" : [ ], \"contractKind\" : \"contract\", \"id\" : 3, \"name\" : \"C\", "
+        + "\"nodeType\" : \"ContractDefinition\", \"nodes\" : [ "
+        + "{ \"constant\" : false, \"id\" : 4, \"name\" : \"x\", \"nodeType\" : \"VariableDeclaration\", "
+        + "\"stateVariable\" : true, \"storageLocation\" : \"default\", \"typeDescriptions\" : { \"typeString\" : \"uint256\" }, "
+        + "\"typeName\" : { \"id\" : 5, \"name\" : \"uint256\", \"nodeType\" : \"ElementaryTypeName\", "
+        + "\"typeDescriptions\" : { \"typeString\" : \"uint256\" } }, \"value\" : null, \"visibility\" : \"internal\" }, "
+        + "{ \"body\" : { \"id\" : 7, \"nodeType\" : \"Block\", \"statements\" : [ "
+        + "{ \"expression\" : { \"id\" : 9, \"leftHandSide\" : { \"id\" : 10, \"name\" : \"x\", \"nodeType\" : \"Identifier\", "
+        + "\"referencedDeclaration\" : 4, \"typeDescriptions\" : { \"typeString\" : \"uint256\" } }, "
+        + "\"nodeType\" : \"Assignment\", \"operator\" : \"=\", \"rightHandSide\" : { \"hexValue\" : \"31\", \"id\" : 11, "
+        + "\"kind\" : \"number\", \"nodeType\" : \"Literal\", \"subdenomination\" : null, "
+        + "\"typeDescriptions\" : { \"typeString\" : \"int_const 1\" }, \"value\" : \"1\" }, "
+        + "\"typeDescriptions\" : { \"typeString\" : \"uint256\" } }, \"id\" : 8, \"nodeType\" : \"ExpressionStatement\" } ] }, "
+        + "\"id\" : 6, \"isConstructor\" : false, \"kind\" : \"function\", \"modifiers\" : [ ], \"name\" : \"f\", "
+        + "\"nodeType\" : \"FunctionDefinition\", "
+        + "\"parameters\" : { \"id\" : 12, \"nodeType\" : \"ParameterList\", \"parameters\" : [ ] }, "
+        + "\"returnParameters\" : { \"id\" : 13, \"nodeType\" : \"ParameterList\", \"parameters\" : [ ] }, "
+        + "\"stateMutability\" : \"nonpayable\", \"visibility\" : \"public\" } ] } ], \"src\" : \"0:0:0\" }";
+
+    protected String render(ASTNode node) {
+        String result = node.getClass().getSimpleName() + ":" + node.getID() + ":" + node.getName();
+        for (int i = 0; i < node.getChildCount(); ++i) {
+            result += " (" + render(node.getChild(i)) + ")";
+        }
+        return result;
+    }
+
+    protected AST parse(String json) throws Exception {
+        return new ParserASTCompactJSON().parse(new ByteArrayInputStream(json.getBytes("UTF-8")));
+    }
+
+    // Test that function bodies are constructed when first accessed, with the same node IDs as if they had been
+    // constructed right away
+    @Test
+    public void testDeferredBody() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = parse(DOCUMENT);
+            Assert.assertEquals(1, ast.getFunctions().size());
+            FunctionScope function = ast.getFunctions().get(0);
+            ASTBlock body = (ASTBlock)ast.getNodeById(7);
+            Assert.assertTrue(body.hasDeferredChildren());
+            // Parameter lists, block and the 4 skipped nodes
+            Assert.assertEquals(7, function.getBodyNodeCount());
+            long nextID = new ASTBlock(0).getID();
+
+            Assert.assertEquals(1, body.getChildCount());
+            Assert.assertFalse(body.hasDeferredChildren());
+            Assert.assertEquals("ASTExpressionStatement:8:null", render(body.getChild(0)));
+            Assert.assertTrue(ast.getNodeById(9) instanceof ASTAssignment);
+            Assert.assertEquals(nextID + 1, new ASTBlock(0).getID());
+            Assert.assertEquals(7, function.getBodyNodeCount());
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Test that looking up a node of a deferred body constructs it, and that standard-JSON output yields the same AST
+    @Test
+    public void testStandardJSON() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = parse("{ \"contracts\" : { \"c.sol\" : { \"C\" : { \"evm\" : { } } } }, "
+                    + "\"sources\" : { \"c.sol\" : { \"ast\" : " + DOCUMENT + ", \"id\" : 0 } } }");
+            Assert.assertEquals("ASTAssignment:9:null", render(ast.getNodeById(9)));
+            Assert.assertFalse(ast.getNodeById(7).hasDeferredChildren());
+            Assert.assertEquals(render(parse(DOCUMENT).getRoot()), render(ast.getRoot()));
+        } finally {
+            context.detach();
+        }
+    }
+}
@@ -0,0 +1,699 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation;
+
+import soltix.SoltixContext;
+import soltix.ast.AST;
+import soltix.input.ParserASTCompactJSON;
+import soltix.interpretation.values.BytesValue;
+import soltix.util.Hash;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Test class for class FullInterpreter
+ */
+public class FullInterpreterTest {
+    // Builders for compact AST-JSON documents as produced by solc
+    private long nextID = 1;
+    private HashMap<String, Long> declarationIDs = new HashMap<String, Long>();
+
+    // JSONObject is a raw map, so all entries of the built nodes are added here
+    @SuppressWarnings("unchecked")
+    protected JSONObject put(JSONObject object, Object key, Object value) {
+        object.put(key, value);
+        return object;
+    }
+
+    protected JSONObject node(String nodeType, Object... entries) {
+        JSONObject result = new JSONObject();
+        put(result, "id", nextID++);
+        put(result, "nodeType", nodeType);
+        put(result, "src", "0:0:0");
+        for (int i = 0; i < entries.length; i += 2) {
+            put(result, entries[i], entries[i + 1]);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected JSONArray list(Object... items) {
+        JSONArray result = new JSONArray();
+        for (Object item : items) {
+            result.add(item);
+        }
+        return result;
+    }
+
+    protected JSONObject type(String typeString) {
+        return put(new JSONObject(), "typeString", typeString);
+    }
+
+    protected JSONObject uint() {
+        return elementary("uint256");
+    }
+
+    protected JSONObject elementary(String name) {
+        return node("ElementaryTypeName", "name", name, "typeDescriptions", type(name));
+    }
+
+    protected JSONObject array(JSONObject baseType, JSONObject length) {
+        return node("ArrayTypeName", "baseType", baseType, "length", length,
+                "typeDescriptions", type(baseType.get("name") + "[]"));
+    }
+
+    protected JSONObject struct(String name, JSONObject... members) {
+        JSONObject result = node("StructDefinition", "name", name, "canonicalName", "C." + name,
+                "visibility", "public", "members", list((Object[])members));
+        declarationIDs.put(name, (Long)result.get("id"));
+        return result;
+    }
+
+    protected JSONObject userType(String name) {
+        return node("UserDefinedTypeName", "name", name, "referencedDeclaration", declarationIDs.get(name),
+                "typeDescriptions", type("struct C." + name + " storage pointer"));
+    }
+
+    protected JSONObject variable(String name, JSONObject typeName, boolean isStateVariable) {
+        return variable(name, typeName, isStateVariable, "default");
+    }
+
+    protected JSONObject variable(String name, JSONObject typeName, boolean isStateVariable, String storageLocation) {
+        JSONObject result = node("VariableDeclaration", "name", name, "constant", false, "stateVariable", isStateVariable,
+                "storageLocation", storageLocation, "visibility", "internal", "typeName", typeName,
+                "typeDescriptions", typeName.get("typeDescriptions"), "value", null);
+        declarationIDs.put(name, (Long)result.get("id"));
+        return result;
+    }
+
+    protected JSONObject declaration(JSONObject variable, JSONObject initialValue) {
+        return node("VariableDeclarationStatement", "assignments", list(variable.get("id")),
+                "declarations", list(variable), "initialValue", initialValue);
+    }
+
+    protected JSONObject parameters(JSONObject... parameters) {
+        return node("ParameterList", "parameters", list((Object[])parameters));
+    }
+
+    protected JSONObject identifier(String name) {
+        Long id = declarationIDs.get(name);
+        return node("Identifier", "name", name, "referencedDeclaration", id != null? id: -1L,
+                "typeDescriptions", type("uint256"));
+    }
+
+    protected JSONObject number(String value) {
+        return node("Literal", "kind", "number", "value", value, "hexValue", "00", "subdenomination", null,
+                "typeDescriptions", type("int_const " + value));
+    }
+
+    protected JSONObject binary(String operator, JSONObject left, JSONObject right, String typeString) {
+        return node("BinaryOperation", "operator", operator, "leftExpression", left, "rightExpression", right,
+                "typeDescriptions", type(typeString));
+    }
+
+    protected JSONObject assignment(String operator, JSONObject left, JSONObject right) {
+        return node("ExpressionStatement", "expression", node("Assignment", "operator", operator,
+                "leftHandSide", left, "rightHandSide", right, "typeDescriptions", type("uint256")));
+    }
+
+    protected JSONObject call(String name, JSONObject... arguments) {
+        return call(identifier(name), arguments);
+    }
+
+    protected JSONObject call(JSONObject expression, JSONObject... arguments) {
+        return node("FunctionCall", "kind", "functionCall", "expression", expression,
+                "arguments", list((Object[])arguments), "names", list(), "typeDescriptions", type("uint256"));
+    }
+
+    protected JSONObject member(JSONObject expression, String name) {
+        return node("MemberAccess", "memberName", name, "expression", expression, "typeDescriptions", type("uint256"));
+    }
+
+    protected JSONObject tuple(JSONObject... components) {
+        StringBuilder typeString = new StringBuilder("tuple(");
+        for (int i = 0; i < components.length; ++i) {
+            typeString.append(i > 0? ",": "").append("uint256");
+        }
+        return node("TupleExpression", "isInlineArray", false, "components", list((Object[])components),
+                "typeDescriptions", type(typeString.append(")").toString()));
+    }
+
+    protected JSONObject increment(String name) {
+        return node("ExpressionStatement", "expression", node("UnaryOperation", "operator", "++", "prefix", false,
+                "subExpression", identifier(name), "typeDescriptions", type("uint256")));
+    }
+
+    protected JSONObject block(JSONObject... statements) {
+        return node("Block", "statements", list((Object[])statements));
+    }
+
+    protected JSONObject emit(JSONObject argument) {
+        return node("EmitStatement", "eventCall", call("E", argument));
+    }
+
+    protected JSONObject event(JSONObject parameterType) {
+        return node("EventDefinition", "name", "E", "anonymous", false,
+                "parameters", parameters(variable("v", parameterType, false)));
+    }
+
+    protected JSONObject function(String name, String visibility, JSONObject parameters, JSONObject returnParameters,
+                                  JSONObject... statements) {
+        JSONObject result = node("FunctionDefinition", "name", name, "kind", "function", "visibility", visibility,
+                "stateMutability", "nonpayable", "modifiers", list(), "parameters", parameters,
+                "returnParameters", returnParameters);
+        declarationIDs.put(name, (Long)result.get("id"));
+        put(result, "body", node("Block", "statements", list((Object[])statements)));
+        return result;
+    }
+
+    protected JSONObject modifier(String name, JSONObject parameters, JSONObject... statements) {
+        JSONObject result = node("ModifierDefinition", "name", name, "visibility", "internal", "parameters", parameters);
+        declarationIDs.put(name, (Long)result.get("id"));
+        put(result, "body", node("Block", "statements", list((Object[])statements)));
+        return result;
+    }
+
+    protected JSONObject withModifiers(JSONObject function, JSONObject... invocations) {
+        return put(function, "modifiers", list((Object[])invocations));
+    }
+
+    protected JSONObject invocation(String name, JSONObject... arguments) {
+        return node("ModifierInvocation", "modifierName", identifier(name), "arguments", list((Object[])arguments));
+    }
+
+    protected JSONObject mapping() {
+        return node("Mapping", "keyType", uint(), "valueType", uint(),
+                "typeDescriptions", type("mapping(uint256 => uint256)"));
+    }
+
+    protected JSONObject index(String name, JSONObject index) {
+        return node("IndexAccess", "baseExpression", identifier(name), "indexExpression", index,
+                "typeDescriptions", type("uint256"));
+    }
+
+    protected String document(JSONObject... nodes) {
+        JSONObject contract = node("ContractDefinition", "name", "C", "contractKind", "contract",
+                "baseContracts", list(), "nodes", list((Object[])nodes));
+        return node("SourceUnit", "absolutePath", "c.sol", "nodes", list(
+                node("PragmaDirective", "literals", list("solidity", "^", "0.4", ".24")), contract)).toJSONString();
+    }
+
+    //  contract C {
+    //      uint x;
+    //      mapping(uint => uint) m;
+    //      event E(uint v);
+    //      function g(uint v) internal returns (uint) { return v * 2; }
+    //      function f(uint a) public {
+    //          require(a < 16);
+    //          for (uint i = 0; i < a; i++) { x += i; }
+    //          m[a] = g(x);
+    //          emit E(m[a]);
+    //      }
+    //  }
+    protected String buildDocument() {
+        JSONObject x = variable("x", uint(), true);
+        JSONObject m = variable("m", mapping(), true);
+        JSONObject event = node("EventDefinition", "name", "E", "anonymous", false,
+                "parameters", parameters(variable("v", uint(), false)));
+        JSONObject g = function("g", "internal", parameters(variable("v", uint(), false)),
+                parameters(variable("", uint(), false)),
+                node("Return", "expression", binary("*", identifier("v"), number("2"), "uint256")));
+
+        JSONObject a = variable("a", uint(), false);
+        JSONObject i = variable("i", uint(), false);
+        JSONObject loop = node("ForStatement",
+                "initializationExpression", node("VariableDeclarationStatement", "assignments", list(i.get("id")),
+                        "declarations", list(i), "initialValue", number("0")),
+                "condition", binary("<", identifier("i"), identifier("a"), "bool"),
+                "loopExpression", node("ExpressionStatement", "expression", node("UnaryOperation",
+                        "operator", "++", "prefix", false, "subExpression", identifier("i"),
+                        "typeDescriptions", type("uint256"))),
+                "body", node("Block", "statements", list(assignment("+=", identifier("x"), identifier("i")))));
+        JSONObject f = function("f", "public", parameters(a), parameters(),
+                node("ExpressionStatement", "expression",
+                        call("require", binary("<", identifier("a"), number("16"), "bool"))),
+                loop,
+                assignment("=", index("m", identifier("a")), call("g", identifier("x"))),
+                node("EmitStatement", "eventCall", call("E", index("m", identifier("a")))));
+
+        return document(x, m, event, g, f);
+    }
+
+    protected Transaction transaction(AST ast, String argument) throws Exception {
+        JSONObject json = new JSONObject();
+        put(json, "contract", "C");
+        put(json, "function", "f");
+        put(json, "args", list(argument));
+        return new Transaction(ast, json);
+    }
+
+    // Test that loops, internal calls, mappings and events are interpreted, and that a failing require() reverts
+    // the transaction. Arguments are decimal, so "12" must not be read as 0x12 (which would revert)
+    @Test
+    public void testTransactions() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = new ParserASTCompactJSON().parse(new ByteArrayInputStream(buildDocument().getBytes("UTF-8")));
+            ArrayList<Transaction> transactions = new ArrayList<Transaction>();
+            transactions.add(transaction(ast, "4"));
+            transactions.add(transaction(ast, "20"));
+            transactions.add(transaction(ast, "12"));
+
+            StringWriter output = new StringWriter();
+            new ASTInterpreter(ast, new FullInterpreter(transactions, context, output)).run();
+
+            // 0+1+2+3 = 6, then 6 + 0+...+11 = 72, each doubled by g()
+            Assert.assertEquals("{\"event\":\"E\",\"args\":{\"v\":\"12\"}}\n"
+                    + "{\"event\":\"E\",\"args\":{\"v\":\"144\"}}\n", output.toString());
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Run transactions of C.f() with the given arguments and return the event log. A positive step limit replaces
+    // the default
+    protected String run(String document, long maxTransactionSteps, String... arguments) throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = new ParserASTCompactJSON().parse(new ByteArrayInputStream(document.getBytes("UTF-8")));
+            ArrayList<Transaction> transactions = new ArrayList<Transaction>();
+            for (String argument : arguments) {
+                transactions.add(transaction(ast, argument));
+            }
+
+            StringWriter output = new StringWriter();
+            FullInterpreter interpreter = new FullInterpreter(transactions, context, output);
+            if (maxTransactionSteps > 0) {
+                interpreter.setMaxTransactionSteps(maxTransactionSteps);
+            }
+            new ASTInterpreter(ast, interpreter).run();
+            return output.toString();
+        } finally {
+            context.detach();
+        }
+    }
+
+    protected String events(String... values) {
+        StringBuilder result = new StringBuilder();
+        for (String value : values) {
+            result.append("{\"event\":\"E\",\"args\":{\"v\":\"").append(value).append("\"}}\n");
+        }
+        return result.toString();
+    }
+
+    //  contract C {
+    //      uint x;
+    //      event E(uint v);
+    //      modifier m(uint b) { x = x + b; _; emit E(x); }
+    //      modifier twice() { _; _; x = x + 1; }
+    //      function f(uint a) public m(a) twice() m(10) { x = x * 2; }
+    //  }
+    // Test that modifiers run in order around the function body, that their arguments may refer to the function
+    // parameters, and that each placeholder runs the rest of the modifiers and the body
+    @Test
+    public void testModifiers() throws Exception {
+        JSONObject x = variable("x", uint(), true);
+        JSONObject event = event(uint());
+        JSONObject m = modifier("m", parameters(variable("b", uint(), false)),
+                assignment("=", identifier("x"), binary("+", identifier("x"), identifier("b"), "uint256")),
+                node("PlaceholderStatement"),
+                emit(identifier("x")));
+        JSONObject twice = modifier("twice", parameters(),
+                node("PlaceholderStatement"),
+                node("PlaceholderStatement"),
+                assignment("=", identifier("x"), binary("+", identifier("x"), number("1"), "uint256")));
+        JSONObject f = withModifiers(function("f", "public", parameters(variable("a", uint(), false)), parameters(),
+                assignment("*=", identifier("x"), number("2"))),
+                invocation("m", identifier("a")), invocation("twice"), invocation("m", number("10")));
+
+        // x = 3, then twice: x = (3 + 10) * 2 = 26, x = (26 + 10) * 2 = 72, x = 73
+        Assert.assertEquals(events("26", "72", "73"), run(document(x, event, m, twice, f), 0, "3"));
+    }
+
+    //  contract C {
+    //      struct S { uint a; uint[] list; }
+    //      S s;
+    //      uint[3] fixed;
+    //      event E(uint v);
+    //      function f(uint a) public {
+    //          s.a = a;
+    //          s.list.push(a);
+    //          fixed[2] = s.list[s.list.length - 1] + s.a;
+    //          emit E(s.list.length);
+    //          emit E(fixed[2]);
+    //          emit E(fixed[a]);
+    //      }
+    //  }
+    // Test struct members, dynamic and fixed-size arrays, and that an index out of bounds reverts the transaction
+    @Test
+    public void testStructsAndArrays() throws Exception {
+        JSONObject structDefinition = struct("S", variable("a", uint(), false), variable("list", array(uint(), null), false));
+        JSONObject s = variable("s", userType("S"), true);
+        JSONObject fixed = variable("fixed", array(uint(), number("3")), true);
+        JSONObject event = event(uint());
+        JSONObject length = member(member(identifier("s"), "list"), "length");
+        JSONObject f = function("f", "public", parameters(variable("a", uint(), false)), parameters(),
+                assignment("=", member(identifier("s"), "a"), identifier("a")),
+                node("ExpressionStatement", "expression", call(member(member(identifier("s"), "list"), "push"), identifier("a"))),
+                assignment("=", index("fixed", number("2")), binary("+",
+                        node("IndexAccess", "baseExpression", member(identifier("s"), "list"),
+                                "indexExpression", binary("-", length, number("1"), "uint256"),
+                                "typeDescriptions", type("uint256")),
+                        member(identifier("s"), "a"), "uint256")),
+                emit(member(member(identifier("s"), "list"), "length")),
+                emit(index("fixed", number("2"))),
+                emit(index("fixed", identifier("a"))));
+
+        // The second transaction reverts at fixed[3], so its push is undone
+        Assert.assertEquals(events("1", "2", "0", "2", "4", "4"),
+                run(document(structDefinition, s, fixed, event, f), 0, "1", "3", "2"));
+    }
+
+    //  contract C {
+    //      uint x;
+    //      uint y;
+    //      event E(uint v);
+    //      function g() internal returns (uint, uint) { return (7, 8); }
+    //      function f(uint a) public {
+    //          x = a;
+    //          y = a + 1;
+    //          (x, y) = (y, x);
+    //          emit E(x);
+    //          emit E(y);
+    //          (y, x) = g();
+    //          emit E(x);
+    //          emit E(y);
+    //      }
+    //  }
+    // Test that all values of a tuple assignment are evaluated before the first assignment
+    @Test
+    public void testTupleAssignment() throws Exception {
+        JSONObject x = variable("x", uint(), true);
+        JSONObject y = variable("y", uint(), true);
+        JSONObject event = event(uint());
+        JSONObject g = function("g", "internal", parameters(), parameters(variable("", uint(), false), variable("", uint(), false)),
+                node("Return", "expression", tuple(number("7"), number("8"))));
+        JSONObject f = function("f", "public", parameters(variable("a", uint(), false)), parameters(),
+                assignment("=", identifier("x"), identifier("a")),
+                assignment("=", identifier("y"), binary("+", identifier("a"), number("1"), "uint256")),
+                assignment("=", tuple(identifier("x"), identifier("y")), tuple(identifier("y"), identifier("x"))),
+                emit(identifier("x")),
+                emit(identifier("y")),
+                assignment("=", tuple(identifier("y"), identifier("x")), call("g")),
+                emit(identifier("x")),
+                emit(identifier("y")));
+
+        Assert.assertEquals(events("5", "4", "8", "7"), run(document(x, y, event, g, f), 0, "4"));
+    }
+
+    //  contract C {
+    //      event E(uint v);
+    //      function f(uint a) public {
+    //          uint i = 0;
+    //          uint sum = 0;
+    //          while (i < 100) {
+    //              i++;
+    //              if (i > a) { break; }
+    //              if (i % 2 == 0) { continue; }
+    //              sum += i;
+    //          }
+    //          emit E(sum);
+    //          do { sum += 100; if (sum > 1000) break; else continue; sum = 0; } while (sum < a);
+    //          emit E(sum);
+    //      }
+    //  }
+    // Test if/else, while and do-while loops with break and continue
+    @Test
+    public void testControlFlow() throws Exception {
+        JSONObject event = event(uint());
+        JSONObject i = variable("i", uint(), false);
+        JSONObject sum = variable("sum", uint(), false);
+        JSONObject whileLoop = node("WhileStatement",
+                "condition", binary("<", identifier("i"), number("100"), "bool"),
+                "body", block(
+                        increment("i"),
+                        node("IfStatement", "condition", binary(">", identifier("i"), identifier("a"), "bool"),
+                                "trueBody", block(node("Break")), "falseBody", null),
+                        node("IfStatement", "condition", binary("==", binary("%", identifier("i"), number("2"), "uint256"),
+                                number("0"), "bool"), "trueBody", block(node("Continue")), "falseBody", null),
+                        assignment("+=", identifier("sum"), identifier("i"))));
+        JSONObject doWhileLoop = node("DoWhileStatement",
+                "condition", binary("<", identifier("sum"), identifier("a"), "bool"),
+                "body", block(
+                        assignment("+=", identifier("sum"), number("100")),
+                        node("IfStatement", "condition", binary(">", identifier("sum"), number("1000"), "bool"),
+                                "trueBody", node("Break"), "falseBody", node("Continue")),
+                        assignment("=", identifier("sum"), number("0"))));
+        JSONObject f = function("f", "public", parameters(variable("a", uint(), false)), parameters(),
+                declaration(i, number("0")),
+                declaration(sum, number("0")),
+                whileLoop,
+                emit(identifier("sum")),
+                doWhileLoop,
+                emit(identifier("sum")));
+
+        // 1 + 3 + 5 = 9, then one iteration as 109 >= 5. With a = 500, 1 + 3 + ... + 99 = 2500 and break at 2600.
+        // The "continue" in the do-while loop skips "sum = 0" but not the condition
+        Assert.assertEquals(events("9", "109", "2500", "2600", "4", "104"),
+                run(document(event, f), 0, "5", "500", "4"));
+    }
+
+    //  contract C {
+    //      struct S { uint a; }
+    //      S s;
+    //      event E(uint v);
+    //      function f(uint a) public {
+    //          emit E(s.a);
+    //          s.a = a;
+    //          S memory m = s;
+    //          m.a = a + 1;
+    //          S storage p = s;
+    //          p.a = a + 2;
+    //          emit E(m.a);
+    //          emit E(s.a);
+    //          s = m;
+    //          m.a = 99;
+    //          emit E(s.a);
+    //      }
+    //  }
+    // Test that storage data is copied into memory and back, while storage pointers refer to it
+    @Test
+    public void testStorageAndMemory() throws Exception {
+        JSONObject structDefinition = struct("S", variable("a", uint(), false));
+        JSONObject s = variable("s", userType("S"), true);
+        JSONObject event = event(uint());
+        JSONObject m = variable("m", userType("S"), false, "memory");
+        JSONObject p = variable("p", userType("S"), false, "storage");
+        JSONObject f = function("f", "public", parameters(variable("a", uint(), false)), parameters(),
+                emit(member(identifier("s"), "a")),
+                assignment("=", member(identifier("s"), "a"), identifier("a")),
+                declaration(m, identifier("s")),
+                assignment("=", member(identifier("m"), "a"), binary("+", identifier("a"), number("1"), "uint256")),
+                declaration(p, identifier("s")),
+                assignment("=", member(identifier("p"), "a"), binary("+", identifier("a"), number("2"), "uint256")),
+                emit(member(identifier("m"), "a")),
+                emit(member(identifier("s"), "a")),
+                assignment("=", identifier("s"), identifier("m")),
+                assignment("=", member(identifier("m"), "a"), number("99")),
+                emit(member(identifier("s"), "a")));
+
+        Assert.assertEquals(events("0", "4", "5", "4", "4", "11", "12", "11"),
+                run(document(structDefinition, s, event, f), 0, "3", "10"));
+    }
+
+    //  contract C {
+    //      uint x;
+    //      uint[] list;
+    //      mapping(uint => uint) m;
+    //      event E(uint v);
+    //      function f(uint a) public {
+    //          x += a;
+    //          list.push(a);
+    //          m[1] += a;
+    //          emit E(x);
+    //          emit E(list.length);
+    //          emit E(m[1]);
+    //          require(a < 10);
+    //      }
+    //  }
+    // Test that a reverted transaction leaves neither its storage changes nor its events
+    @Test
+    public void testRevert() throws Exception {
+        JSONObject x = variable("x", uint(), true);
+        JSONObject list = variable("list", array(uint(), null), true);
+        JSONObject m = variable("m", mapping(), true);
+        JSONObject event = event(uint());
+        JSONObject f = function("f", "public", parameters(variable("a", uint(), false)), parameters(),
+                assignment("+=", identifier("x"), identifier("a")),
+                node("ExpressionStatement", "expression", call(member(identifier("list"), "push"), identifier("a"))),
+                assignment("+=", index("m", number("1")), identifier("a")),
+                emit(identifier("x")),
+                emit(member(identifier("list"), "length")),
+                emit(index("m", number("1"))),
+                node("ExpressionStatement", "expression",
+                        call("require", binary("<", identifier("a"), number("10"), "bool"))));
+
+        Assert.assertEquals(events("3", "1", "3", "7", "2", "7"),
+                run(document(x, list, m, event, f), 0, "3", "20", "4"));
+    }
+
+    //  contract C {
+    //      event E(uint v);
+    //      function f(uint a) public {
+    //          emit E(a);
+    //          uint i = 0;
+    //          while (i < a) { i++; }
+    //          emit E(i);
+    //      }
+    //  }
+    // Test that a transaction which exceeds the step limit reverts, as on running out of gas
+    @Test
+    public void testStepLimit() throws Exception {
+        JSONObject event = event(uint());
+        JSONObject i = variable("i", uint(), false);
+        JSONObject f = function("f", "public", parameters(variable("a", uint(), false)), parameters(),
+                emit(identifier("a")),
+                declaration(i, number("0")),
+                node("WhileStatement", "condition", binary("<", identifier("i"), identifier("a"), "bool"),
+                        "body", block(increment("i"))),
+                emit(identifier("i")));
+        String document = document(event, f);
+
+        Assert.assertEquals(events("10", "10", "5", "5"), run(document, 100, "10", "1000", "5"));
+        Assert.assertEquals(events("10", "10", "1000", "1000", "5", "5"), run(document, 0, "10", "1000", "5"));
+    }
+
+    //  contract C {
+    //      uint[] list;
+    //      event E(bytes32 v);
+    //      function f(uint a) public {
+    //          emit E(keccak256(a));
+    //          emit E(keccak256(a, 1, true, "ab"));
+    //      }
+    //  }
+    // Test the packed encoding of keccak256() arguments, and that unsupported arguments abort the interpretation
+    @Test
+    public void testKeccak256() throws Exception {
+        JSONObject list = variable("list", array(uint(), null), true);
+        JSONObject event = event(elementary("bytes32"));
+        JSONObject f = function("f", "public", parameters(variable("a", uint(), false)), parameters(),
+                emit(call("keccak256", identifier("a"))),
+                emit(call("keccak256", identifier("a"), number("1"),
+                        node("Literal", "kind", "bool", "value", "true", "typeDescriptions", type("bool")),
+                        node("Literal", "kind", "string", "value", "ab", "hexValue", "6162",
+                                "typeDescriptions", type("literal_string \"ab\"")))));
+        String document = document(list, event, f);
+
+        byte[] a = new byte[32];
+        a[31] = 5;
+        byte[] packed = new byte[32 + 1 + 1 + 2];
+        System.arraycopy(a, 0, packed, 0, 32);
+        packed[32] = 1;
+        packed[33] = 1;
+        packed[34] = 'a';
+        packed[35] = 'b';
+        Assert.assertEquals(events((String)new BytesValue(TypeContainer.getByteType(32), Hash.keccak256(a)).toJSONRepresentation(),
+                        (String)new BytesValue(TypeContainer.getByteType(32), Hash.keccak256(packed)).toJSONRepresentation()),
+                run(document, 0, "5"));
+
+        JSONObject arrayHash = function("f", "public", parameters(variable("a", uint(), false)), parameters(),
+                emit(call("keccak256", identifier("list"))));
+        try {
+            run(document(list, event, arrayHash), 0, "5");
+            Assert.fail("keccak256() of an array was accepted");
+        } catch (Exception e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("Unsupported keccak256() argument list"));
+        }
+    }
+
+    //  contract C {
+    //      event E(int8 v);
+    //      function f(int8 a) public {
+    //          emit E(a ** 3);
+    //      }
+    //  }
+    // Test that exponentiation with a signed base wraps around in the type of the base
+    @Test
+    public void testSignedExponentiation() throws Exception {
+        JSONObject event = event(elementary("int8"));
+        JSONObject f = function("f", "public", parameters(variable("a", elementary("int8"), false)), parameters(),
+                emit(binary("**", identifier("a"), number("3"), "int8")));
+
+        // 6 ** 3 = 216 wraps around to -40
+        Assert.assertEquals(events("-8", "125", "-40", "-1"), run(document(event, f), 0, "-2", "5", "6", "-1"));
+    }
+
+    protected String constantDocument(JSONObject constant) {
+        JSONObject event = event(uint());
+        JSONObject f = function("f", "public", parameters(variable("a", uint(), false)), parameters(), emit(constant));
+        return document(event, f);
+    }
+
+    protected JSONObject negative(String value) {
+        return node("UnaryOperation", "operator", "-", "prefix", true, "subExpression", number(value),
+                "typeDescriptions", type("int_const -" + value));
+    }
+
+    //  contract C {
+    //      event E(uint v);
+    //      function f(uint a) public { emit E(<constant>); }
+    //  }
+    // Test that exponentiations and shifts of constants are computed exactly, and that negative second operands and
+    // results beyond the size of solc constants are rejected instead of being computed
+    @Test
+    public void testConstantShiftAndExponentiation() throws Exception {
+        Assert.assertEquals(events(BigInteger.ONE.shiftLeft(255).toString()),
+                run(constantDocument(binary("**", number("2"), number("255"), "int_const")), 0, "1"));
+        Assert.assertEquals(events("0"), run(constantDocument(binary(">>", number("5"),
+                binary("**", number("2"), number("40"), "int_const"), "int_const")), 0, "1"));
+        Assert.assertEquals(events("1"), run(constantDocument(binary("**", number("1"),
+                binary("**", number("2"), number("40"), "int_const"), "int_const")), 0, "1"));
+        // Wraps around in the event parameter type
+        Assert.assertEquals(events("0"), run(constantDocument(binary("<<", number("1"), number("4000"), "int_const")), 0, "1"));
+
+        JSONObject[] invalidConstants = new JSONObject[] {
+                binary("**", number("2"), binary("**", number("2"), number("40"), "int_const"), "int_const"),
+                binary("**", number("3"), number("4096"), "int_const"),
+                binary("<<", number("1"), number("5000"), "int_const"),
+                binary("**", number("2"), negative("1"), "int_const"),
+                binary("<<", number("3"), negative("1"), "int_const"),
+                binary(">>", number("3"), negative("1"), "int_const")
+        };
+        for (JSONObject constant : invalidConstants) {
+            try {
+                run(constantDocument(constant), 0, "1");
+                Assert.fail("Invalid constant was accepted");
+            } catch (Exception e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("FullInterpreter: "));
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.expressions;
+
+import soltix.ast.AST;
+import soltix.ast.ASTBinaryOperation;
+import soltix.ast.ASTUnaryOperation;
+import soltix.interpretation.TypeContainer;
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.values.ValueContainer;
+import soltix.interpretation.variables.Variable;
+import soltix.interpretation.variables.VariableEnvironment;
+import soltix.interpretation.variables.VariableValues;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static soltix.ast.ASTBinaryOperation.Operator.*;
+
+/**
+ * Test class for class ExpressionDomainEvaluator
+ */
+public class ExpressionDomainEvaluatorTest extends UtilExpressionTests {
+    private ExpressionDomainEvaluator evaluator = new ExpressionDomainEvaluator();
+
+    private VariableEnvironment createEnvironment(Variable variable, BigInteger... values) throws Exception {
+        VariableEnvironment environment = new VariableEnvironment(new AST(), false);
+        VariableValues variableValues = new VariableValues(variable, 0);
+        for (BigInteger value : values) {
+            variableValues.addValue(new IntegerValue(variable.getType(), value));
+        }
+        environment.addVariableValues(variable, variableValues);
+        environment.finishAddingValues();
+        return environment;
+    }
+
+    private Expression compare(Variable variable, ASTBinaryOperation.Operator operator, long constant) throws Exception {
+        return new Expression(new Expression(variable), operator,
+                new Expression(new IntegerValue(variable.getType(), constant)));
+    }
+
+    // Test decisions from the interval of values, with the constant on either side of the operator
+    @Test
+    public void testIntervals() throws Exception {
+        Variable x = createVariable(TypeContainer.getIntegerType(true, 32), "x");
+        VariableEnvironment environment = createEnvironment(x, BigInteger.valueOf(-5), BigInteger.valueOf(10));
+
+        Assert.assertEquals(Boolean.TRUE, evaluator.evaluate(environment, compare(x, OP_LT, 11)));
+        Assert.assertEquals(Boolean.FALSE, evaluator.evaluate(environment, compare(x, OP_LT, -5)));
+        Assert.assertNull(evaluator.evaluate(environment, compare(x, OP_LT, 0)));
+        Assert.assertEquals(Boolean.TRUE, evaluator.evaluate(environment, compare(x, OP_GTE, -5)));
+        Assert.assertEquals(Boolean.FALSE, evaluator.evaluate(environment, compare(x, OP_GT, 10)));
+        Assert.assertEquals(Boolean.TRUE, evaluator.evaluate(environment, compare(x, OP_LTE, 10)));
+
+        // -6 < x
+        Expression reversed = new Expression(new Expression(new IntegerValue(x.getType(), -6)), OP_LT, new Expression(x));
+        Assert.assertEquals(Boolean.TRUE, evaluator.evaluate(environment, reversed));
+
+        Expression reflexive = new Expression(new Expression(x), OP_NEQ, new Expression(x));
+        Assert.assertEquals(Boolean.FALSE, evaluator.evaluate(environment, reflexive));
+    }
+
+    // Test that known bits exclude values inside of the interval
+    @Test
+    public void testKnownBits() throws Exception {
+        Variable x = createVariable(TypeContainer.getIntegerType(false, 8), "x");
+        VariableEnvironment environment = createEnvironment(x, BigInteger.valueOf(4), BigInteger.valueOf(12));
+
+        Assert.assertEquals(Boolean.FALSE, evaluator.evaluate(environment, compare(x, OP_EQ, 8)));
+        Assert.assertEquals(Boolean.TRUE, evaluator.evaluate(environment, compare(x, OP_NEQ, 5)));
+        Assert.assertNull(evaluator.evaluate(environment, compare(x, OP_EQ, 12)));
+
+        Variable y = createVariable(TypeContainer.getIntegerType(true, 256), "y");
+        BigInteger big = BigInteger.ONE.shiftLeft(200).negate();
+        environment = createEnvironment(y, big, big.add(BigInteger.valueOf(2)));
+        Expression oddComparison = new Expression(new Expression(y), OP_EQ,
+                new Expression(new IntegerValue(y.getType(), big.add(BigInteger.ONE))));
+        Assert.assertEquals(Boolean.FALSE, evaluator.evaluate(environment, oddComparison));
+    }
+
+    // Test three-valued combination of logical operators
+    @Test
+    public void testLogicalOperators() throws Exception {
+        Variable x = createVariable(TypeContainer.getIntegerType(true, 64), "x");
+        VariableEnvironment environment = createEnvironment(x, BigInteger.valueOf(1), BigInteger.valueOf(3));
+        Expression unknown = compare(x, OP_LT, 2);
+        Expression alwaysTrue = compare(x, OP_GT, 0);
+
+        Assert.assertEquals(Boolean.TRUE, evaluator.evaluate(environment, new Expression(unknown, OP_LOR, alwaysTrue)));
+        Assert.assertNull(evaluator.evaluate(environment, new Expression(unknown, OP_LAND, alwaysTrue)));
+        Assert.assertEquals(Boolean.FALSE, evaluator.evaluate(environment,
+                new Expression(ASTUnaryOperation.Operator.OP_LNEG, new Expression(alwaysTrue, OP_LAND,
+                        new Expression(ValueContainer.getBoolValue(true))))));
+    }
+}
@@ -21,6 +21,7 @@
 package soltix.interpretation.expressions;
 
 import soltix.ast.ASTBinaryOperation;
+import soltix.ast.ASTElementaryTypeName;
 import soltix.ast.ASTNode;
 import soltix.ast.ASTUnaryOperation;
 import soltix.interpretation.TypeContainer;
@@ -89,7 +90,7 @@ public class ExpressionEvaluatorTest extends UtilExpressionTests {
         ExpressionEvaluator.ComputedValues result;
         result = expressionEvaluator.evaluateForAll(environment, conditionalOperatorFirstBranchTaken);
         // Although the side effect of x++ increments it, the original value must be returned by the expression:
-        Assert.assertTrue(      ((IntegerValue)result.values.get(0))  . isEqualTo(initialXValue).getValue());
+        Assert.assertTrue(      ((IntegerValue)result.get(0))  . isEqualTo(initialXValue).getValue());
 
         // Should have executed ++x, i.e. x=6, y=10
         System.out.println("x value = " + varXValues.getValue(0).toString());
@@ -109,7 +110,7 @@ public class ExpressionEvaluatorTest extends UtilExpressionTests {
 
         result = expressionEvaluator.evaluateForAll(environment, conditionalOperatorSecondBranchTaken);
         // Since a prefix --y is applied, the expression's result must also be 9:
-        Assert.assertTrue(      ((IntegerValue)result.values.get(0))  . isEqualTo( ValueContainer.getSmallIntegerValue(varY.getType(), 9)).getValue());
+        Assert.assertTrue(      ((IntegerValue)result.get(0))  . isEqualTo( ValueContainer.getSmallIntegerValue(varY.getType(), 9)).getValue());
 
         // Should have executed --y, i.e. x=5, y=9
         System.out.println("x value = " + varXValues.getValue(0).toString());
@@ -136,7 +137,7 @@ public class ExpressionEvaluatorTest extends UtilExpressionTests {
         System.out.println("expr " + logicalAndSecondBranchNotTaken.toASTNode(undoOperations).toSolidityCode());
 
         result = expressionEvaluator.evaluateForAll(environment, logicalAndSecondBranchNotTaken);
-        Assert.assertFalse(((BoolValue)result.values.get(0)).getValue());
+        Assert.assertFalse(((BoolValue)result.get(0)).getValue());
 
         // Should NOT have executed ++x - x = 5 holds
         System.out.println("x value = " + varXValues.getValue(0).toString());
@@ -152,7 +153,7 @@ public class ExpressionEvaluatorTest extends UtilExpressionTests {
                 xGreaterThanZero);
 
         result = expressionEvaluator.evaluateForAll(environment, logicalAndSecondBranchTaken);
-        Assert.assertTrue(((BoolValue)result.values.get(0)).getValue());
+        Assert.assertTrue(((BoolValue)result.get(0)).getValue());
 
         // Should have executed ++x - x = 6 now
         System.out.println("x value = " + varXValues.getValue(0).toString());
@@ -167,7 +168,7 @@ public class ExpressionEvaluatorTest extends UtilExpressionTests {
                 xGreaterThanZero);
 
         result = expressionEvaluator.evaluateForAll(environment, logicalOrSecondBranchNotTaken);
-        Assert.assertTrue(((BoolValue)result.values.get(0)).getValue());
+        Assert.assertTrue(((BoolValue)result.get(0)).getValue());
 
         // Should NOT have executed ++x - x = 5 still holds
         System.out.println("x value = " + varXValues.getValue(0).toString());
@@ -183,7 +184,7 @@ public class ExpressionEvaluatorTest extends UtilExpressionTests {
                 xGreaterThanZero);
 
         result = expressionEvaluator.evaluateForAll(environment, logicalOrSecondBranchTaken);
-        Assert.assertTrue(((BoolValue)result.values.get(0)).getValue());
+        Assert.assertTrue(((BoolValue)result.get(0)).getValue());
 
         // Should have executed ++x - x = 6 now
         System.out.println("x value = " + varXValues.getValue(0).toString());
@@ -660,4 +661,71 @@ public class ExpressionEvaluatorTest extends UtilExpressionTests {
         resultString = e(convertedResultExpression);
         Assert.assertTrue(resultString.equals("bytes9(0x75498974BA620F74F9)"));
     }
+
+    private VariableEnvironment createColumnEnvironment(ASTNode type, long[] xValues, long[] yValues) throws Exception {
+        VariableEnvironment environment = new VariableEnvironment(null, false);
+        VariableValues x = new VariableValues(createVariable(type, "x"), 0);
+        VariableValues y = new VariableValues(createVariable(type, "y"), 0);
+        environment.addVariableValues(x.getVariable(), x);
+        environment.addVariableValues(y.getVariable(), y);
+        for (int i = 0; i < xValues.length; ++i) {
+            x.addValue(new IntegerValue(type, xValues[i]));
+            y.addValue(new IntegerValue(type, yValues[i]));
+            environment.completeValueSet();
+        }
+        environment.finishAddingValues();
+        return environment;
+    }
+
+    // Test that operators applied to value columns give the same results as for individual values, for types with and
+    // without a column representation, and that undefined operations are reported like for individual values
+    @Test
+    public void testColumnEvaluation() throws Exception {
+        ASTBinaryOperation.Operator[] operators = new ASTBinaryOperation.Operator[] {
+            OP_PLUS, OP_MINUS, OP_MUL, OP_DIV, OP_MOD, OP_EQ, OP_NEQ, OP_GT, OP_LT, OP_GTE, OP_LTE,
+            OP_BOR, OP_BAND, OP_BXOR, OP_BSHL, OP_BSHR
+        };
+        ASTElementaryTypeName[] types = new ASTElementaryTypeName[] {
+            TypeContainer.getIntegerType(true, 8), TypeContainer.getIntegerType(false, 8),
+            TypeContainer.getIntegerType(false, 32), TypeContainer.getIntegerType(true, 64),
+            TypeContainer.getIntegerType(false, 64), TypeContainer.getIntegerType(true, 256)
+        };
+        ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(null);
+        for (ASTElementaryTypeName type : types) {
+            boolean signed = type.isSigned();
+            long min = new IntegerValue(type, 0).getMinValue().getBigValue().max(BigInteger.valueOf(Long.MIN_VALUE)).longValue();
+            long max = new IntegerValue(type, 0).getMaxValue().getBigValue().min(BigInteger.valueOf(Long.MAX_VALUE)).longValue();
+            long[] xValues = new long[] { 0, 1, max, min, signed ? -1 : 2, 100, max - 3, signed ? -7 : 5, 3 };
+            long[] yValues = new long[] { 1, 3, 2, signed ? -1 : 1, 7, 300 % max, 1, 2, 70 };
+            VariableEnvironment environment = createColumnEnvironment(type, xValues, yValues);
+
+            for (ASTBinaryOperation.Operator operator : operators) {
+                if (signed && (operator == OP_BSHL || operator == OP_BSHR)) {
+                    continue; // Shift bit counts must not be negative
+                }
+                Expression expression = new Expression(new Expression(environment.getVariableValues("x").getVariable()),
+                        operator, new Expression(environment.getVariableValues("y").getVariable()));
+                ExpressionEvaluator.ComputedValues result = expressionEvaluator.evaluateForAll(environment, expression);
+                Assert.assertEquals(environment.getValueCount(), result.size());
+                Assert.assertTrue(type.getBits() > (signed ? 64 : 63) || result.getLanes() != null);
+                for (int i = 0; i < result.size(); ++i) {
+                    Value expected = expressionEvaluator.evaluateBinaryOperator(environment.resolveVariableValue(i, "x"),
+                            operator, environment.resolveVariableValue(i, "y"), null, null);
+                    Assert.assertEquals(expected.getType(), result.get(i).getType());
+                    Assert.assertEquals(expected.toASTNode(false).toSolidityCode(), result.get(i).toASTNode(false).toSolidityCode());
+                }
+            }
+
+            // Division by zero is reported for the column
+            environment = createColumnEnvironment(type, new long[] { 4, 5, 6 }, new long[] { 1, 0, 2 });
+            Expression division = new Expression(new Expression(environment.getVariableValues("x").getVariable()),
+                    OP_DIV, new Expression(environment.getVariableValues("y").getVariable()));
+            try {
+                expressionEvaluator.evaluateForAll(environment, division);
+                Assert.fail("Division by zero not reported");
+            } catch (ExpressionEvaluationException e) {
+                Assert.assertEquals(ExpressionEvaluationException.ExceptionType.ExceptionType_ValueError_ZeroDivision, e.getType());
+            }
+        }
+    }
 }
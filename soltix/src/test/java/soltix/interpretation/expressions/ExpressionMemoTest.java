@@ -0,0 +1,111 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.expressions;
+
+import soltix.ast.ASTNode;
+import soltix.ast.ASTUnaryOperation;
+import soltix.interpretation.TypeContainer;
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.variables.Variable;
+import soltix.interpretation.variables.VariableEnvironment;
+import soltix.interpretation.variables.VariableValues;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static soltix.ast.ASTBinaryOperation.Operator.*;
+
+/**
+ * Test class for class ExpressionMemo
+ */
+public class ExpressionMemoTest extends UtilExpressionTests {
+    private VariableEnvironment createEnvironment(Variable variable, long[] values) throws Exception {
+        VariableEnvironment environment = new VariableEnvironment(null, false);
+        VariableValues variableValues = new VariableValues(variable, 0);
+        for (long value : values) {
+            variableValues.addValue(new IntegerValue(variable.getType(), value));
+        }
+        environment.addVariableValues(variable, variableValues);
+        environment.finishAddingValues();
+        return environment;
+    }
+
+    private Expression createSum(Variable variable, long constant) throws Exception {
+        return new Expression(new Expression(variable), OP_PLUS,
+                new Expression(new IntegerValue(variable.getType(), constant)));
+    }
+
+    // Test that structurally equal side-effect-free expressions share node numbers and results
+    @Test
+    public void testSharedResults() throws Exception {
+        ASTNode type = TypeContainer.getIntegerType(true, 32);
+        Variable x = createVariable(type, "x");
+        VariableEnvironment environment = createEnvironment(x, new long[] { 1, 2, 3 });
+        ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(null);
+        ExpressionMemo memo = expressionEvaluator.memo;
+
+        Expression first = createSum(x, 5);
+        Expression second = createSum(x, 5);
+        Assert.assertEquals(memo.getNode(first), memo.getNode(second));
+        Assert.assertTrue(memo.getNode(first) != memo.getNode(createSum(x, 6)));
+        Assert.assertEquals(ExpressionMemo.NO_NODE,
+                memo.getNode(new Expression(ASTUnaryOperation.Operator.OP_INC_PRE, new Expression(x))));
+
+        ExpressionEvaluator.ComputedValues firstValues = expressionEvaluator.evaluateForAll(environment, first);
+        long hits = memo.getHitCount();
+        ExpressionEvaluator.ComputedValues secondValues = expressionEvaluator.evaluateForAll(environment, second);
+        Assert.assertSame(firstValues, secondValues);
+        Assert.assertEquals(hits + 1, memo.getHitCount());
+        Assert.assertEquals("8", secondValues.get(2).toString());
+
+        // Larger expressions reuse the results of both operands
+        Expression product = new Expression(createSum(x, 5), OP_MUL, new Expression(x));
+        hits = memo.getHitCount();
+        Assert.assertEquals("24", expressionEvaluator.evaluateForAll(environment, product).get(2).toString());
+        Assert.assertEquals(hits + 2, memo.getHitCount());
+
+        // Single value sets are taken from the results for all value sets
+        Assert.assertEquals("14", expressionEvaluator.evaluateForOne(environment, 1, product).toString());
+        Assert.assertEquals("6", expressionEvaluator.evaluateForOne(environment, 0, product).toString());
+    }
+
+    // Test that results are not reused after the environment or the expression has changed
+    @Test
+    public void testInvalidation() throws Exception {
+        ASTNode type = TypeContainer.getIntegerType(false, 8);
+        Variable x = createVariable(type, "x");
+        VariableEnvironment environment = createEnvironment(x, new long[] { 10, 20 });
+        ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(null);
+
+        Expression sum = createSum(x, 1);
+        Assert.assertEquals("21", expressionEvaluator.evaluateForAll(environment, sum).get(1).toString());
+        environment.getVariableValues("x").updateValue(1, new IntegerValue(type, 30));
+        environment.finishAddingValues();
+        Assert.assertEquals("31", expressionEvaluator.evaluateForAll(environment, createSum(x, 1)).get(1).toString());
+
+        VariableEnvironment otherEnvironment = createEnvironment(x, new long[] { 7 });
+        Assert.assertEquals("8", expressionEvaluator.evaluateForAll(otherEnvironment, createSum(x, 1)).get(0).toString());
+
+        int node = expressionEvaluator.memo.getNode(sum);
+        sum.updateSecondOperand(new Expression(new IntegerValue(type, 2)));
+        Assert.assertTrue(node != expressionEvaluator.memo.getNode(sum));
+        Assert.assertEquals("32", expressionEvaluator.evaluateForAll(environment, sum).get(1).toString());
+    }
+}
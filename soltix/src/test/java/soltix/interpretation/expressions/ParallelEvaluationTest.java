@@ -0,0 +1,124 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.expressions;
+
+import soltix.Configuration;
+import soltix.ast.ASTNode;
+import soltix.ast.ASTUnaryOperation;
+import soltix.interpretation.TypeContainer;
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.values.Value;
+import soltix.interpretation.variables.Variable;
+import soltix.interpretation.variables.VariableEnvironment;
+import soltix.interpretation.variables.VariableValues;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static soltix.ast.ASTBinaryOperation.Operator.*;
+
+/**
+ * Test class for class ParallelEvaluation
+ */
+public class ParallelEvaluationTest extends UtilExpressionTests {
+    private static final int VALUE_COUNT = 5000;
+
+    private String evaluate(VariableEnvironment environment, Variable x, Variable y, int threshold) throws Exception {
+        Configuration configuration = Configuration.current();
+        int previousThreshold = configuration.parallelEvaluationThreshold;
+        configuration.parallelEvaluationThreshold = threshold;
+        try {
+            ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(null);
+            // (x * x - -x) / y == x ^ y
+            Expression expression = new Expression(
+                    new Expression(
+                        new Expression(
+                            new Expression(new Expression(x), OP_MUL, new Expression(x)),
+                            OP_MINUS,
+                            new Expression(ASTUnaryOperation.Operator.OP_MINUS, new Expression(x))),
+                        OP_DIV,
+                        new Expression(y)),
+                    OP_NEQ,
+                    new Expression(new Expression(x), OP_BXOR, new Expression(y)));
+            ExpressionEvaluator.ComputedValues values = expressionEvaluator.evaluateForAll(environment, expression);
+            StringBuilder result = new StringBuilder();
+            for (int i = 0; i < values.size(); ++i) {
+                result.append(values.get(i).toString()).append(' ');
+                result.append(expression.getFirstOperand().getComputedValues().get(i).toString()).append('\n');
+            }
+            return result.toString();
+        } finally {
+            configuration.parallelEvaluationThreshold = previousThreshold;
+        }
+    }
+
+    // Test that parallel evaluation gives the same results as sequential evaluation
+    @Test
+    public void testSameResults() throws Exception {
+        ASTNode type = TypeContainer.getIntegerType(true, 256);
+        Variable x = createVariable(type, "x");
+        Variable y = createVariable(type, "y");
+        VariableEnvironment environment = new VariableEnvironment(null, false);
+        VariableValues xValues = new VariableValues(x, 0);
+        VariableValues yValues = new VariableValues(y, 0);
+        BigInteger large = BigInteger.ONE.shiftLeft(200);
+        for (int i = 0; i < VALUE_COUNT; ++i) {
+            xValues.addValue(new IntegerValue(type, large.multiply(BigInteger.valueOf(i - VALUE_COUNT / 2))));
+            yValues.addValue(new IntegerValue(type, BigInteger.valueOf(i % 7 + 1)));
+        }
+        environment.addVariableValues(x, xValues);
+        environment.addVariableValues(y, yValues);
+        environment.finishAddingValues();
+
+        Assert.assertEquals(evaluate(environment, x, y, 0), evaluate(environment, x, y, 1));
+    }
+
+    // Test that the failure of the first failing value set is reported
+    @Test
+    public void testFirstFailure() throws Exception {
+        try {
+            ParallelEvaluation.apply(VALUE_COUNT, new ParallelEvaluation.LaneOperation() {
+                @Override
+                public Value apply(int index) throws Exception {
+                    if (index % 1700 == 1699) {
+                        throw new Exception(String.valueOf(index));
+                    }
+                    return null;
+                }
+            });
+            Assert.fail("Missing exception");
+        } catch (Exception e) {
+            Assert.assertEquals("1699", e.getMessage());
+        }
+
+        final IntegerValue one = new IntegerValue(TypeContainer.getIntegerType(false, 256), 1);
+        Value[] results = ParallelEvaluation.apply(VALUE_COUNT, new ParallelEvaluation.LaneOperation() {
+            @Override
+            public Value apply(int index) throws Exception {
+                return new IntegerValue(one.getType(), index).add(one);
+            }
+        });
+        for (int i = 0; i < VALUE_COUNT; ++i) {
+            Assert.assertEquals(String.valueOf(i + 1), results[i].toString());
+        }
+    }
+}
@@ -39,11 +39,11 @@ public class UtilExpressionTests {
     }
 
 
-    // e(expr) abbreviates the construct expressionEvaluator.evaluate(environment, expr, true).values.get(0).toASTNode(false).toSolidityCode()
+    // e(expr) abbreviates the construct expressionEvaluator.evaluate(environment, expr, true).get(0).toASTNode(false).toSolidityCode()
     protected VariableEnvironment e_environment;
     protected  ExpressionEvaluator e_expressionEvaluator;
     protected String e(Expression expr) throws Exception {
-        return e_expressionEvaluator.evaluate(e_environment, VariableEnvironment.NO_VALUE_SET_SELECTED, expr, false).values.get(0).toASTNode(false).toSolidityCode();
+        return e_expressionEvaluator.evaluate(e_environment, VariableEnvironment.NO_VALUE_SET_SELECTED, expr, false).get(0).toASTNode(false).toSolidityCode();
     }
 
 }
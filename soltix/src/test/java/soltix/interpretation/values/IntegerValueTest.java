@@ -20,6 +20,8 @@
 
 package soltix.interpretation.values;
 
+import soltix.Configuration;
+import soltix.SoltixContext;
 import soltix.ast.ASTElementaryTypeName;
 import soltix.ast.ASTNode;
 import soltix.interpretation.TypeContainer;
@@ -29,6 +31,8 @@ import org.junit.Assert;
 
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Random;
 
 /**
  * Test class for class IntegerValue
@@ -368,7 +372,288 @@ public class IntegerValueTest extends ValueTestTypes {
 
     @Test
     public void exp() throws Exception {
-        // TODO
+        IntegerTestValues[] a = new IntegerTestValues[]{
+                new IntegerTestValues("uint8", "3", "5", false, 8, "243"),
+                new IntegerTestValues("uint8", "2", "8", false, 8, "0"),
+                new IntegerTestValues("uint8", "0", "0", false, 8, "1"),
+                new IntegerTestValues("uint256", "2", "255", false, 256, BigInteger.ONE.shiftLeft(255).toString())
+        };
+
+        for (IntegerTestValues testData : a) {
+            ASTNode type = TypeContainer.getIntegerType(testData.isSigned, testData.typeBits);
+            IntegerValue firstOperand = new IntegerValue(type, testData.valueText);
+            IntegerValue secondOperand = new IntegerValue(type, testData.secondValueText);
+
+            IntegerValue resultValue = firstOperand.exp(secondOperand);
+
+            Assert.assertEquals(testData.operationResult, resultValue.toString());
+        }
+    }
+
+    // Reference semantics: the operation applied to the mathematical values, wrapped around to the type like in the EVM
+    static private BigInteger wrap(BigInteger value, ASTElementaryTypeName type) throws Exception {
+        BigInteger modulus = BigInteger.ONE.shiftLeft(type.getBits());
+        value = value.mod(modulus);
+        if (type.isSigned() && value.testBit(type.getBits() - 1)) {
+            value = value.subtract(modulus);
+        }
+        return value;
+    }
+
+    private ArrayList<BigInteger> createDifferentialOperands(ASTElementaryTypeName type, Random random) throws Exception {
+        ArrayList<BigInteger> operands = new ArrayList<BigInteger>();
+        for (long value : new long[] { 0, 1, 2, 3, 7, 255, -1, -2, -128 }) {
+            operands.add(wrap(BigInteger.valueOf(value), type));
+        }
+        BigInteger modulus = BigInteger.ONE.shiftLeft(type.getBits());
+        operands.add(wrap(modulus.shiftRight(1), type)); // signed minimum or unsigned middle
+        operands.add(wrap(modulus.shiftRight(1).subtract(BigInteger.ONE), type));
+        for (int i = 0; i < 12; ++i) {
+            operands.add(wrap(new BigInteger(1 + random.nextInt(type.getBits()), random), type));
+        }
+        return operands;
+    }
+
+    // Compare all operations to the BigInteger reference for values of various types
+    @Test
+    public void differentialOperations() throws Exception {
+        Random random = new Random(20);
+        for (int bits : new int[] { 8, 16, 24, 32, 40, 64, 72, 128, 136, 200, 256 }) {
+            for (boolean signed : new boolean[] { false, true }) {
+                ASTElementaryTypeName type = TypeContainer.getIntegerType(signed, bits);
+                ASTElementaryTypeName otherType = TypeContainer.getIntegerType(!signed, 8 + random.nextInt(32) * 8);
+                ArrayList<BigInteger> operands = createDifferentialOperands(type, random);
+
+                for (BigInteger a : operands) {
+                    IntegerValue x = new IntegerValue(type, a);
+                    Assert.assertEquals(a, x.getBigValue());
+                    Assert.assertEquals(a.toString(), x.toString());
+                    Assert.assertEquals(wrap(a.negate(), type), x.negate().getBigValue());
+                    Assert.assertEquals(wrap(a.not(), type), x.negateBitwise().getBigValue());
+                    Assert.assertEquals(wrap(a, otherType), x.convertToIntegerType(otherType).getBigValue());
+                    Assert.assertEquals(a.intValue(), x.toInt());
+
+                    for (BigInteger b : operands) {
+                        IntegerValue y = new IntegerValue(type, b);
+                        String operation = type.toSolidityCode() + " " + a + ", " + b;
+                        Assert.assertEquals(operation, wrap(a.add(b), type), x.add(y).getBigValue());
+                        Assert.assertEquals(operation, wrap(a.subtract(b), type), x.sub(y).getBigValue());
+                        Assert.assertEquals(operation, wrap(a.multiply(b), type), x.mul(y).getBigValue());
+                        Assert.assertEquals(operation, wrap(a.or(b), type), x.bitwiseOr(y).getBigValue());
+                        Assert.assertEquals(operation, wrap(a.and(b), type), x.bitwiseAnd(y).getBigValue());
+                        Assert.assertEquals(operation, wrap(a.xor(b), type), x.bitwiseXor(y).getBigValue());
+                        if (b.signum() != 0) {
+                            Assert.assertEquals(operation, wrap(a.divide(b), type), x.div(y).getBigValue());
+                            Assert.assertEquals(operation, wrap(a.remainder(b), type), x.mod(y).getBigValue());
+                        }
+                        if (b.signum() >= 0) {
+                            int count = b.min(BigInteger.valueOf(300)).intValue();
+                            Assert.assertEquals(operation, wrap(a.shiftLeft(count), type), x.bitwiseShiftLeft(y).getBigValue());
+                            Assert.assertEquals(operation, a.shiftRight(count), x.bitwiseShiftRight(y).getBigValue());
+                            if (!signed) {
+                                Assert.assertEquals(operation, a.modPow(b, BigInteger.ONE.shiftLeft(bits)), x.exp(y).getBigValue());
+                            }
+                        }
+                        int comparison = a.compareTo(b);
+                        Assert.assertEquals(operation, comparison < 0, x.isSmallerThan(y).getValue());
+                        Assert.assertEquals(operation, comparison <= 0, x.isSmallerThanOrEqualTo(y).getValue());
+                        Assert.assertEquals(operation, comparison > 0, x.isGreaterThan(y).getValue());
+                        Assert.assertEquals(operation, comparison >= 0, x.isGreaterThanOrEqualTo(y).getValue());
+                        Assert.assertEquals(operation, comparison == 0, x.isEqualTo(y).getValue());
+                        Assert.assertEquals(operation, Integer.signum(comparison), Integer.signum(x.compareTo(y)));
+                    }
+                }
+            }
+        }
+    }
+
+    static private IntegerValue apply(String operator, IntegerValue x, IntegerValue y) throws Exception {
+        switch (operator) {
+            case "-": return y == null ? x.negate() : x.sub(y);
+            case "~": return x.negateBitwise();
+            case "+": return x.add(y);
+            case "*": return x.mul(y);
+            case "/": return x.div(y);
+            case "%": return x.mod(y);
+            case "|": return x.bitwiseOr(y);
+            case "&": return x.bitwiseAnd(y);
+            case "^": return x.bitwiseXor(y);
+            case "<<": return x.bitwiseShiftLeft(y);
+            case ">>": return x.bitwiseShiftRight(y);
+            case "**": return x.exp(y);
+            default: throw new Exception("Unexpected operator " + operator);
+        }
+    }
+
+    static private LegacyIntegerValue apply(String operator, LegacyIntegerValue x, LegacyIntegerValue y) throws Exception {
+        switch (operator) {
+            case "-": return y == null ? x.negate() : x.sub(y);
+            case "~": return x.negateBitwise();
+            case "+": return x.add(y);
+            case "*": return x.mul(y);
+            case "/": return x.div(y);
+            case "%": return x.mod(y);
+            case "|": return x.bitwiseOr(y);
+            case "&": return x.bitwiseAnd(y);
+            case "^": return x.bitwiseXor(y);
+            case "<<": return x.bitwiseShiftLeft(y);
+            case ">>": return x.bitwiseShiftRight(y);
+            case "**": return x.exp(y);
+            default: throw new Exception("Unexpected operator " + operator);
+        }
+    }
+
+    // Compare an operation (unary if y is null) to the previous BigInteger implementation. Where that produced a
+    // result, the value and type must be the same. Where it threw, the operation must throw too, except for the
+    // differences pinned by legacyDifferences()
+    private void compareToLegacy(String operator, IntegerValue x, IntegerValue y) throws Exception {
+        String operation = x.getType().toSolidityCode() + "(" + x + ") " + operator
+                + (y != null ? " " + y.getType().toSolidityCode() + "(" + y + ")" : "");
+        LegacyIntegerValue legacyX = new LegacyIntegerValue((ASTElementaryTypeName)x.getType(), x.getBigValue());
+        LegacyIntegerValue legacyY = y != null ? new LegacyIntegerValue((ASTElementaryTypeName)y.getType(), y.getBigValue()) : null;
+        LegacyIntegerValue expected = null;
+        try {
+            expected = apply(operator, legacyX, legacyY);
+        } catch (Exception e) {
+        }
+
+        IntegerValue result = null;
+        try {
+            result = apply(operator, x, y);
+        } catch (Exception e) {
+        }
+
+        if (expected == null) {
+            if (result != null) {
+                // The invariant check rejected signed MIN / -1, which now wraps around to MIN
+                Assert.assertEquals(operation, "/", operator);
+                Assert.assertEquals(operation, x.getMinValue().getBigValue(), x.getBigValue());
+                Assert.assertEquals(operation, BigInteger.ONE.negate(), y.getBigValue());
+                Assert.assertEquals(operation, x.getBigValue(), result.getBigValue());
+            }
+        } else if (expected.getValue().bitLength() > (expected.getValue().signum() < 0 ? 255 : 256)) {
+            // Values wider than 256 bits are no longer representable
+            Assert.assertNull(operation, result);
+        } else {
+            Assert.assertNotNull(operation, result);
+            Assert.assertEquals(operation, expected.getValue(), result.getBigValue());
+            Assert.assertEquals(operation, expected.getType().toSolidityCode(), result.getType().toSolidityCode());
+        }
+    }
+
+    // Compare all operations to the previous BigInteger implementation, with shift bit counts and exponents also of
+    // other types, and both semantics of shift right
+    @Test
+    public void differentialLegacyOperations() throws Exception {
+        Random random = new Random(21);
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            for (int bits : new int[] { 8, 16, 24, 32, 40, 64, 72, 128, 136, 200, 256 }) {
+                for (boolean signed : new boolean[] { false, true }) {
+                    ASTElementaryTypeName type = TypeContainer.getIntegerType(signed, bits);
+                    ArrayList<ASTElementaryTypeName> countTypes = new ArrayList<ASTElementaryTypeName>();
+                    countTypes.add(TypeContainer.getIntegerType(false, 8));
+                    countTypes.add(TypeContainer.getIntegerType(true, 8));
+                    countTypes.add(TypeContainer.getIntegerType(false, 256));
+                    countTypes.add(TypeContainer.getIntegerType(true, 256));
+                    countTypes.add(TypeContainer.getIntegerType(random.nextBoolean(), 8 + random.nextInt(32) * 8));
+                    ArrayList<BigInteger> operands = createDifferentialOperands(type, random);
+
+                    for (BigInteger a : operands) {
+                        IntegerValue x = new IntegerValue(type, a);
+                        compareToLegacy("-", x, null);
+                        compareToLegacy("~", x, null);
+                        for (BigInteger b : operands) {
+                            IntegerValue y = new IntegerValue(type, b);
+                            for (String operator : new String[] { "+", "-", "*", "/", "%", "|", "&", "^", "<<", "**" }) {
+                                compareToLegacy(operator, x, y);
+                            }
+                        }
+                        for (ASTElementaryTypeName countType : countTypes) {
+                            for (BigInteger b : createDifferentialOperands(countType, random)) {
+                                IntegerValue y = new IntegerValue(countType, b);
+                                compareToLegacy("<<", x, y);
+                                compareToLegacy("**", x, y);
+                                for (int languageVersionMinor : new int[] { 4, 5 }) {
+                                    Configuration.current().languageVersionMinor = languageVersionMinor;
+                                    compareToLegacy(">>", x, y);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Pin the differences to the previous BigInteger implementation, which threw for signed MIN / -1 and accepted
+    // values wider than 256 bits, and the semantics kept from it for shift right and exp
+    @Test
+    public void legacyDifferences() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            ASTElementaryTypeName int8 = TypeContainer.getIntegerType(true, 8);
+            ASTElementaryTypeName uint8 = TypeContainer.getIntegerType(false, 8);
+            ASTElementaryTypeName int256 = TypeContainer.getIntegerType(true, 256);
+            IntegerValue min = new IntegerValue(int8, -128);
+            Assert.assertEquals("-128", min.div(new IntegerValue(int8, -1)).toString());
+            try {
+                new LegacyIntegerValue(int8, BigInteger.valueOf(-128)).div(new LegacyIntegerValue(int8, BigInteger.ONE.negate()));
+                Assert.fail("Expected invariant check");
+            } catch (Exception e) {
+            }
+            try {
+                // BigInteger.shiftRight() by a negative bit count shifts left
+                new IntegerValue(int256, 1).bitwiseShiftRight(new IntegerValue(int256, -300));
+                Assert.fail("Value exceeding 256 bits accepted");
+            } catch (Exception e) {
+            }
+
+            // The bit count limit and the result type are those of the shift bit count operand
+            Configuration.current().languageVersionMinor = 5;
+            IntegerValue negative = new IntegerValue(int256, -5);
+            IntegerValue shifted = negative.bitwiseShiftRight(new IntegerValue(uint8, 1));
+            Assert.assertEquals("uint8", shifted.getType().toSolidityCode());
+            Assert.assertEquals("-3", shifted.toString());
+            Assert.assertEquals("0", negative.bitwiseShiftRight(new IntegerValue(uint8, 8)).toString());
+            Assert.assertEquals("-1", negative.bitwiseShiftRight(new IntegerValue(int8, 8)).toString());
+            Assert.assertEquals("0", new IntegerValue(int256, BigInteger.ONE.shiftLeft(200)).bitwiseShiftRight(new IntegerValue(uint8, 181)).toString());
+            Configuration.current().languageVersionMinor = 4;
+            Assert.assertEquals("-2", negative.bitwiseShiftRight(new IntegerValue(uint8, 1)).toString());
+            Assert.assertEquals("0", negative.bitwiseShiftRight(new IntegerValue(uint8, 8)).toString());
+
+            // Signed exp is taken modulo 2**(bits-1)
+            Assert.assertEquals("101", new IntegerValue(int8, -3).exp(new IntegerValue(int8, 3)).toString());
+            Assert.assertEquals("0", new IntegerValue(int8, 2).exp(new IntegerValue(int8, 7)).toString());
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Test values that are out of range for their type, as produced by type inference and value generation
+    @Test
+    public void outOfRangeValues() throws Exception {
+        ASTElementaryTypeName int256 = TypeContainer.getIntegerType(true, 256);
+        BigInteger signedMaxPlusOne = BigInteger.ONE.shiftLeft(255);
+        IntegerValue value = new IntegerValue(int256, signedMaxPlusOne);
+        Assert.assertEquals(signedMaxPlusOne, value.getBigValue());
+        Assert.assertEquals(signedMaxPlusOne.negate(), value.negate().getBigValue());
+        Assert.assertTrue(value.isGreaterThan(new IntegerValue(int256, -1)).getValue());
+        Assert.assertEquals(BigInteger.valueOf(-4), value.div(new IntegerValue(int256, BigInteger.valueOf(-2).shiftLeft(252))).getBigValue());
+
+        IntegerValue inferred = new IntegerValue(BigInteger.valueOf(255));
+        Assert.assertEquals("int8", inferred.getType().toSolidityCode());
+        Assert.assertEquals("255", inferred.toString());
+
+        try {
+            new IntegerValue(int256, BigInteger.ONE.shiftLeft(256));
+            Assert.fail("Value exceeding 256 bits accepted");
+        } catch (Exception e) {
+        }
     }
 
     @Test
@@ -0,0 +1,181 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.interpretation.values;
+
+import soltix.Configuration;
+import soltix.ast.ASTElementaryTypeName;
+import soltix.interpretation.TypeContainer;
+
+import java.math.BigInteger;
+
+/**
+ * The integer operations of IntegerValue as they were implemented on BigInteger before the UInt256 representation,
+ * as reference for differential tests (see IntegerValueTest). Operations throw where the old implementation threw,
+ * including the invariant checks of results
+ */
+public class LegacyIntegerValue {
+    private final ASTElementaryTypeName type;
+    private final BigInteger value;
+
+    public LegacyIntegerValue(ASTElementaryTypeName type, BigInteger value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    public ASTElementaryTypeName getType() { return type; }
+    public BigInteger getValue() { return value; }
+
+    private BigInteger getMinValue() throws Exception {
+        return type.isSigned() ? BigInteger.ONE.shiftLeft(type.getBits() - 1).negate() : BigInteger.ZERO;
+    }
+
+    private BigInteger getMaxValue() throws Exception {
+        return BigInteger.ONE.shiftLeft(type.isSigned() ? type.getBits() - 1 : type.getBits()).subtract(BigInteger.ONE);
+    }
+
+    private BigInteger getNegationMask() throws Exception {
+        return BigInteger.ONE.shiftLeft(type.getBits()).subtract(BigInteger.ONE);
+    }
+
+    private LegacyIntegerValue invariantChecked(BigInteger result) throws Exception {
+        if (!type.isSigned() && result.signum() < 0) {
+            throw new Exception("Unsigned value unexpectedly turned negative");
+        }
+        if (result.compareTo(getMinValue()) < 0) {
+            throw new Exception("Value " + result + " smaller than minimum limit for type " + type.toSolidityCode());
+        }
+        if (result.compareTo(getMaxValue()) > 0) {
+            throw new Exception("Value " + result + " exceeds maximum limit for type " + type.toSolidityCode());
+        }
+        return new LegacyIntegerValue(type, result);
+    }
+
+    private BigInteger makeUnsigned(BigInteger value) {
+        return new BigInteger(value.toString().replace('-', '+'));
+    }
+
+    private BigInteger makeSigned(BigInteger value) throws Exception {
+        if (value.compareTo(getMaxValue()) > 0) {
+            BigInteger deltaValue = value.subtract(getMaxValue());
+            value = getMinValue().add(deltaValue.subtract(BigInteger.ONE));
+        } else if (value.compareTo(getMinValue()) < 0) {
+            BigInteger deltaValue = getMinValue().subtract(value);
+            value = getMaxValue().subtract(deltaValue.subtract(BigInteger.ONE));
+        }
+        return value;
+    }
+
+    // Limit the result of add, sub, mul and shift left to the type
+    private BigInteger limit(BigInteger result) throws Exception {
+        if (!type.isSigned()) {
+            return result.and(getNegationMask());
+        }
+        return makeSigned(result);
+    }
+
+    public LegacyIntegerValue negate() throws Exception {
+        BigInteger result;
+        if (!type.isSigned()) {
+            result = makeUnsigned(value.xor(getNegationMask()).add(BigInteger.ONE)).and(getNegationMask());
+        } else if (!getMinValue().equals(value)) {
+            result = value.negate();
+        } else {
+            result = value;
+        }
+        return invariantChecked(result);
+    }
+
+    public LegacyIntegerValue negateBitwise() throws Exception {
+        if (value.equals(getMinValue())) {
+            return invariantChecked(getMaxValue());
+        }
+        return invariantChecked(negate().sub(new LegacyIntegerValue(type, BigInteger.ONE)).value);
+    }
+
+    public LegacyIntegerValue add(LegacyIntegerValue other) throws Exception {
+        return invariantChecked(limit(value.add(other.value)));
+    }
+
+    public LegacyIntegerValue sub(LegacyIntegerValue other) throws Exception {
+        return invariantChecked(limit(value.subtract(other.value)));
+    }
+
+    public LegacyIntegerValue mul(LegacyIntegerValue other) throws Exception {
+        BigInteger result = value.multiply(other.value).and(getNegationMask());
+        return invariantChecked(type.isSigned() ? makeSigned(result) : result);
+    }
+
+    public LegacyIntegerValue div(LegacyIntegerValue other) throws Exception {
+        return invariantChecked(value.divide(other.value));
+    }
+
+    public LegacyIntegerValue mod(LegacyIntegerValue other) throws Exception {
+        return invariantChecked(value.remainder(other.value));
+    }
+
+    public LegacyIntegerValue bitwiseOr(LegacyIntegerValue other) throws Exception {
+        return invariantChecked(value.or(other.value));
+    }
+
+    public LegacyIntegerValue bitwiseAnd(LegacyIntegerValue other) throws Exception {
+        return invariantChecked(value.and(other.value));
+    }
+
+    public LegacyIntegerValue bitwiseXor(LegacyIntegerValue other) throws Exception {
+        return invariantChecked(value.xor(other.value));
+    }
+
+    public LegacyIntegerValue bitwiseShiftLeft(LegacyIntegerValue other) throws Exception {
+        if (other.value.compareTo(BigInteger.valueOf(256)) >= 0) {
+            return invariantChecked(BigInteger.ZERO);
+        }
+        BigInteger result = value.shiftLeft(other.value.shortValue()).and(getNegationMask());
+        return invariantChecked(type.isSigned() ? makeSigned(result) : result);
+    }
+
+    public LegacyIntegerValue bitwiseShiftRight(LegacyIntegerValue other) throws Exception {
+        ASTElementaryTypeName integerType = other.type;
+        boolean exceedsBits = other.value.compareTo(BigInteger.valueOf(integerType.getBits())) >= 0;
+        if (Configuration.current().languageVersionMinor >= 5) {
+            if (exceedsBits) {
+                if (!integerType.isSigned() || value.signum() >= 0) {
+                    return new LegacyIntegerValue(integerType, BigInteger.ZERO);
+                } else {
+                    return new LegacyIntegerValue(integerType, BigInteger.ONE.negate());
+                }
+            }
+            return new LegacyIntegerValue(integerType, value.shiftRight(other.value.shortValue()));
+        } else {
+            if (exceedsBits) {
+                return new LegacyIntegerValue(integerType, BigInteger.ZERO);
+            }
+            if (other.value.signum() == 0) {
+                return this;
+            }
+            LegacyIntegerValue divisor = new LegacyIntegerValue(TypeContainer.getIntegerType(false, 256),
+                    BigInteger.valueOf(2)).exp(other);
+            return div(divisor);
+        }
+    }
+
+    public LegacyIntegerValue exp(LegacyIntegerValue other) throws Exception {
+        return invariantChecked(value.modPow(other.value, getMaxValue().add(BigInteger.ONE)));
+    }
+}
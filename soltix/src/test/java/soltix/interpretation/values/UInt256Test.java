@@ -0,0 +1,149 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.values;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Test class for class UInt256, comparing its operations to BigInteger arithmetic modulo 2**256
+ */
+public class UInt256Test {
+    static private final BigInteger MODULUS = BigInteger.ONE.shiftLeft(256);
+    static private final BigInteger SIGN_BIT = BigInteger.ONE.shiftLeft(255);
+
+    // Unsigned operands: edge cases around limb and sign boundaries, and random values of random bit lengths
+    private ArrayList<BigInteger> createOperands() {
+        ArrayList<BigInteger> operands = new ArrayList<BigInteger>();
+        for (int bits : new int[] { 0, 1, 2, 31, 32, 33, 63, 64, 65, 127, 128, 129, 191, 192, 255, 256 }) {
+            BigInteger power = BigInteger.ONE.shiftLeft(bits);
+            operands.add(power.mod(MODULUS));
+            operands.add(power.subtract(BigInteger.ONE));
+            operands.add(power.add(BigInteger.ONE).mod(MODULUS));
+            operands.add(MODULUS.subtract(power).mod(MODULUS));
+        }
+        Random random = new Random(256);
+        for (int i = 0; i < 150; ++i) {
+            operands.add(new BigInteger(1 + random.nextInt(256), random));
+        }
+        return operands;
+    }
+
+    static private BigInteger signed(BigInteger value) {
+        return value.testBit(255) ? value.subtract(MODULUS) : value;
+    }
+
+    static private BigInteger unsigned(BigInteger value) {
+        return value.mod(MODULUS);
+    }
+
+    static private void assertWord(BigInteger expected, UInt256 result) {
+        Assert.assertEquals(unsigned(expected), result.toUnsignedBigInteger());
+        Assert.assertEquals(signed(unsigned(expected)), result.toSignedBigInteger());
+    }
+
+    @Test
+    public void testConversions() {
+        for (BigInteger value : createOperands()) {
+            assertWord(value, new UInt256(value));
+            assertWord(value, new UInt256(signed(value)));
+            Assert.assertEquals(unsigned(value).bitLength(), new UInt256(value).bitLength());
+            Assert.assertEquals(signed(value).bitLength() < 64, new UInt256(value).fitsInLong());
+        }
+        assertWord(BigInteger.valueOf(-5), new UInt256(-5));
+        Assert.assertEquals(new UInt256(-1), new UInt256(MODULUS.subtract(BigInteger.ONE)));
+        Assert.assertEquals(new UInt256(-1).hashCode(), new UInt256(MODULUS.subtract(BigInteger.ONE)).hashCode());
+    }
+
+    @Test
+    public void testArithmetic() {
+        ArrayList<BigInteger> operands = createOperands();
+        for (BigInteger a : operands) {
+            assertWord(a.negate(), new UInt256(a).negate());
+            assertWord(a.not(), new UInt256(a).not());
+            for (BigInteger b : operands) {
+                UInt256 x = new UInt256(a);
+                UInt256 y = new UInt256(b);
+                assertWord(a.add(b), new UInt256(x).add(y));
+                assertWord(a.subtract(b), new UInt256(x).subtract(y));
+                assertWord(a.multiply(b), new UInt256(x).multiply(y));
+                assertWord(a.and(b), new UInt256(x).and(y));
+                assertWord(a.or(b), new UInt256(x).or(y));
+                assertWord(a.xor(b), new UInt256(x).xor(y));
+                Assert.assertEquals(Integer.signum(a.compareTo(b)), Integer.signum(x.compareUnsigned(y)));
+                Assert.assertEquals(Integer.signum(signed(a).compareTo(signed(b))), Integer.signum(x.compareSigned(y)));
+
+                if (b.signum() == 0) {
+                    // EVM semantics
+                    Assert.assertTrue(new UInt256(x).divideUnsigned(y).isZero());
+                    Assert.assertTrue(new UInt256(x).remainderSigned(y).isZero());
+                    continue;
+                }
+                assertWord(a.divide(b), new UInt256(x).divideUnsigned(y));
+                assertWord(a.remainder(b), new UInt256(x).remainderUnsigned(y));
+                assertWord(signed(a).divide(signed(b)), new UInt256(x).divideSigned(y));
+                assertWord(signed(a).remainder(signed(b)), new UInt256(x).remainderSigned(y));
+            }
+        }
+    }
+
+    @Test
+    public void testAliasing() {
+        for (BigInteger a : createOperands()) {
+            UInt256 x = new UInt256(a);
+            assertWord(a.multiply(a), x.multiply(x));
+            x = new UInt256(a);
+            assertWord(a.pow(2).pow(2), x.multiply(x).multiply(x));
+            if (a.signum() != 0) {
+                x = new UInt256(a);
+                assertWord(BigInteger.ONE, x.divideUnsigned(x));
+            }
+        }
+    }
+
+    @Test
+    public void testShiftsAndExponentiation() {
+        ArrayList<BigInteger> operands = createOperands();
+        Random random = new Random(2);
+        for (BigInteger a : operands) {
+            for (int count : new int[] { 0, 1, 31, 63, 64, 65, 100, 128, 200, 255, 256, 300 }) {
+                assertWord(a.shiftLeft(count), new UInt256(a).shiftLeft(count));
+                assertWord(a.shiftRight(count), new UInt256(a).shiftRightUnsigned(count));
+                assertWord(signed(a).shiftRight(count), new UInt256(a).shiftRightSigned(count));
+            }
+            for (int bits = 8; bits <= 256; bits += 8) {
+                BigInteger low = a.mod(BigInteger.ONE.shiftLeft(bits));
+                BigInteger signedLow = low.testBit(bits - 1) ? low.subtract(BigInteger.ONE.shiftLeft(bits)) : low;
+                assertWord(low, new UInt256(a).truncate(bits, false));
+                assertWord(signedLow, new UInt256(a).truncate(bits, true));
+            }
+            BigInteger exponent = operands.get(random.nextInt(operands.size()));
+            assertWord(a.modPow(exponent, MODULUS), new UInt256(a).pow(new UInt256(exponent)));
+            assertWord(a.modPow(BigInteger.valueOf(3), MODULUS), new UInt256(a).pow(new UInt256(3)));
+        }
+        assertWord(BigInteger.ONE, new UInt256(0).pow(new UInt256(0)));
+        assertWord(SIGN_BIT, new UInt256(2).pow(new UInt256(255)));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.values;
+
+import soltix.SoltixContext;
+import soltix.ast.ASTElementaryTypeName;
+import soltix.interpretation.TypeContainer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test class for class ValueContainer
+ */
+public class ValueContainerTest {
+    // Test that equal values of one type are interned, while other types and values get distinct instances
+    @Test
+    public void testInterning() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            ASTElementaryTypeName int256 = TypeContainer.getIntegerType(true, 256);
+            ASTElementaryTypeName uint256 = TypeContainer.getIntegerType(false, 256);
+            ValueContainer values = context.getValueContainer();
+
+            IntegerValue small = ValueContainer.getSmallIntegerValue(int256, -7);
+            Assert.assertSame(small, ValueContainer.getBigIntegerValue(int256, BigInteger.valueOf(-7)));
+            Assert.assertNotSame(small, ValueContainer.getSmallIntegerValue(int256, 7));
+            Assert.assertNotSame(ValueContainer.getSmallIntegerValue(uint256, 7), ValueContainer.getSmallIntegerValue(int256, 7));
+
+            BigInteger large = BigInteger.ONE.shiftLeft(200).add(BigInteger.TEN);
+            IntegerValue largeValue = ValueContainer.getBigIntegerValue(uint256, large);
+            Assert.assertSame(largeValue, ValueContainer.getBigIntegerValue(uint256, new BigInteger(large.toString())));
+            Assert.assertNotSame(largeValue, ValueContainer.getBigIntegerValue(int256, large));
+            Assert.assertEquals(large, largeValue.getBigValue());
+
+            // Out-of-range values are created, but not interned
+            BigInteger outOfRange = BigInteger.ONE.shiftLeft(255);
+            IntegerValue outOfRangeValue = ValueContainer.getBigIntegerValue(int256, outOfRange);
+            Assert.assertEquals(outOfRange, outOfRangeValue.getBigValue());
+            Assert.assertNotSame(outOfRangeValue, ValueContainer.getBigIntegerValue(int256, outOfRange));
+
+            Assert.assertEquals(5, values.getInternedValueCount());
+            Assert.assertEquals(3, values.getHitCount());
+            Assert.assertEquals(5, values.getMissCount());
+            Assert.assertEquals(0, values.getEvictionCount());
+            Assert.assertSame(ValueContainer.getBoolValue(true), ValueContainer.getBoolValue(true));
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Test that the number of interned values stays bounded, and that values remain correct after evictions
+    @Test
+    public void testEviction() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            ASTElementaryTypeName uint64 = TypeContainer.getIntegerType(false, 64);
+            ASTElementaryTypeName uint256 = TypeContainer.getIntegerType(false, 256);
+            ValueContainer values = context.getValueContainer();
+            IntegerValue frequent = ValueContainer.getSmallIntegerValue(uint64, 1);
+            for (int i = 0; i < 20000; ++i) {
+                Assert.assertEquals(BigInteger.valueOf(i), ValueContainer.getSmallIntegerValue(uint64, i).getBigValue());
+                BigInteger large = BigInteger.ONE.shiftLeft(128).add(BigInteger.valueOf(i));
+                Assert.assertEquals(large, ValueContainer.getBigIntegerValue(uint256, large).getBigValue());
+                // Values which are used between evictions are retained
+                Assert.assertSame(frequent, ValueContainer.getSmallIntegerValue(uint64, 1));
+            }
+            Assert.assertTrue(values.getInternedValueCount() <= ValueContainer.DEFAULT_SMALL_VALUES_PER_TYPE + ValueContainer.DEFAULT_LARGE_VALUES);
+            Assert.assertTrue(values.getEvictionCount() >= 40000 - values.getInternedValueCount());
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Test that threads sharing a container obtain the same instances
+    @Test
+    public void testConcurrentInterning() throws Exception {
+        final SoltixContext context = new SoltixContext();
+        final ASTElementaryTypeName int32 = TypeContainer.getIntegerType(true, 32);
+        final ASTElementaryTypeName uint256 = TypeContainer.getIntegerType(false, 256);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ArrayList<Future<IntegerValue[]>> results = new ArrayList<Future<IntegerValue[]>>();
+            for (int thread = 0; thread < 4; ++thread) {
+                results.add(executor.submit(new Callable<IntegerValue[]>() {
+                    public IntegerValue[] call() throws Exception {
+                        context.attach();
+                        try {
+                            IntegerValue[] result = new IntegerValue[2000];
+                            for (int i = 0; i < 1000; ++i) {
+                                result[2 * i] = ValueContainer.getSmallIntegerValue(int32, i - 500);
+                                result[2 * i + 1] = ValueContainer.getBigIntegerValue(uint256, BigInteger.ONE.shiftLeft(100 + i % 100));
+                            }
+                            return result;
+                        } finally {
+                            context.detach();
+                        }
+                    }
+                }));
+            }
+            IntegerValue[] first = results.get(0).get();
+            for (Future<IntegerValue[]> result : results) {
+                IntegerValue[] values = result.get();
+                for (int i = 0; i < values.length; ++i) {
+                    Assert.assertSame(first[i], values[i]);
+                }
+            }
+            Assert.assertEquals(1100, context.getValueContainer().getInternedValueCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -30,6 +30,9 @@ import soltix.interpretation.values.StructValue;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.math.BigInteger;
+import java.util.HashSet;
+
 /**
  * Test class for class VariableEnvironment
  */
@@ -114,4 +117,59 @@ public class VariableEnvironmentTest extends UtilExpressionTests {
         currentValueString = environment.resolveVariableValue(0, "v1").toASTNode(false).toSolidityCode();
         Assert.assertTrue(currentValueString.equals("s0(int256(123), int256(7))"));
     }
+
+    private VariableEnvironment createSummarizedEnvironment(int budget, ASTNode firstType, ASTNode secondType,
+                                                           long[][] valueSets) throws Exception {
+        VariableEnvironment environment = new VariableEnvironment(new AST(), false);
+        environment.setValueSetBudget(budget);
+        VariableValues first = new VariableValues(createVariable(firstType, "a"), 0);
+        VariableValues second = new VariableValues(createVariable(secondType, "b"), 0);
+        environment.addVariableValues(first.getVariable(), first);
+        environment.addVariableValues(second.getVariable(), second);
+        for (long[] valueSet : valueSets) {
+            first.addValue(new IntegerValue(firstType, valueSet[0]));
+            second.addValue(new IntegerValue(secondType, valueSet[1]));
+            environment.completeValueSet();
+        }
+        environment.finishAddingValues();
+        return environment;
+    }
+
+    // Test that repeated value sets are dropped without summarizing, and that a sample retains all extreme values
+    @Test
+    public void testValueSetSummary() throws Exception {
+        ASTNode int256 = TypeContainer.getIntegerType(true, 256);
+        ASTNode uint8 = TypeContainer.getIntegerType(false, 8);
+
+        long[][] repeated = new long[100][];
+        for (int i = 0; i < repeated.length; ++i) {
+            repeated[i] = new long[] { i % 3, 7 };
+        }
+        VariableEnvironment environment = createSummarizedEnvironment(10, int256, uint8, repeated);
+        Assert.assertEquals(3, environment.getValueCount());
+        Assert.assertFalse(environment.isSummarized());
+
+        long[][] valueSets = new long[1000][];
+        HashSet<String> allValueSets = new HashSet<String>();
+        for (int i = 0; i < valueSets.length; ++i) {
+            valueSets[i] = new long[] { (i * 37) % 1001 - 500, 1 + i % 200 };
+            if (i == 600) {
+                valueSets[i] = new long[] { 123456789, 255 };
+            }
+            allValueSets.add(valueSets[i][0] + "," + valueSets[i][1]);
+        }
+        environment = createSummarizedEnvironment(20, int256, uint8, valueSets);
+        Assert.assertTrue(environment.isSummarized());
+        Assert.assertTrue(environment.getValueCount() <= 20 + 2 * 5);
+        for (int i = 0; i < environment.getValueCount(); ++i) {
+            String valueSet = environment.resolveVariableValue(i, "a") + "," + environment.resolveVariableValue(i, "b");
+            Assert.assertTrue(allValueSets.contains(valueSet));
+        }
+        VariableValues first = environment.getVariableValues("a");
+        VariableValues second = environment.getVariableValues("b");
+        Assert.assertEquals(BigInteger.valueOf(-500), first.getSmallestValue().getBigValue());
+        Assert.assertEquals(BigInteger.valueOf(123456789), first.getLargestValue().getBigValue());
+        Assert.assertEquals(BigInteger.valueOf(1), second.getSmallestValue().getBigValue());
+        Assert.assertEquals(BigInteger.valueOf(255), second.getLargestValue().getBigValue());
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.interpretation.variables;
+
+import soltix.ast.ASTElementaryTypeName;
+import soltix.ast.ASTNode;
+import soltix.interpretation.TypeContainer;
+import soltix.interpretation.expressions.UtilExpressionTests;
+import soltix.interpretation.values.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+/**
+ * Test class for class VariableValues
+ */
+public class VariableValuesTest extends UtilExpressionTests {
+    private VariableValues createValues(ASTNode type, String[] values) throws Exception {
+        VariableValues variableValues = new VariableValues(createVariable(type, "v"), 0);
+        for (String value : values) {
+            variableValues.addValue(new IntegerValue(type, new BigInteger(value)));
+        }
+        variableValues.finishAddingValues();
+        return variableValues;
+    }
+
+    private void checkValues(VariableValues variableValues, ASTNode type, String[] values, String smallest, String largest) throws Exception {
+        Assert.assertEquals(values.length, variableValues.getValueCount());
+        for (int i = 0; i < values.length; ++i) {
+            IntegerValue value = (IntegerValue)variableValues.getValue(i);
+            Assert.assertSame(type, value.getType());
+            Assert.assertEquals(new BigInteger(values[i]), value.getBigValue());
+        }
+        Assert.assertTrue(variableValues.haveMinMaxValues());
+        Assert.assertEquals(new BigInteger(smallest), variableValues.getSmallestValue().getBigValue());
+        Assert.assertEquals(new BigInteger(largest), variableValues.getLargestValue().getBigValue());
+    }
+
+    // Test that integers are reproduced exactly with their type, before and after the switch to 256-bit storage
+    @Test
+    public void testIntegerValues() throws Exception {
+        ASTElementaryTypeName int256 = TypeContainer.getIntegerType(true, 256);
+        ASTElementaryTypeName uint256 = TypeContainer.getIntegerType(false, 256);
+        BigInteger uint256Max = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+        BigInteger int256Min = BigInteger.ONE.shiftLeft(255).negate();
+
+        String[] small = new String[] { "5", "-3", "7", String.valueOf(Long.MIN_VALUE), "0" };
+        checkValues(createValues(int256, small), int256, small, String.valueOf(Long.MIN_VALUE), "7");
+
+        String[] signed = new String[] { "-1", int256Min.toString(), "18446744073709551616", "-18446744073709551617", "12" };
+        checkValues(createValues(int256, signed), int256, signed, int256Min.toString(), "18446744073709551616");
+
+        String[] unsigned = new String[] { "1", uint256Max.toString(), "9223372036854775808", "0" };
+        checkValues(createValues(uint256, unsigned), uint256, unsigned, "0", uint256Max.toString());
+
+        // Values outside of the type range are retained as they are
+        String[] outOfRange = new String[] { "-1", uint256Max.toString(), "3" };
+        checkValues(createValues(uint256, outOfRange), uint256, outOfRange, "-1", uint256Max.toString());
+        String[] signedOutOfRange = new String[] { int256Min.negate().toString(), "-1" };
+        checkValues(createValues(int256, signedOutOfRange), int256, signedOutOfRange, "-1", int256Min.negate().toString());
+    }
+
+    // Test that the smallest and largest values are updated for replaced values and values of different types
+    @Test
+    public void testIntegerUpdates() throws Exception {
+        ASTElementaryTypeName int256 = TypeContainer.getIntegerType(true, 256);
+        VariableValues variableValues = createValues(int256, new String[] { "4", "-2", "9" });
+        variableValues.updateValue(1, new IntegerValue(int256, BigInteger.valueOf(3)));
+        checkValues(variableValues, int256, new String[] { "4", "3", "9" }, "3", "9");
+
+        ASTElementaryTypeName otherType = new ASTElementaryTypeName(0, "int256");
+        IntegerValue otherValue = new IntegerValue(otherType, BigInteger.valueOf(-5));
+        variableValues.addValue(otherValue);
+        variableValues.finishAddingValues();
+        Assert.assertSame(otherValue, variableValues.getValue(3));
+        Assert.assertEquals(BigInteger.valueOf(-5), variableValues.getSmallestValue().getBigValue());
+        Assert.assertEquals(BigInteger.valueOf(9), variableValues.getLargestValue().getBigValue());
+    }
+
+    // Test that equal strings and bytes values are stored once
+    @Test
+    public void testDictionaryValues() throws Exception {
+        VariableValues strings = new VariableValues(createVariable(TypeContainer.getStringType(), "s"), 0);
+        StringValue first = new StringValue("a");
+        strings.addValue(first);
+        strings.addValue(new StringValue("b"));
+        strings.addValue(new StringValue("a"));
+        Assert.assertEquals(3, strings.finishAddingValues());
+        Assert.assertSame(first, strings.getValue(2));
+        Assert.assertEquals("b", ((StringValue)strings.getValue(1)).getValue());
+        Assert.assertFalse(strings.haveMinMaxValues());
+
+        ASTElementaryTypeName bytes2 = new ASTElementaryTypeName(0, "bytes2");
+        VariableValues bytes = new VariableValues(createVariable(bytes2, "b"), 0);
+        BytesValue firstBytes = new BytesValue(bytes2, new byte[] { 1, 2 });
+        bytes.addValue(firstBytes);
+        bytes.addValue(new BytesValue(bytes2, new byte[] { 1, 3 }));
+        bytes.addValue(new BytesValue(bytes2, new byte[] { 1, 2 }));
+        bytes.updateValue(1, new BoolValue(true));
+        Assert.assertSame(firstBytes, bytes.getValue(2));
+        Assert.assertTrue(bytes.getValue(1) instanceof BoolValue);
+    }
+}
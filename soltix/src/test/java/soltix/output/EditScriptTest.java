@@ -0,0 +1,164 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package soltix.output;
+
+import soltix.ASTEditJournal;
+import soltix.ASTEditor;
+import soltix.SoltixContext;
+import soltix.ast.AST;
+import soltix.ast.ASTNode;
+import soltix.ast.ASTVerbatimText;
+import soltix.benchmark.EmitterBenchmark;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * Test class for class EditScript
+ */
+public class EditScriptTest {
+    protected CodeOutputWriter render(ASTNode[] nodes) throws Exception {
+        CodeOutputWriter writer = new CodeOutputWriter(null);
+        for (ASTNode node : nodes) {
+            writer.println(node.toSolidityCode(), node);
+        }
+        return writer;
+    }
+
+    protected String text(CodeOutputWriter code) throws Exception {
+        StringWriter result = new StringWriter();
+        PrintWriter writer = new PrintWriter(result);
+        for (int i = 1; i <= code.getMemoryLineCount(); ++i) {
+            writer.println(code.getMemoryLine(i));
+        }
+        writer.flush();
+        return result.toString();
+    }
+
+    protected String scriptText(EditScript script) {
+        StringWriter scriptText = new StringWriter();
+        script.write(new PrintWriter(scriptText));
+        return scriptText.toString();
+    }
+
+    protected String apply(String base, EditScript script) throws Exception {
+        StringWriter result = new StringWriter();
+        EditScript.apply(new BufferedReader(new StringReader(base)),
+                new BufferedReader(new StringReader(scriptText(script))),
+                new PrintWriter(result));
+        return result.toString();
+    }
+
+    // Test that insertions (including multi-line node code and code equal to base lines) and deletions are
+    // reproduced exactly, and that insertions are grouped per position
+    @Test
+    public void testApply() throws Exception {
+        ASTNode open = new ASTVerbatimText(0, "{");
+        ASTNode s1 = new ASTVerbatimText(0, "x = 1;");
+        ASTNode s2 = new ASTVerbatimText(0, "//1\ny = 2;");
+        ASTNode s3 = new ASTVerbatimText(0, "z = 3;");
+        ASTNode close = new ASTVerbatimText(0, "}");
+        CodeOutputWriter base = render(new ASTNode[] { open, s1, s2, s3, close });
+
+        ASTNode wrapOpen = new ASTVerbatimText(0, "{");
+        ASTNode condition = new ASTVerbatimText(0, "if (x > 0)");
+        ASTNode wrapClose = new ASTVerbatimText(0, "}");
+        ASTNode appended = new ASTVerbatimText(0, "//2\n//3");
+        CodeOutputWriter derived = render(new ASTNode[] { open, wrapOpen, condition, s1, wrapClose, s3, close, appended });
+
+        EditScript script = EditScript.compute(base, derived);
+        Assert.assertEquals(3, script.getOperationCount());
+        Assert.assertEquals(text(derived), apply(text(base), script));
+
+        // Unchanged program
+        script = EditScript.compute(base, base);
+        Assert.assertEquals(0, script.getOperationCount());
+        Assert.assertEquals(text(base), apply(text(base), script));
+    }
+
+    // Test that a script is rejected for a base program it was not computed for
+    @Test
+    public void testBaseMismatch() throws Exception {
+        ASTNode s1 = new ASTVerbatimText(0, "x = 1;");
+        ASTNode s2 = new ASTVerbatimText(0, "y = 2;");
+        CodeOutputWriter base = render(new ASTNode[] { s1, s2 });
+        EditScript script = EditScript.compute(base, render(new ASTNode[] { s2 }));
+
+        try {
+            apply("x = 1;\ny = 3;\n", script);
+            Assert.fail("Expected hash mismatch");
+        } catch (Exception e) {
+            Assert.assertTrue(e.getMessage().contains("hash mismatch"));
+        }
+        try {
+            apply("x = 1;\n", script);
+            Assert.fail("Expected line count mismatch");
+        } catch (Exception e) {
+            Assert.assertTrue(e.getMessage().contains("base lines"));
+        }
+    }
+
+    // Test that scripts computed from the edits recorded for an AST are equal to those computed by comparing the
+    // whole program, for edits within functions, at contract level and outside of contracts, and that rolled back
+    // edits are no longer recorded
+    @Test
+    public void testRecordedEdits() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = EmitterBenchmark.buildProgram(4, 3, 1);
+            ASTEditor editor = new ASTEditor(ast);
+            ASTEditJournal journal = editor.enableJournal();
+            ASTEditJournal.Savepoint savepoint = journal.savepoint();
+            ast.setCodeCache(new SolidityCodeCache());
+            CodeOutputWriter baseCode = Emitter.renderSolidityCode(ast);
+            EditScript.Base base = new EditScript.Base(baseCode);
+            ast.setEditRecorder(new EditScript.Recorder());
+
+            editor.embedInBlock(ast.getFunctions().get(1).getBody().getChild(2));
+            editor.embedInIfStatement(new ASTVerbatimText(0, "true"), ast.getFunctions().get(3).getBody().getChild(0));
+            EditScript script = EditScript.compute(base, ast, ast.getEditRecorder());
+            Assert.assertEquals(4, script.getOperationCount());
+            Assert.assertEquals(scriptText(EditScript.compute(base, Emitter.renderSolidityCode(ast))), scriptText(script));
+            Assert.assertEquals(text(Emitter.renderSolidityCode(ast)), apply(text(baseCode), script));
+
+            ASTNode contract = ast.getContracts().get(0);
+            editor.insertChildNode(contract, 1, new ASTVerbatimText(0, "uint y;"));
+            script = EditScript.compute(base, ast, ast.getEditRecorder());
+            Assert.assertEquals(scriptText(EditScript.compute(base, Emitter.renderSolidityCode(ast))), scriptText(script));
+            Assert.assertEquals(text(Emitter.renderSolidityCode(ast)), apply(text(baseCode), script));
+
+            editor.addChildNode(ast.getRoot(), new ASTVerbatimText(0, "// end"));
+            script = EditScript.compute(base, ast, ast.getEditRecorder());
+            Assert.assertEquals(text(Emitter.renderSolidityCode(ast)), apply(text(baseCode), script));
+
+            journal.rollback(savepoint);
+            Assert.assertEquals(0, ast.getEditRecorder().getEditCount());
+            Assert.assertEquals(0, EditScript.compute(base, ast, ast.getEditRecorder()).getOperationCount());
+        } finally {
+            context.detach();
+        }
+    }
+}
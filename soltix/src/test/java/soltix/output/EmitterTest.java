@@ -0,0 +1,79 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.output;
+
+import soltix.SoltixContext;
+import soltix.ast.AST;
+import soltix.ast.ASTNode;
+import soltix.benchmark.EmitterBenchmark;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Test class for class Emitter
+ */
+public class EmitterTest {
+    static final String PROGRAM = "pragma solidity ^0.5.0;\n"
+        + "contract C {\n"
+        + "    uint256 x;\n"
+        + "    function f0() public\n"
+        + "    {\n"
+        + "            x = x + 1 + 1;\n"
+        + "            x = x + 1 + 1;\n"
+        + "    }\n"
+        + "    function f1() public\n"
+        + "    {\n"
+        + "            x = x + 1 + 1;\n"
+        + "            x = x + 1 + 1;\n"
+        + "    }\n"
+        + "}\n";
+
+    // Test that stream and memory output yield the same code, and that rendering a node into a buffer appends the
+    // code returned by toSolidityCode()
+    @Test
+    public void testRender() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = EmitterBenchmark.buildProgram(2, 2, 2);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            Emitter.emitSolidityCode(output, ast);
+            Assert.assertEquals(PROGRAM, output.toString("UTF-8").replace(System.lineSeparator(), "\n"));
+
+            CodeOutputWriter code = Emitter.renderSolidityCode(ast);
+            String[] lines = PROGRAM.split("\n");
+            Assert.assertEquals(lines.length, code.getMemoryLineCount());
+            for (int i = 0; i < lines.length; ++i) {
+                Assert.assertEquals(lines[i], code.getMemoryLine(i + 1));
+            }
+
+            ASTNode statement = code.getMemoryLineNode(6);
+            StringBuilder buffer = new StringBuilder("//");
+            Assert.assertTrue(statement.render(buffer));
+            Assert.assertEquals("//" + statement.toSolidityCode(), buffer.toString());
+            Assert.assertFalse(ast.getRoot().render(buffer));
+            Assert.assertEquals("//x = x + 1 + 1", buffer.toString());
+        } finally {
+            context.detach();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.output;
+
+import soltix.ASTEditJournal;
+import soltix.ASTEditor;
+import soltix.SoltixContext;
+import soltix.ast.AST;
+import soltix.ast.ASTBlock;
+import soltix.ast.FunctionScope;
+import soltix.benchmark.EmitterBenchmark;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Test class for class SolidityCodeCache
+ */
+public class SolidityCodeCacheTest {
+    protected String emit(AST ast) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Emitter.emitSolidityCode(output, ast);
+        return output.toString("UTF-8");
+    }
+
+    protected String text(CodeOutputWriter code) throws Exception {
+        StringBuilder result = new StringBuilder();
+        for (int i = 1; i <= code.getMemoryLineCount(); ++i) {
+            result.append(code.getMemoryLine(i)).append('\n');
+        }
+        return result.toString();
+    }
+
+    // Test that only the edited function and its contract are rendered again, that the output matches that of an
+    // uncached emission, and that rolling back the edit restores the cached code of the original program
+    @Test
+    public void testInvalidation() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = EmitterBenchmark.buildProgram(3, 2, 1);
+            String original = emit(ast);
+            ASTEditor editor = new ASTEditor(ast);
+            ASTEditJournal journal = editor.enableJournal();
+            ASTEditJournal.Savepoint savepoint = journal.savepoint();
+            SolidityCodeCache cache = new SolidityCodeCache();
+            ast.setCodeCache(cache);
+
+            Assert.assertEquals(original, emit(ast));
+            Assert.assertEquals(4, cache.getFragmentCount());
+            FunctionScope function = ast.getFunctions().get(1);
+            CodeOutputWriter.Fragment functionCode = cache.get(function);
+            CodeOutputWriter.Fragment otherFunctionCode = cache.get(ast.getFunctions().get(2));
+            Assert.assertEquals(5, functionCode.getLineCount());
+
+            ASTBlock block = editor.embedInBlock(function.getBody().getChild(1));
+            Assert.assertEquals(2, cache.getFragmentCount());
+            Assert.assertNull(cache.get(function));
+            Assert.assertSame(otherFunctionCode, cache.get(ast.getFunctions().get(2)));
+            // Not journaled, but allowed for a function that has been invalidated
+            block.addChildNode(new ASTBlock(0));
+
+            String edited = emit(ast);
+            Assert.assertFalse(original.equals(edited));
+            Assert.assertEquals(4, cache.getFragmentCount());
+            Assert.assertEquals(9, cache.get(function).getLineCount());
+            Assert.assertEquals(edited.replace(System.lineSeparator(), "\n"), text(Emitter.renderSolidityCode(ast)));
+            ast.setCodeCache(null);
+            Assert.assertEquals(edited, emit(ast));
+            ast.setCodeCache(cache);
+
+            journal.rollback(savepoint);
+            Assert.assertSame(functionCode, cache.get(function));
+            Assert.assertEquals(original, emit(ast));
+        } finally {
+            context.detach();
+        }
+    }
+}
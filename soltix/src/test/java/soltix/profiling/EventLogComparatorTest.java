@@ -0,0 +1,164 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.profiling;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+/**
+ * Test class for class EventLogComparator
+ */
+public class EventLogComparatorTest {
+    static final String LOG = "{\"logIndex\":0,\"event\":\"Profiling_C_1_0\",\"args\":{\"x\":\"1\"}}\n"
+        + "{\"logIndex\":1,\"event\":\"E\",\"args\":{\"a\":1,\"b\":\"2\",\"c\":[true,null,{\"q\":1.5,\"p\":0}]}}\n"
+        + "{\"logIndex\":2,\"data\":\"0x0\",\"type\":\"mined\"}\n"
+        + "{\"event\":\"F\",\"args\":{}}\n";
+
+    protected File write(File directory, String name, String text) throws Exception {
+        File file = new File(directory, name);
+        Files.write(file.toPath(), text.getBytes("UTF-8"));
+        return file;
+    }
+
+    // Test that argument order and unnamed events do not matter, that profiling events only matter if requested, and
+    // that value types and extra events are significant
+    @Test
+    public void testEqual() throws Exception {
+        File directory = Files.createTempDirectory("event-log-test").toFile();
+        try {
+            String log = write(directory, "log", LOG).getPath();
+            String reordered = write(directory, "reordered",
+                    "{\"args\":{\"c\":[true,null,{\"p\":0,\"q\":1.5}],\"b\":\"2\",\"a\":1},\"event\":\"E\"}\n"
+                    + "{\"args\":{},\"event\":\"F\"}").getPath();
+            Assert.assertTrue(EventLogComparator.equal(log, reordered, true));
+            Assert.assertFalse(EventLogComparator.equal(log, reordered, false));
+            Assert.assertEquals(EventLogComparator.digest(log, true), EventLogComparator.digest(reordered, true));
+            Assert.assertEquals(2, EventLogComparator.digest(log, true).getEventCount());
+
+            String retyped = write(directory, "retyped", LOG.replace("\"a\":1", "\"a\":\"1\"")).getPath();
+            Assert.assertFalse(EventLogComparator.equal(log, retyped, true));
+            EventLogComparator.Difference difference = EventLogComparator.findDifference(log, retyped, true);
+            Assert.assertEquals(2, difference.getFirstLineNumber());
+            Assert.assertEquals("E", difference.getSecondEventName());
+
+            String extended = write(directory, "extended", LOG + "{\"event\":\"G\",\"args\":{}}\n").getPath();
+            Assert.assertFalse(EventLogComparator.equal(log, extended, true));
+            Assert.assertNull(EventLogComparator.findDifference(log, log, false));
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    // Test that the difference of logs of unequal length reports the last line read from the shorter log, as the
+    // line-by-line comparison did, and its end instead of an event
+    @Test
+    public void testUnequalLength() throws Exception {
+        File directory = Files.createTempDirectory("event-log-test").toFile();
+        try {
+            String log = write(directory, "log", LOG).getPath();
+            String extended = write(directory, "extended", LOG + "{\"event\":\"G\",\"args\":{}}\n").getPath();
+            Assert.assertFalse(EventLogComparator.equal(log, extended, true));
+
+            EventLogComparator.Difference difference = EventLogComparator.findDifference(log, extended, true);
+            Assert.assertEquals(4, difference.getFirstLineNumber());
+            Assert.assertNull(difference.getFirstEventName());
+            Assert.assertEquals(5, difference.getSecondLineNumber());
+            Assert.assertEquals("G", difference.getSecondEventName());
+            Assert.assertEquals("Error: Log difference on line 4 (a, end of log) vs line 5 (b, event G)",
+                    EventLogComparator.describeDifference("a", "b", difference));
+
+            // The trailing line without an event still counts as read
+            String truncated = write(directory, "truncated", LOG.substring(0, LOG.indexOf("{\"event\":\"F\""))).getPath();
+            difference = EventLogComparator.findDifference(extended, truncated, true);
+            Assert.assertEquals(4, difference.getFirstLineNumber());
+            Assert.assertEquals("F", difference.getFirstEventName());
+            Assert.assertEquals(3, difference.getSecondLineNumber());
+            Assert.assertNull(difference.getSecondEventName());
+            Assert.assertEquals("Error: Log difference on line 4 (a, event F) vs line 3 (b, end of log)",
+                    EventLogComparator.describeDifference("a", "b", difference));
+
+            EventLogBaseline baseline = new EventLogBaseline(log, true);
+            difference = baseline.findDifference(extended);
+            Assert.assertEquals(4, difference.getFirstLineNumber());
+            Assert.assertNull(difference.getFirstEventName());
+            Assert.assertEquals(5, difference.getSecondLineNumber());
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    // Test that logs are compared against an in-memory baseline as by findDifference(), and that the summary has
+    // one line per log in the given order
+    @Test
+    public void testCompareAll() throws Exception {
+        File directory = Files.createTempDirectory("event-log-test").toFile();
+        try {
+            String log = write(directory, "log", LOG).getPath();
+            write(directory, "m0.log", LOG.replace("\"logIndex\":1,", ""));
+            write(directory, "m1.log", LOG.replace("\"F\"", "\"G\""));
+            write(directory, "m2.log", "{\"event\":\"E\",\"args\":{}}\n");
+            ArrayList<String> logs = EventLogComparator.expandLogPaths(new File(directory, "m*.log").getPath()
+                    + "," + log);
+            Assert.assertEquals(4, logs.size());
+            Assert.assertTrue(logs.get(2).endsWith("m2.log"));
+
+            EventLogBaseline baseline = new EventLogBaseline(log, true);
+            Assert.assertEquals(2, baseline.getEventCount());
+            for (String other : logs) {
+                EventLogComparator.Difference expected = EventLogComparator.findDifference(log, other, true);
+                EventLogComparator.Difference difference = baseline.findDifference(other);
+                Assert.assertEquals(expected == null, difference == null);
+                if (expected != null) {
+                    Assert.assertEquals(expected.getFirstLineNumber(), difference.getFirstLineNumber());
+                    Assert.assertEquals(expected.getSecondLineNumber(), difference.getSecondLineNumber());
+                    Assert.assertEquals(expected.getSecondEventName(), difference.getSecondEventName());
+                    Assert.assertEquals(expected.getFirstEventName(), difference.getFirstEventName());
+                }
+            }
+
+            StringWriter summary = new StringWriter();
+            Assert.assertFalse(EventLogComparator.compareAll(log, logs, true, 2, new PrintWriter(summary)));
+            String[] lines = summary.toString().split("\n");
+            Assert.assertEquals(4, lines.length);
+            Assert.assertTrue(lines[0].contains("\"equal\":true"));
+            Assert.assertTrue(lines[1].contains("\"event\":\"G\""));
+            Assert.assertTrue(lines[1].contains("\"line\":4"));
+            Assert.assertTrue(lines[2].contains("\"baselineEvent\":\"E\""));
+            Assert.assertTrue(lines[3].contains("\"equal\":true"));
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.profiling;
+
+import soltix.Configuration;
+import soltix.SoltixContext;
+import soltix.ast.AST;
+import soltix.ast.ASTContractDefinition;
+import soltix.ast.ASTElementaryTypeName;
+import soltix.ast.ASTNode;
+import soltix.ast.ASTVariableDeclaration;
+import soltix.ast.ASTVerbatimText;
+import soltix.input.JSONTokenReader;
+import soltix.interpretation.values.AddressValue;
+import soltix.interpretation.values.BoolValue;
+import soltix.interpretation.values.BytesValue;
+import soltix.interpretation.values.IntegerValue;
+import soltix.interpretation.values.StringValue;
+import soltix.interpretation.variables.Variable;
+import soltix.interpretation.variables.VariableEnvironment;
+import org.json.simple.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.util.ArrayList;
+
+/**
+ * Test class for class ProfilingEventDecoder
+ */
+public class ProfilingEventDecoderTest {
+    static private final String address = "0x0123456789abcdef0123456789abcdef01234567";
+
+    private AST ast;
+    private ASTContractDefinition contract;
+    private ASTNode statement;
+
+    private Variable createVariable(String type, String name) throws Exception {
+        ASTVariableDeclaration declaration = new ASTVariableDeclaration(0, name, type,
+                "default", "internal", false, false);
+        declaration.addChildNode(new ASTElementaryTypeName(0, type));
+        declaration.finalize();
+        return new Variable(declaration);
+    }
+
+    // Create an event definition with one argument of each decoded type, and the environment of its statement
+    private ProfilingEvent createDefinition() throws Exception {
+        ast = new AST();
+        contract = new ASTContractDefinition(0, "C", "contract");
+        statement = new ASTVerbatimText(0, "x = 1;");
+        ProfilingEvent definition = new ProfilingEvent(contract, statement, 0);
+        definition.addArgument(createVariable("uint256", "u"));
+        definition.addArgument(createVariable("int8", "i"));
+        definition.addArgument(createVariable("bool", "b"));
+        definition.addArgument(createVariable("string", "s"));
+        definition.addArgument(createVariable("address", "a"));
+        definition.addArgument(createVariable("bytes2", "y"));
+        ArrayList<ProfilingEvent> events = new ArrayList<ProfilingEvent>();
+        events.add(definition);
+        statement.setVariableEnvironment(new VariableEnvironment(ast, events, statement.getID(), false));
+        return definition;
+    }
+
+    private JSONTokenReader reader(String text) {
+        return new JSONTokenReader(new StringReader(text));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void put(JSONObject object, String key, Object value) {
+        object.put(key, value);
+    }
+
+    private BigInteger integer(VariableEnvironment environment, String name, int index) throws Exception {
+        return ((IntegerValue)environment.getVariableValues(name).getValue(index)).getBigValue();
+    }
+
+    // Test that the values of each argument type are decoded from a reader and from a JSONObject, and that
+    // truffle/ganache metadata is skipped
+    @Test
+    public void testDecodeTypes() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            ProfilingEvent definition = createDefinition();
+            VariableEnvironment environment = statement.getVariableEnvironment();
+            ProfilingEventDecoder decoder = new ProfilingEventDecoder(definition);
+
+            decoder.decode(reader("{\"0\":\"ff\",\"u\":\"ff\",\"i\":\"-7f\",\"b\":true,\"s\":\"text\",\"a\":\""
+                    + address + "\",\"y\":\"0xab01\",\"__length__\":6}"));
+
+            JSONObject arguments = new JSONObject();
+            put(arguments, "u", "1.5e3"); // not hexadecimal, so read as decimal
+            put(arguments, "i", "10");
+            put(arguments, "b", false);
+            put(arguments, "s", "");
+            put(arguments, "a", address);
+            put(arguments, "y", "0x00ff");
+            put(arguments, "1", "ignored");
+            decoder.decode(arguments);
+
+            Assert.assertEquals(BigInteger.valueOf(255), integer(environment, "u", 0));
+            Assert.assertEquals(BigInteger.valueOf(1500), integer(environment, "u", 1));
+            Assert.assertEquals(BigInteger.valueOf(-127), integer(environment, "i", 0));
+            Assert.assertEquals(BigInteger.valueOf(16), integer(environment, "i", 1));
+            Assert.assertTrue(((BoolValue)environment.getVariableValues("b").getValue(0)).getValue());
+            Assert.assertFalse(((BoolValue)environment.getVariableValues("b").getValue(1)).getValue());
+            Assert.assertEquals("text", ((StringValue)environment.getVariableValues("s").getValue(0)).getValue());
+            Assert.assertEquals("", ((StringValue)environment.getVariableValues("s").getValue(1)).getValue());
+            Assert.assertEquals(address, ((AddressValue)environment.getVariableValues("a").getValue(1)).toJSONRepresentation());
+            Assert.assertArrayEquals(new byte[] { (byte)0xab, 0x01 },
+                    ((BytesValue)environment.getVariableValues("y").getValue(0)).getValue());
+            Assert.assertArrayEquals(new byte[] { 0x00, (byte)0xff },
+                    ((BytesValue)environment.getVariableValues("y").getValue(1)).getValue());
+
+            environment.finishAddingValues();
+            Assert.assertEquals(2, environment.getValueCount());
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Test that arguments logged out of their order of definition are stored to their own variables, and that
+    // arguments that are not part of the event are rejected
+    @Test
+    public void testArgumentOrder() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            ProfilingEvent definition = createDefinition();
+            VariableEnvironment environment = statement.getVariableEnvironment();
+            ProfilingEventDecoder decoder = new ProfilingEventDecoder(definition);
+            Assert.assertEquals(1, decoder.findArgument("i", 0));
+            Assert.assertEquals(1, decoder.findArgument("i", 5));
+            Assert.assertEquals(-1, decoder.findArgument("z", 0));
+
+            decoder.decode(reader("{\"y\":\"0x0001\",\"a\":\"" + address
+                    + "\",\"s\":\"x\",\"b\":false,\"i\":\"1\",\"u\":\"2\"}"));
+            Assert.assertEquals(BigInteger.valueOf(2), integer(environment, "u", 0));
+            Assert.assertEquals(BigInteger.ONE, integer(environment, "i", 0));
+            Assert.assertEquals("x", ((StringValue)environment.getVariableValues("s").getValue(0)).getValue());
+
+            try {
+                decoder.decode(reader("{\"u\":\"2\",\"z\":\"3\"}"));
+                Assert.fail("Expected unknown argument");
+            } catch (Exception e) {
+                Assert.assertTrue(e.getMessage().contains("argument name 'z'"));
+            }
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Test that malformed values and argument lists are rejected
+    @Test
+    public void testMalformed() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            ProfilingEventDecoder decoder = new ProfilingEventDecoder(createDefinition());
+            try {
+                decoder.decode(reader("{\"y\":\"ab01\"}"));
+                Assert.fail("Expected malformed byte value");
+            } catch (Exception e) {
+                Assert.assertTrue(e.getMessage().startsWith("Malformed byte value"));
+            }
+            try {
+                decoder.decode(reader("{\"y\":\"0xab\"}"));
+                Assert.fail("Expected byte value of unexpected length");
+            } catch (Exception e) {
+                Assert.assertTrue(e.getMessage().contains("unexpected length"));
+            }
+            try {
+                decoder.decode(reader("[\"ff\"]"));
+                Assert.fail("Expected non-object arguments");
+            } catch (Exception e) {
+                Assert.assertEquals("Profiling event arguments are not a JSON object", e.getMessage());
+            }
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Test that the decoder is compiled once per definition, and that the value set budget of the configuration is
+    // applied by ProfilingEvent rather than by the decoder
+    @Test
+    public void testValueSetBudget() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            Configuration.current().valueSetBudget = 3;
+            ProfilingEvent definition = createDefinition();
+            new ProfilingEventDecoder(definition);
+            Assert.assertEquals(0, statement.getVariableEnvironment().getValueSetBudget());
+
+            ast.setProfilingEventTable(new ProfilingEventTable());
+            ast.getProfilingEventTable().add(definition);
+            ProfilingEvent first = ProfilingEvent.fromName(ast, definition.getName());
+            ProfilingEvent second = ProfilingEvent.fromName(ast, definition.getName());
+            ProfilingEventDecoder decoder = first.getDecoder();
+            Assert.assertNotNull(decoder);
+            Assert.assertSame(decoder, second.getDecoder());
+            Assert.assertEquals(3, statement.getVariableEnvironment().getValueSetBudget());
+        } finally {
+            context.detach();
+        }
+    }
+}
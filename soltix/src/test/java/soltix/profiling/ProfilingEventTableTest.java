@@ -0,0 +1,132 @@
+/*
+ * SOLTIX - Scalable automated framework for testing Solidity compilers.
+ *
+ * Author: Nils Weller <nweller@uni-bremen.de>
+ *
+ * Copyright (C) 2018 Secure, Reliable, and Intelligent Systems Lab, ETH Zurich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package soltix.profiling;
+
+import soltix.SoltixContext;
+import soltix.ast.AST;
+import soltix.ast.ASTContractDefinition;
+import soltix.ast.ASTNode;
+import soltix.ast.ASTVerbatimText;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for class ProfilingEventTable
+ */
+public class ProfilingEventTableTest {
+    // Test that events are found by their generated names, including names built separately from the added events,
+    // and that other names are not found
+    @Test
+    public void testLookup() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            ASTContractDefinition contract = new ASTContractDefinition(0, "C", "contract");
+            ASTNode statement = new ASTVerbatimText(0, "x = 1;");
+            ProfilingEventTable table = new ProfilingEventTable();
+            ProfilingEvent first = new ProfilingEvent(contract, statement, 0);
+            ProfilingEvent second = new ProfilingEvent(contract, statement, 1);
+            table.add(first);
+            table.add(second);
+            Assert.assertEquals(2, table.getEventCount());
+
+            String prefix = ProfilingEvent.profilingEventPrefix + "C_" + statement.getID() + "_";
+            Assert.assertSame(first, table.lookup(prefix + 0));
+            Assert.assertSame(second, table.lookup(prefix + 1));
+            Assert.assertSame(contract, table.lookup(prefix + 1).getContract());
+            Assert.assertSame(statement, table.lookup(prefix + 1).getStatement());
+
+            // Unknown part number, statement, contract and non-profiling events
+            Assert.assertNull(table.lookup(prefix + 2));
+            Assert.assertNull(table.lookup(ProfilingEvent.profilingEventPrefix + "C_" + (statement.getID() + 1) + "_0"));
+            Assert.assertNull(table.lookup(ProfilingEvent.profilingEventPrefix + "D_" + statement.getID() + "_0"));
+            Assert.assertNull(table.lookup("Transfer"));
+            Assert.assertNull(new ProfilingEventTable().lookup(prefix + 0));
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Test that events whose names have equal hash codes, or are equal apart from underscores in contract names,
+    // are kept apart, and that an event added again under the same name replaces the previous one
+    @Test
+    public void testCollisions() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            ProfilingEventTable table = new ProfilingEventTable();
+            // "Aa" and "BB" have the same String hash code, and so do names that only differ in them
+            ProfilingEvent aa = new ProfilingEvent("Aa", 1, 0);
+            ProfilingEvent bb = new ProfilingEvent("BB", 1, 0);
+            Assert.assertEquals(aa.getName().hashCode(), bb.getName().hashCode());
+            // Contract names may contain underscores and digits, as in Profiling_A_1_2_3 for contract A_1
+            ProfilingEvent underscore = new ProfilingEvent("A_1", 2, 3);
+            ProfilingEvent plain = new ProfilingEvent("A", 12, 3);
+            table.add(aa);
+            table.add(bb);
+            table.add(underscore);
+            table.add(plain);
+            Assert.assertEquals(4, table.getEventCount());
+            Assert.assertSame(aa, table.lookup("Profiling_Aa_1_0"));
+            Assert.assertSame(bb, table.lookup("Profiling_BB_1_0"));
+            Assert.assertSame(underscore, table.lookup("Profiling_A_1_2_3"));
+            Assert.assertSame(plain, table.lookup("Profiling_A_12_3"));
+
+            ProfilingEvent replacement = new ProfilingEvent("Aa", 1, 0);
+            table.add(replacement);
+            Assert.assertEquals(4, table.getEventCount());
+            Assert.assertSame(replacement, table.lookup("Profiling_Aa_1_0"));
+        } finally {
+            context.detach();
+        }
+    }
+
+    // Test that events read from a log are resolved through the table of their AST, and that events missing from it
+    // fall back to decoding their names
+    @Test
+    public void testDecoding() throws Exception {
+        SoltixContext context = new SoltixContext();
+        context.attach();
+        try {
+            AST ast = new AST();
+            ASTContractDefinition contract = new ASTContractDefinition(0, "C", "contract");
+            ASTNode statement = new ASTVerbatimText(0, "x = 1;");
+            ast.setProfilingEventTable(new ProfilingEventTable());
+            ast.getProfilingEventTable().add(new ProfilingEvent(contract, statement, 0));
+
+            ProfilingEvent event = ProfilingEvent.fromName(ast, "Profiling_C_" + statement.getID() + "_0");
+            Assert.assertSame(contract, event.getContract());
+            Assert.assertSame(statement, event.getStatement());
+            Assert.assertEquals(statement.getID(), event.getStatementID());
+            Assert.assertFalse(event.getIsOrdinaryUserEvent());
+
+            Assert.assertTrue(ProfilingEvent.fromName(ast, "Transfer").getIsOrdinaryUserEvent());
+            try {
+                // Not in the table, so the name is decoded, but the AST has no such statement
+                ProfilingEvent.fromName(ast, "Profiling_D_" + statement.getID() + "_0");
+                Assert.fail("Expected unknown statement");
+            } catch (Exception e) {
+                Assert.assertTrue(e.getMessage().contains("unknown node ID " + statement.getID()));
+            }
+        } finally {
+            context.detach();
+        }
+    }
+}
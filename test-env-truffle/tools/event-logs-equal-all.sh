@@ -0,0 +1,22 @@
+#!/bin/sh
+#
+# Compare many event logs against one baseline log in a single run, e.g. to re-check all mutant logs of a result
+# directory. do-run-one-test.sh still checks every mutant right after running it (event-logs-equal.sh), so that a
+# test stops at the first difference instead of running the remaining mutants
+
+SETTINGS=`dirname $0`/../../settings.cfg.sh
+if ! . "$SETTINGS"; then
+        echo Error: Cannot load settings file $SETTINGS - please run setup.sh
+        exit 1
+fi
+
+if test "$#" != 3; then
+	echo "Usage: ./event-logs-equal-all.sh [baseline profiling-events.log] [other logs] [summary output file]"
+	echo "The other logs are given as comma-separated paths or glob patterns (quoted), or as @file listing one path per line"
+	echo "The summary contains one JSON line per log with the result and the first differing event, if any"
+	echo "Note that absolute input paths are expected"
+	exit 1
+fi
+
+run-soltix.sh --no-input-code --testEventLogEquivalenceAll="$1"="$2"="$3"
+exit $?